@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.api.dataset.lib;
+
+import io.cdap.cdap.api.annotation.Beta;
+import io.cdap.cdap.api.common.Bytes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+
+/**
+ * Definition of a composite index of an {@link IndexedTable}. A composite index is keyed by the values of multiple
+ * columns, in the given order, and supports exact lookups on a prefix of these columns, optionally combined with a
+ * range on the next column. A composite index can also cover additional columns, whose values are stored in the
+ * index, so that lookups can be answered from the index without reading the data table.
+ *
+ * <p>
+ * Composite indexes are configured with the {@link IndexedTable#COMPOSITE_INDEXES_CONF_KEY} and
+ * {@link IndexedTable#COMPOSITE_INDEX_COVERED_COLUMNS_CONF_KEY} properties.
+ * </p>
+ */
+@Beta
+public final class CompositeIndex {
+
+  private final String name;
+  private final List<byte[]> columns;
+  private final SortedSet<byte[]> coveredColumns;
+
+  public CompositeIndex(String name, List<byte[]> columns, SortedSet<byte[]> coveredColumns) {
+    if (columns.isEmpty()) {
+      throw new IllegalArgumentException("Composite index '" + name + "' must have at least one column");
+    }
+    SortedSet<byte[]> distinct = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    distinct.addAll(columns);
+    if (distinct.size() != columns.size()) {
+      throw new IllegalArgumentException("Composite index '" + name + "' has duplicate columns");
+    }
+    this.name = name;
+    this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+    SortedSet<byte[]> covered = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    covered.addAll(coveredColumns);
+    covered.removeAll(distinct);
+    this.coveredColumns = Collections.unmodifiableSortedSet(covered);
+  }
+
+  /**
+   * Parses composite index definitions.
+   *
+   * @param indexes index definitions separated by semicolons, each of the form {@code name=column1,column2,...}
+   * @param coveredColumns covered columns separated by semicolons, each of the form {@code name=column1,column2,...}
+   *                       where name refers to an index
+   * @return the composite indexes by name, in the order they are defined
+   */
+  public static Map<String, CompositeIndex> parse(@Nullable String indexes, @Nullable String coveredColumns) {
+    Map<String, List<byte[]>> indexColumns = parseDefinitions(indexes);
+    Map<String, List<byte[]>> covered = parseDefinitions(coveredColumns);
+    for (String name : covered.keySet()) {
+      if (!indexColumns.containsKey(name)) {
+        throw new IllegalArgumentException("Covered columns are defined for unknown composite index '" + name + "'");
+      }
+    }
+
+    Map<String, CompositeIndex> result = new LinkedHashMap<>();
+    for (Map.Entry<String, List<byte[]>> entry : indexColumns.entrySet()) {
+      SortedSet<byte[]> coveredSet = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+      List<byte[]> coveredList = covered.get(entry.getKey());
+      if (coveredList != null) {
+        coveredSet.addAll(coveredList);
+      }
+      result.put(entry.getKey(), new CompositeIndex(entry.getKey(), entry.getValue(), coveredSet));
+    }
+    return result;
+  }
+
+  private static Map<String, List<byte[]>> parseDefinitions(@Nullable String definitions) {
+    Map<String, List<byte[]>> result = new LinkedHashMap<>();
+    if (definitions == null || definitions.isEmpty()) {
+      return result;
+    }
+    for (String definition : definitions.split(";")) {
+      int idx = definition.indexOf('=');
+      if (idx <= 0 || idx == definition.length() - 1) {
+        throw new IllegalArgumentException("Invalid composite index definition '" + definition
+                                             + "'. It must be of the form name=column1,column2");
+      }
+      String name = definition.substring(0, idx);
+      if (result.containsKey(name)) {
+        throw new IllegalArgumentException("Composite index '" + name + "' is defined more than once");
+      }
+      List<byte[]> columns = new ArrayList<>();
+      for (String column : definition.substring(idx + 1).split(",")) {
+        columns.add(Bytes.toBytes(column));
+      }
+      result.put(name, columns);
+    }
+    return result;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the indexed columns, in the order they make up the index key.
+   */
+  public List<byte[]> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Returns the columns whose values are stored in the index in addition to the indexed columns.
+   */
+  public SortedSet<byte[]> getCoveredColumns() {
+    return coveredColumns;
+  }
+
+  /**
+   * Returns whether the given column is indexed or covered by this index.
+   */
+  public boolean contains(byte[] column) {
+    return coveredColumns.contains(column) || indexOf(column) >= 0;
+  }
+
+  int indexOf(byte[] column) {
+    for (int i = 0; i < columns.size(); i++) {
+      if (Bytes.equals(columns.get(i), column)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    CompositeIndex that = (CompositeIndex) o;
+    return name.equals(that.name)
+      && equals(columns, that.columns)
+      && equals(coveredColumns, that.coveredColumns);
+  }
+
+  private static boolean equals(Collection<byte[]> left, Collection<byte[]> right) {
+    if (left.size() != right.size()) {
+      return false;
+    }
+    Iterator<byte[]> iterator = right.iterator();
+    for (byte[] column : left) {
+      if (!Bytes.equals(column, iterator.next())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = name.hashCode();
+    for (byte[] column : columns) {
+      result = 31 * result + Bytes.hashCode(column);
+    }
+    for (byte[] column : coveredColumns) {
+      result = 31 * result + Bytes.hashCode(column);
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("CompositeIndex{name=").append(name).append(", columns=[");
+    String sep = "";
+    for (byte[] column : columns) {
+      sb.append(sep).append(Bytes.toStringBinary(column));
+      sep = ", ";
+    }
+    sb.append("], coveredColumns=[");
+    sep = "";
+    for (byte[] column : coveredColumns) {
+      sb.append(sep).append(Bytes.toStringBinary(column));
+      sep = ", ";
+    }
+    return sb.append("]}").toString();
+  }
+}
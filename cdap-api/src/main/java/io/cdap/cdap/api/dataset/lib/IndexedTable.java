@@ -36,10 +36,16 @@ import io.cdap.cdap.api.dataset.table.Table;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -94,7 +100,22 @@ import javax.annotation.Nullable;
  * as it would break parsing of the configuration property.
  * </p>
  *
+ * <p>In addition, {@link CompositeIndex composite indexes} over multiple columns can be configured with the
+ * {@link #COMPOSITE_INDEXES_CONF_KEY} property. They support exact lookups on the leading columns of the index,
+ * optionally combined with a range on the next column, as a single scan of the index table. A composite index can
+ * cover additional columns with the {@link #COMPOSITE_INDEX_COVERED_COLUMNS_CONF_KEY} property, so that lookups
+ * are answered from the index table alone:
+ *
+ * <p>
+ * <pre><code>createDataset("entities", IndexedTable.class,
+ *               DatasetProperties.builder()
+ *                 .add(IndexedTable.COMPOSITE_INDEXES_CONF_KEY, "byTypeTime=namespace,type,time")
+ *                 .add(IndexedTable.COMPOSITE_INDEX_COVERED_COLUMNS_CONF_KEY, "byTypeTime=name")
+ *                 .build());</code></pre>
+ * </p>
+ *
  * @see #INDEX_COLUMNS_CONF_KEY
+ * @see #COMPOSITE_INDEXES_CONF_KEY
  */
 public class IndexedTable extends AbstractDataset implements Table {
 
@@ -123,6 +144,18 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   public static final String DYNAMIC_INDEXING_PREFIX = "dynamicIndexingPrefix";
 
+  /**
+   * Configuration key for defining composite indexes. Multiple indexes are separated by semicolons, each of the form
+   * {@code name=column1,column2}, e.g. "byTypeTime=namespace,type,time;byOwner=owner".
+   */
+  public static final String COMPOSITE_INDEXES_CONF_KEY = "compositeIndexes";
+
+  /**
+   * Configuration key for defining the columns covered by composite indexes. Multiple indexes are separated by
+   * semicolons, each of the form {@code name=column1,column2}, where name refers to a composite index.
+   */
+  public static final String COMPOSITE_INDEX_COVERED_COLUMNS_CONF_KEY = "compositeIndexCoveredColumns";
+
   /**
    * Column key used to store the existence of a row in the secondary index.
    */
@@ -130,12 +163,26 @@ public class IndexedTable extends AbstractDataset implements Table {
   private static final byte DELIMITER_BYTE = 0;
   private static final byte[] KEY_DELIMITER = new byte[] { DELIMITER_BYTE };
 
+  // Composite index rows are keyed by the key prefix, the delimiter byte, and the index name and values, each encoded
+  // by escaping the delimiter byte and terminating with the delimiter followed by 0x01, and the data row key.
+  // The encoding preserves the order of the values, and keys cannot clash with those of single column indexes,
+  // unless the name of an index column starts with the delimiter byte.
+  private static final byte ESCAPED_DELIMITER_BYTE = (byte) 0xff;
+  private static final byte[] VALUE_TERMINATOR = new byte[] { DELIMITER_BYTE, 0x01 };
+  // Prefix of the index table columns storing the values of covered columns
+  private static final byte[] COVERED_COL_PREFIX = {'c'};
+  // Number of data rows to read with one multi-get when reading by a composite index
+  private static final int MULTI_GET_BATCH_SIZE = 100;
+
   private final boolean hasColumnWithDelimiter;
   // the two underlying tables
   private Table table, index;
   // the secondary index column
   private SortedSet<byte[]> indexedColumns;
   private final byte[] keyPrefix;
+  // the composite indexes by name, and all the columns indexed or covered by them
+  private final Map<String, CompositeIndex> compositeIndexes;
+  private final SortedSet<byte[]> compositeColumns;
 
   /**
    * Configuration time constructor.
@@ -146,12 +193,7 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @param columnsToIndex the names of the data columns to index
    */
   public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex) {
-    super(name, table, index);
-    this.table = table;
-    this.index = index;
-    this.indexedColumns = columnsToIndex;
-    this.hasColumnWithDelimiter = hasDelimiterByte(columnsToIndex);
-    this.keyPrefix = Bytes.EMPTY_BYTE_ARRAY;
+    this(name, table, index, columnsToIndex, Bytes.EMPTY_BYTE_ARRAY);
   }
 
   /**
@@ -164,12 +206,34 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @param keyPrefix the dynamic indexing prefix. See {@link IndexedTable#DYNAMIC_INDEXING_PREFIX}
    */
   public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex, byte[] keyPrefix) {
+    this(name, table, index, columnsToIndex, Collections.<CompositeIndex>emptyList(), keyPrefix);
+  }
+
+  /**
+   * Configuration time constructor.
+   *
+   * @param name the name of the table
+   * @param table table to use as the table
+   * @param index table to use as the index
+   * @param columnsToIndex the names of the data columns to index
+   * @param compositeIndexes the composite indexes to maintain
+   * @param keyPrefix the dynamic indexing prefix. See {@link IndexedTable#DYNAMIC_INDEXING_PREFIX}
+   */
+  public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex,
+                      Collection<CompositeIndex> compositeIndexes, byte[] keyPrefix) {
     super(name, table, index);
     this.table = table;
     this.index = index;
     this.indexedColumns = columnsToIndex;
     this.hasColumnWithDelimiter = hasDelimiterByte(columnsToIndex);
     this.keyPrefix = keyPrefix;
+    this.compositeIndexes = new LinkedHashMap<>();
+    this.compositeColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    for (CompositeIndex compositeIndex : compositeIndexes) {
+      this.compositeIndexes.put(compositeIndex.getName(), compositeIndex);
+      this.compositeColumns.addAll(compositeIndex.getColumns());
+      this.compositeColumns.addAll(compositeIndex.getCoveredColumns());
+    }
   }
 
   /**
@@ -289,6 +353,97 @@ public class IndexedTable extends AbstractDataset implements Table {
     }
   }
 
+  /**
+   * Reads table rows by the values of the leading columns of a composite index. The rows are returned in the order
+   * of the index. If the index covers any columns, the returned rows only contain the indexed and covered columns
+   * and are read from the index alone. Otherwise the complete rows are read from the data table, in batches.
+   *
+   * @param indexName the name of the composite index
+   * @param values the values of the leading columns of the index. It may contain fewer values than the index has
+   *               columns, in which case all rows matching the given values are returned
+   * @return a Scanner returning rows whose stored values for the leading index columns match the given values
+   * @throws java.lang.IllegalArgumentException if no composite index with the given name is configured, or if more
+   *                                            values are given than the index has columns
+   */
+  @ReadOnly
+  public Scanner readByCompositeIndex(String indexName, byte[]... values) {
+    CompositeIndex compositeIndex = getCompositeIndex(indexName, values.length);
+    byte[] startRow = createCompositeKeyPrefix(compositeIndex, Arrays.asList(values));
+    return new CompositeIndexScanner(index.scan(startRow, Bytes.stopKeyForPrefix(startRow)), compositeIndex);
+  }
+
+  /**
+   * Reads table rows within a range of values of a composite index column, for given values of all the columns
+   * preceding it in the index. For example, for an index on (namespace, type, time), this can return the rows of
+   * a namespace and type within a time range, with a single scan of the index. Values are compared as unsigned
+   * bytes. See {@link #readByCompositeIndex(String, byte[]...)} for the content of the returned rows.
+   *
+   * @param indexName the name of the composite index
+   * @param prefixValues the values of the leading columns of the index
+   * @param startValue the inclusive start of the range of the column following the prefix columns.
+   *                   {@code null} means no lower bound
+   * @param endValue the exclusive end of the range of the column following the prefix columns.
+   *                 {@code null} means no upper bound
+   * @return a Scanner returning rows whose values for the index columns are within the given range
+   * @throws java.lang.IllegalArgumentException if no composite index with the given name is configured, or if the
+   *                                            index does not have more columns than prefix values are given
+   */
+  @ReadOnly
+  public Scanner scanByCompositeIndex(String indexName, byte[][] prefixValues,
+                                      @Nullable byte[] startValue, @Nullable byte[] endValue) {
+    CompositeIndex compositeIndex = getCompositeIndex(indexName, prefixValues.length + 1);
+    byte[] prefix = createCompositeKeyPrefix(compositeIndex, Arrays.asList(prefixValues));
+    // the escaped value without terminator sorts before all keys with that value, and after all smaller values
+    byte[] startRow = startValue == null ? prefix : Bytes.add(prefix, escape(startValue));
+    byte[] stopRow = endValue == null ? Bytes.stopKeyForPrefix(prefix) : Bytes.add(prefix, escape(endValue));
+    return new CompositeIndexScanner(index.scan(startRow, stopRow), compositeIndex);
+  }
+
+  /**
+   * Reads table rows within a range of the values of the leading columns of a composite index. The start and the
+   * end of the range are each given as the values of a prefix of the index columns, and are compared with the index
+   * entries column by column, in the order of the index, like the row keys of a table. For example, for an index on
+   * (namespace, type, time), a start of (ns1, x) and an inclusive end of (ns1, y) returns the rows of namespace ns1
+   * with the types from x to y. See {@link #readByCompositeIndex(String, byte[]...)} for the content of the returned
+   * rows.
+   *
+   * @param indexName the name of the composite index
+   * @param startValues the values of the leading index columns to start from. An empty array means no lower bound
+   * @param startInclusive whether the rows matching the start values are included
+   * @param endValues the values of the leading index columns to end at. An empty array means no upper bound
+   * @param endInclusive whether the rows matching the end values are included
+   * @return a Scanner returning rows whose values for the index columns are within the given range
+   * @throws java.lang.IllegalArgumentException if no composite index with the given name is configured, or if more
+   *                                            start or end values are given than the index has columns
+   */
+  @ReadOnly
+  public Scanner scanByCompositeIndex(String indexName, byte[][] startValues, boolean startInclusive,
+                                      byte[][] endValues, boolean endInclusive) {
+    CompositeIndex compositeIndex = getCompositeIndex(indexName, Math.max(startValues.length, endValues.length));
+    // all entries matching a prefix of values start with the encoded values, since every value is terminated
+    byte[] startRow = createCompositeKeyPrefix(compositeIndex, Arrays.asList(startValues));
+    if (startValues.length > 0 && !startInclusive) {
+      startRow = Bytes.stopKeyForPrefix(startRow);
+    }
+    byte[] stopRow = createCompositeKeyPrefix(compositeIndex, Arrays.asList(endValues));
+    if (endValues.length == 0 || endInclusive) {
+      stopRow = Bytes.stopKeyForPrefix(stopRow);
+    }
+    return new CompositeIndexScanner(index.scan(startRow, stopRow), compositeIndex);
+  }
+
+  private CompositeIndex getCompositeIndex(String indexName, int numValues) {
+    CompositeIndex compositeIndex = compositeIndexes.get(indexName);
+    if (compositeIndex == null) {
+      throw new IllegalArgumentException("Composite index '" + indexName + "' is not configured");
+    }
+    if (numValues > compositeIndex.getColumns().size()) {
+      throw new IllegalArgumentException("Composite index '" + indexName + "' has only "
+                                           + compositeIndex.getColumns().size() + " columns");
+    }
+    return compositeIndex;
+  }
+
   /**
    * Writes a put to the data table. If any of the columns in the {@link Put} are configured to be indexed, the
    * appropriate indexes will be updated with the indexed values referencing the data table row.
@@ -298,38 +453,255 @@ public class IndexedTable extends AbstractDataset implements Table {
   @WriteOnly
   @Override
   public void put(Put put) {
+    // first read the existing indexed values to find which have changed and need to be updated
+    Set<byte[]> colsToRead = getColumnsToRead(put.getValues().keySet());
+    Map<byte[], byte[]> existing = colsToRead.isEmpty() ? Collections.<byte[], byte[]>emptyMap()
+      : table.get(put.getRow(), colsToRead.toArray(new byte[colsToRead.size()][])).getColumns();
+    put(put, existing);
+  }
+
+  /**
+   * Writes multiple puts to the data table and updates the indexes. The existing values needed to update the
+   * indexes are read for all puts with a single multi-get, rather than with one read per put.
+   *
+   * @param puts the put operations to store, applied in the given order
+   */
+  @WriteOnly
+  public void put(List<Put> puts) {
+    // the union of the columns to read for each row
+    Map<byte[], Set<byte[]>> colsToRead = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (Put put : puts) {
+      Set<byte[]> columns = getColumnsToRead(put.getValues().keySet());
+      if (!columns.isEmpty()) {
+        Set<byte[]> rowColumns = colsToRead.get(put.getRow());
+        if (rowColumns == null) {
+          colsToRead.put(put.getRow(), columns);
+        } else {
+          rowColumns.addAll(columns);
+        }
+      }
+    }
+
+    List<Get> gets = new ArrayList<>(colsToRead.size());
+    for (Map.Entry<byte[], Set<byte[]>> entry : colsToRead.entrySet()) {
+      gets.add(new Get(entry.getKey(), entry.getValue().toArray(new byte[entry.getValue().size()][])));
+    }
+    // the current values of the indexed columns of each row, updated as the puts are applied
+    Map<byte[], Map<byte[], byte[]>> existingRows = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    if (!gets.isEmpty()) {
+      List<Row> rows = table.get(gets);
+      for (int i = 0; i < gets.size(); i++) {
+        Map<byte[], byte[]> existing = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        existing.putAll(rows.get(i).getColumns());
+        existingRows.put(gets.get(i).getRow(), existing);
+      }
+    }
+
+    for (Put put : puts) {
+      Map<byte[], byte[]> existing = existingRows.get(put.getRow());
+      if (existing == null) {
+        put(put, Collections.<byte[], byte[]>emptyMap());
+      } else {
+        put(put, existing);
+        existing.putAll(put.getValues());
+      }
+    }
+  }
+
+  /**
+   * Writes a put to the data table and updates the indexes.
+   *
+   * @param put the put operation to store
+   * @param existing the existing values of all the columns returned by {@link #getColumnsToRead(Collection)}
+   *                 for the columns of the put
+   */
+  private void put(Put put, Map<byte[], byte[]> existing) {
     // if different value exists, remove current index ref
     // add a new index ref unless same value already exists
     byte[] dataRow = put.getRow();
-    // find which values need to be indexed
     Map<byte[], byte[]> putColumns = put.getValues();
-    Set<byte[]> colsToIndex = new TreeSet<>(Bytes.BYTES_COMPARATOR);
     for (Map.Entry<byte[], byte[]> putEntry : putColumns.entrySet()) {
-      if (indexedColumns.contains(putEntry.getKey())) {
-        colsToIndex.add(putEntry.getKey());
+      byte[] column = putEntry.getKey();
+      if (!indexedColumns.contains(column)) {
+        continue;
+      }
+      byte[] existingValue = existing.get(column);
+      if (Arrays.equals(existingValue, putEntry.getValue())) {
+        // value already indexed
+        continue;
       }
+      if (existingValue != null) {
+        index.delete(createIndexKey(dataRow, column, existingValue), IDX_COL);
+      }
+      index.put(createIndexKey(dataRow, column, putEntry.getValue()), IDX_COL, dataRow);
     }
 
-    if (!colsToIndex.isEmpty()) {
-      // first read the existing indexed values to find which have changed and need to be updated
-      Row existingRow = table.get(dataRow, colsToIndex.toArray(new byte[colsToIndex.size()][]));
-      for (Map.Entry<byte[], byte[]> entry : existingRow.getColumns().entrySet()) {
-        if (!Arrays.equals(entry.getValue(), putColumns.get(entry.getKey()))) {
-          index.delete(createIndexKey(dataRow, entry.getKey(), entry.getValue()), IDX_COL);
-        } else {
-          // value already indexed
-          colsToIndex.remove(entry.getKey());
+    if (!compositeIndexes.isEmpty()) {
+      Map<byte[], byte[]> updated = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      updated.putAll(existing);
+      updated.putAll(putColumns);
+      updateCompositeIndexes(dataRow, existing, updated);
+    }
+
+    // store the data row
+    table.put(put);
+  }
+
+  /**
+   * Returns the columns whose existing values are needed to update the indexes when changing the given columns.
+   */
+  private Set<byte[]> getColumnsToRead(Collection<byte[]> columns) {
+    Set<byte[]> result = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    for (byte[] column : columns) {
+      if (indexedColumns.contains(column)) {
+        result.add(column);
+      }
+    }
+    for (CompositeIndex compositeIndex : compositeIndexes.values()) {
+      for (byte[] column : columns) {
+        if (compositeIndex.contains(column)) {
+          result.addAll(compositeIndex.getColumns());
+          result.addAll(compositeIndex.getCoveredColumns());
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Updates the composite index entries of a data row.
+   *
+   * @param row the data row key
+   * @param before the values of the row before the change
+   * @param after the values of the row after the change
+   */
+  private void updateCompositeIndexes(byte[] row, Map<byte[], byte[]> before, Map<byte[], byte[]> after) {
+    for (CompositeIndex compositeIndex : compositeIndexes.values()) {
+      byte[] oldKey = createCompositeKey(compositeIndex, before, row);
+      byte[] newKey = createCompositeKey(compositeIndex, after, row);
+      boolean keyChanged = !Arrays.equals(oldKey, newKey);
+      if (oldKey != null && keyChanged) {
+        index.delete(oldKey, getIndexColumns(compositeIndex, before));
+      }
+      if (newKey == null) {
+        continue;
+      }
+
+      // rewrite the entry if it is new or any of the covered values changed
+      boolean changed = keyChanged;
+      List<byte[]> removedColumns = new ArrayList<>();
+      for (byte[] column : compositeIndex.getCoveredColumns()) {
+        byte[] newValue = after.get(column);
+        if (!Arrays.equals(before.get(column), newValue)) {
+          changed = true;
+          if (newValue == null) {
+            removedColumns.add(Bytes.add(COVERED_COL_PREFIX, column));
+          }
+        }
+      }
+      if (!changed) {
+        continue;
+      }
+      if (!keyChanged && !removedColumns.isEmpty()) {
+        index.delete(newKey, removedColumns.toArray(new byte[removedColumns.size()][]));
+      }
+      Put put = new Put(newKey).add(IDX_COL, row);
+      for (byte[] column : compositeIndex.getCoveredColumns()) {
+        byte[] value = after.get(column);
+        if (value != null) {
+          put.add(Bytes.add(COVERED_COL_PREFIX, column), value);
         }
       }
+      index.put(put);
+    }
+  }
+
+  /**
+   * Returns the columns of the composite index entry for a data row with the given values.
+   */
+  private byte[][] getIndexColumns(CompositeIndex compositeIndex, Map<byte[], byte[]> values) {
+    List<byte[]> columns = new ArrayList<>();
+    columns.add(IDX_COL);
+    for (byte[] column : compositeIndex.getCoveredColumns()) {
+      if (values.containsKey(column)) {
+        columns.add(Bytes.add(COVERED_COL_PREFIX, column));
+      }
+    }
+    return columns.toArray(new byte[columns.size()][]);
+  }
 
-      // add new index entries for all values that have changed or did not exist
-      for (byte[] col : colsToIndex) {
-        index.put(createIndexKey(dataRow, col, putColumns.get(col)), IDX_COL, dataRow);
+  /**
+   * Creates the key of the composite index entry for a data row, or returns {@code null} if the row does not have
+   * all the columns of the index.
+   */
+  @Nullable
+  private byte[] createCompositeKey(CompositeIndex compositeIndex, Map<byte[], byte[]> values, byte[] row) {
+    List<byte[]> keyValues = new ArrayList<>(compositeIndex.getColumns().size());
+    for (byte[] column : compositeIndex.getColumns()) {
+      byte[] value = values.get(column);
+      if (value == null) {
+        return null;
       }
+      keyValues.add(value);
     }
+    return Bytes.add(createCompositeKeyPrefix(compositeIndex, keyValues), row);
+  }
 
-    // store the data row
-    table.put(put);
+  private byte[] createCompositeKeyPrefix(CompositeIndex compositeIndex, List<byte[]> values) {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    os.write(keyPrefix, 0, keyPrefix.length);
+    os.write(DELIMITER_BYTE);
+    writeEncoded(os, Bytes.toBytes(compositeIndex.getName()));
+    for (byte[] value : values) {
+      writeEncoded(os, value);
+    }
+    return os.toByteArray();
+  }
+
+  private static void writeEncoded(ByteArrayOutputStream os, byte[] value) {
+    byte[] escaped = escape(value);
+    os.write(escaped, 0, escaped.length);
+    os.write(VALUE_TERMINATOR, 0, VALUE_TERMINATOR.length);
+  }
+
+  /**
+   * Escapes each delimiter byte in the value by following it with 0xff.
+   */
+  private static byte[] escape(byte[] value) {
+    ByteArrayOutputStream os = new ByteArrayOutputStream(value.length + 4);
+    for (byte b : value) {
+      os.write(b);
+      if (b == DELIMITER_BYTE) {
+        os.write(ESCAPED_DELIMITER_BYTE);
+      }
+    }
+    return os.toByteArray();
+  }
+
+  /**
+   * Decodes the given number of encoded values from a composite index key, starting at the given offset.
+   */
+  private static List<byte[]> decode(byte[] key, int offset, int count) {
+    List<byte[]> values = new ArrayList<>(count);
+    int pos = offset;
+    for (int i = 0; i < count; i++) {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      while (true) {
+        byte b = key[pos++];
+        if (b != DELIMITER_BYTE) {
+          os.write(b);
+          continue;
+        }
+        if (key[pos++] == ESCAPED_DELIMITER_BYTE) {
+          os.write(DELIMITER_BYTE);
+          continue;
+        }
+        break;
+      }
+      values.add(os.toByteArray());
+    }
+    return values;
   }
 
   private byte[] createIndexKey(byte[] row, byte[] column, byte[] value) {
@@ -381,6 +753,9 @@ public class IndexedTable extends AbstractDataset implements Table {
 
     // delete all index entries
     deleteIndexEntries(existingRow);
+    if (!compositeIndexes.isEmpty()) {
+      updateCompositeIndexes(row, existingRow.getColumns(), Collections.<byte[], byte[]>emptyMap());
+    }
 
     // delete the row
     table.delete(row);
@@ -395,14 +770,31 @@ public class IndexedTable extends AbstractDataset implements Table {
   @WriteOnly
   @Override
   public void delete(byte[] row, byte[][] columns) {
-    Row existingRow = table.get(row, columns);
-    if (existingRow.isEmpty()) {
-      // no row to delete
+    // also read the other columns of the composite indexes affected by the deleted columns
+    Set<byte[]> colsToRead = getColumnsToRead(Arrays.asList(columns));
+    colsToRead.addAll(Arrays.asList(columns));
+    Row existingRow = table.get(row, colsToRead.toArray(new byte[colsToRead.size()][]));
+    Map<byte[], byte[]> remaining = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    remaining.putAll(existingRow.getColumns());
+    boolean found = false;
+    for (byte[] column : columns) {
+      found |= remaining.remove(column) != null;
+    }
+    if (!found) {
+      // no columns to delete
       return;
     }
 
-    // delete all index entries
-    deleteIndexEntries(existingRow);
+    // delete all index entries of the deleted columns
+    for (byte[] column : columns) {
+      byte[] value = existingRow.get(column);
+      if (value != null && indexedColumns.contains(column)) {
+        index.delete(createIndexKey(row, column, value), IDX_COL);
+      }
+    }
+    if (!compositeIndexes.isEmpty()) {
+      updateCompositeIndexes(row, existingRow.getColumns(), remaining);
+    }
 
     // delete the row's columns
     table.delete(row, columns);
@@ -417,6 +809,10 @@ public class IndexedTable extends AbstractDataset implements Table {
     }
   }
 
+  private boolean isIndexed(byte[] column) {
+    return indexedColumns.contains(column) || compositeColumns.contains(column);
+  }
+
   /**
    * Perform a swap operation by primary key.
    * Parameters are as if they were on a non-indexed table.
@@ -431,23 +827,32 @@ public class IndexedTable extends AbstractDataset implements Table {
     // the index is not affected - just execute the swap.
     // also, if the swap is on the index column, but the old value
     // is the same as the new value, then the index is not affected either.
-    if (!indexedColumns.contains(column) ||
+    if (!isIndexed(column) ||
         Arrays.equals(expected, newValue)) {
       return table.compareAndSwap(row, column, expected, newValue);
     }
 
+    // the swap is on a column of a composite index. read the other columns of the affected composite indexes
+    // first, to update the indexes if the swap succeeds
+    Map<byte[], byte[]> before = null;
+    if (compositeColumns.contains(column)) {
+      Set<byte[]> colsToRead = getColumnsToRead(Collections.singleton(column));
+      before = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      before.putAll(table.get(row, colsToRead.toArray(new byte[colsToRead.size()][])).getColumns());
+    }
+
     // the swap is on the index column. it will only succeed if the current
     // value matches the expected value of the swap. if that value is not null,
     // then we must remove the row key from the index for that value.
     Delete idxDelete = null;
-    if (expected != null) {
+    if (expected != null && indexedColumns.contains(column)) {
       idxDelete = new Delete(createIndexKey(row, column, expected), IDX_COL);
     }
 
     // if the new value is not null, then we must add the rowkey to the index
     // for that value.
     Put idxPut = null;
-    if (newValue != null) {
+    if (newValue != null && indexedColumns.contains(column)) {
       idxPut = new Put(createIndexKey(row, column, newValue), IDX_COL, row);
     }
 
@@ -463,6 +868,22 @@ public class IndexedTable extends AbstractDataset implements Table {
     if (idxPut != null) {
       index.put(idxPut);
     }
+    if (before != null) {
+      Map<byte[], byte[]> after = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      after.putAll(before);
+      if (newValue == null) {
+        after.remove(column);
+      } else {
+        after.put(column, newValue);
+      }
+      // the swap succeeded, hence the expected value was the existing one
+      if (expected == null) {
+        before.remove(column);
+      } else {
+        before.put(column, expected);
+      }
+      updateCompositeIndexes(row, before, after);
+    }
 
     return true;
   }
@@ -497,7 +918,10 @@ public class IndexedTable extends AbstractDataset implements Table {
       throw new IllegalArgumentException("Size of columns and amounts arguments must match");
     }
 
-    Row existingRow = table.get(row, columns);
+    // also read the other columns of the composite indexes affected by the incremented columns
+    Set<byte[]> colsToRead = getColumnsToRead(Arrays.asList(columns));
+    colsToRead.addAll(Arrays.asList(columns));
+    Row existingRow = table.get(row, colsToRead.toArray(new byte[colsToRead.size()][]));
     byte[][] updatedValues = new byte[columns.length][];
     NavigableMap<byte[], byte[]> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
 
@@ -522,6 +946,13 @@ public class IndexedTable extends AbstractDataset implements Table {
       }
     }
 
+    if (!compositeIndexes.isEmpty()) {
+      Map<byte[], byte[]> after = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      after.putAll(existingRow.getColumns());
+      after.putAll(result);
+      updateCompositeIndexes(row, existingRow.getColumns(), after);
+    }
+
     table.put(row, columns, updatedValues);
     return new Result(row, result);
   }
@@ -560,7 +991,7 @@ public class IndexedTable extends AbstractDataset implements Table {
   @Override
   public void increment(byte[] row, byte[] column, long amount) {
     // read-less increments should not be used on indexed columns
-    if (indexedColumns.contains(column)) {
+    if (isIndexed(column)) {
       throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
                                            + Bytes.toStringBinary(column) + "'");
     }
@@ -578,7 +1009,7 @@ public class IndexedTable extends AbstractDataset implements Table {
   public void increment(byte[] row, byte[][] columns, long[] amounts) {
     // read-less increments should not be used on indexed columns
     for (byte[] col : columns) {
-      if (indexedColumns.contains(col)) {
+      if (isIndexed(col)) {
         throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
                                              + Bytes.toStringBinary(col) + "'");
       }
@@ -596,7 +1027,7 @@ public class IndexedTable extends AbstractDataset implements Table {
   @Override
   public void increment(Increment increment) {
     for (byte[] col : increment.getValues().keySet()) {
-      if (indexedColumns.contains(col)) {
+      if (isIndexed(col)) {
         throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
                                              + Bytes.toStringBinary(col) + "'");
       }
@@ -746,4 +1177,75 @@ public class IndexedTable extends AbstractDataset implements Table {
         && (end == null || Bytes.compareTo(columnValue, end) < 0);
     }
   }
+
+  // scanner that returns the rows referenced by a composite index
+  private class CompositeIndexScanner implements Scanner {
+    private final Scanner baseScanner;
+    private final CompositeIndex compositeIndex;
+    // the offset of the first index value in the composite index keys
+    private final int valuesOffset;
+    private final Deque<Row> buffer = new ArrayDeque<>();
+    private boolean exhausted;
+
+    CompositeIndexScanner(Scanner baseScanner, CompositeIndex compositeIndex) {
+      this.baseScanner = baseScanner;
+      this.compositeIndex = compositeIndex;
+      this.valuesOffset = createCompositeKeyPrefix(compositeIndex, Collections.<byte[]>emptyList()).length;
+    }
+
+    @Nullable
+    @Override
+    public Row next() {
+      while (buffer.isEmpty() && !exhausted) {
+        fillBuffer();
+      }
+      return buffer.poll();
+    }
+
+    private void fillBuffer() {
+      boolean covering = !compositeIndex.getCoveredColumns().isEmpty();
+      List<Get> gets = new ArrayList<>();
+      while (gets.size() < MULTI_GET_BATCH_SIZE) {
+        Row indexRow = baseScanner.next();
+        if (indexRow == null) {
+          exhausted = true;
+          break;
+        }
+        byte[] rowkey = indexRow.get(IDX_COL);
+        if (rowkey == null) {
+          LOG.warn("Row of Indexed table '{}' is missing index column. Row key: {}", getName(), indexRow.getRow());
+          continue;
+        }
+        if (!covering) {
+          gets.add(new Get(rowkey));
+          continue;
+        }
+        // assemble the row from the index values and the covered columns
+        NavigableMap<byte[], byte[]> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        List<byte[]> values = decode(indexRow.getRow(), valuesOffset, compositeIndex.getColumns().size());
+        for (int i = 0; i < values.size(); i++) {
+          columns.put(compositeIndex.getColumns().get(i), values.get(i));
+        }
+        for (Map.Entry<byte[], byte[]> entry : indexRow.getColumns().entrySet()) {
+          byte[] column = entry.getKey();
+          if (Bytes.startsWith(column, COVERED_COL_PREFIX)) {
+            columns.put(Arrays.copyOfRange(column, COVERED_COL_PREFIX.length, column.length), entry.getValue());
+          }
+        }
+        buffer.add(new Result(rowkey, columns));
+      }
+      if (!gets.isEmpty()) {
+        for (Row row : table.get(gets)) {
+          if (!row.isEmpty()) {
+            buffer.add(row);
+          }
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      baseScanner.close();
+    }
+  }
 }
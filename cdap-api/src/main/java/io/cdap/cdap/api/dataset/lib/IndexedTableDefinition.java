@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import javax.annotation.Nullable;
 
 /**
  * DatasetDefinition for {@link IndexedTable}.
@@ -48,7 +49,8 @@ public class IndexedTableDefinition
     boolean dynamicIndexing = Boolean.parseBoolean(properties.getProperties().get(IndexedTable.DYNAMIC_INDEXING));
     if (!dynamicIndexing) {
       String columnNamesToIndex = properties.getProperties().get(IndexedTable.INDEX_COLUMNS_CONF_KEY);
-      if (columnNamesToIndex == null) {
+      Map<String, CompositeIndex> compositeIndexes = parseCompositeIndexes(properties.getProperties());
+      if (columnNamesToIndex == null && compositeIndexes.isEmpty()) {
         throw new IllegalArgumentException("columnsToIndex must be specified");
       }
     }
@@ -69,11 +71,18 @@ public class IndexedTableDefinition
     if (!dynamicIndexing) {
       // validate that the columns to index property is not null and the same as before
       String columnNamesToIndex = newProperties.getProperties().get(IndexedTable.INDEX_COLUMNS_CONF_KEY);
-      if (columnNamesToIndex == null) {
+      Map<String, CompositeIndex> compositeIndexes = parseCompositeIndexes(newProperties.getProperties());
+      if (columnNamesToIndex == null && compositeIndexes.isEmpty()) {
         throw new IllegalArgumentException("columnsToIndex must be specified");
       }
+      Map<String, CompositeIndex> oldCompositeIndexes = parseCompositeIndexes(currentSpec.getProperties());
+      if (!compositeIndexes.equals(oldCompositeIndexes)) {
+        throw new IncompatibleUpdateException(String.format("Attempt to change composite indexes from %s to %s",
+                                                            oldCompositeIndexes.values(), compositeIndexes.values()));
+      }
       String oldColumnsToIndex = currentSpec.getProperty(IndexedTable.INDEX_COLUMNS_CONF_KEY);
-      if (!columnNamesToIndex.equals(oldColumnsToIndex)) {
+      if (columnNamesToIndex != null && !columnNamesToIndex.equals(oldColumnsToIndex)
+        || columnNamesToIndex == null && oldColumnsToIndex != null) {
         Set<byte[]> newColumns = parseColumns(columnNamesToIndex);
         Set<byte[]> oldColumns = parseColumns(oldColumnsToIndex);
         if (!newColumns.equals(oldColumns)) {
@@ -90,12 +99,14 @@ public class IndexedTableDefinition
                                  Map<String, String> arguments, ClassLoader classLoader) throws IOException {
 
     SortedSet<byte[]> columnsToIndex;
+    Map<String, CompositeIndex> compositeIndexes;
     String keyPrefix = null;
     boolean dynamicIndexing = Boolean.parseBoolean(spec.getProperty(IndexedTable.DYNAMIC_INDEXING));
     if (dynamicIndexing) {
       // If dynamic indexing is enabled, get the index columns from the runtime arguments
       String columnsToIndexProp = arguments.get(IndexedTable.INDEX_COLUMNS_CONF_KEY);
-      if (columnsToIndexProp == null) {
+      compositeIndexes = parseCompositeIndexes(arguments);
+      if (columnsToIndexProp == null && compositeIndexes.isEmpty()) {
         throw new IllegalArgumentException(
           "columnsToIndex must be specified in runtime arguments when dynamic indexing is enabled");
       }
@@ -108,24 +119,36 @@ public class IndexedTableDefinition
       }
     } else {
       columnsToIndex = parseColumns(spec.getProperty(IndexedTable.INDEX_COLUMNS_CONF_KEY));
+      compositeIndexes = parseCompositeIndexes(spec.getProperties());
     }
 
     Table table = getDataset(datasetContext, "d", spec, arguments, classLoader);
     Table index = getDataset(datasetContext, "i", spec, arguments, classLoader);
 
-    return new IndexedTable(spec.getName(), table, index, columnsToIndex,
+    return new IndexedTable(spec.getName(), table, index, columnsToIndex, compositeIndexes.values(),
                             keyPrefix == null ? Bytes.EMPTY_BYTE_ARRAY : Bytes.toBytes(keyPrefix));
   }
 
   /**
    * Helper method to parse a list of column names, comma-separated.
    */
-  private SortedSet<byte[]> parseColumns(String value) {
+  private SortedSet<byte[]> parseColumns(@Nullable String value) {
     // TODO: add support for setting index key delimiter
     SortedSet<byte[]> columnsToIndex = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    if (value == null) {
+      return columnsToIndex;
+    }
     for (String column : value.split(",")) {
       columnsToIndex.add(Bytes.toBytes(column));
     }
     return columnsToIndex;
   }
+
+  /**
+   * Helper method to parse the composite index definitions from the given properties.
+   */
+  private Map<String, CompositeIndex> parseCompositeIndexes(Map<String, String> properties) {
+    return CompositeIndex.parse(properties.get(IndexedTable.COMPOSITE_INDEXES_CONF_KEY),
+                                properties.get(IndexedTable.COMPOSITE_INDEX_COVERED_COLUMNS_CONF_KEY));
+  }
 }
@@ -28,7 +28,9 @@ import io.cdap.cdap.api.data.batch.RecordWritable;
 import io.cdap.cdap.api.data.batch.Scannables;
 import io.cdap.cdap.api.data.batch.Split;
 import io.cdap.cdap.api.data.batch.SplitReader;
+import io.cdap.cdap.api.dataset.table.BulkLoadable;
 import io.cdap.cdap.api.dataset.table.Get;
+import io.cdap.cdap.api.dataset.table.Put;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.api.dataset.table.Table;
@@ -37,6 +39,7 @@ import io.cdap.cdap.internal.guava.reflect.TypeToken;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -48,7 +51,8 @@ import javax.annotation.Nullable;
  */
 public class KeyValueTable extends AbstractDataset implements
   BatchReadable<byte[], byte[]>, BatchWritable<byte[], byte[]>,
-  RecordScannable<KeyValue<byte[], byte[]>>, RecordWritable<KeyValue<byte[], byte[]>> {
+  RecordScannable<KeyValue<byte[], byte[]>>, RecordWritable<KeyValue<byte[], byte[]>>,
+  BulkLoadable<KeyValue<byte[], byte[]>> {
 
   /**
    * Type name
@@ -237,6 +241,39 @@ public class KeyValueTable extends AbstractDataset implements
     write(keyValue.getKey(), keyValue.getValue());
   }
 
+  /**
+   * Loads key/value pairs sorted by key. If the underlying table does not support bulk loads, the pairs are
+   * written one by one.
+   *
+   * @param entries the key/value pairs to load, sorted by key in ascending order
+   * @see BulkLoadable#bulkLoad(Iterator)
+   */
+  @WriteOnly
+  @Override
+  public void bulkLoad(final Iterator<KeyValue<byte[], byte[]>> entries) {
+    if (!(table instanceof BulkLoadable)) {
+      while (entries.hasNext()) {
+        KeyValue<byte[], byte[]> entry = entries.next();
+        write(entry.getKey(), entry.getValue());
+      }
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    BulkLoadable<Put> bulkLoadable = (BulkLoadable<Put>) table;
+    bulkLoadable.bulkLoad(new Iterator<Put>() {
+      @Override
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public Put next() {
+        KeyValue<byte[], byte[]> entry = entries.next();
+        return new Put(entry.getKey(), KEY_COLUMN, entry.getValue());
+      }
+    });
+  }
+
   /**
    * Scans table.
    * @param startRow start row inclusive. {@code null} means start from first row of the table
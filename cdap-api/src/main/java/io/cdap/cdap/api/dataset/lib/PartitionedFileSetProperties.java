@@ -19,6 +19,9 @@ package io.cdap.cdap.api.dataset.lib;
 import io.cdap.cdap.api.annotation.Beta;
 import io.cdap.cdap.api.dataset.table.TableProperties;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -38,6 +41,13 @@ public class PartitionedFileSetProperties extends FileSetProperties {
    */
   public static final String PARTITIONING_FIELD_PREFIX = "partitioning.field.";
 
+  /**
+   * The property name for the comma-separated list of partitioning fields that are indexed. Partition filters
+   * with a condition on an indexed field are answered from the index instead of scanning all partitions. This can
+   * only be set when the dataset is created.
+   */
+  public static final String INDEXED_PARTITIONING_FIELDS = "partitioning.indexed.fields";
+
   /**
    * Read the partitioning for a PartitionedFileSet from its properties.
    *
@@ -71,6 +81,27 @@ public class PartitionedFileSetProperties extends FileSetProperties {
     return builder.build();
   }
 
+  /**
+   * Read the names of the indexed partitioning fields from the properties of a PartitionedFileSet.
+   *
+   * @param properties the dataset properties
+   * @return the names of the indexed fields, in the order they are configured. Empty if no field is indexed.
+   */
+  public static List<String> getIndexedPartitioningFields(Map<String, String> properties) {
+    String fieldList = properties.get(INDEXED_PARTITIONING_FIELDS);
+    if (fieldList == null || fieldList.trim().isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<String> fieldNames = new ArrayList<>();
+    for (String fieldName : fieldList.split(",")) {
+      fieldName = fieldName.trim();
+      if (!fieldName.isEmpty() && !fieldNames.contains(fieldName)) {
+        fieldNames.add(fieldName);
+      }
+    }
+    return fieldNames;
+  }
+
   /**
    * @return a properties builder
    */
@@ -105,6 +136,14 @@ public class PartitionedFileSetProperties extends FileSetProperties {
       return this;
     }
 
+    /**
+     * Sets the partitioning fields to maintain an index for. The fields must be part of the partitioning.
+     */
+    public Builder setIndexedPartitioningFields(String... fieldNames) {
+      add(INDEXED_PARTITIONING_FIELDS, String.join(",", fieldNames));
+      return this;
+    }
+
     /**
      * Set the table permissions as a map from user name to a permission string.
      */
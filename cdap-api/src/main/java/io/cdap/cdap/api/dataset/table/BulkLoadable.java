@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.api.dataset.table;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.Iterator;
+
+/**
+ * A dataset that can load large amounts of entries sorted by key faster than writing them one by one. Sorted entries
+ * are written to the underlying storage in large batches, in the order they are given, without being buffered in
+ * memory until the transaction commits.
+ *
+ * <p>
+ * The loaded entries are written with the version of the current transaction. They only become visible to other
+ * transactions when the transaction commits, and they are removed if the transaction is rolled back. Unlike other
+ * writes, the loaded entries are not included in the conflict detection of the transaction, hence concurrent
+ * writes to the same keys do not cause the transaction to fail.
+ * </p>
+ *
+ * @param <T> the type of the entries
+ */
+@Beta
+public interface BulkLoadable<T> {
+
+  /**
+   * Loads entries sorted by key in ascending order. Each key must be greater than the keys of all entries loaded
+   * before in the same transaction, such that a large load can be split into multiple calls. Entries loaded by
+   * earlier calls are readable by the transaction, and entries written before the load are overwritten by it.
+   *
+   * @param entries the entries to load, sorted by key
+   * @throws IllegalArgumentException if the entries are not sorted by key, or have duplicate keys
+   */
+  void bulkLoad(Iterator<T> entries);
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.api.dataset.table;
+
+import io.cdap.cdap.api.annotation.Beta;
+import io.cdap.cdap.api.common.Bytes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ValueFilter} that compares the value of a single column with a predicate.
+ * <p>
+ * Values are compared as unsigned byte arrays, in the same order as {@link Bytes#BYTES_COMPARATOR}. This is the
+ * natural order for strings, but not for negative numbers encoded with {@link Bytes#toBytes(long)}. Except for
+ * {@link Type#IS_NULL}, a row that does not have the column never passes the filter.
+ * </p>
+ */
+@Beta
+public final class ColumnValueFilter implements ValueFilter {
+
+  /**
+   * The predicate to apply to the column value.
+   */
+  public enum Type {
+    EQUAL,
+    NOT_EQUAL,
+    LESS,
+    LESS_OR_EQUAL,
+    GREATER,
+    GREATER_OR_EQUAL,
+    PREFIX,
+    IN,
+    IS_NULL,
+    IS_NOT_NULL
+  }
+
+  private final byte[] column;
+  private final Type type;
+  private final List<byte[]> values;
+
+  private ColumnValueFilter(byte[] column, Type type, List<byte[]> values) {
+    if (column == null) {
+      throw new IllegalArgumentException("Column must not be null");
+    }
+    for (byte[] value : values) {
+      if (value == null) {
+        throw new IllegalArgumentException("Value to compare must not be null. Use isNull() to check for null.");
+      }
+    }
+    this.column = column;
+    this.type = type;
+    this.values = Collections.unmodifiableList(values);
+  }
+
+  /**
+   * Creates a filter for the given type and values. Mainly used for deserialization, prefer the factory methods.
+   */
+  public static ColumnValueFilter of(byte[] column, Type type, List<byte[]> values) {
+    int expected = type == Type.IS_NULL || type == Type.IS_NOT_NULL ? 0 : 1;
+    if (type == Type.IN ? values.isEmpty() : values.size() != expected) {
+      throw new IllegalArgumentException("Invalid number of values " + values.size() + " for filter type " + type);
+    }
+    return new ColumnValueFilter(column, type, new ArrayList<>(values));
+  }
+
+  /**
+   * Matches rows where the column value is equal to the given value.
+   */
+  public static ColumnValueFilter equal(byte[] column, byte[] value) {
+    return new ColumnValueFilter(column, Type.EQUAL, Collections.singletonList(value));
+  }
+
+  /**
+   * Matches rows where the column value is not equal to the given value.
+   */
+  public static ColumnValueFilter notEqual(byte[] column, byte[] value) {
+    return new ColumnValueFilter(column, Type.NOT_EQUAL, Collections.singletonList(value));
+  }
+
+  /**
+   * Matches rows where the column value is less than the given value.
+   */
+  public static ColumnValueFilter less(byte[] column, byte[] value) {
+    return new ColumnValueFilter(column, Type.LESS, Collections.singletonList(value));
+  }
+
+  /**
+   * Matches rows where the column value is less than or equal to the given value.
+   */
+  public static ColumnValueFilter lessOrEqual(byte[] column, byte[] value) {
+    return new ColumnValueFilter(column, Type.LESS_OR_EQUAL, Collections.singletonList(value));
+  }
+
+  /**
+   * Matches rows where the column value is greater than the given value.
+   */
+  public static ColumnValueFilter greater(byte[] column, byte[] value) {
+    return new ColumnValueFilter(column, Type.GREATER, Collections.singletonList(value));
+  }
+
+  /**
+   * Matches rows where the column value is greater than or equal to the given value.
+   */
+  public static ColumnValueFilter greaterOrEqual(byte[] column, byte[] value) {
+    return new ColumnValueFilter(column, Type.GREATER_OR_EQUAL, Collections.singletonList(value));
+  }
+
+  /**
+   * Matches rows where the column value is in the given range.
+   *
+   * @param lower the lower bound, inclusive; {@code null} for no lower bound
+   * @param upper the upper bound, exclusive; {@code null} for no upper bound
+   */
+  public static ValueFilter range(byte[] column, @Nullable byte[] lower, @Nullable byte[] upper) {
+    if (lower == null && upper == null) {
+      return isNotNull(column);
+    }
+    if (lower == null) {
+      return less(column, upper);
+    }
+    if (upper == null) {
+      return greaterOrEqual(column, lower);
+    }
+    return FilterList.and(greaterOrEqual(column, lower), less(column, upper));
+  }
+
+  /**
+   * Matches rows where the column value starts with the given prefix.
+   */
+  public static ColumnValueFilter prefix(byte[] column, byte[] prefix) {
+    return new ColumnValueFilter(column, Type.PREFIX, Collections.singletonList(prefix));
+  }
+
+  /**
+   * Matches rows where the column value is equal to one of the given values.
+   */
+  public static ColumnValueFilter in(byte[] column, byte[]... values) {
+    if (values.length == 0) {
+      throw new IllegalArgumentException("At least one value must be given");
+    }
+    return new ColumnValueFilter(column, Type.IN, new ArrayList<>(Arrays.asList(values)));
+  }
+
+  /**
+   * Matches rows that do not have the column.
+   */
+  public static ColumnValueFilter isNull(byte[] column) {
+    return new ColumnValueFilter(column, Type.IS_NULL, Collections.<byte[]>emptyList());
+  }
+
+  /**
+   * Matches rows that have the column.
+   */
+  public static ColumnValueFilter isNotNull(byte[] column) {
+    return new ColumnValueFilter(column, Type.IS_NOT_NULL, Collections.<byte[]>emptyList());
+  }
+
+  public byte[] getColumn() {
+    return column;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Returns the values to compare with. It is empty for {@link Type#IS_NULL} and {@link Type#IS_NOT_NULL}, and
+   * contains a single value for all other types except {@link Type#IN}.
+   */
+  public List<byte[]> getValues() {
+    return values;
+  }
+
+  @Override
+  public boolean matches(Map<byte[], byte[]> columns) {
+    return matches(columns.get(column));
+  }
+
+  /**
+   * Returns whether the given column value passes this filter.
+   *
+   * @param value the column value, or {@code null} if the row does not have the column
+   */
+  public boolean matches(@Nullable byte[] value) {
+    if (value == null) {
+      return type == Type.IS_NULL;
+    }
+    switch (type) {
+      case EQUAL:
+        return Bytes.equals(value, values.get(0));
+      case NOT_EQUAL:
+        return !Bytes.equals(value, values.get(0));
+      case LESS:
+        return Bytes.compareTo(value, values.get(0)) < 0;
+      case LESS_OR_EQUAL:
+        return Bytes.compareTo(value, values.get(0)) <= 0;
+      case GREATER:
+        return Bytes.compareTo(value, values.get(0)) > 0;
+      case GREATER_OR_EQUAL:
+        return Bytes.compareTo(value, values.get(0)) >= 0;
+      case PREFIX:
+        return Bytes.startsWith(value, values.get(0));
+      case IN:
+        for (byte[] candidate : values) {
+          if (Bytes.equals(value, candidate)) {
+            return true;
+          }
+        }
+        return false;
+      case IS_NULL:
+        return false;
+      case IS_NOT_NULL:
+        return true;
+      default:
+        throw new IllegalStateException("Unsupported filter type " + type);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ColumnValueFilter that = (ColumnValueFilter) o;
+    if (type != that.type || !Arrays.equals(column, that.column) || values.size() != that.values.size()) {
+      return false;
+    }
+    for (int i = 0; i < values.size(); i++) {
+      if (!Arrays.equals(values.get(i), that.values.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 31 * Arrays.hashCode(column) + type.hashCode();
+    for (byte[] value : values) {
+      hash = 31 * hash + Arrays.hashCode(value);
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("ColumnValueFilter{column=").append(Bytes.toStringBinary(column))
+      .append(", type=").append(type);
+    if (!values.isEmpty()) {
+      sb.append(", values=[");
+      String sep = "";
+      for (byte[] value : values) {
+        sb.append(sep).append(Bytes.toStringBinary(value));
+        sep = ", ";
+      }
+      sb.append(']');
+    }
+    return sb.append('}').toString();
+  }
+}
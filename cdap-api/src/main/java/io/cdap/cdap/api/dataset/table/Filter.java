@@ -20,6 +20,8 @@ import io.cdap.cdap.api.annotation.Beta;
 
 /**
  * Filter to be applied to {@link Scan}. It is an experimental feature.
+ *
+ * @see ValueFilter
  */
 @Beta
 public interface Filter {
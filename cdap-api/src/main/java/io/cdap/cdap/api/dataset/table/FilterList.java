@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.api.dataset.table;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A {@link ValueFilter} that combines other value filters with a boolean operator.
+ */
+@Beta
+public final class FilterList implements ValueFilter {
+
+  /**
+   * The operator to combine the filters with.
+   */
+  public enum Operator {
+    /**
+     * A row passes if it passes all filters.
+     */
+    AND,
+    /**
+     * A row passes if it passes at least one of the filters.
+     */
+    OR
+  }
+
+  private final Operator operator;
+  private final List<ValueFilter> filters;
+
+  public FilterList(Operator operator, List<? extends ValueFilter> filters) {
+    if (filters.isEmpty()) {
+      throw new IllegalArgumentException("At least one filter must be given");
+    }
+    this.operator = operator;
+    this.filters = Collections.unmodifiableList(new ArrayList<>(filters));
+  }
+
+  /**
+   * Creates a filter that passes the rows that pass all the given filters.
+   */
+  public static FilterList and(ValueFilter... filters) {
+    return new FilterList(Operator.AND, Arrays.asList(filters));
+  }
+
+  /**
+   * Creates a filter that passes the rows that pass any of the given filters.
+   */
+  public static FilterList or(ValueFilter... filters) {
+    return new FilterList(Operator.OR, Arrays.asList(filters));
+  }
+
+  public Operator getOperator() {
+    return operator;
+  }
+
+  public List<ValueFilter> getFilters() {
+    return filters;
+  }
+
+  @Override
+  public boolean matches(Map<byte[], byte[]> columns) {
+    for (ValueFilter filter : filters) {
+      boolean matches = filter.matches(columns);
+      if (operator == Operator.AND && !matches) {
+        return false;
+      }
+      if (operator == Operator.OR && matches) {
+        return true;
+      }
+    }
+    return operator == Operator.AND;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    FilterList that = (FilterList) o;
+    return operator == that.operator && filters.equals(that.filters);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(operator, filters);
+  }
+
+  @Override
+  public String toString() {
+    return "FilterList{operator=" + operator + ", filters=" + filters + '}';
+  }
+}
@@ -54,6 +54,23 @@ public interface Table extends BatchReadable<byte[], Row>, BatchWritable<byte[],
    */
   String PROPERTY_READLESS_INCREMENT = "dataset.table.readless.increment";
 
+  /**
+   * Property set to configure the size in bytes at which the writes buffered by a transaction are persisted
+   * before the transaction commits. Persisted writes remain invisible to other transactions until the commit, and
+   * are removed if the transaction is rolled back. This property only applies to implementations that buffer writes,
+   * and has no effect if read-less increments are enabled. If not set or not positive, writes are only persisted
+   * when the transaction commits.
+   */
+  String PROPERTY_BUFFER_FLUSH_SIZE = "dataset.table.buffer.flush.size";
+
+  /**
+   * Property set to configure the approximate size in bytes of the data in each split returned by
+   * {@link #getSplits()}. This property only applies to implementations that can estimate the size of the data
+   * in a key range. If not set or not positive, the data is divided into a default number of splits of about
+   * equal size.
+   */
+  String PROPERTY_SPLIT_SIZE = "dataset.table.split.size";
+
   /**
    * Property set to configure name of the column family. This property only applies to implementations that support
    * it. If not set, a default column family will be used.
@@ -105,6 +105,44 @@ public class TableProperties {
     return "true".equalsIgnoreCase(props.get(Table.PROPERTY_READLESS_INCREMENT));
   }
 
+  /**
+   * Set the size in bytes at which writes buffered by a transaction are persisted before it commits,
+   * in dataset properties. A zero or negative value means writes are only persisted on commit.
+   */
+  public static void setBufferFlushSize(DatasetProperties.Builder builder, long size) {
+    builder.add(Table.PROPERTY_BUFFER_FLUSH_SIZE, size);
+  }
+
+  /**
+   * @return the size in bytes at which buffered writes are persisted before the transaction commits,
+   *         or 0 if they are only persisted on commit.
+   *
+   * @throws NumberFormatException if the value is not a valid long.
+   */
+  public static long getBufferFlushSize(Map<String, String> props) {
+    String value = props.get(Table.PROPERTY_BUFFER_FLUSH_SIZE);
+    return value == null ? 0L : Math.max(0L, Long.parseLong(value));
+  }
+
+  /**
+   * Set the approximate size in bytes of the data in each split of the table, in dataset properties.
+   * A zero or negative value means the data is divided into a default number of splits.
+   */
+  public static void setSplitSize(DatasetProperties.Builder builder, long size) {
+    builder.add(Table.PROPERTY_SPLIT_SIZE, size);
+  }
+
+  /**
+   * @return the approximate size in bytes of the data in each split of the table,
+   *         or 0 if the data is divided into a default number of splits.
+   *
+   * @throws NumberFormatException if the value is not a valid long.
+   */
+  public static long getSplitSize(Map<String, String> props) {
+    String value = props.get(Table.PROPERTY_SPLIT_SIZE);
+    return value == null ? 0L : Math.max(0L, Long.parseLong(value));
+  }
+
   /**
    * Set the table TTL, in seconds, in dataset properties. A zero or negative value means no TTL.
    */
@@ -320,6 +358,26 @@ public class TableProperties {
       return (B) this;
     }
 
+    /**
+     * Set the size in bytes at which writes buffered by a transaction are persisted before it commits.
+     * A zero or negative value means writes are only persisted on commit.
+     */
+    @SuppressWarnings("unchecked")
+    public B setBufferFlushSize(long size) {
+      TableProperties.setBufferFlushSize(this, size);
+      return (B) this;
+    }
+
+    /**
+     * Set the approximate size in bytes of the data in each split of the table.
+     * A zero or negative value means the data is divided into a default number of splits.
+     */
+    @SuppressWarnings("unchecked")
+    public B setSplitSize(long size) {
+      TableProperties.setSplitSize(this, size);
+      return (B) this;
+    }
+
     /**
      * Set the schema of a table.
      */
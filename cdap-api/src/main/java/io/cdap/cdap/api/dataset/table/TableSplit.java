@@ -22,15 +22,19 @@ import io.cdap.cdap.api.data.batch.Split;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import javax.annotation.Nullable;
 
 /**
- * Table splits are simply a start and stop key.
+ * Table splits are simply a start and stop key, with an optional {@link ValueFilter} applied when reading the split.
  */
 public class TableSplit extends Split {
 
   private byte[] start, stop;
+  private ValueFilter filter;
 
   /**
    * Constructor for serialization only. Don't call directly.
@@ -40,8 +44,16 @@ public class TableSplit extends Split {
   }
 
   public TableSplit(byte[] start, byte[] stop) {
+    this(start, stop, null);
+  }
+
+  /**
+   * Creates a split that only returns the rows of the key range that pass the given filter.
+   */
+  public TableSplit(byte[] start, byte[] stop, @Nullable ValueFilter filter) {
     this.start = start;
     this.stop = stop;
+    this.filter = filter;
   }
 
   public byte[] getStart() {
@@ -52,11 +64,17 @@ public class TableSplit extends Split {
     return stop;
   }
 
+  @Nullable
+  public ValueFilter getFilter() {
+    return filter;
+  }
+
   @Override
   public String toString() {
     return "TableSplit{" +
       "start=" + Bytes.toStringBinary(start) +
       ", stop=" + Bytes.toStringBinary(stop) +
+      (filter == null ? "" : ", filter=" + filter) +
       '}';
   }
 
@@ -74,6 +92,10 @@ public class TableSplit extends Split {
       out.writeInt(stop.length);
       out.write(stop);
     }
+    out.writeBoolean(filter != null);
+    if (filter != null) {
+      writeFilter(out, filter);
+    }
   }
 
   @Override
@@ -93,6 +115,65 @@ public class TableSplit extends Split {
       stop = new byte[len];
       in.readFully(stop);
     }
+    filter = in.readBoolean() ? readFilter(in) : null;
+  }
+
+  private static void writeFilter(DataOutput out, ValueFilter filter) throws IOException {
+    if (filter instanceof ColumnValueFilter) {
+      ColumnValueFilter columnFilter = (ColumnValueFilter) filter;
+      out.writeByte(0);
+      writeBytes(out, columnFilter.getColumn());
+      out.writeUTF(columnFilter.getType().name());
+      out.writeInt(columnFilter.getValues().size());
+      for (byte[] value : columnFilter.getValues()) {
+        writeBytes(out, value);
+      }
+    } else if (filter instanceof FilterList) {
+      FilterList filterList = (FilterList) filter;
+      out.writeByte(1);
+      out.writeUTF(filterList.getOperator().name());
+      out.writeInt(filterList.getFilters().size());
+      for (ValueFilter child : filterList.getFilters()) {
+        writeFilter(out, child);
+      }
+    } else {
+      throw new IOException("Unsupported filter type " + filter.getClass().getName());
+    }
+  }
+
+  private static ValueFilter readFilter(DataInput in) throws IOException {
+    byte kind = in.readByte();
+    if (kind == 0) {
+      byte[] column = readBytes(in);
+      ColumnValueFilter.Type type = ColumnValueFilter.Type.valueOf(in.readUTF());
+      int size = in.readInt();
+      List<byte[]> values = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        values.add(readBytes(in));
+      }
+      return ColumnValueFilter.of(column, type, values);
+    }
+    if (kind == 1) {
+      FilterList.Operator operator = FilterList.Operator.valueOf(in.readUTF());
+      int size = in.readInt();
+      List<ValueFilter> filters = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        filters.add(readFilter(in));
+      }
+      return new FilterList(operator, filters);
+    }
+    throw new IOException("Unknown filter kind " + kind);
+  }
+
+  private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInput in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
   }
 
   @Override
@@ -104,7 +185,8 @@ public class TableSplit extends Split {
       return false;
     }
     TableSplit that = (TableSplit) o;
-    return Arrays.equals(start, that.start) && Arrays.equals(stop, that.stop);
+    return Arrays.equals(start, that.start) && Arrays.equals(stop, that.stop)
+      && Objects.equals(filter, that.filter);
   }
 
   @Override
@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.api.dataset.table;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.Map;
+
+/**
+ * A {@link Filter} that selects rows based on the values of their columns. Value filters are evaluated by the
+ * table implementation before the rows are returned, on the region servers if the table is backed by HBase.
+ *
+ * @see ColumnValueFilter
+ * @see FilterList
+ */
+@Beta
+public interface ValueFilter extends Filter {
+
+  /**
+   * Returns whether a row with the given columns passes this filter.
+   *
+   * @param columns the columns of the row, ordered by {@link io.cdap.cdap.api.common.Bytes#BYTES_COMPARATOR}
+   * @return {@code true} if the row should be included in the scan
+   */
+  boolean matches(Map<byte[], byte[]> columns);
+}
@@ -35,6 +35,7 @@ import io.cdap.cdap.proto.ProgramHistory;
 import io.cdap.cdap.proto.ProgramRunClusterStatus;
 import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.RunCountResult;
+import io.cdap.cdap.proto.RunRecordPage;
 import io.cdap.cdap.proto.WorkflowNodeStateDetail;
 import io.cdap.cdap.proto.WorkflowStatistics;
 import io.cdap.cdap.proto.id.ApplicationId;
@@ -201,6 +202,21 @@ public interface Store {
   Map<ProgramRunId, RunRecordMeta> getRuns(ProgramId id, ProgramRunStatus status, long startTime, long endTime,
                                            int limit, Predicate<RunRecordMeta> filter);
 
+  /**
+   * Fetches a page of the run records of a particular program. The next page is fetched with the cursor returned
+   * with the page, which resumes reading right after the last run record of the page.
+   *
+   * @param id        id of the program
+   * @param status    status of the program running/completed/failed or all
+   * @param startTime fetch run history that has started after the startTime in seconds
+   * @param endTime   fetch run history that has started before the endTime in seconds
+   * @param limit     max number of entries to fetch for this page
+   * @param cursor    the cursor returned with the previous page, or {@code null} to fetch the first page
+   * @return          the page of run records, sorted by their start time with the newest run first
+   */
+  RunRecordPage<RunRecordMeta> getRunPage(ProgramId id, ProgramRunStatus status, long startTime, long endTime,
+                                          int limit, @Nullable String cursor);
+
   /**
    * Fetches the run records for the particular status. Same as calling
    * {@link #getRuns(ProgramRunStatus, long, long, int, Predicate)
@@ -86,6 +86,7 @@ import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.ProtoTrigger;
 import io.cdap.cdap.proto.RunCountResult;
 import io.cdap.cdap.proto.RunRecord;
+import io.cdap.cdap.proto.RunRecordPage;
 import io.cdap.cdap.proto.ScheduleDetail;
 import io.cdap.cdap.proto.ServiceInstances;
 import io.cdap.cdap.proto.id.ApplicationId;
@@ -98,7 +99,10 @@ import io.cdap.cdap.scheduler.ProgramScheduleService;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
 import io.cdap.http.HttpResponder;
 import io.netty.buffer.ByteBufInputStream;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.apache.twill.discovery.DiscoveryServiceClient;
@@ -371,7 +375,9 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
 
   /**
    * Returns program runs based on options it returns either currently running or completed or failed.
-   * Default it returns all.
+   * Default it returns all. At most {@code limit} runs are returned. If there may be more runs, the cursor to get
+   * the next runs with the {@code cursor} query parameter is returned in the
+   * {@link Constants.AppFabric#NEXT_CURSOR_HEADER} header.
    */
   @GET
   @Path("/apps/{app-name}/{program-type}/{program-name}/runs")
@@ -383,15 +389,18 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
                              @QueryParam("status") String status,
                              @QueryParam("start") String startTs,
                              @QueryParam("end") String endTs,
-                             @QueryParam("limit") @DefaultValue("100") final int resultLimit)
+                             @QueryParam("limit") @DefaultValue("100") final int resultLimit,
+                             @Nullable @QueryParam("cursor") String cursor)
     throws Exception {
     programHistory(request, responder, namespaceId, appName, ApplicationId.DEFAULT_VERSION, type,
-                   programName, status, startTs, endTs, resultLimit);
+                   programName, status, startTs, endTs, resultLimit, cursor);
   }
 
   /**
    * Returns program runs of an app version based on options it returns either currently running or completed or failed.
-   * Default it returns all.
+   * Default it returns all. At most {@code limit} runs are returned. If there may be more runs, the cursor to get
+   * the next runs with the {@code cursor} query parameter is returned in the
+   * {@link Constants.AppFabric#NEXT_CURSOR_HEADER} header.
    */
   @GET
   @Path("/apps/{app-name}/versions/{app-version}/{program-type}/{program-name}/runs")
@@ -404,7 +413,8 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
                              @QueryParam("status") String status,
                              @QueryParam("start") String startTs,
                              @QueryParam("end") String endTs,
-                             @QueryParam("limit") @DefaultValue("100") final int resultLimit) throws Exception {
+                             @QueryParam("limit") @DefaultValue("100") final int resultLimit,
+                             @Nullable @QueryParam("cursor") String cursor) throws Exception {
     ProgramType programType = getProgramType(type);
 
     long start = (startTs == null || startTs.isEmpty()) ? 0 : Long.parseLong(startTs);
@@ -418,9 +428,14 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
     ProgramRunStatus runStatus = (status == null) ? ProgramRunStatus.ALL :
       ProgramRunStatus.valueOf(status.toUpperCase());
 
-    List<RunRecord> records = lifecycleService.getRuns(program, runStatus, start, end, resultLimit);
+    RunRecordPage<RunRecord> page = lifecycleService.getRunPage(program, runStatus, start, end, resultLimit, cursor);
 
-    responder.sendJson(HttpResponseStatus.OK, GSON.toJson(records));
+    // the cursor of the next page is returned in a header, so that the body remains the list of run records
+    HttpHeaders headers = new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+    if (page.getNextCursor() != null) {
+      headers.set(Constants.AppFabric.NEXT_CURSOR_HEADER, page.getNextCursor());
+    }
+    responder.sendString(HttpResponseStatus.OK, GSON.toJson(page.getRuns()), headers);
   }
 
   /**
@@ -140,14 +140,19 @@ public class JobQueueTable implements JobQueue {
 
   @Override
   public void addNotification(ProgramScheduleRecord record, Notification notification) throws IOException {
-    boolean jobExists = false;
+    addNotifications(record, Collections.singletonList(notification));
+  }
+
+  @Override
+  public void addNotifications(ProgramScheduleRecord record, List<Notification> notifications) throws IOException {
     ProgramSchedule schedule = record.getSchedule();
 
     // Only add notifications for enabled schedules
-    if (record.getMeta().getStatus() != ProgramScheduleStatus.SCHEDULED) {
+    if (notifications.isEmpty() || record.getMeta().getStatus() != ProgramScheduleStatus.SCHEDULED) {
       return;
     }
 
+    Job pendingJob = null;
     int nextGenerationId = 0;
     try (CloseableIterator<Job> jobs = getJobsForSchedule(schedule.getScheduleId())) {
       while (jobs.hasNext()) {
@@ -170,24 +175,41 @@ public class JobQueueTable implements JobQueue {
             // job has timed out; mark it obsolete
             writeJobObsolete(job, System.currentTimeMillis());
           } else {
-            jobExists = true;
-            addNotification(job, notification);
+            pendingJob = job;
             break;
           }
         }
       }
     }
-    // if no job exists for the scheduleId, add a new job with the first notification
-    if (!jobExists) {
-      List<Notification> notifications = Collections.singletonList(notification);
-      Job.State jobState = isTriggerSatisfied(schedule, notifications)
-        ? Job.State.PENDING_CONSTRAINT : Job.State.PENDING_TRIGGER;
-      writeJob(new SimpleJob(schedule, nextGenerationId, System.currentTimeMillis(), notifications, jobState,
-                        record.getMeta().getLastUpdated()));
+
+    // The notifications are added to the job in memory, and the job is written once it is no longer pending trigger
+    // or all notifications are added
+    for (Notification notification : notifications) {
+      if (pendingJob == null) {
+        // if no job exists for the scheduleId, add a new job with the notification as the first notification
+        List<Notification> jobNotifications = Collections.singletonList(notification);
+        Job.State jobState = isTriggerSatisfied(schedule, jobNotifications)
+          ? Job.State.PENDING_CONSTRAINT : Job.State.PENDING_TRIGGER;
+        pendingJob = new SimpleJob(schedule, nextGenerationId++, System.currentTimeMillis(), jobNotifications,
+                                   jobState, record.getMeta().getLastUpdated());
+      } else {
+        pendingJob = addNotification(pendingJob, notification);
+      }
+      if (pendingJob.getState() != Job.State.PENDING_TRIGGER) {
+        // the trigger is satisfied, hence the remaining notifications are added to a new job
+        writeJob(pendingJob);
+        pendingJob = null;
+      }
+    }
+    if (pendingJob != null) {
+      writeJob(pendingJob);
     }
   }
 
-  private void addNotification(Job job, Notification notification) throws IOException {
+  /**
+   * Returns a copy of the given job with the given notification added, without writing it.
+   */
+  private Job addNotification(Job job, Notification notification) {
     List<Notification> notifications = new ArrayList<>(job.getNotifications());
     notifications.add(notification);
 
@@ -196,9 +218,8 @@ public class JobQueueTable implements JobQueue {
       newState = Job.State.PENDING_CONSTRAINT;
       job.getState().checkTransition(newState);
     }
-    Job newJob = new SimpleJob(job.getSchedule(), job.getGenerationId(), job.getCreationTime(), notifications, newState,
-                               job.getScheduleLastUpdatedTime());
-    writeJob(newJob);
+    return new SimpleJob(job.getSchedule(), job.getGenerationId(), job.getCreationTime(), notifications, newState,
+                         job.getScheduleLastUpdatedTime());
   }
 
   private boolean isTriggerSatisfied(ProgramSchedule schedule, List<Notification> notifications) {
@@ -32,6 +32,9 @@ import io.cdap.cdap.common.http.CommonNettyHttpServiceBuilder;
 import io.cdap.cdap.common.logging.LoggingContextAccessor;
 import io.cdap.cdap.common.logging.ServiceLoggingContext;
 import io.cdap.cdap.common.metrics.MetricsReporterHook;
+import io.cdap.cdap.internal.app.store.ActiveRunCountReconcileService;
+import io.cdap.cdap.internal.app.store.ApplicationMetaCacheSubscriberService;
+import io.cdap.cdap.internal.app.store.RunRecordMigrationService;
 import io.cdap.cdap.internal.bootstrap.BootstrapService;
 import io.cdap.cdap.internal.provision.ProvisioningService;
 import io.cdap.cdap.proto.id.NamespaceId;
@@ -69,6 +72,9 @@ public class AppFabricServer extends AbstractIdleService {
   private final Set<String> servicesNames;
   private final Set<String> handlerHookNames;
   private final ProgramNotificationSubscriberService programNotificationSubscriberService;
+  private final ApplicationMetaCacheSubscriberService applicationMetaCacheSubscriberService;
+  private final RunRecordMigrationService runRecordMigrationService;
+  private final ActiveRunCountReconcileService activeRunCountReconcileService;
   private final RunRecordCorrectorService runRecordCorrectorService;
   private final CoreSchedulerService coreSchedulerService;
   private final ProvisioningService provisioningService;
@@ -94,6 +100,9 @@ public class AppFabricServer extends AbstractIdleService {
                          RunRecordCorrectorService runRecordCorrectorService,
                          ApplicationLifecycleService applicationLifecycleService,
                          ProgramNotificationSubscriberService programNotificationSubscriberService,
+                         ApplicationMetaCacheSubscriberService applicationMetaCacheSubscriberService,
+                         RunRecordMigrationService runRecordMigrationService,
+                         ActiveRunCountReconcileService activeRunCountReconcileService,
                          @Named("appfabric.services.names") Set<String> servicesNames,
                          @Named("appfabric.handler.hooks") Set<String> handlerHookNames,
                          CoreSchedulerService coreSchedulerService,
@@ -110,6 +119,9 @@ public class AppFabricServer extends AbstractIdleService {
     this.handlerHookNames = handlerHookNames;
     this.applicationLifecycleService = applicationLifecycleService;
     this.programNotificationSubscriberService = programNotificationSubscriberService;
+    this.applicationMetaCacheSubscriberService = applicationMetaCacheSubscriberService;
+    this.runRecordMigrationService = runRecordMigrationService;
+    this.activeRunCountReconcileService = activeRunCountReconcileService;
     this.runRecordCorrectorService = runRecordCorrectorService;
     this.sslEnabled = cConf.getBoolean(Constants.Security.SSL.INTERNAL_ENABLED);
     this.coreSchedulerService = coreSchedulerService;
@@ -132,6 +144,9 @@ public class AppFabricServer extends AbstractIdleService {
         bootstrapService.start(),
         programRuntimeService.start(),
         programNotificationSubscriberService.start(),
+        applicationMetaCacheSubscriberService.start(),
+        runRecordMigrationService.start(),
+        activeRunCountReconcileService.start(),
         runRecordCorrectorService.start(),
         coreSchedulerService.start()
       )
@@ -178,6 +193,9 @@ public class AppFabricServer extends AbstractIdleService {
     programRuntimeService.stopAndWait();
     applicationLifecycleService.stopAndWait();
     programNotificationSubscriberService.stopAndWait();
+    applicationMetaCacheSubscriberService.stopAndWait();
+    runRecordMigrationService.stopAndWait();
+    activeRunCountReconcileService.stopAndWait();
     runRecordCorrectorService.stopAndWait();
     provisioningService.stopAndWait();
   }
@@ -69,6 +69,7 @@ import io.cdap.cdap.proto.ProgramStatus;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.RunCountResult;
 import io.cdap.cdap.proto.RunRecord;
+import io.cdap.cdap.proto.RunRecordPage;
 import io.cdap.cdap.proto.id.ApplicationId;
 import io.cdap.cdap.proto.id.EntityId;
 import io.cdap.cdap.proto.id.NamespaceId;
@@ -231,6 +232,34 @@ public class ProgramLifecycleService {
       .map(record -> RunRecord.builder(record).build()).collect(Collectors.toList());
   }
 
+  /**
+   * Get a page of the latest runs within the specified start and end times for the specified program.
+   *
+   * @param programId the program to get runs for
+   * @param programRunStatus status of runs to return
+   * @param start earliest start time of runs to return
+   * @param end latest start time of runs to return
+   * @param limit the maximum number of runs to return
+   * @param cursor the cursor returned with the previous page, or {@code null} to get the first page
+   * @return the page of the latest runs for the program sorted by start time, with the newest run as the first run
+   * @throws NotFoundException if the application to which this program belongs was not found or the program is not
+   *                           found in the app
+   * @throws UnauthorizedException if the principal does not have access to the program
+   * @throws Exception if there was some other exception performing authorization checks
+   */
+  public RunRecordPage<RunRecord> getRunPage(ProgramId programId, ProgramRunStatus programRunStatus,
+                                             long start, long end, int limit, @Nullable String cursor)
+    throws Exception {
+    AuthorizationUtil.ensureAccess(programId, authorizationEnforcer, authenticationContext.getPrincipal());
+    ProgramSpecification programSpec = getProgramSpecificationWithoutAuthz(programId);
+    if (programSpec == null) {
+      throw new NotFoundException(programId);
+    }
+    RunRecordPage<RunRecordMeta> page = store.getRunPage(programId, programRunStatus, start, end, limit, cursor);
+    return new RunRecordPage<>(page.getRuns().stream().map(record -> RunRecord.builder(record).build())
+                                 .collect(Collectors.toList()), page.getNextCursor());
+  }
+
   /**
    * Get the latest runs within the specified start and end times for the specified programs.
    *
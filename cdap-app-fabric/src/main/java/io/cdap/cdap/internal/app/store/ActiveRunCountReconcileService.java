@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.inject.Inject;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.service.AbstractRetryableScheduledService;
+import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A service that periodically reconciles the active run counts maintained by the {@link AppMetadataStore} with the
+ * active run records. The first reconciliation also initializes the counts of the runs recorded before the counts
+ * were introduced.
+ */
+public class ActiveRunCountReconcileService extends AbstractRetryableScheduledService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ActiveRunCountReconcileService.class);
+
+  private final TransactionRunner transactionRunner;
+  private final long intervalMillis;
+
+  @Inject
+  ActiveRunCountReconcileService(CConfiguration cConf, TransactionRunner transactionRunner) {
+    super(RetryStrategies.fromConfiguration(cConf, "system.program.state."));
+    this.transactionRunner = transactionRunner;
+    long interval = cConf.getLong(Constants.AppFabric.ACTIVE_RUN_COUNT_RECONCILE_INTERVAL_SECONDS);
+    if (interval <= 0) {
+      LOG.debug("Invalid active run count reconcile interval {}. Setting it to 3600 seconds.", interval);
+      interval = 3600L;
+    }
+    this.intervalMillis = TimeUnit.SECONDS.toMillis(interval);
+  }
+
+  @Override
+  protected long runTask() throws Exception {
+    int corrected = TransactionRunners.run(transactionRunner, context -> {
+      return AppMetadataStore.create(context).reconcileActiveRunCounts();
+    }, IOException.class);
+
+    if (corrected > 0) {
+      LOG.info("Corrected {} active run counts", corrected);
+    }
+    return intervalMillis;
+  }
+
+  @Override
+  protected long handleRetriesExhausted(Exception e) {
+    // the counts are corrected by the next reconciliation, hence only log and try again in the next interval
+    LOG.warn("Failed to reconcile the active run counts. Will retry.", e);
+    return intervalMillis;
+  }
+}
@@ -41,6 +41,7 @@ import io.cdap.cdap.proto.ProgramRunCluster;
 import io.cdap.cdap.proto.ProgramRunClusterStatus;
 import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.ProgramType;
+import io.cdap.cdap.proto.RunRecordPage;
 import io.cdap.cdap.proto.WorkflowNodeStateDetail;
 import io.cdap.cdap.proto.id.ApplicationId;
 import io.cdap.cdap.proto.id.DatasetId;
@@ -48,6 +49,7 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProfileId;
 import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.cdap.spi.data.SortOrder;
 import io.cdap.cdap.spi.data.StructuredRow;
 import io.cdap.cdap.spi.data.StructuredTable;
 import io.cdap.cdap.spi.data.StructuredTableContext;
@@ -63,15 +65,19 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -111,8 +117,29 @@ public class AppMetadataStore {
 
   private static final String TYPE_COUNT = "runRecordCount";
   private static final String TYPE_RUN_RECORD_UPGRADE_COUNT = "runRecordUpgradeCount";
+  private static final String TYPE_ACTIVE_RUN_COUNT = "runRecordActiveCount";
   private static final String SMALLEST_POSSIBLE_STRING = "";
 
+  // Completed runs are indexed by every hour they were active in, so that finding the runs that were active in a
+  // time range only reads the hours overlapping with the range
+  private static final long RUN_TIME_BUCKET_SECS = TimeUnit.HOURS.toSeconds(1);
+  // Runs active in more buckets than this are indexed once in the LONG_RUNS_TIME_BUCKET, which is read by every query
+  private static final int MAX_RUN_TIME_BUCKETS = 24 * 7;
+  private static final long LONG_RUNS_TIME_BUCKET = Long.MAX_VALUE;
+  // State of the backfill of the run time buckets for completed runs recorded before the buckets were introduced
+  private static final String RUN_TIME_BUCKETS_STATE_TOPIC = "run_time_buckets";
+  private static final String RUN_TIME_BUCKETS_BACKFILL = "backfill";
+  private static final String RUN_TIME_BUCKETS_BACKFILL_DONE = "done";
+  // State of the reconciliation of the active run counts. The counts are only used once they have been reconciled,
+  // since active runs recorded before the counts were introduced are not counted.
+  private static final String ACTIVE_RUN_COUNTS_STATE_TOPIC = "active_run_counts";
+  private static final String ACTIVE_RUN_COUNTS_RECONCILE = "reconcile";
+  private static final String ACTIVE_RUN_COUNTS_RECONCILED = "done";
+  // State of the re-encoding of the run records written as JSON before the binary format was introduced
+  private static final String RUN_RECORDS_FORMAT_STATE_TOPIC = "run_records_format";
+  private static final String RUN_RECORDS_REENCODE = "reencode";
+  private static final String RUN_RECORDS_REENCODE_DONE = "done";
+
   private static final Map<ProgramRunStatus, String> STATUS_TYPE_MAP = ImmutableMap.<ProgramRunStatus, String>builder()
     .put(ProgramRunStatus.PENDING, TYPE_RUN_RECORD_ACTIVE)
     .put(ProgramRunStatus.STARTING, TYPE_RUN_RECORD_ACTIVE)
@@ -132,6 +159,7 @@ public class AppMetadataStore {
   private StructuredTable workflowsTable;
   private StructuredTable programCountsTable;
   private StructuredTable subscriberStateTable;
+  private StructuredTable runTimeBucketsTable;
 
   /**
    * Static method for creating an instance of {@link AppMetadataStore}.
@@ -199,6 +227,17 @@ public class AppMetadataStore {
     return programCountsTable;
   }
 
+  private StructuredTable getRunTimeBucketsTable() {
+    try {
+      if (runTimeBucketsTable == null) {
+        runTimeBucketsTable = context.getTable(StoreDefinition.AppMetadataStore.RUN_TIME_BUCKETS);
+      }
+    } catch (TableNotFoundException e) {
+      throw new RuntimeException(e);
+    }
+    return runTimeBucketsTable;
+  }
+
   private StructuredTable getSubscriberStateTable() {
     try {
       if (subscriberStateTable == null) {
@@ -265,12 +304,17 @@ public class AppMetadataStore {
 
   public Map<ApplicationId, ApplicationMeta> getApplicationsForAppIds(Collection<ApplicationId> appIds)
     throws IOException {
+    List<List<Field<?>>> multiKeys = new ArrayList<>(appIds.size());
+    for (ApplicationId appId : appIds) {
+      multiKeys.add(getApplicationPrimaryKeys(appId.getNamespace(), appId.getApplication(), appId.getVersion()));
+    }
     Map<ApplicationId, ApplicationMeta> result = new HashMap<>();
-    for (ApplicationId appId: appIds) {
-      ApplicationMeta applicationMeta = getApplication(appId);
-      if (applicationMeta != null) {
-        result.put(appId, getApplication(appId));
-      }
+    for (StructuredRow row : getApplicationSpecificationTable().multiRead(multiKeys)) {
+      ApplicationId appId = new NamespaceId(row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD))
+        .app(row.getString(StoreDefinition.AppMetadataStore.APPLICATION_FIELD),
+             row.getString(StoreDefinition.AppMetadataStore.VERSION_FIELD));
+      result.put(appId, GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD),
+                                      ApplicationMeta.class));
     }
     return result;
   }
@@ -362,9 +406,8 @@ public class AppMetadataStore {
       // Update the parent Workflow run record by adding node id and program run id in the properties
       Map<String, String> properties = new HashMap<>(record.getProperties());
       properties.put(workflowNodeId, programRunId.getRun());
-      writeToStructuredTableWithPrimaryKeys(
-        runRecordFields, RunRecordMeta.builder(record).setProperties(properties).setSourceId(sourceId).build(),
-        getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+      writeRunRecord(runRecordFields,
+                     RunRecordMeta.builder(record).setProperties(properties).setSourceId(sourceId).build());
     }
   }
 
@@ -425,10 +468,10 @@ public class AppMetadataStore {
       .setPrincipal(systemArgs.get(ProgramOptionConstants.PRINCIPAL))
       .build();
     List<Field<?>> fields = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_ACTIVE, programRunId, startTs);
-    writeToStructuredTableWithPrimaryKeys(
-      fields, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(fields, meta);
     List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, programRunId.getParent());
     getProgramCountsTable().increment(countKey, StoreDefinition.AppMetadataStore.COUNTS, 1L);
+    updateActiveRunCounts(programRunId.getParent(), 1L);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.PROVISIONING, programRunId);
     return meta;
   }
@@ -480,8 +523,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.PROVISIONED, programRunId);
     return meta;
   }
@@ -510,6 +552,7 @@ public class AppMetadataStore {
       return null;
     }
 
+    decrementActiveRunCounts(existing);
     delete(existing);
 
     List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, existing.getStartTs());
@@ -520,8 +563,8 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
+    addRunTimeBuckets(meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONING, programRunId);
     return meta;
   }
@@ -552,6 +595,7 @@ public class AppMetadataStore {
       return null;
     }
 
+    decrementActiveRunCounts(existing);
     delete(existing);
     List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, existing.getStartTs());
 
@@ -561,8 +605,8 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
+    addRunTimeBuckets(meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONED, programRunId);
     return meta;
   }
@@ -592,6 +636,7 @@ public class AppMetadataStore {
       return null;
     }
 
+    decrementActiveRunCounts(existing);
     delete(existing);
     List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, existing.getStartTs());
 
@@ -601,8 +646,8 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
+    addRunTimeBuckets(meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.ORPHANED, programRunId);
     return meta;
   }
@@ -643,8 +688,8 @@ public class AppMetadataStore {
       .build();
 
     List<Field<?>> fields = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, startTs);
-    writeToStructuredTableWithPrimaryKeys(
-      fields, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(fields, meta);
+    addRunTimeBuckets(meta);
     List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, programRunId.getParent());
     getProgramCountsTable().increment(countKey, StoreDefinition.AppMetadataStore.COUNTS, 1L);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.REJECTED, programRunId);
@@ -690,8 +735,7 @@ public class AppMetadataStore {
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.STARTING, programRunId);
     return meta;
   }
@@ -737,8 +781,7 @@ public class AppMetadataStore {
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.RUNNING, programRunId);
     return meta;
   }
@@ -813,8 +856,7 @@ public class AppMetadataStore {
       }
     }
     RunRecordMeta meta = builder.build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", toStatus, programRunId);
     return meta;
   }
@@ -845,6 +887,7 @@ public class AppMetadataStore {
       // Skip recording stop if the existing records are not valid
       return null;
     }
+    decrementActiveRunCounts(existing);
     // Delete the old run record
     delete(existing);
 
@@ -860,8 +903,14 @@ public class AppMetadataStore {
       .setStatus(runStatus)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
+    // a run whose cluster was deprovisioned before it stopped is bucketed without a stop time
+    ProgramRunClusterStatus clusterStatus = existing.getCluster().getStatus();
+    if (clusterStatus == ProgramRunClusterStatus.DEPROVISIONING
+      || clusterStatus == ProgramRunClusterStatus.DEPROVISIONED || clusterStatus == ProgramRunClusterStatus.ORPHANED) {
+      deleteRunTimeBuckets(existing);
+    }
+    addRunTimeBuckets(meta);
     LOG.trace("Recorded {} for program {}", runStatus, programRunId);
     return meta;
   }
@@ -913,13 +962,37 @@ public class AppMetadataStore {
 
   public Map<ProgramRunId, RunRecordMeta> getRuns(Set<ProgramRunId> programRunIds)
     throws IOException {
-    Map<ProgramRunId, RunRecordMeta> result = new HashMap();
-    for (ProgramRunId runId : programRunIds) {
-      result.put(runId, getRun(runId));
+    Map<ProgramRunId, RunRecordMeta> result = new HashMap<>();
+    // Same as getRun, query active run records first, then the completed run records of the remaining runs
+    readRuns(TYPE_RUN_RECORD_ACTIVE, programRunIds, result);
+    Set<ProgramRunId> remaining = programRunIds.stream()
+      .filter(runId -> !result.containsKey(runId))
+      .collect(Collectors.toSet());
+    readRuns(TYPE_RUN_RECORD_COMPLETED, remaining, result);
+    for (ProgramRunId runId : remaining) {
+      result.putIfAbsent(runId, null);
     }
     return result;
   }
 
+  /**
+   * Reads the run records of the given type for the given runs with a single multi-read, and adds them to the result.
+   */
+  private void readRuns(String recordType, Collection<ProgramRunId> programRunIds,
+                        Map<ProgramRunId, RunRecordMeta> result) throws IOException {
+    if (programRunIds.isEmpty()) {
+      return;
+    }
+    List<List<Field<?>>> multiKeys = new ArrayList<>(programRunIds.size());
+    for (ProgramRunId runId : programRunIds) {
+      multiKeys.add(getProgramRunInvertedTimeKey(recordType, runId, RunIds.getTime(runId.getRun(), TimeUnit.SECONDS)));
+    }
+    for (StructuredRow row : getRunRecordsTable().multiRead(multiKeys)) {
+      RunRecordMeta meta = deserializeRunRecordMeta(row);
+      result.put(meta.getProgramRunId(), meta);
+    }
+  }
+
   /**
    * Get active runs in the given set of namespaces that satisfies a filter, active runs means program run with status
    * STARTING, PENDING, RUNNING or SUSPENDED.
@@ -944,13 +1017,106 @@ public class AppMetadataStore {
    * @param limit count at most that many runs, stop if there are more.
    */
   public int countActiveRuns(@Nullable Integer limit) throws IOException {
-    AtomicInteger count = new AtomicInteger(0);
-    enumerateProgramRuns(Range.singleton(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, null)),
-                         null, key -> !NamespaceId.SYSTEM.getNamespace().equals(
-                           key.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD)),
-                         limit != null ? limit : Integer.MAX_VALUE,
-                         run -> count.incrementAndGet());
-    return count.get();
+    int maxCount = limit != null ? limit : Integer.MAX_VALUE;
+    if (isActiveRunCountsReconciled()) {
+      long count = sumActiveRunCounts(Range.singleton(getCountTypePrefix(TYPE_ACTIVE_RUN_COUNT)), true);
+      return (int) Math.min(count, maxCount);
+    }
+
+    int count = 0;
+    // only the primary keys are read, since the namespace is part of the key and the run records are not needed
+    try (CloseableIterator<StructuredRow> iterator =
+           getRunRecordsTable().scan(Range.singleton(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, null)),
+                                     Integer.MAX_VALUE, Collections.emptyList(), SortOrder.ASC)) {
+      while (count < maxCount && iterator.hasNext()) {
+        if (!NamespaceId.SYSTEM.getNamespace().equals(
+          iterator.next().getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD))) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of active runs in the given namespace. It is the sum of the active run counts of the programs
+   * in the namespace, as a count per namespace would be updated by every run of the namespace, which makes concurrent
+   * runs conflict with each other.
+   */
+  public long getActiveRunCount(NamespaceId namespaceId) throws IOException {
+    if (isActiveRunCountsReconciled()) {
+      return sumActiveRunCounts(
+        Range.singleton(getCountNamespacePrefix(TYPE_ACTIVE_RUN_COUNT, namespaceId.getNamespace())), false);
+    }
+    return countActiveRunRecords(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, namespaceId));
+  }
+
+  /**
+   * Returns the number of active runs of the given program.
+   */
+  public long getActiveRunCount(ProgramId programId) throws IOException {
+    if (isActiveRunCountsReconciled()) {
+      Optional<StructuredRow> row =
+        getProgramCountsTable().read(getProgramCountPrimaryKeys(TYPE_ACTIVE_RUN_COUNT, programId));
+      return row.map(this::getActiveRunCount).orElse(0L);
+    }
+    return countActiveRunRecords(getRunRecordProgramPrefix(TYPE_RUN_RECORD_ACTIVE, programId));
+  }
+
+  /**
+   * Returns whether the active run counts have been reconciled with the active run records at least once. Until then,
+   * the active runs are counted by scanning the active run records.
+   */
+  public boolean isActiveRunCountsReconciled() throws IOException {
+    return ACTIVE_RUN_COUNTS_RECONCILED.equals(
+      retrieveSubscriberState(ACTIVE_RUN_COUNTS_STATE_TOPIC, ACTIVE_RUN_COUNTS_RECONCILE));
+  }
+
+  /**
+   * Recomputes the active run counts per program from the active run records, and corrects the counts that are
+   * different. The counts are updated on every state transition of a run, hence this is only needed
+   * to fix counts that drifted, for example because of run records that were changed by older versions.
+   *
+   * @return the number of counts that were corrected
+   */
+  public int reconcileActiveRunCounts() throws IOException {
+    Map<List<Field<?>>, Long> expected = new HashMap<>();
+    // only the primary keys are read, since the program is part of the key and the run records are not needed
+    try (CloseableIterator<StructuredRow> iterator =
+           getRunRecordsTable().scan(Range.singleton(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, null)),
+                                     Integer.MAX_VALUE, Collections.emptyList(), SortOrder.ASC)) {
+      while (iterator.hasNext()) {
+        ProgramId programId = getProgramIdFromRunRecordsPrimaryKeys(new ArrayList<>(iterator.next().getPrimaryKeys()));
+        expected.merge(getProgramCountPrimaryKeys(TYPE_ACTIVE_RUN_COUNT, programId), 1L, Long::sum);
+      }
+    }
+
+    // Collect the corrections first and write them after the scan is closed
+    Map<List<Field<?>>, Long> corrections = new HashMap<>();
+    try (CloseableIterator<StructuredRow> iterator =
+           getProgramCountsTable().scan(Range.singleton(getCountTypePrefix(TYPE_ACTIVE_RUN_COUNT)),
+                                        Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        List<Field<?>> key = new ArrayList<>(row.getPrimaryKeys());
+        long count = expected.getOrDefault(key, 0L);
+        expected.remove(key);
+        if (count != getActiveRunCount(row)) {
+          corrections.put(key, count);
+        }
+      }
+    }
+    corrections.putAll(expected);
+
+    for (Map.Entry<List<Field<?>>, Long> entry : corrections.entrySet()) {
+      List<Field<?>> fields = new ArrayList<>(entry.getKey());
+      fields.add(Fields.longField(StoreDefinition.AppMetadataStore.COUNTS, entry.getValue()));
+      getProgramCountsTable().upsert(fields);
+    }
+    if (!isActiveRunCountsReconciled()) {
+      persistSubscriberState(ACTIVE_RUN_COUNTS_STATE_TOPIC, ACTIVE_RUN_COUNTS_RECONCILE, ACTIVE_RUN_COUNTS_RECONCILED);
+    }
+    return corrections.size();
   }
 
   /**
@@ -1034,6 +1200,97 @@ public class AppMetadataStore {
     }
   }
 
+  /**
+   * Returns a page of the run records of the given program. Pages are read from the position in the run records table
+   * that the cursor of the previous page points to, hence fetching a page does not re-read the previous pages.
+   *
+   * @param programId the program to get the runs of
+   * @param status the status of the runs to return
+   * @param startTime the earliest start time in seconds of the runs to return
+   * @param endTime the latest start time in seconds (exclusive) of the runs to return
+   * @param limit the maximum number of runs in the page
+   * @param cursor the cursor returned with the previous page, or {@code null} to get the first page
+   * @return the page of run records, with the newest run as the first run
+   * @throws BadRequestException if the cursor is invalid
+   */
+  public RunRecordPage<RunRecordMeta> getRunPage(ProgramId programId, ProgramRunStatus status, long startTime,
+                                                 long endTime, int limit, @Nullable String cursor)
+    throws BadRequestException, IOException {
+    RunRecordCursor after = cursor == null ? null : RunRecordCursor.decode(cursor);
+    boolean active = TYPE_RUN_RECORD_ACTIVE.equals(STATUS_TYPE_MAP.get(status));
+    boolean includeActive = status == ProgramRunStatus.ALL || active;
+    boolean includeCompleted = status == ProgramRunStatus.ALL || !active;
+
+    List<RunRecordMeta> runs = new ArrayList<>();
+    RunRecordCursor last = null;
+    // active runs come before the completed runs, hence they are skipped if the cursor points to a completed run
+    if (includeActive && (after == null || TYPE_RUN_RECORD_ACTIVE.equals(after.recordType))) {
+      Predicate<RunRecordMeta> filter = getTimeRangePredicate(startTime, endTime);
+      if (status != ProgramRunStatus.ALL) {
+        filter = filter.and(record -> record.getStatus() == status);
+      }
+      // the start time in the key of an active run record can differ from the one in the run record,
+      // hence the time range is only applied by the filter
+      last = scanRunPage(TYPE_RUN_RECORD_ACTIVE, programId, 0L, true, Long.MAX_VALUE, after, filter, limit, runs);
+    }
+    if (includeCompleted && runs.size() < limit) {
+      RunRecordCursor completedAfter = after != null && TYPE_RUN_RECORD_COMPLETED.equals(after.recordType)
+        ? after : null;
+      RunRecordCursor completedLast = scanRunPage(TYPE_RUN_RECORD_COMPLETED, programId,
+                                                  getInvertedTsScanKeyPart(endTime), true,
+                                                  getInvertedTsScanKeyPart(startTime), completedAfter,
+                                                  getStatusPredicate(status), limit - runs.size(), runs);
+      last = completedLast == null ? last : completedLast;
+    }
+    // there may be more runs only if the page is full
+    return new RunRecordPage<>(runs, runs.size() < limit || last == null ? null : last.encode());
+  }
+
+  /**
+   * Reads the run records of the given type of a program, with inverted start times within the given range, into the
+   * given list.
+   *
+   * @return the cursor of the last run record added to the list, or {@code null} if no run record was added
+   */
+  @Nullable
+  private RunRecordCursor scanRunPage(String recordType, ProgramId programId, long lowerBound,
+                                      boolean lowerBoundInclusive, long upperBound, @Nullable RunRecordCursor after,
+                                      @Nullable Predicate<RunRecordMeta> predicate, int limit,
+                                      List<RunRecordMeta> runs) throws IOException {
+    List<Field<?>> begin = getRunRecordProgramPrefix(recordType, programId);
+    Range.Bound beginBound;
+    if (after == null) {
+      begin.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, lowerBound));
+      beginBound = lowerBoundInclusive ? Range.Bound.INCLUSIVE : Range.Bound.EXCLUSIVE;
+    } else {
+      // resume right after the last run record of the previous page
+      begin.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, after.invertedStartTime));
+      begin.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_FIELD, after.runId));
+      beginBound = Range.Bound.EXCLUSIVE;
+    }
+    List<Field<?>> end = getRunRecordProgramPrefix(recordType, programId);
+    end.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, upperBound));
+    Range range = Range.create(begin, beginBound, end, Range.Bound.INCLUSIVE);
+
+    RunRecordCursor last = null;
+    int count = 0;
+    // Only pass in limit if predicate is null, or else we may return fewer than limit items
+    try (CloseableIterator<StructuredRow> iterator =
+           getRunRecordsTable().scan(range, predicate == null ? limit : Integer.MAX_VALUE)) {
+      while (iterator.hasNext() && count < limit) {
+        StructuredRow row = iterator.next();
+        RunRecordMeta meta = deserializeRunRecordMeta(row);
+        if (predicate == null || predicate.test(meta)) {
+          runs.add(meta);
+          last = new RunRecordCursor(recordType, row.getLong(StoreDefinition.AppMetadataStore.RUN_START_TIME),
+                                     row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD));
+          count++;
+        }
+      }
+    }
+    return last;
+  }
+
   // TODO: getRun is duplicated in cdap-watchdog AppMetadataStore class.
   // Any changes made here will have to be made over there too.
   // JIRA https://issues.cask.co/browse/CDAP-2172
@@ -1085,10 +1342,48 @@ public class AppMetadataStore {
                                                               Predicate<RunRecordMeta> filter)
     throws IOException {
     Predicate<RunRecordMeta> valuePredicate = andPredicate(getTimeRangePredicate(startTime, endTime), filter);
+    if (programId == null) {
+      // the start time range [startTime, endTime) is the range (endTime, startTime] of the inverted start times
+      return getProgramRunIdMapByStartTime(recordType, getInvertedTsKeyPart(endTime), false,
+                                           getInvertedTsKeyPart(startTime), valuePredicate, limit);
+    }
     List<Field<?>> prefix = getRunRecordProgramPrefix(recordType, programId);
     return getProgramRunIdMap(Range.singleton(prefix), valuePredicate, null, limit);
   }
 
+  /**
+   * Converts the run records of the given type with inverted start times within the given range to the actual
+   * run records. The run records are read with the index on the run status and start time, hence the latest run
+   * records of all programs are returned first.
+   *
+   * @param recordType the type of the run records to read
+   * @param lowerBound the lower bound of the inverted start times, which is the upper bound of the start times
+   * @param lowerBoundInclusive whether the lower bound is inclusive
+   * @param upperBound the inclusive upper bound of the inverted start times
+   * @param predicate to filter the runRecordMetas by. If null, then does not filter.
+   * @param limit the maximum number of entries to return
+   * @return map with keys as program run IDs
+   */
+  private Map<ProgramRunId, RunRecordMeta> getProgramRunIdMapByStartTime(String recordType, long lowerBound,
+                                                                         boolean lowerBoundInclusive, long upperBound,
+                                                                         @Nullable Predicate<RunRecordMeta> predicate,
+                                                                         int limit) throws IOException {
+    List<Field<?>> begin = getRunRecordStatusPrefix(recordType);
+    begin.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, lowerBound));
+    List<Field<?>> end = getRunRecordStatusPrefix(recordType);
+    end.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, upperBound));
+    Range range = Range.create(begin, lowerBoundInclusive ? Range.Bound.INCLUSIVE : Range.Bound.EXCLUSIVE,
+                               end, Range.Bound.INCLUSIVE);
+
+    Map<ProgramRunId, RunRecordMeta> map = new LinkedHashMap<>();
+    // Only pass in limit if predicate is null, or else we may return fewer than limit items
+    try (CloseableIterator<StructuredRow> iterator =
+           getRunRecordsTable().scanIndex(range, predicate == null ? limit : Integer.MAX_VALUE)) {
+      enumerateProgramRuns(iterator, predicate, null, limit, meta -> map.put(meta.getProgramRunId(), meta));
+    }
+    return map;
+  }
+
   /**
    * Converts the range in the map to the actual run records.
    *
@@ -1122,16 +1417,25 @@ public class AppMetadataStore {
     // Only pass in limit if predicates are null, or else we may return fewer than limit items
     try (CloseableIterator<StructuredRow> iterator =
            getRunRecordsTable().scan(range, predicate == null && keyPredicate == null ? limit : Integer.MAX_VALUE)) {
-      while (iterator.hasNext() && limit > 0) {
-        StructuredRow row = iterator.next();
-        if (keyPredicate != null && !keyPredicate.test(row)) {
-          continue;
-        }
-        RunRecordMeta meta = deserializeRunRecordMeta(row);
-        if (predicate == null || predicate.test(meta)) {
-          consumer.accept(meta);
-          limit--;
-        }
+      enumerateProgramRuns(iterator, predicate, keyPredicate, limit, consumer);
+    }
+  }
+
+  /**
+   * Iterate over the rows of run records, filter by predicates and pass each run record to the consumer.
+   */
+  private void enumerateProgramRuns(Iterator<StructuredRow> iterator, @Nullable Predicate<RunRecordMeta> predicate,
+                                    @Nullable Predicate<StructuredRow> keyPredicate, int limit,
+                                    Consumer<RunRecordMeta> consumer) {
+    while (iterator.hasNext() && limit > 0) {
+      StructuredRow row = iterator.next();
+      if (keyPredicate != null && !keyPredicate.test(row)) {
+        continue;
+      }
+      RunRecordMeta meta = deserializeRunRecordMeta(row);
+      if (predicate == null || predicate.test(meta)) {
+        consumer.accept(meta);
+        limit--;
       }
     }
   }
@@ -1182,29 +1486,36 @@ public class AppMetadataStore {
     throws IOException {
     long lowerBound = getInvertedTsScanKeyPart(endTime);
     long upperBound = getInvertedTsScanKeyPart(startTime);
+    if (historyKey.size() == 1) {
+      // runs of all programs are read with the index on the run status and start time
+      return getProgramRunIdMapByStartTime(TYPE_RUN_RECORD_COMPLETED, lowerBound, true, upperBound,
+                                           andPredicate(getStatusPredicate(status), valueFilter), limit);
+    }
     Predicate<StructuredRow> keyFiter = row -> {
       long time = row.getLong(StoreDefinition.AppMetadataStore.RUN_START_TIME);
       return time >= lowerBound && time <= upperBound;
 
     };
-    if (status.equals(ProgramRunStatus.ALL)) {
-      //return all records (successful and failed)
-      return getProgramRunIdMap(Range.singleton(historyKey), valueFilter, keyFiter, limit);
-    }
+    return getProgramRunIdMap(Range.singleton(historyKey), andPredicate(getStatusPredicate(status), valueFilter),
+                              keyFiter, limit);
+  }
 
-    if (status.equals(ProgramRunStatus.COMPLETED)) {
-      return getProgramRunIdMap(Range.singleton(historyKey),
-                                andPredicate(getPredicate(ProgramController.State.COMPLETED), valueFilter),
-                                keyFiter, limit);
-    }
-    if (status.equals(ProgramRunStatus.KILLED)) {
-      return getProgramRunIdMap(Range.singleton(historyKey),
-                                andPredicate(getPredicate(ProgramController.State.KILLED), valueFilter),
-                                keyFiter, limit);
+  /**
+   * Returns the predicate to filter historical run records by the given status, or {@code null} for all statuses.
+   */
+  @Nullable
+  private Predicate<RunRecordMeta> getStatusPredicate(ProgramRunStatus status) {
+    switch (status) {
+      case ALL:
+        //return all records (successful and failed)
+        return null;
+      case COMPLETED:
+        return getPredicate(ProgramController.State.COMPLETED);
+      case KILLED:
+        return getPredicate(ProgramController.State.KILLED);
+      default:
+        return getPredicate(ProgramController.State.ERROR);
     }
-    return getProgramRunIdMap(Range.singleton(historyKey),
-                              andPredicate(getPredicate(ProgramController.State.ERROR), valueFilter),
-                              keyFiter, limit);
   }
 
   private Predicate<RunRecordMeta> getPredicate(final ProgramController.State state) {
@@ -1215,8 +1526,12 @@ public class AppMetadataStore {
     return (record) -> record.getStartTs() >= startTime && record.getStartTs() < endTime;
   }
 
-  private Predicate<RunRecordMeta> andPredicate(Predicate<RunRecordMeta> first,
+  @Nullable
+  private Predicate<RunRecordMeta> andPredicate(@Nullable Predicate<RunRecordMeta> first,
                                                 @Nullable Predicate<RunRecordMeta> second) {
+    if (first == null) {
+      return second;
+    }
     if (second != null) {
       return first.and(second);
     }
@@ -1242,21 +1557,27 @@ public class AppMetadataStore {
     ApplicationId applicationId = new ApplicationId(namespaceId, appId, versionId);
     getRunRecordsTable()
       .deleteAll(Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_ACTIVE, applicationId)));
-    getRunRecordsTable()
-      .deleteAll(Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_COMPLETED, applicationId)));
+    Range completedRange = Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_COMPLETED, applicationId));
+    deleteRunTimeBuckets(completedRange);
+    getRunRecordsTable().deleteAll(completedRange);
     getProgramCountsTable().deleteAll(Range.singleton(getCountApplicationPrefix(TYPE_COUNT, applicationId)));
     getProgramCountsTable().deleteAll(
       Range.singleton(getCountApplicationPrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, applicationId)));
+    getProgramCountsTable().deleteAll(
+      Range.singleton(getCountApplicationPrefix(TYPE_ACTIVE_RUN_COUNT, applicationId)));
   }
 
   public void deleteProgramHistory(String namespaceId) throws IOException {
     getRunRecordsTable().deleteAll(
       Range.singleton(getRunRecordNamespacePrefixWithString(TYPE_RUN_RECORD_ACTIVE, namespaceId)));
-    getRunRecordsTable().deleteAll(Range.singleton(
-      getRunRecordNamespacePrefixWithString(TYPE_RUN_RECORD_COMPLETED, namespaceId)));
+    Range completedRange =
+      Range.singleton(getRunRecordNamespacePrefixWithString(TYPE_RUN_RECORD_COMPLETED, namespaceId));
+    deleteRunTimeBuckets(completedRange);
+    getRunRecordsTable().deleteAll(completedRange);
     getProgramCountsTable().deleteAll(Range.singleton(getCountNamespacePrefix(TYPE_COUNT, namespaceId)));
     getProgramCountsTable().deleteAll(Range.singleton(
       getCountNamespacePrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, namespaceId)));
+    getProgramCountsTable().deleteAll(Range.singleton(getCountNamespacePrefix(TYPE_ACTIVE_RUN_COUNT, namespaceId)));
   }
 
   /**
@@ -1296,10 +1617,11 @@ public class AppMetadataStore {
    */
   public Set<RunId> getRunningInRangeCompleted(long startTimeInSecs, long endTimeInSecs)
     throws IOException {
-    // This method scans a large amount of data and may timeout. However, the previous implementation would
-    // simply return incomplete data. We have doubled the amount of time each transaction can take by using two
-    // transactions - and can further get all namespaces from the smaller app spec table and do one transaction per
-    // namespace if necessary.
+    if (isRunTimeBucketsBackfilled()) {
+      return getRunningInRangeFromTimeBuckets(startTimeInSecs, endTimeInSecs);
+    }
+    // Until the run time buckets are backfilled, this method scans all completed run records, which is a large
+    // amount of data and may timeout.
     return getRunningInRangeForStatus(TYPE_RUN_RECORD_COMPLETED, startTimeInSecs, endTimeInSecs);
   }
 
@@ -1308,10 +1630,8 @@ public class AppMetadataStore {
    */
   public Set<RunId> getRunningInRangeActive(long startTimeInSecs, long endTimeInSecs)
     throws IOException {
-    // This method scans a large amount of data and may timeout. However, the previous implementation would
-    // simply return incomplete data. We have doubled the amount of time each transaction can take by using two
-    // transactions - and can further get all namespaces from the smaller app spec table and do one transaction per
-    // namespace if necessary.
+    // Active runs have not stopped, hence they are not in the run time buckets. This only reads the keys of the
+    // active run records, which are far fewer than the completed ones.
     return getRunningInRangeForStatus(TYPE_RUN_RECORD_ACTIVE, startTimeInSecs, endTimeInSecs);
   }
 
@@ -1340,10 +1660,22 @@ public class AppMetadataStore {
       throw new BadRequestException(String.format("%d programs found, the maximum number supported is 100",
                                                   programIds.size()));
     }
+    List<List<Field<?>>> multiKeys = new ArrayList<>(programIds.size());
     for (ProgramId programId : programIds) {
-      List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, programId);
-      Optional<StructuredRow> row = getProgramCountsTable().read(countKey);
-      result.put(programId, row.isPresent() ? row.get().getLong(StoreDefinition.AppMetadataStore.COUNTS) : 0);
+      multiKeys.add(getProgramCountPrimaryKeys(TYPE_COUNT, programId));
+    }
+    Map<ProgramId, Long> counts = new HashMap<>();
+    for (StructuredRow row : getProgramCountsTable().multiRead(multiKeys)) {
+      ProgramId programId =
+        new ApplicationId(row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD),
+                          row.getString(StoreDefinition.AppMetadataStore.APPLICATION_FIELD),
+                          row.getString(StoreDefinition.AppMetadataStore.VERSION_FIELD))
+          .program(ProgramType.valueOf(row.getString(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD)),
+                   row.getString(StoreDefinition.AppMetadataStore.PROGRAM_FIELD));
+      counts.put(programId, row.getLong(StoreDefinition.AppMetadataStore.COUNTS));
+    }
+    for (ProgramId programId : programIds) {
+      result.put(programId, counts.getOrDefault(programId, 0L));
     }
     return result;
   }
@@ -1399,6 +1731,23 @@ public class AppMetadataStore {
         (runRecordMeta.getStopTs() == null || runRecordMeta.getStopTs() >= startTimeInSecs);
 
     List<Field<?>> prefix = getRunRecordStatusPrefix(statusKey);
+    if (TYPE_RUN_RECORD_ACTIVE.equals(statusKey)) {
+      // active runs have not stopped yet and the start time is part of the key,
+      // hence only the primary keys are read instead of the run records
+      Set<RunId> runIds = new HashSet<>();
+      try (CloseableIterator<StructuredRow> iterator =
+             getRunRecordsTable().scan(Range.singleton(prefix), Integer.MAX_VALUE,
+                                       Collections.emptyList(), SortOrder.ASC)) {
+        while (iterator.hasNext()) {
+          StructuredRow row = iterator.next();
+          long startTs = getInvertedTsKeyPart(row.getLong(StoreDefinition.AppMetadataStore.RUN_START_TIME));
+          if (startTs < endTimeInSecs) {
+            runIds.add(RunIds.fromString(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD)));
+          }
+        }
+      }
+      return runIds;
+    }
     return
       getProgramRunIdMap(Range.singleton(prefix), timeFilter, null, Integer.MAX_VALUE).entrySet()
         .stream()
@@ -1406,6 +1755,268 @@ public class AppMetadataStore {
         .collect(Collectors.toSet());
   }
 
+  /**
+   * Returns the completed programs that were running between the given start and end time, by reading only the run
+   * time buckets overlapping with the time range.
+   */
+  private Set<RunId> getRunningInRangeFromTimeBuckets(long startTimeInSecs, long endTimeInSecs) throws IOException {
+    // A completed run was running in the range if it started before the end time and stopped at or after the start
+    // time. Such a run was active at a time between the start time and the end time, or right before the end time
+    // if the range is empty, hence it is in one of the buckets between these times.
+    long lastTime = endTimeInSecs - 1;
+    Range overlapping = Range.create(
+      Collections.singletonList(Fields.longField(StoreDefinition.AppMetadataStore.TIME_BUCKET,
+                                                 getRunTimeBucket(Math.min(startTimeInSecs, lastTime)))),
+      Range.Bound.INCLUSIVE,
+      Collections.singletonList(Fields.longField(StoreDefinition.AppMetadataStore.TIME_BUCKET,
+                                                 getRunTimeBucket(lastTime))),
+      Range.Bound.INCLUSIVE);
+    Range longRuns = Range.singleton(
+      Collections.singletonList(Fields.longField(StoreDefinition.AppMetadataStore.TIME_BUCKET,
+                                                 LONG_RUNS_TIME_BUCKET)));
+
+    Set<RunId> runIds = new HashSet<>();
+    for (Range range : Arrays.asList(overlapping, longRuns)) {
+      try (CloseableIterator<StructuredRow> iterator = getRunTimeBucketsTable().scan(range, Integer.MAX_VALUE)) {
+        while (iterator.hasNext()) {
+          StructuredRow row = iterator.next();
+          Long startTs = row.getLong(StoreDefinition.AppMetadataStore.RUN_START_TIME);
+          Long stopTs = row.getLong(StoreDefinition.AppMetadataStore.RUN_STOP_TIME);
+          if (startTs != null && startTs < endTimeInSecs && (stopTs == null || stopTs >= startTimeInSecs)) {
+            runIds.add(RunIds.fromString(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD)));
+          }
+        }
+      }
+    }
+    return runIds;
+  }
+
+  /**
+   * Returns whether the run time buckets have been written for all completed runs, including the ones recorded
+   * before the buckets were introduced.
+   */
+  public boolean isRunTimeBucketsBackfilled() throws IOException {
+    return RUN_TIME_BUCKETS_BACKFILL_DONE.equals(
+      retrieveSubscriberState(RUN_TIME_BUCKETS_STATE_TOPIC, RUN_TIME_BUCKETS_BACKFILL));
+  }
+
+  /**
+   * Writes the run time buckets for a batch of completed runs. It is used to backfill the buckets of the runs
+   * recorded before the buckets were introduced. Once all completed runs are processed, the queries for the runs
+   * that were running in a time range start using the buckets.
+   *
+   * @param afterKey the primary key of the last run record processed by the previous batch, or {@code null} to start
+   *                 from the first completed run record
+   * @param limit maximum number of run records to process
+   * @return the primary key of the last run record processed, or {@code null} if all completed run records
+   *         have been processed
+   */
+  @Nullable
+  List<Field<?>> backfillRunTimeBuckets(@Nullable List<Field<?>> afterKey, int limit) throws IOException {
+    List<Field<?>> prefix = getRunRecordStatusPrefix(TYPE_RUN_RECORD_COMPLETED);
+    Range range = afterKey == null
+      ? Range.singleton(prefix)
+      : Range.create(afterKey, Range.Bound.EXCLUSIVE, prefix, Range.Bound.INCLUSIVE);
+
+    List<Field<?>> lastKey = null;
+    int count = 0;
+    try (CloseableIterator<StructuredRow> iterator = getRunRecordsTable().scan(range, limit)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        addRunTimeBuckets(deserializeRunRecordMeta(row));
+        lastKey = new ArrayList<>(row.getPrimaryKeys());
+        count++;
+      }
+    }
+    if (count < limit) {
+      persistSubscriberState(RUN_TIME_BUCKETS_STATE_TOPIC, RUN_TIME_BUCKETS_BACKFILL, RUN_TIME_BUCKETS_BACKFILL_DONE);
+      return null;
+    }
+    return lastKey;
+  }
+
+  /**
+   * Returns whether all run records are stored in the binary format, including the ones written as JSON before the
+   * binary format was introduced.
+   */
+  public boolean isRunRecordsReencoded() throws IOException {
+    return RUN_RECORDS_REENCODE_DONE.equals(
+      retrieveSubscriberState(RUN_RECORDS_FORMAT_STATE_TOPIC, RUN_RECORDS_REENCODE));
+  }
+
+  /**
+   * Rewrites a batch of run records in the binary format of {@link RunRecordMetaCodec}, if they are stored as JSON.
+   * It is used to re-encode the run records written before the binary format was introduced. Run records can be read
+   * in either format, hence this only reduces the storage and decoding cost of the existing run records.
+   *
+   * @param afterKey the primary key of the last run record processed by the previous batch, or {@code null} to start
+   *                 from the first run record
+   * @param limit maximum number of run records to process
+   * @return the primary key of the last run record processed, or {@code null} if all run records have been processed
+   */
+  @Nullable
+  List<Field<?>> reencodeRunRecords(@Nullable List<Field<?>> afterKey, int limit) throws IOException {
+    Range range = afterKey == null ? Range.all() : Range.from(afterKey, Range.Bound.EXCLUSIVE);
+
+    List<Field<?>> lastKey = null;
+    int count = 0;
+    Map<List<Field<?>>, StructuredRow> jsonRows = new LinkedHashMap<>();
+    try (CloseableIterator<StructuredRow> iterator = getRunRecordsTable().scan(range, limit)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        lastKey = new ArrayList<>(row.getPrimaryKeys());
+        count++;
+        if (row.getInteger(StoreDefinition.AppMetadataStore.RUN_RECORD_FORMAT) == null) {
+          jsonRows.put(lastKey, row);
+        }
+      }
+    }
+    for (Map.Entry<List<Field<?>>, StructuredRow> entry : jsonRows.entrySet()) {
+      // The run record is only rewritten if it still has the JSON that was scanned. The compare and swap reads the
+      // run record again and locks it, so that a run record that was concurrently moved or deleted is not written
+      // back. The binary format is written from the same JSON.
+      String json = entry.getValue().getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+      if (getRunRecordsTable().compareAndSwap(
+        entry.getKey(), Fields.stringField(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA, json),
+        Fields.stringField(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA, null))) {
+        writeRunRecord(new ArrayList<>(entry.getKey()), deserializeRunRecordMeta(entry.getValue()));
+      }
+    }
+
+    if (count < limit) {
+      persistSubscriberState(RUN_RECORDS_FORMAT_STATE_TOPIC, RUN_RECORDS_REENCODE, RUN_RECORDS_REENCODE_DONE);
+      return null;
+    }
+    return lastKey;
+  }
+
+  private void addRunTimeBuckets(RunRecordMeta meta) throws IOException {
+    Long stopTs = meta.getStopTs();
+    for (long bucket : getRunTimeBuckets(meta.getStartTs(), stopTs)) {
+      List<Field<?>> fields = getRunTimeBucketKeys(bucket, meta.getProgramRunId());
+      fields.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, meta.getStartTs()));
+      if (stopTs != null) {
+        fields.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_STOP_TIME, stopTs));
+      }
+      getRunTimeBucketsTable().upsert(fields);
+    }
+  }
+
+  private void deleteRunTimeBuckets(RunRecordMeta meta) throws IOException {
+    for (long bucket : getRunTimeBuckets(meta.getStartTs(), meta.getStopTs())) {
+      getRunTimeBucketsTable().delete(getRunTimeBucketKeys(bucket, meta.getProgramRunId()));
+    }
+  }
+
+  /**
+   * Deletes the run time buckets of the completed runs in the given range of the run records table.
+   */
+  private void deleteRunTimeBuckets(Range completedRange) throws IOException {
+    try (CloseableIterator<StructuredRow> iterator = getRunRecordsTable().scan(completedRange, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        deleteRunTimeBuckets(deserializeRunRecordMeta(iterator.next()));
+      }
+    }
+  }
+
+  /**
+   * Updates the active run count of the given program by the given amount.
+   */
+  private void updateActiveRunCounts(ProgramId programId, long amount) throws IOException {
+    getProgramCountsTable().increment(getProgramCountPrimaryKeys(TYPE_ACTIVE_RUN_COUNT, programId),
+                                      StoreDefinition.AppMetadataStore.COUNTS, amount);
+  }
+
+  /**
+   * Decrements the active run counts if the given run record is stored as an active run record, which is about to be
+   * moved to the completed run records.
+   */
+  private void decrementActiveRunCounts(RunRecordMeta existing) throws IOException {
+    if (!TYPE_RUN_RECORD_ACTIVE.equals(STATUS_TYPE_MAP.get(existing.getStatus()))) {
+      return;
+    }
+    // A run record with an active status is stored as a completed run record once its cluster is deprovisioned,
+    // and it is not counted as active anymore
+    ProgramRunId programRunId = existing.getProgramRunId();
+    List<Field<?>> key = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_ACTIVE, programRunId, existing.getStartTs());
+    if (getRunRecordsTable().read(key).isPresent()) {
+      updateActiveRunCounts(programRunId.getParent(), -1L);
+    }
+  }
+
+  private long countActiveRunRecords(List<Field<?>> prefix) throws IOException {
+    long count = 0;
+    try (CloseableIterator<StructuredRow> iterator =
+           getRunRecordsTable().scan(Range.singleton(prefix), Integer.MAX_VALUE,
+                                     Collections.emptyList(), SortOrder.ASC)) {
+      while (iterator.hasNext()) {
+        iterator.next();
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Sums the active run counts of the programs in the given range of the program counts table.
+   */
+  private long sumActiveRunCounts(Range range, boolean excludeSystem) throws IOException {
+    long count = 0;
+    try (CloseableIterator<StructuredRow> iterator = getProgramCountsTable().scan(range, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        if (!excludeSystem || !NamespaceId.SYSTEM.getNamespace().equals(
+          row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD))) {
+          count += getActiveRunCount(row);
+        }
+      }
+    }
+    return count;
+  }
+
+  private long getActiveRunCount(StructuredRow row) {
+    Long count = row.getLong(StoreDefinition.AppMetadataStore.COUNTS);
+    // the count of a program can be temporarily negative if it drifted, until it is reconciled
+    return count == null ? 0L : Math.max(0L, count);
+  }
+
+  /**
+   * Returns the buckets of the hours a run was active in, or the {@link #LONG_RUNS_TIME_BUCKET} if the run was
+   * active in more than {@link #MAX_RUN_TIME_BUCKETS} hours or has no stop time. A completed run has no stop time
+   * if its cluster was deprovisioned before the run stopped.
+   */
+  private static List<Long> getRunTimeBuckets(long startTs, @Nullable Long stopTs) {
+    if (stopTs == null) {
+      return Collections.singletonList(LONG_RUNS_TIME_BUCKET);
+    }
+    long firstBucket = getRunTimeBucket(startTs);
+    long lastBucket = getRunTimeBucket(Math.max(startTs, stopTs));
+    if ((lastBucket - firstBucket) / RUN_TIME_BUCKET_SECS >= MAX_RUN_TIME_BUCKETS) {
+      return Collections.singletonList(LONG_RUNS_TIME_BUCKET);
+    }
+    List<Long> buckets = new ArrayList<>();
+    for (long bucket = firstBucket; bucket <= lastBucket; bucket += RUN_TIME_BUCKET_SECS) {
+      buckets.add(bucket);
+    }
+    return buckets;
+  }
+
+  private static long getRunTimeBucket(long timeInSecs) {
+    return timeInSecs - Math.floorMod(timeInSecs, RUN_TIME_BUCKET_SECS);
+  }
+
+  private List<Field<?>> getRunTimeBucketKeys(long bucket, ProgramRunId programRunId) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.longField(StoreDefinition.AppMetadataStore.TIME_BUCKET, bucket));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD, programRunId.getNamespace()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.APPLICATION_FIELD, programRunId.getApplication()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.VERSION_FIELD, programRunId.getVersion()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD, programRunId.getType().name()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, programRunId.getProgram()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_FIELD, programRunId.getRun()));
+    return fields;
+  }
+
   @VisibleForTesting
   // USE ONLY IN TESTS: WILL DELETE ALL METADATA STORE INFO
   public void deleteAllAppMetadataTables() throws IOException {
@@ -1415,6 +2026,11 @@ public class AppMetadataStore {
     deleteTable(getWorkflowsTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getProgramCountsTable(), StoreDefinition.AppMetadataStore.COUNT_TYPE);
     deleteTable(getSubscriberStateTable(), StoreDefinition.AppMetadataStore.SUBSCRIBER_TOPIC);
+    getRunTimeBucketsTable().deleteAll(Range.all());
+    // there are no run records left, hence none of the migrations of existing run records is needed
+    persistSubscriberState(RUN_TIME_BUCKETS_STATE_TOPIC, RUN_TIME_BUCKETS_BACKFILL, RUN_TIME_BUCKETS_BACKFILL_DONE);
+    persistSubscriberState(ACTIVE_RUN_COUNTS_STATE_TOPIC, ACTIVE_RUN_COUNTS_RECONCILE, ACTIVE_RUN_COUNTS_RECONCILED);
+    persistSubscriberState(RUN_RECORDS_FORMAT_STATE_TOPIC, RUN_RECORDS_REENCODE, RUN_RECORDS_REENCODE_DONE);
   }
 
   private void deleteTable(StructuredTable table, String firstKey) throws IOException {
@@ -1578,14 +2194,35 @@ public class AppMetadataStore {
     return deserializeRunRecordMeta(row.get());
   }
 
+  /**
+   * Writes the given run record with the given primary keys in the binary format of {@link RunRecordMetaCodec}.
+   */
+  private void writeRunRecord(List<Field<?>> keys, RunRecordMeta meta) throws IOException {
+    keys.add(Fields.intField(StoreDefinition.AppMetadataStore.RUN_RECORD_FORMAT, RunRecordMetaCodec.VERSION));
+    keys.add(Fields.bytesField(StoreDefinition.AppMetadataStore.RUN_RECORD_BINARY_DATA,
+                               RunRecordMetaCodec.encode(meta)));
+    // clears the JSON of a run record that was written before the binary format was introduced
+    keys.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA, null));
+    getRunRecordsTable().upsert(keys);
+  }
+
   private static RunRecordMeta deserializeRunRecordMeta(StructuredRow row) {
+    ProgramId programId = getProgramIdFromRunRecordsPrimaryKeys(new ArrayList<>(row.getPrimaryKeys()));
+    Integer format = row.getInteger(StoreDefinition.AppMetadataStore.RUN_RECORD_FORMAT);
+    if (format != null) {
+      ProgramRunId programRunId = programId.run(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD));
+      try {
+        return RunRecordMetaCodec.decode(format, programRunId,
+                                         row.getBytes(StoreDefinition.AppMetadataStore.RUN_RECORD_BINARY_DATA));
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to decode the run record of " + programRunId, e);
+      }
+    }
+
+    // run records written before the binary format was introduced are stored as JSON
     RunRecordMeta existing =
       GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA), RunRecordMeta.class);
-    RunRecordMeta newMeta = RunRecordMeta.builder(existing)
-      .setProgramRunId(
-        getProgramIdFromRunRecordsPrimaryKeys(new ArrayList(row.getPrimaryKeys())).run(existing.getPid()))
-      .build();
-    return newMeta;
+    return RunRecordMeta.builder(existing).setProgramRunId(programId.run(existing.getPid())).build();
   }
 
   private static ProgramId getProgramIdFromRunRecordsPrimaryKeys(List<Field<?>> primaryKeys) {
@@ -1609,4 +2246,38 @@ public class AppMetadataStore {
     fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, programId.getProgram()));
     return fields;
   }
+
+  /**
+   * The position of a run record in the run records table of a program, which is passed to clients as an opaque
+   * cursor to resume reading run records from.
+   */
+  private static final class RunRecordCursor {
+    private final String recordType;
+    private final long invertedStartTime;
+    private final String runId;
+
+    RunRecordCursor(String recordType, long invertedStartTime, String runId) {
+      this.recordType = recordType;
+      this.invertedStartTime = invertedStartTime;
+      this.runId = runId;
+    }
+
+    String encode() {
+      String cursor = recordType + ":" + invertedStartTime + ":" + runId;
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(Bytes.toBytes(cursor));
+    }
+
+    static RunRecordCursor decode(String cursor) throws BadRequestException {
+      try {
+        String[] parts = Bytes.toString(Base64.getUrlDecoder().decode(cursor)).split(":", 3);
+        if (parts.length == 3
+          && (TYPE_RUN_RECORD_ACTIVE.equals(parts[0]) || TYPE_RUN_RECORD_COMPLETED.equals(parts[0]))) {
+          return new RunRecordCursor(parts[0], Long.parseLong(parts[1]), parts[2]);
+        }
+      } catch (IllegalArgumentException e) {
+        // fall through to throw the BadRequestException, NumberFormatException is an IllegalArgumentException
+      }
+      throw new BadRequestException(String.format("Invalid cursor '%s'", cursor));
+    }
+  }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.Gson;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.api.messaging.MessagingContext;
+import io.cdap.cdap.api.messaging.TopicNotFoundException;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.service.Retries;
+import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.common.service.RetryStrategy;
+import io.cdap.cdap.common.utils.GenerationalCache;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.context.MultiThreadMessagingContext;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * A process wide cache of decoded {@link ApplicationMeta}, so that repeated lookups of the same application,
+ * such as the one done on every program start, don't need to read and decode the application specification
+ * from the store.
+ *
+ * Entries are invalidated right away for changes made by this process. Changes are also published to the
+ * {@link Constants.AppFabric#APP_META_CHANGE_TOPIC} topic, which the {@link ApplicationMetaCacheSubscriberService}
+ * consumes to invalidate the cache in other processes. Changes are published asynchronously on a best-effort
+ * basis, so that writes to the store are not delayed by the messaging system. Entries expire after a configurable
+ * time, which bounds how stale the cache can be for changes that are not published, and in processes that don't
+ * run the subscriber.
+ */
+@Singleton
+public class ApplicationMetaCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ApplicationMetaCache.class);
+  private static final Gson GSON = new Gson();
+
+  private final GenerationalCache<ApplicationId, ApplicationMeta> cache;
+  private final String topic;
+  private final RetryStrategy retryStrategy;
+  private MessagingContext messagingContext;
+  private ExecutorService publishExecutor;
+
+  @Inject
+  ApplicationMetaCache(CConfiguration cConf) {
+    this.cache = new GenerationalCache<>(CacheBuilder.newBuilder()
+      .maximumSize(cConf.getLong(Constants.AppFabric.APP_META_CACHE_SIZE))
+      .expireAfterWrite(cConf.getLong(Constants.AppFabric.APP_META_CACHE_EXPIRATION_SECS), TimeUnit.SECONDS)
+      .build());
+    this.topic = cConf.get(Constants.AppFabric.APP_META_CHANGE_TOPIC);
+    this.retryStrategy = RetryStrategies.fromConfiguration(cConf, "system.notification.");
+  }
+
+  /**
+   * Optional guice injection for the {@link MessagingService} used to publish changes to other processes.
+   * It is optional because not every process that uses the store has access to the messaging system.
+   */
+  @Inject(optional = true)
+  void setMessagingService(MessagingService messagingService) {
+    this.messagingContext = new MultiThreadMessagingContext(messagingService);
+    // A single thread publishes the changes in order. It is a daemon thread that terminates when idle, since the
+    // cache has no lifecycle to stop it.
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+      1, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+      Threads.createDaemonThreadFactory("app-meta-change-publisher"));
+    executor.allowCoreThreadTimeOut(true);
+    this.publishExecutor = executor;
+  }
+
+  /**
+   * Returns the {@link ApplicationMeta} of the given application from the cache, or from the given loader if it is
+   * not cached.
+   *
+   * @param appId the application to get
+   * @param loader the {@link Supplier} to read the application from the store on cache miss
+   * @return the {@link ApplicationMeta} or {@code null} if the application does not exist
+   */
+  @Nullable
+  public ApplicationMeta get(ApplicationId appId, Supplier<ApplicationMeta> loader) {
+    ApplicationMeta meta = cache.getIfPresent(appId);
+    if (meta != null) {
+      return meta;
+    }
+
+    long generation = cache.getGeneration();
+    meta = loader.get();
+    if (meta != null) {
+      cache.put(appId, meta, generation);
+    }
+    return meta;
+  }
+
+  /**
+   * Invalidates the given application in this process and in all processes that subscribe to changes.
+   * This method should be called after the transaction that changes the application is committed.
+   */
+  public void invalidate(ApplicationId appId) {
+    invalidateLocal(appId);
+    publish(new ApplicationMetaChange(appId.getNamespace(), appId.getApplication(), appId.getVersion()));
+  }
+
+  /**
+   * Invalidates all applications of the given namespace in this process and in all processes that subscribe
+   * to changes. This method should be called after the transaction that changes the applications is committed.
+   */
+  public void invalidate(NamespaceId namespaceId) {
+    invalidateLocal(namespaceId);
+    publish(new ApplicationMetaChange(namespaceId.getNamespace(), null, null));
+  }
+
+  /**
+   * Invalidates all applications in this process only.
+   */
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Invalidates the cache of this process for a change published by another process.
+   */
+  void invalidate(ApplicationMetaChange change) {
+    NamespaceId namespaceId = new NamespaceId(change.getNamespace());
+    if (change.getApplication() == null) {
+      invalidateLocal(namespaceId);
+    } else {
+      invalidateLocal(namespaceId.app(change.getApplication(), change.getVersion()));
+    }
+  }
+
+  private void invalidateLocal(ApplicationId appId) {
+    cache.invalidate(appId);
+  }
+
+  private void invalidateLocal(NamespaceId namespaceId) {
+    cache.invalidateIf(appId -> appId.getNamespaceId().equals(namespaceId));
+  }
+
+  private void publish(ApplicationMetaChange change) {
+    if (publishExecutor == null) {
+      return;
+    }
+    String payload = GSON.toJson(change);
+    publishExecutor.execute(() -> publish(payload));
+  }
+
+  private void publish(String payload) {
+    try {
+      // Retry on topic not found. The system topic is automatically created by the TMS service.
+      Retries.runWithRetries(
+        () -> messagingContext.getMessagePublisher().publish(NamespaceId.SYSTEM.getNamespace(), topic, payload),
+        retryStrategy, TopicNotFoundException.class::isInstance);
+    } catch (Exception e) {
+      // The change is committed already, hence don't fail the caller. Other processes will pick up the change
+      // when their cache entries expire.
+      LOG.warn("Failed to publish application metadata change {} to topic {}", payload, topic, e);
+    }
+  }
+
+  /**
+   * The message published to the {@link Constants.AppFabric#APP_META_CHANGE_TOPIC} topic for a change of an
+   * application, or of all applications in a namespace if the application is {@code null}.
+   */
+  static final class ApplicationMetaChange {
+    private final String namespace;
+    private final String application;
+    private final String version;
+
+    ApplicationMetaChange(String namespace, @Nullable String application, @Nullable String version) {
+      this.namespace = namespace;
+      this.application = application;
+      this.version = version;
+    }
+
+    String getNamespace() {
+      return namespace;
+    }
+
+    @Nullable
+    String getApplication() {
+      return application;
+    }
+
+    @Nullable
+    String getVersion() {
+      return version;
+    }
+
+    @Override
+    public String toString() {
+      return "ApplicationMetaChange{" +
+        "namespace='" + namespace + '\'' +
+        ", application='" + application + '\'' +
+        ", version='" + version + '\'' +
+        '}';
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.inject.Inject;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.messaging.Message;
+import io.cdap.cdap.api.messaging.MessagingContext;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.internal.app.store.ApplicationMetaCache.ApplicationMetaChange;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.context.MultiThreadMessagingContext;
+import io.cdap.cdap.messaging.data.MessageId;
+import io.cdap.cdap.messaging.subscriber.AbstractMessagingPollingService;
+import io.cdap.cdap.proto.id.NamespaceId;
+
+import java.util.Iterator;
+import javax.annotation.Nullable;
+
+/**
+ * A TMS subscriber service that invalidates the {@link ApplicationMetaCache} of this process for application
+ * changes made by other processes.
+ */
+public class ApplicationMetaCacheSubscriberService extends AbstractMessagingPollingService<ApplicationMetaChange> {
+
+  private static final Gson GSON = new Gson();
+
+  // Number of messages to fetch per batch
+  private static final int FETCH_SIZE = 100;
+
+  private final MessagingContext messagingContext;
+  private final ApplicationMetaCache appMetaCache;
+
+  @Inject
+  ApplicationMetaCacheSubscriberService(CConfiguration cConf, MetricsCollectionService metricsCollectionService,
+                                        MessagingService messagingService, ApplicationMetaCache appMetaCache) {
+    super(NamespaceId.SYSTEM.topic(cConf.get(Constants.AppFabric.APP_META_CHANGE_TOPIC)),
+          metricsCollectionService.getContext(ImmutableMap.of(
+            Constants.Metrics.Tag.COMPONENT, Constants.Service.MASTER_SERVICES,
+            Constants.Metrics.Tag.INSTANCE_ID, "0",
+            Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+            Constants.Metrics.Tag.TOPIC, cConf.get(Constants.AppFabric.APP_META_CHANGE_TOPIC),
+            Constants.Metrics.Tag.CONSUMER, "app.meta.cache"
+          )),
+          FETCH_SIZE, cConf.getLong(Constants.AppFabric.APP_META_CHANGE_POLL_DELAY_MILLIS),
+          RetryStrategies.fromConfiguration(cConf, "system.notification."));
+    this.messagingContext = new MultiThreadMessagingContext(messagingService);
+    this.appMetaCache = appMetaCache;
+  }
+
+  @Override
+  protected MessagingContext getMessagingContext() {
+    return messagingContext;
+  }
+
+  @Override
+  protected ApplicationMetaChange decodeMessage(Message message) {
+    return GSON.fromJson(message.getPayloadAsString(), ApplicationMetaChange.class);
+  }
+
+  @Nullable
+  @Override
+  protected String loadMessageId() {
+    // The cache is not persisted, hence only changes published from now on are relevant. Entries cached before
+    // the subscription starts may have missed earlier changes, so they are dropped.
+    byte[] rawId = new byte[MessageId.RAW_ID_SIZE];
+    MessageId.putRawId(System.currentTimeMillis(), (short) 0, 0L, (short) 0, rawId, 0);
+    appMetaCache.invalidateAll();
+    return Bytes.toHexString(rawId);
+  }
+
+  @Nullable
+  @Override
+  protected String processMessages(Iterator<ImmutablePair<String, ApplicationMetaChange>> messages) {
+    String messageId = null;
+    while (messages.hasNext()) {
+      ImmutablePair<String, ApplicationMetaChange> message = messages.next();
+      appMetaCache.invalidate(message.getSecond());
+      messageId = message.getFirst();
+    }
+    return messageId;
+  }
+}
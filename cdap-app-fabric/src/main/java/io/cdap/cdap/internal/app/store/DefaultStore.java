@@ -42,6 +42,7 @@ import io.cdap.cdap.app.store.Store;
 import io.cdap.cdap.common.ApplicationNotFoundException;
 import io.cdap.cdap.common.NotFoundException;
 import io.cdap.cdap.common.ProgramNotFoundException;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.data2.dataset2.DatasetFramework;
 import io.cdap.cdap.internal.app.ForwardingApplicationSpecification;
 import io.cdap.cdap.proto.BasicThrowable;
@@ -50,6 +51,7 @@ import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.RunCountResult;
 import io.cdap.cdap.proto.RunRecord;
+import io.cdap.cdap.proto.RunRecordPage;
 import io.cdap.cdap.proto.WorkflowNodeStateDetail;
 import io.cdap.cdap.proto.WorkflowStatistics;
 import io.cdap.cdap.proto.id.ApplicationId;
@@ -95,10 +97,17 @@ public class DefaultStore implements Store {
   private static final Type STRING_MAP_TYPE = new TypeToken<Map<String, String>>() { }.getType();
 
   private TransactionRunner transactionRunner;
+  private final ApplicationMetaCache appMetaCache;
 
-  @Inject
+  @VisibleForTesting
   public DefaultStore(TransactionRunner transactionRunner) {
+    this(transactionRunner, new ApplicationMetaCache(CConfiguration.create()));
+  }
+
+  @Inject
+  public DefaultStore(TransactionRunner transactionRunner, ApplicationMetaCache appMetaCache) {
     this.transactionRunner = transactionRunner;
+    this.appMetaCache = appMetaCache;
   }
 
   /**
@@ -122,9 +131,7 @@ public class DefaultStore implements Store {
   @Override
   public ProgramDescriptor loadProgram(ProgramId id) throws IOException, ApplicationNotFoundException,
     ProgramNotFoundException {
-    ApplicationMeta appMeta = TransactionRunners.run(transactionRunner, context -> {
-      return getAppMetadataStore(context).getApplication(id.getNamespace(), id.getApplication(), id.getVersion());
-    });
+    ApplicationMeta appMeta = getApplicationMeta(id.getParent());
 
     if (appMeta == null) {
       throw new ApplicationNotFoundException(id.getParent());
@@ -312,6 +319,14 @@ public class DefaultStore implements Store {
     });
   }
 
+  @Override
+  public RunRecordPage<RunRecordMeta> getRunPage(ProgramId id, ProgramRunStatus status, long startTime, long endTime,
+                                                 int limit, @Nullable String cursor) {
+    return TransactionRunners.run(transactionRunner, context -> {
+      return getAppMetadataStore(context).getRunPage(id, status, startTime, endTime, limit, cursor);
+    });
+  }
+
   @Override
   public Map<ProgramRunId, RunRecordMeta> getRuns(ProgramRunStatus status,
                                                   Predicate<RunRecordMeta> filter) {
@@ -394,6 +409,7 @@ public class DefaultStore implements Store {
     TransactionRunners.run(transactionRunner, context -> {
       getAppMetadataStore(context).writeApplication(id.getNamespace(), id.getApplication(), id.getVersion(), spec);
     });
+    appMetaCache.invalidate(id);
   }
 
   // todo: this method should be moved into DeletedProgramHandlerState, bad design otherwise
@@ -449,8 +465,8 @@ public class DefaultStore implements Store {
                                                                      instances, workerSpec.getPlugins());
       ApplicationSpecification newAppSpec = replaceWorkerInAppSpec(appSpec, id, newSpecification);
       metaStore.updateAppSpec(id.getNamespace(), id.getApplication(), id.getVersion(), newAppSpec);
-
     });
+    appMetaCache.invalidate(id.getParent());
 
     LOG.trace("Setting program instances: namespace: {}, application: {}, worker: {}, new instances count: {}",
               id.getNamespaceId(), id.getApplication(), id.getProgram(), instances);
@@ -472,6 +488,7 @@ public class DefaultStore implements Store {
       ApplicationSpecification newAppSpec = replaceServiceSpec(appSpec, id.getProgram(), serviceSpec);
       metaStore.updateAppSpec(id.getNamespace(), id.getApplication(), id.getVersion(), newAppSpec);
     });
+    appMetaCache.invalidate(id.getParent());
 
     LOG.trace("Setting program instances: namespace: {}, application: {}, service: {}, new instances count: {}",
               id.getNamespaceId(), id.getApplication(), id.getProgram(), instances);
@@ -504,6 +521,7 @@ public class DefaultStore implements Store {
       metaStore.deleteApplication(id.getNamespace(), id.getApplication(), id.getVersion());
       metaStore.deleteProgramHistory(id.getNamespace(), id.getApplication(), id.getVersion());
     });
+    appMetaCache.invalidate(id);
   }
 
   @Override
@@ -515,6 +533,7 @@ public class DefaultStore implements Store {
       metaStore.deleteApplications(id.getNamespace());
       metaStore.deleteProgramHistory(id.getNamespace());
     });
+    appMetaCache.invalidate(id);
   }
 
   @Override
@@ -526,6 +545,7 @@ public class DefaultStore implements Store {
       metaStore.deleteApplications(id.getNamespace());
       metaStore.deleteProgramHistory(id.getNamespace());
     });
+    appMetaCache.invalidate(id);
   }
 
   @Override
@@ -548,9 +568,8 @@ public class DefaultStore implements Store {
   @Nullable
   @Override
   public ApplicationSpecification getApplication(ApplicationId id) {
-    return TransactionRunners.run(transactionRunner, context -> {
-      return getApplicationSpec(getAppMetadataStore(context), id);
-    });
+    ApplicationMeta meta = getApplicationMeta(id);
+    return meta == null ? null : meta.getSpec();
   }
 
   @Override
@@ -618,6 +637,17 @@ public class DefaultStore implements Store {
       getAppMetadataStore(context).deleteAllAppMetadataTables();
       getWorkflowTable(context).deleteAll();
     });
+    appMetaCache.invalidateAll();
+  }
+
+  /**
+   * Returns the {@link ApplicationMeta} of the given application through the {@link ApplicationMetaCache}.
+   */
+  @Nullable
+  private ApplicationMeta getApplicationMeta(ApplicationId id) {
+    return appMetaCache.get(id, () -> TransactionRunners.run(transactionRunner, context -> {
+      return getAppMetadataStore(context).getApplication(id.getNamespace(), id.getApplication(), id.getVersion());
+    }));
   }
 
   private ApplicationSpecification getApplicationSpec(AppMetadataStore mds, ApplicationId id)
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.inject.Inject;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.service.AbstractRetryableScheduledService;
+import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A service that migrates the run records written before a change of how run records are stored. The migrations are
+ * run one after the other, and each batch of run records is processed in its own transaction. The service stops once
+ * all migrations are done, and skips the migrations that were done in an earlier start.
+ */
+public class RunRecordMigrationService extends AbstractRetryableScheduledService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RunRecordMigrationService.class);
+  private static final int BATCH_SIZE = 1000;
+
+  private static final List<Migration> MIGRATIONS = Arrays.asList(
+    new Migration("run time buckets backfill", AppMetadataStore::isRunTimeBucketsBackfilled,
+                  AppMetadataStore::backfillRunTimeBuckets),
+    new Migration("run records binary re-encoding", AppMetadataStore::isRunRecordsReencoded,
+                  AppMetadataStore::reencodeRunRecords)
+  );
+
+  private final TransactionRunner transactionRunner;
+  private int migrationIndex;
+  private List<Field<?>> lastKey;
+
+  @Inject
+  RunRecordMigrationService(CConfiguration cConf, TransactionRunner transactionRunner) {
+    super(RetryStrategies.fromConfiguration(cConf, "system.program.state."));
+    this.transactionRunner = transactionRunner;
+  }
+
+  @Override
+  protected long runTask() throws Exception {
+    if (migrationIndex >= MIGRATIONS.size()) {
+      stop();
+      return 0L;
+    }
+
+    Migration migration = MIGRATIONS.get(migrationIndex);
+    boolean done = TransactionRunners.run(transactionRunner, context -> {
+      return migration.doneChecker.isDone(AppMetadataStore.create(context));
+    }, IOException.class);
+    if (done) {
+      migrationIndex++;
+      lastKey = null;
+      return 0L;
+    }
+
+    lastKey = TransactionRunners.run(transactionRunner, context -> {
+      return migration.batchMigrator.migrate(AppMetadataStore.create(context), lastKey, BATCH_SIZE);
+    }, IOException.class);
+
+    if (lastKey == null) {
+      LOG.info("Completed the {} of the existing run records", migration.name);
+      migrationIndex++;
+    } else {
+      LOG.debug("Completed the {} of the run records up to {}", migration.name, lastKey);
+    }
+    return 0L;
+  }
+
+  @Override
+  protected long handleRetriesExhausted(Exception e) {
+    // the migrations are idempotent, hence keep trying from the last processed run record
+    LOG.warn("Failed to migrate the run records. Will retry.", e);
+    return TimeUnit.MINUTES.toMillis(1);
+  }
+
+  /**
+   * Checks whether a migration is done.
+   */
+  private interface DoneChecker {
+    boolean isDone(AppMetadataStore store) throws IOException;
+  }
+
+  /**
+   * Migrates a batch of run records, and returns the primary key of the last run record processed, or {@code null}
+   * once all run records are processed.
+   */
+  private interface BatchMigrator {
+    @Nullable
+    List<Field<?>> migrate(AppMetadataStore store, @Nullable List<Field<?>> afterKey, int limit) throws IOException;
+  }
+
+  /**
+   * A migration of the existing run records.
+   */
+  private static final class Migration {
+    private final String name;
+    private final DoneChecker doneChecker;
+    private final BatchMigrator batchMigrator;
+
+    Migration(String name, DoneChecker doneChecker, BatchMigrator batchMigrator) {
+      this.name = name;
+      this.doneChecker = doneChecker;
+      this.batchMigrator = batchMigrator;
+    }
+  }
+}
@@ -94,6 +94,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
   private final Store appMetaStore;
   private final Impersonator impersonator;
   private final TransactionRunner transactionRunner;
+  private final ScheduleTriggerCache triggerCache;
 
   @Inject
   CoreSchedulerService(TimeSchedulerService timeSchedulerService,
@@ -101,7 +102,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
                        ConstraintCheckerService constraintCheckerService,
                        MessagingService messagingService,
                        CConfiguration cConf, Store store, Impersonator impersonator,
-                       TransactionRunner transactionRunner) {
+                       TransactionRunner transactionRunner, ScheduleTriggerCache triggerCache) {
     this.startedLatch = new CountDownLatch(1);
     MultiThreadMessagingContext messagingContext = new MultiThreadMessagingContext(messagingService);
     this.timeSchedulerService = timeSchedulerService;
@@ -109,6 +110,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
     this.appMetaStore = store;
     this.impersonator = impersonator;
     this.transactionRunner = transactionRunner;
+    this.triggerCache = triggerCache;
     // Use a retry on failure service to make it resilience to transient service unavailability during startup
     this.internalService = new RetryOnStartFailureService(() -> new AbstractIdleService() {
 
@@ -266,6 +268,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
         }
         return null;
       }, Exception.class);
+      triggerCache.invalidateAll();
     } catch (NotFoundException | ProfileConflictException | AlreadyExistsException e) {
       throw e;
     } catch (Exception e) {
@@ -311,6 +314,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
         store.updateScheduleStatus(scheduleId, ProgramScheduleStatus.SCHEDULED);
         return null;
       }, Exception.class);
+      triggerCache.invalidateAll();
     } catch (NotFoundException | ConflictException e) {
       throw e;
     } catch (SchedulerException e) {
@@ -335,6 +339,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
         queue.markJobsForDeletion(scheduleId, System.currentTimeMillis());
         return null;
       }, Exception.class);
+      triggerCache.invalidateAll();
     } catch (NotFoundException | ConflictException e) {
       throw e;
     } catch (SchedulerException e) {
@@ -404,6 +409,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
       toNotify.forEach(adminEventPublisher::publishScheduleDeletion);
       return null;
     }, NotFoundException.class);
+    triggerCache.invalidateAll();
   }
 
   @Override
@@ -435,6 +441,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
       schedules.forEach(adminEventPublisher::publishScheduleDeletion);
       return null;
     }, RuntimeException.class);
+    triggerCache.invalidateAll();
   }
 
   @Override
@@ -466,6 +473,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
       schedules.forEach(adminEventPublisher::publishScheduleDeletion);
       return null;
     }, RuntimeException.class);
+    triggerCache.invalidateAll();
   }
 
   @Override
@@ -476,6 +484,7 @@ public class CoreSchedulerService extends AbstractIdleService implements Schedul
       deletedSchedules.forEach(adminEventPublisher::publishScheduleDeletion);
       return null;
     }, RuntimeException.class);
+    triggerCache.invalidateAll();
   }
 
   @Override
@@ -48,8 +48,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
@@ -64,20 +69,25 @@ import javax.annotation.Nullable;
 public class ScheduleNotificationSubscriberService extends AbstractIdleService {
   private static final Logger LOG = LoggerFactory.getLogger(ScheduleNotificationSubscriberService.class);
   private static final Gson GSON = new Gson();
+  // Maximum number of notifications grouped by schedule before they are written to the job queue
+  private static final int NOTIFICATION_GROUP_SIZE = 100;
 
   private final CConfiguration cConf;
   private final MessagingService messagingService;
   private final MetricsCollectionService metricsCollectionService;
+  private final ScheduleTriggerCache triggerCache;
   private final List<Service> subscriberServices;
   private ScheduledExecutorService subscriberExecutor;
 
   @Inject
   ScheduleNotificationSubscriberService(CConfiguration cConf, MessagingService messagingService,
                                         MetricsCollectionService metricsCollectionService,
+                                        ScheduleTriggerCache triggerCache,
                                         TransactionRunner transactionRunner) {
     this.cConf = cConf;
     this.messagingService = messagingService;
     this.metricsCollectionService = metricsCollectionService;
+    this.triggerCache = triggerCache;
     this.subscriberServices = Arrays.asList(new SchedulerEventSubscriberService(transactionRunner),
                                             new DataEventSubscriberService(transactionRunner),
                                             new ProgramStatusEventSubscriberService(transactionRunner));
@@ -120,6 +130,9 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
    */
   private abstract class AbstractSchedulerSubscriberService extends AbstractNotificationSubscriberService {
 
+    // The generation of the trigger cache when the transaction to process the current batch of messages started
+    private long triggerCacheGeneration;
+
     AbstractSchedulerSubscriberService(String name, String topic, int fetchSize,
                                        TransactionRunner transactionRunner) {
       super(name, cConf, topic, fetchSize, cConf.getLong(Constants.Scheduler.EVENT_POLL_DELAY_MILLIS),
@@ -137,15 +150,52 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
       getJobQueue(context).persistSubscriberState(getTopicId().getTopic(), messageId);
     }
 
+    @Nullable
+    @Override
+    protected String processMessages(Iterator<ImmutablePair<String, Notification>> messages) throws Exception {
+      // Obtain the generation before the transaction starts, so that schedules read in the transaction are not cached
+      // if they are changed after the transaction started
+      triggerCacheGeneration = triggerCache.getGeneration();
+      return super.processMessages(messages);
+    }
+
     @Override
     protected void processMessages(StructuredTableContext structuredTableContext,
                                    Iterator<ImmutablePair<String, Notification>> messages) throws IOException {
       ProgramScheduleStoreDataset scheduleStore = getScheduleStore(structuredTableContext);
       JobQueueTable jobQueue = getJobQueue(structuredTableContext);
 
+      // Group the notifications by schedule, so that the jobs of each schedule are read and written once per group.
+      // The groups are written while iterating, so that the time spent on writing counts towards the time bound
+      // of the messages iterator, which keeps the transaction within its timeout.
+      Map<ScheduleId, ProgramScheduleRecord> schedules = new HashMap<>();
+      Map<ScheduleId, List<Notification>> scheduleNotifications = new LinkedHashMap<>();
+      int grouped = 0;
       while (messages.hasNext()) {
-        processNotification(scheduleStore, jobQueue, messages.next().getSecond());
+        Notification notification = messages.next().getSecond();
+        for (ProgramScheduleRecord schedule : getSchedules(scheduleStore, notification)) {
+          ScheduleId scheduleId = schedule.getSchedule().getScheduleId();
+          schedules.putIfAbsent(scheduleId, schedule);
+          scheduleNotifications.computeIfAbsent(scheduleId, id -> new ArrayList<>()).add(notification);
+        }
+        if (++grouped >= NOTIFICATION_GROUP_SIZE) {
+          addNotifications(jobQueue, schedules, scheduleNotifications);
+          grouped = 0;
+        }
       }
+      addNotifications(jobQueue, schedules, scheduleNotifications);
+    }
+
+    /**
+     * Adds the grouped notifications to the jobs of their schedules, and clears the groups.
+     */
+    private void addNotifications(JobQueueTable jobQueue, Map<ScheduleId, ProgramScheduleRecord> schedules,
+                                  Map<ScheduleId, List<Notification>> scheduleNotifications) throws IOException {
+      for (Map.Entry<ScheduleId, List<Notification>> entry : scheduleNotifications.entrySet()) {
+        jobQueue.addNotifications(schedules.get(entry.getKey()), entry.getValue());
+      }
+      schedules.clear();
+      scheduleNotifications.clear();
     }
 
     @Override
@@ -154,10 +204,23 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
     }
 
     /**
-     * Processes a single {@link Notification}.
+     * Returns the schedules to add the given {@link Notification} to.
+     */
+    protected abstract Collection<ProgramScheduleRecord> getSchedules(ProgramScheduleStoreDataset scheduleStore,
+                                                                      Notification notification) throws IOException;
+
+    /**
+     * Returns the schedules that have a trigger with the given trigger key, from the {@link ScheduleTriggerCache}
+     * if they are cached.
      */
-    protected abstract void processNotification(ProgramScheduleStoreDataset scheduleStore,
-                                                JobQueueTable jobQueue, Notification notification) throws IOException;
+    protected Collection<ProgramScheduleRecord> findSchedules(ProgramScheduleStoreDataset scheduleStore,
+                                                              String triggerKey) throws IOException {
+      Collection<ProgramScheduleRecord> schedules = triggerCache.get(triggerKey);
+      if (schedules == null) {
+        schedules = triggerCache.put(triggerKey, scheduleStore.findSchedules(triggerKey), triggerCacheGeneration);
+      }
+      return schedules;
+    }
 
     private JobQueueTable getJobQueue(StructuredTableContext context) {
       return JobQueueTable.getJobQueue(context, cConf);
@@ -180,14 +243,14 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
     }
 
     @Override
-    protected void processNotification(ProgramScheduleStoreDataset scheduleStore,
-                                       JobQueueTable jobQueue, Notification notification) throws IOException {
+    protected Collection<ProgramScheduleRecord> getSchedules(ProgramScheduleStoreDataset scheduleStore,
+                                                             Notification notification) throws IOException {
 
       Map<String, String> properties = notification.getProperties();
       String scheduleIdString = properties.get(ProgramOptionConstants.SCHEDULE_ID);
       if (scheduleIdString == null) {
         LOG.warn("Ignore notification that misses schedule id, {}", notification);
-        return;
+        return Collections.emptyList();
       }
 
       ScheduleId scheduleId;
@@ -199,14 +262,12 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
         scheduleId = ScheduleId.fromString(scheduleIdString);
       }
 
-      ProgramScheduleRecord record;
       try {
-        record = scheduleStore.getScheduleRecord(scheduleId);
+        return Collections.singletonList(scheduleStore.getScheduleRecord(scheduleId));
       } catch (NotFoundException e) {
         LOG.warn("Ignore notification that doesn't have a schedule {} associated with, {}", scheduleId, notification);
-        return;
+        return Collections.emptyList();
       }
-      jobQueue.addNotification(record, notification);
     }
   }
 
@@ -222,17 +283,14 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
     }
 
     @Override
-    protected void processNotification(ProgramScheduleStoreDataset scheduleStore,
-                                       JobQueueTable jobQueue, Notification notification) throws IOException {
+    protected Collection<ProgramScheduleRecord> getSchedules(ProgramScheduleStoreDataset scheduleStore,
+                                                             Notification notification) throws IOException {
       String datasetIdString = notification.getProperties().get(Notification.DATASET_ID);
       if (datasetIdString == null) {
-        return;
+        return Collections.emptyList();
       }
       DatasetId datasetId = DatasetId.fromString(datasetIdString);
-      for (ProgramScheduleRecord schedule :
-        scheduleStore.findSchedules(Schedulers.triggerKeyForPartition(datasetId))) {
-        jobQueue.addNotification(schedule, notification);
-      }
+      return findSchedules(scheduleStore, Schedulers.triggerKeyForPartition(datasetId));
     }
   }
 
@@ -248,8 +306,8 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
     }
 
     @Override
-    protected void processNotification(ProgramScheduleStoreDataset scheduleStore,
-                                       JobQueueTable jobQueue, Notification notification) throws IOException {
+    protected Collection<ProgramScheduleRecord> getSchedules(ProgramScheduleStoreDataset scheduleStore,
+                                                             Notification notification) throws IOException {
       String programRunIdString = notification.getProperties().get(ProgramOptionConstants.PROGRAM_RUN_ID);
       String programRunStatusString = notification.getProperties().get(ProgramOptionConstants.PROGRAM_STATUS);
 
@@ -258,21 +316,19 @@ public class ScheduleNotificationSubscriberService extends AbstractIdleService {
         programStatus = ProgramRunStatus.toProgramStatus(ProgramRunStatus.valueOf(programRunStatusString));
       } catch (IllegalArgumentException e) {
         // Return silently, this happens for statuses that are not meant to be scheduled
-        return;
+        return Collections.emptyList();
       }
 
       // Ignore notifications which specify an invalid programRunId or programStatus
       if (programRunIdString == null || programStatus == null) {
-        return;
+        return Collections.emptyList();
       }
 
       ProgramRunId programRunId = GSON.fromJson(programRunIdString, ProgramRunId.class);
       ProgramId programId = programRunId.getParent();
       String triggerKeyForProgramStatus = Schedulers.triggerKeyForProgramStatus(programId, programStatus);
 
-      for (ProgramScheduleRecord schedule : scheduleStore.findSchedules(triggerKeyForProgramStatus)) {
-        jobQueue.addNotification(schedule, notification);
-      }
+      return findSchedules(scheduleStore, triggerKeyForProgramStatus);
     }
   }
 }
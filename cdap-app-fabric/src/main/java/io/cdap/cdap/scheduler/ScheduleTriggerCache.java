@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.GenerationalCache;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleRecord;
+import io.cdap.cdap.internal.app.runtime.schedule.store.ProgramScheduleStoreDataset;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A cache of the schedules that have a trigger with a given trigger key, so that the
+ * {@link ScheduleNotificationSubscriberService} does not need to look up the schedules in the
+ * {@link ProgramScheduleStoreDataset} for every notification it receives.
+ *
+ * Schedules are changed through the {@link CoreSchedulerService}, which invalidates the cache after every change.
+ * Entries also expire after a configurable time, which bounds how stale the cache can be for schedules changed
+ * by other means.
+ */
+@Singleton
+public class ScheduleTriggerCache {
+
+  private final GenerationalCache<String, Collection<ProgramScheduleRecord>> cache;
+
+  @Inject
+  ScheduleTriggerCache(CConfiguration cConf) {
+    this.cache = new GenerationalCache<>(CacheBuilder.newBuilder()
+      .maximumSize(cConf.getLong(Constants.Scheduler.TRIGGER_CACHE_SIZE))
+      .expireAfterWrite(cConf.getLong(Constants.Scheduler.TRIGGER_CACHE_EXPIRATION_SECS), TimeUnit.SECONDS)
+      .build());
+  }
+
+  /**
+   * Returns the current generation of the cache. The generation must be obtained before the transaction that reads
+   * the schedules to {@link #put(String, Collection, long)} starts.
+   */
+  long getGeneration() {
+    return cache.getGeneration();
+  }
+
+  /**
+   * Returns the cached schedules that have a trigger with the given trigger key, or {@code null} if they are
+   * not cached.
+   */
+  @Nullable
+  Collection<ProgramScheduleRecord> get(String triggerKey) {
+    return cache.getIfPresent(triggerKey);
+  }
+
+  /**
+   * Caches the schedules that have a trigger with the given trigger key, unless the cache was invalidated since
+   * the given generation was obtained.
+   *
+   * @param triggerKey the trigger key
+   * @param schedules the schedules read from the store for the trigger key
+   * @param generation the generation obtained by {@link #getGeneration()} before the schedules were read
+   * @return the schedules
+   */
+  Collection<ProgramScheduleRecord> put(String triggerKey, Collection<ProgramScheduleRecord> schedules,
+                                        long generation) {
+    Collection<ProgramScheduleRecord> copy = Collections.unmodifiableList(new ArrayList<>(schedules));
+    cache.put(triggerKey, copy, generation);
+    return copy;
+  }
+
+  /**
+   * Invalidates all cached schedules. This method should be called after the transaction that changes
+   * schedules is committed.
+   */
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+}
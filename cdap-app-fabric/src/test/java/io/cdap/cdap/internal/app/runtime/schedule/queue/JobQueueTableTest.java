@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.dataset.lib.PartitionKey;
 import io.cdap.cdap.api.schedule.Trigger;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.internal.app.runtime.schedule.ProgramSchedule;
@@ -51,6 +52,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -293,6 +295,40 @@ public abstract class JobQueueTableTest {
     });
   }
 
+  @Test
+  public void testAddNotificationsInBatch() {
+    TransactionRunners.run(transactionRunner, context -> {
+      JobQueueTable jobQueue = JobQueueTable.getJobQueue(context, getCConf());
+      // should be 0 jobs in the JobQueue to begin with
+      Assert.assertEquals(0, getAllJobs(jobQueue, false).size());
+
+      // SCHED3 is triggered by a partition of DATASET2_ID, hence the third notification satisfies the trigger of
+      // the first job, and the fourth notification is added to a new job
+      Notification notification = Notification.forPartitions(DATASET_ID, ImmutableList.of());
+      Notification satisfying = Notification.forPartitions(
+        DATASET2_ID, ImmutableList.of(PartitionKey.builder().addIntField("part1", 1).build()));
+      List<Notification> notifications = ImmutableList.of(notification, notification, satisfying, notification);
+      jobQueue.addNotifications(
+        new ProgramScheduleRecord(SCHED3, new ProgramScheduleMeta(ProgramScheduleStatus.SCHEDULED, 0L)),
+        notifications);
+
+      List<Job> jobs = new ArrayList<>(toSet(jobQueue.getJobsForSchedule(SCHED3.getScheduleId())));
+      jobs.sort(Comparator.comparingInt(Job::getGenerationId));
+      Assert.assertEquals(2, jobs.size());
+      Assert.assertEquals(new SimpleJob(SCHED3, 0, jobs.get(0).getCreationTime(), notifications.subList(0, 3),
+                                        Job.State.PENDING_CONSTRAINT, 0L), jobs.get(0));
+      Assert.assertEquals(new SimpleJob(SCHED3, 1, jobs.get(1).getCreationTime(), notifications.subList(3, 4),
+                                        Job.State.PENDING_TRIGGER, 0L), jobs.get(1));
+
+      // notifications of a later batch are added to the job that is pending trigger
+      jobQueue.addNotifications(
+        new ProgramScheduleRecord(SCHED3, new ProgramScheduleMeta(ProgramScheduleStatus.SCHEDULED, 0L)),
+        ImmutableList.of(notification));
+      Assert.assertEquals(ImmutableList.of(notification, notification),
+                          jobQueue.getJob(jobs.get(1).getJobKey()).getNotifications());
+    });
+  }
+
   @Test
   public void testAddConcurrentNotifications() throws Exception {
     TransactionRunners.run(transactionRunner, context -> {
@@ -20,19 +20,30 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.common.BadRequestException;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.internal.AppFabricTestHelper;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.ProgramType;
+import io.cdap.cdap.proto.RunRecordPage;
 import io.cdap.cdap.proto.id.ApplicationId;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProfileId;
 import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.cdap.spi.data.StructuredRow;
+import io.cdap.cdap.spi.data.StructuredTable;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.Fields;
+import io.cdap.cdap.spi.data.table.field.Range;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
 import org.apache.twill.api.RunId;
 import org.junit.Assert;
 import org.junit.Before;
@@ -328,6 +339,228 @@ public abstract class AppMetadataStoreTest {
       Iterables.addAll(actual, Iterables.transform(batches, input -> RunIds.getTime(input, TimeUnit.MILLISECONDS)));
 
       Assert.assertEquals(expected, actual);
+
+      // the run time buckets should give the same result
+      Assert.assertEquals(batches, metadataStoreDataset.getRunningInRangeCompleted(startTime, stopTime));
+    });
+  }
+
+  @Test
+  public void testRunTimeBuckets() throws Exception {
+    ApplicationId application = NamespaceId.DEFAULT.app("app");
+    ProgramId program = application.workflow("workflow");
+    long hour = TimeUnit.HOURS.toSeconds(1);
+    long base = TimeUnit.DAYS.toSeconds(1000);
+
+    // runs that last a few seconds, a few hours and a few weeks
+    Map<RunId, Long> stopTimes = new HashMap<>();
+    List<Long> durations = Arrays.asList(5L, 3 * hour + 10, TimeUnit.DAYS.toSeconds(20));
+    for (int i = 0; i < durations.size(); i++) {
+      long startTime = base + i * hour;
+      RunId runId = RunIds.generate(TimeUnit.SECONDS.toMillis(startTime));
+      stopTimes.put(runId, startTime + durations.get(i));
+      ProgramRunId programRunId = program.run(runId);
+      TransactionRunners.run(transactionRunner, context -> {
+        AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+        recordProvisionAndStart(programRunId, metadataStoreDataset);
+        metadataStoreDataset.recordProgramRunning(programRunId, startTime, null,
+                                                  AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+        metadataStoreDataset.recordProgramStop(programRunId, stopTimes.get(runId), ProgramRunStatus.COMPLETED, null,
+                                               AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      });
+    }
+
+    List<long[]> ranges = Arrays.asList(new long[] { 0, Long.MAX_VALUE },
+                                        new long[] { base, base + 1 },
+                                        new long[] { base + 6, base + hour },
+                                        new long[] { base + 2 * hour, base + 2 * hour + 1 },
+                                        new long[] { base + 4 * hour, base + 5 * hour },
+                                        new long[] { base + 10 * hour, base + 10 * hour },
+                                        new long[] { base + TimeUnit.DAYS.toSeconds(30), Long.MAX_VALUE });
+    Runnable assertRanges = () -> TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      for (long[] range : ranges) {
+        Assert.assertEquals(metadataStoreDataset.getRunningInRangeForStatus("runRecordCompleted", range[0], range[1]),
+                            metadataStoreDataset.getRunningInRangeCompleted(range[0], range[1]));
+      }
+      Assert.assertEquals(stopTimes.keySet(), metadataStoreDataset.getRunningInRangeCompleted(0, Long.MAX_VALUE));
+      Assert.assertEquals(2, metadataStoreDataset.getRunningInRangeCompleted(base + 2 * hour,
+                                                                             base + 2 * hour + 1).size());
+      Assert.assertEquals(1, metadataStoreDataset.getRunningInRangeCompleted(base + 5 * hour,
+                                                                             base + 6 * hour).size());
+    });
+    assertRanges.run();
+
+    // drop the run time buckets as if the runs were recorded before the buckets were introduced
+    TransactionRunners.run(transactionRunner, context -> {
+      context.getTable(StoreDefinition.AppMetadataStore.RUN_TIME_BUCKETS).deleteAll(Range.all());
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      metadataStoreDataset.deleteSubscriberState("run_time_buckets", "backfill");
+      Assert.assertFalse(metadataStoreDataset.isRunTimeBucketsBackfilled());
+    });
+    // queries fall back to scanning the run records until the backfill completes
+    assertRanges.run();
+
+    AtomicReference<List<Field<?>>> lastKey = new AtomicReference<>();
+    int batches = 0;
+    do {
+      TransactionRunners.run(transactionRunner, context -> {
+        lastKey.set(AppMetadataStore.create(context).backfillRunTimeBuckets(lastKey.get(), 2));
+      });
+      batches++;
+    } while (lastKey.get() != null);
+    Assert.assertEquals(2, batches);
+    TransactionRunners.run(transactionRunner, context -> {
+      Assert.assertTrue(AppMetadataStore.create(context).isRunTimeBucketsBackfilled());
+    });
+    assertRanges.run();
+
+    // deleting the program history deletes the run time buckets
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      metadataStoreDataset.deleteProgramHistory(application.getNamespace(), application.getApplication(),
+                                                application.getVersion());
+    });
+    TransactionRunners.run(transactionRunner, context -> {
+      try (CloseableIterator<StructuredRow> iterator =
+             context.getTable(StoreDefinition.AppMetadataStore.RUN_TIME_BUCKETS).scan(Range.all(), 1)) {
+        Assert.assertFalse(iterator.hasNext());
+      }
+    });
+  }
+
+  @Test
+  public void testRunTimeBucketsWithoutStopTime() throws Exception {
+    ProgramId program = NamespaceId.DEFAULT.app("app").workflow("workflow");
+    long hour = TimeUnit.HOURS.toSeconds(1);
+    long startTime = TimeUnit.DAYS.toSeconds(1000);
+    ProgramRunId programRunId = program.run(RunIds.generate(TimeUnit.SECONDS.toMillis(startTime)));
+
+    // the cluster is deprovisioned before the run stops, hence the completed run record has no stop time
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      recordProvisionAndStart(programRunId, metadataStoreDataset);
+      metadataStoreDataset.recordProgramRunning(programRunId, startTime, null,
+                                                AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      metadataStoreDataset.recordProgramDeprovisioning(programRunId,
+                                                       AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+    });
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      Assert.assertNull(metadataStoreDataset.getRun(programRunId).getStopTs());
+      Assert.assertEquals(Collections.singleton(programRunId.getRun()),
+                          toRuns(metadataStoreDataset.getRunningInRangeCompleted(startTime + 5 * hour,
+                                                                                  startTime + 6 * hour)));
+      Assert.assertEquals(metadataStoreDataset.getRunningInRangeForStatus("runRecordCompleted", startTime - hour,
+                                                                          startTime),
+                          metadataStoreDataset.getRunningInRangeCompleted(startTime - hour, startTime));
+    });
+
+    // once the run stops, it is only found in the range it was running in
+    TransactionRunners.run(transactionRunner, context -> {
+      byte[] stopSourceId = AppFabricTestHelper.createSourceId(sourceId.incrementAndGet());
+      AppMetadataStore.create(context).recordProgramStop(programRunId, startTime + hour, ProgramRunStatus.FAILED,
+                                                         null, stopSourceId);
+    });
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      Assert.assertEquals(Collections.singleton(programRunId.getRun()),
+                          toRuns(metadataStoreDataset.getRunningInRangeCompleted(startTime, startTime + 1)));
+      Assert.assertTrue(metadataStoreDataset.getRunningInRangeCompleted(startTime + 5 * hour,
+                                                                        startTime + 6 * hour).isEmpty());
+    });
+  }
+
+  private static Set<String> toRuns(Set<RunId> runIds) {
+    return runIds.stream().map(RunId::getId).collect(Collectors.toSet());
+  }
+
+  @Test
+  public void testReencodeRunRecords() throws Exception {
+    ProgramId program = NamespaceId.DEFAULT.app("app").workflow("workflow");
+    List<ProgramRunId> runIds = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      ProgramRunId programRunId = program.run(RunIds.generate(runIdTime.incrementAndGet()));
+      runIds.add(programRunId);
+      TransactionRunners.run(transactionRunner, context -> {
+        recordProvisionAndStart(programRunId, AppMetadataStore.create(context));
+      });
+    }
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore.create(context).recordProgramStop(runIds.get(0), runIdTime.get(), ProgramRunStatus.COMPLETED,
+                                                         null, AppFabricTestHelper.createSourceId(
+                                                           sourceId.incrementAndGet()));
+    });
+    Map<ProgramRunId, RunRecordMeta> expected = TransactionRunners.run(transactionRunner, context -> {
+      return AppMetadataStore.create(context).getRuns(new HashSet<>(runIds));
+    });
+    Assert.assertEquals(3, expected.size());
+
+    // rewrite the run records as JSON, as if they were written before the binary format was introduced. Older run
+    // records have no properties and system arguments.
+    Gson gson = new Gson();
+    ProgramRunId withoutArgs = runIds.get(2);
+    JsonObject withoutArgsJson = gson.toJsonTree(expected.get(withoutArgs)).getAsJsonObject();
+    withoutArgsJson.remove("properties");
+    withoutArgsJson.remove("systemargs");
+    expected.put(withoutArgs, RunRecordMeta.builder(expected.get(withoutArgs))
+      .setProperties(Collections.emptyMap())
+      .setSystemArgs(Collections.emptyMap())
+      .build());
+    TransactionRunners.run(transactionRunner, context -> {
+      StructuredTable table = context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS);
+      List<List<Field<?>>> rows = new ArrayList<>();
+      try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), Integer.MAX_VALUE)) {
+        while (iterator.hasNext()) {
+          StructuredRow row = iterator.next();
+          List<Field<?>> fields = new ArrayList<>(row.getPrimaryKeys());
+          ProgramRunId programRunId = program.run(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD));
+          String json = programRunId.equals(withoutArgs)
+            ? gson.toJson(withoutArgsJson) : gson.toJson(expected.get(programRunId));
+          fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA, json));
+          fields.add(Fields.intField(StoreDefinition.AppMetadataStore.RUN_RECORD_FORMAT, null));
+          fields.add(Fields.bytesField(StoreDefinition.AppMetadataStore.RUN_RECORD_BINARY_DATA, null));
+          rows.add(fields);
+        }
+      }
+      for (List<Field<?>> fields : rows) {
+        table.upsert(fields);
+      }
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      metadataStoreDataset.deleteSubscriberState("run_records_format", "reencode");
+      Assert.assertFalse(metadataStoreDataset.isRunRecordsReencoded());
+    });
+    Runnable assertRuns = () -> TransactionRunners.run(transactionRunner, context -> {
+      Assert.assertEquals(expected, AppMetadataStore.create(context).getRuns(new HashSet<>(runIds)));
+    });
+    // run records in both formats can be read
+    assertRuns.run();
+
+    AtomicReference<List<Field<?>>> lastKey = new AtomicReference<>();
+    int batches = 0;
+    do {
+      TransactionRunners.run(transactionRunner, context -> {
+        lastKey.set(AppMetadataStore.create(context).reencodeRunRecords(lastKey.get(), 2));
+      });
+      batches++;
+    } while (lastKey.get() != null);
+    Assert.assertEquals(2, batches);
+    assertRuns.run();
+
+    TransactionRunners.run(transactionRunner, context -> {
+      Assert.assertTrue(AppMetadataStore.create(context).isRunRecordsReencoded());
+      try (CloseableIterator<StructuredRow> iterator =
+             context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS).scan(Range.all(), Integer.MAX_VALUE)) {
+        int count = 0;
+        while (iterator.hasNext()) {
+          StructuredRow row = iterator.next();
+          Assert.assertEquals(Integer.valueOf(RunRecordMetaCodec.VERSION),
+                              row.getInteger(StoreDefinition.AppMetadataStore.RUN_RECORD_FORMAT));
+          Assert.assertNull(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA));
+          count++;
+        }
+        Assert.assertEquals(3, count);
+      }
     });
   }
 
@@ -392,6 +625,70 @@ public abstract class AppMetadataStoreTest {
     });
   }
 
+  @Test
+  public void testGetRunPage() throws Exception {
+    ProgramId program = NamespaceId.DEFAULT.app("app").program(ProgramType.WORKFLOW, "workflow");
+    // runs are returned with the active runs first, each newest first
+    List<String> expectedCompleted = new ArrayList<>();
+    List<String> expectedActive = new ArrayList<>();
+    for (int i = 1; i <= 8; i++) {
+      RunId runId = RunIds.generate(TimeUnit.SECONDS.toMillis(i));
+      ProgramRunId programRunId = program.run(runId);
+      boolean completed = i <= 5;
+      TransactionRunners.run(transactionRunner, context -> {
+        AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+        recordProvisionAndStart(programRunId, metadataStoreDataset);
+        metadataStoreDataset.recordProgramRunning(programRunId, RunIds.getTime(runId, TimeUnit.SECONDS), null,
+                                                  AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+        if (completed) {
+          metadataStoreDataset.recordProgramStop(programRunId, RunIds.getTime(runId, TimeUnit.SECONDS) + 1,
+                                                 ProgramRunStatus.COMPLETED, null,
+                                                 AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+        }
+      });
+      (completed ? expectedCompleted : expectedActive).add(0, runId.getId());
+    }
+    List<String> expectedAll = new ArrayList<>(expectedActive);
+    expectedAll.addAll(expectedCompleted);
+
+    Assert.assertEquals(expectedAll, getAllRunPages(program, ProgramRunStatus.ALL, 0, Long.MAX_VALUE, 3));
+    Assert.assertEquals(expectedAll, getAllRunPages(program, ProgramRunStatus.ALL, 0, Long.MAX_VALUE, 1));
+    Assert.assertEquals(expectedAll, getAllRunPages(program, ProgramRunStatus.ALL, 0, Long.MAX_VALUE, 100));
+    Assert.assertEquals(expectedActive, getAllRunPages(program, ProgramRunStatus.RUNNING, 0, Long.MAX_VALUE, 2));
+    Assert.assertEquals(expectedCompleted, getAllRunPages(program, ProgramRunStatus.COMPLETED, 0, Long.MAX_VALUE, 2));
+    // pages within a time range have the same runs as getRuns
+    List<String> expectedInRange = TransactionRunners.run(transactionRunner, context -> {
+      return AppMetadataStore.create(context).getRuns(program, ProgramRunStatus.ALL, 3, 7, Integer.MAX_VALUE, null)
+        .values().stream().map(RunRecordMeta::getPid).collect(Collectors.toList());
+    });
+    Assert.assertFalse(expectedInRange.isEmpty());
+    Assert.assertEquals(expectedInRange, getAllRunPages(program, ProgramRunStatus.ALL, 3, 7, 2));
+
+    try {
+      TransactionRunners.run(transactionRunner, context -> {
+        AppMetadataStore.create(context).getRunPage(program, ProgramRunStatus.ALL, 0, Long.MAX_VALUE, 2, "invalid");
+      }, BadRequestException.class);
+      Assert.fail("Expected BadRequestException for an invalid cursor");
+    } catch (BadRequestException e) {
+      // expected
+    }
+  }
+
+  private List<String> getAllRunPages(ProgramId program, ProgramRunStatus status, long startTime, long endTime,
+                                      int limit) {
+    List<String> runs = new ArrayList<>();
+    AtomicReference<String> cursor = new AtomicReference<>();
+    do {
+      RunRecordPage<RunRecordMeta> page = TransactionRunners.run(transactionRunner, context -> {
+        return AppMetadataStore.create(context).getRunPage(program, status, startTime, endTime, limit, cursor.get());
+      });
+      Assert.assertTrue(page.getRuns().size() <= limit);
+      page.getRuns().forEach(run -> runs.add(run.getPid()));
+      cursor.set(page.getNextCursor());
+    } while (cursor.get() != null);
+    return runs;
+  }
+
   @Test
   public void testGetActiveRuns() throws Exception {
     // write a run record for each state for two programs in two apps in two namespaces
@@ -502,6 +799,7 @@ public abstract class AppMetadataStoreTest {
         }
 
         Assert.assertEquals(expected, actual);
+        Assert.assertEquals(activeRuns.size(), store.getActiveRunCount(namespace));
         allExpected.putAll(expected);
       }
 
@@ -558,10 +856,84 @@ public abstract class AppMetadataStoreTest {
         }
 
         Assert.assertEquals(activeStates, actual);
+        Assert.assertEquals(activeRuns.size(), store.getActiveRunCount(program));
       });
     }
   }
 
+  @Test
+  public void testActiveRunCounts() throws Exception {
+    ProgramId program1 = NamespaceId.DEFAULT.app("app1").workflow("workflow");
+    ProgramId program2 = NamespaceId.DEFAULT.app("app2").workflow("workflow");
+    List<ProgramRunId> runs = new ArrayList<>();
+    for (ProgramId program : Arrays.asList(program1, program1, program1, program2)) {
+      ProgramRunId programRunId = program.run(RunIds.generate(runIdTime.incrementAndGet()));
+      runs.add(programRunId);
+      TransactionRunners.run(transactionRunner, context -> {
+        recordProvisionAndStart(programRunId, AppMetadataStore.create(context));
+      });
+    }
+
+    // stop a run and deprovision its cluster, which must only decrement the counts once
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      metadataStoreDataset.recordProgramStop(runs.get(0), System.currentTimeMillis(), ProgramRunStatus.KILLED, null,
+                                             AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      metadataStoreDataset.recordProgramDeprovisioning(runs.get(0),
+                                                       AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      metadataStoreDataset.recordProgramDeprovisioned(runs.get(0), System.currentTimeMillis(),
+                                                      AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+    });
+    Runnable assertCounts = () -> TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      Assert.assertEquals(2, metadataStoreDataset.getActiveRunCount(program1));
+      Assert.assertEquals(1, metadataStoreDataset.getActiveRunCount(program2));
+      Assert.assertEquals(3, metadataStoreDataset.getActiveRunCount(NamespaceId.DEFAULT));
+      Assert.assertEquals(0, metadataStoreDataset.getActiveRunCount(NamespaceId.SYSTEM));
+      Assert.assertEquals(3, metadataStoreDataset.countActiveRuns(null));
+      Assert.assertEquals(2, metadataStoreDataset.countActiveRuns(2));
+    });
+    assertCounts.run();
+
+    // the active run records are counted until the counts are reconciled
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore.create(context).deleteSubscriberState("active_run_counts", "reconcile");
+    });
+    TransactionRunners.run(transactionRunner, context -> {
+      Assert.assertFalse(AppMetadataStore.create(context).isActiveRunCountsReconciled());
+    });
+    assertCounts.run();
+    TransactionRunners.run(transactionRunner, context -> {
+      Assert.assertEquals(0, AppMetadataStore.create(context).reconcileActiveRunCounts());
+    });
+    assertCounts.run();
+
+    // counts that drifted are corrected by the reconciliation
+    TransactionRunners.run(transactionRunner, context -> {
+      context.getTable(StoreDefinition.AppMetadataStore.PROGRAM_COUNTS).deleteAll(Range.all());
+    });
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      Assert.assertTrue(metadataStoreDataset.isActiveRunCountsReconciled());
+      Assert.assertEquals(0, metadataStoreDataset.getActiveRunCount(program1));
+      Assert.assertEquals(2, metadataStoreDataset.reconcileActiveRunCounts());
+    });
+    assertCounts.run();
+
+    // deleting the program history of an application removes its active runs from the namespace count
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore.create(context).deleteProgramHistory(program1.getNamespace(), program1.getApplication(),
+                                                            program1.getVersion());
+    });
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      Assert.assertEquals(0, metadataStoreDataset.getActiveRunCount(program1));
+      Assert.assertEquals(1, metadataStoreDataset.getActiveRunCount(NamespaceId.DEFAULT));
+      Assert.assertEquals(1, metadataStoreDataset.countActiveRuns(null));
+      Assert.assertEquals(0, metadataStoreDataset.reconcileActiveRunCounts());
+    });
+  }
+
   @Test
   public void testDuplicateWritesIgnored() throws Exception {
     ApplicationId application = NamespaceId.DEFAULT.app("app");
@@ -45,6 +45,7 @@ import io.cdap.cdap.app.program.ProgramDescriptor;
 import io.cdap.cdap.app.runtime.ProgramController;
 import io.cdap.cdap.common.NotFoundException;
 import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.namespace.NamespaceAdmin;
 import io.cdap.cdap.common.namespace.NamespacePathLocator;
 import io.cdap.cdap.internal.AppFabricTestHelper;
@@ -83,6 +84,8 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -637,6 +640,43 @@ public abstract class DefaultStoreTest {
     Assert.assertNull(store.getApplication(appId));
   }
 
+  @Test
+  public void testApplicationMetaCache() {
+    ApplicationSpecification spec = Specifications.from(new AllProgramsApp());
+    ApplicationId appId = NamespaceId.DEFAULT.app(spec.getName());
+    store.addApplication(appId, spec);
+
+    // repeated lookups are served from the cache until the application changes
+    ApplicationSpecification cached = store.getApplication(appId);
+    Assert.assertSame(cached, store.getApplication(appId));
+    store.addApplication(appId, spec);
+    Assert.assertNotSame(cached, store.getApplication(appId));
+
+    ApplicationMetaCache cache = new ApplicationMetaCache(CConfiguration.create());
+    AtomicInteger loads = new AtomicInteger();
+    Supplier<ApplicationMeta> loader = () -> {
+      loads.incrementAndGet();
+      return new ApplicationMeta(appId.getApplication(), spec);
+    };
+    cache.get(appId, loader);
+    cache.get(appId, loader);
+    Assert.assertEquals(1, loads.get());
+
+    // changes published by other processes invalidate the cache
+    cache.invalidate(new ApplicationMetaCache.ApplicationMetaChange(appId.getNamespace(), appId.getApplication(),
+                                                                    appId.getVersion()));
+    cache.get(appId, loader);
+    Assert.assertEquals(2, loads.get());
+
+    cache.invalidate(new ApplicationMetaCache.ApplicationMetaChange("otherNamespace", null, null));
+    cache.get(appId, loader);
+    Assert.assertEquals(2, loads.get());
+
+    cache.invalidate(new ApplicationMetaCache.ApplicationMetaChange(appId.getNamespace(), null, null));
+    cache.get(appId, loader);
+    Assert.assertEquals(3, loads.get());
+  }
+
   @Test
   public void testProgramRunCount() {
     ApplicationSpecification spec = Specifications.from(new AllProgramsApp());
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.scheduler;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramSchedule;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleMeta;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleRecord;
+import io.cdap.cdap.internal.app.runtime.schedule.ProgramScheduleStatus;
+import io.cdap.cdap.internal.app.runtime.schedule.store.Schedulers;
+import io.cdap.cdap.internal.app.runtime.schedule.trigger.PartitionTrigger;
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Unit tests for {@link ScheduleTriggerCache}.
+ */
+public class ScheduleTriggerCacheTest {
+
+  private static final DatasetId DATASET_ID = NamespaceId.DEFAULT.dataset("pfs");
+  private static final String TRIGGER_KEY = Schedulers.triggerKeyForPartition(DATASET_ID);
+  private static final ProgramScheduleRecord RECORD = new ProgramScheduleRecord(
+    new ProgramSchedule("sched", "partition schedule", NamespaceId.DEFAULT.app("app").workflow("wf"),
+                        ImmutableMap.of(), new PartitionTrigger(DATASET_ID, 1), ImmutableList.of()),
+    new ProgramScheduleMeta(ProgramScheduleStatus.SCHEDULED, 0L));
+
+  @Test
+  public void testInvalidation() {
+    ScheduleTriggerCache cache = new ScheduleTriggerCache(CConfiguration.create());
+    Assert.assertNull(cache.get(TRIGGER_KEY));
+
+    long generation = cache.getGeneration();
+    Collection<ProgramScheduleRecord> schedules = cache.put(TRIGGER_KEY, ImmutableList.of(RECORD), generation);
+    Assert.assertEquals(ImmutableList.of(RECORD), schedules);
+    Assert.assertEquals(schedules, cache.get(TRIGGER_KEY));
+
+    cache.invalidateAll();
+    Assert.assertNull(cache.get(TRIGGER_KEY));
+
+    // schedules read before an invalidation are not cached
+    cache.put(TRIGGER_KEY, Collections.emptyList(), generation);
+    Assert.assertNull(cache.get(TRIGGER_KEY));
+
+    // the absence of schedules is cached
+    cache.put(TRIGGER_KEY, Collections.emptyList(), cache.getGeneration());
+    Assert.assertEquals(Collections.emptyList(), cache.get(TRIGGER_KEY));
+  }
+}
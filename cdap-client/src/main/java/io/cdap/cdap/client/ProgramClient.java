@@ -18,6 +18,7 @@ package io.cdap.cdap.client;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
 import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -45,6 +46,7 @@ import io.cdap.cdap.proto.ProgramRecord;
 import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.ProgramStatus;
 import io.cdap.cdap.proto.RunRecord;
+import io.cdap.cdap.proto.RunRecordPage;
 import io.cdap.cdap.proto.codec.ConditionSpecificationCodec;
 import io.cdap.cdap.proto.codec.CustomActionSpecificationCodec;
 import io.cdap.cdap.proto.id.ApplicationId;
@@ -63,6 +65,7 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -462,12 +465,35 @@ public class ProgramClient {
   public List<RunRecord> getProgramRuns(ProgramId program, String state,
                                         long startTime, long endTime, int limit)
     throws IOException, NotFoundException, UnauthenticatedException, UnauthorizedException {
+    return getProgramRunPage(program, state, startTime, endTime, limit, null).getRuns();
+  }
+
+  /**
+   * Gets a page of the run records of a program. The cursor of the returned page can be passed back to get the page
+   * that follows it, until a page without a cursor is returned.
+   *
+   * @param program the program
+   * @param state - filter by status of the program
+   * @param limit the maximum number of run records in the page
+   * @param cursor the cursor of the previous page, or {@code null} to get the first page
+   * @return the page of run records of the program
+   * @throws IOException if a network error occurred
+   * @throws NotFoundException if the application or program could not be found
+   * @throws UnauthenticatedException if the request is not authorized successfully in the gateway server
+   */
+  public RunRecordPage<RunRecord> getProgramRunPage(ProgramId program, String state,
+                                                    long startTime, long endTime, int limit, @Nullable String cursor)
+    throws IOException, NotFoundException, UnauthenticatedException, UnauthorizedException {
 
     String queryParams = String.format("%s=%s&%s=%d&%s=%d&%s=%d",
                                        Constants.AppFabric.QUERY_PARAM_STATUS, state,
                                        Constants.AppFabric.QUERY_PARAM_START_TIME, startTime,
                                        Constants.AppFabric.QUERY_PARAM_END_TIME, endTime,
                                        Constants.AppFabric.QUERY_PARAM_LIMIT, limit);
+    if (cursor != null) {
+      queryParams += String.format("&%s=%s", Constants.AppFabric.QUERY_PARAM_CURSOR,
+                                   URLEncoder.encode(cursor, Charsets.UTF_8.name()));
+    }
 
     String path = String.format("apps/%s/versions/%s/%s/%s/runs?%s",
                                 program.getApplication(), program.getVersion(),
@@ -481,7 +507,10 @@ public class ProgramClient {
       throw new NotFoundException(program);
     }
 
-    return ObjectResponse.fromJsonBody(response, new TypeToken<List<RunRecord>>() { }).getResponseObject();
+    List<RunRecord> runs = ObjectResponse.fromJsonBody(response,
+                                                       new TypeToken<List<RunRecord>>() { }).getResponseObject();
+    String nextCursor = Iterables.getFirst(response.getHeaders().get(Constants.AppFabric.NEXT_CURSOR_HEADER), null);
+    return new RunRecordPage<>(runs, nextCursor);
   }
 
   /**
@@ -195,6 +195,8 @@ public final class Constants {
     public static final String MAPREDUCE_STATUS_REPORT_INTERVAL_SECONDS = "mapreduce.status.report.interval.seconds";
     public static final String PROGRAM_RUNID_CORRECTOR_INTERVAL_SECONDS = "app.program.runid.corrector.interval";
     public static final String PROGRAM_RUNID_CORRECTOR_TX_BATCH_SIZE = "app.program.runid.corrector.tx.batch.size";
+    public static final String ACTIVE_RUN_COUNT_RECONCILE_INTERVAL_SECONDS =
+      "app.program.active.run.count.reconcile.interval";
     public static final String LOCAL_DATASET_DELETER_INTERVAL_SECONDS = "app.program.local.dataset.deleter.interval";
     public static final String LOCAL_DATASET_DELETER_INITIAL_DELAY_SECONDS
       = "app.program.local.dataset.deleter.initial.delay";
@@ -245,6 +247,16 @@ public final class Constants {
      */
     public static final String QUERY_PARAM_LIMIT = "limit";
 
+    /**
+     * Query parameter to indicate the cursor returned with the previous page of results.
+     */
+    public static final String QUERY_PARAM_CURSOR = "cursor";
+
+    /**
+     * Response header that contains the cursor to fetch the next page of results.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     public static final String SERVICE_DESCRIPTION = "Service for managing application lifecycle.";
 
     /**
@@ -287,6 +299,26 @@ public final class Constants {
      */
     public static final String PROGRAM_STATUS_RECORD_EVENT_TOPIC = "program.status.record.event.topic";
 
+    /**
+     * Topic name for publishing application metadata changes to the messaging system
+     */
+    public static final String APP_META_CHANGE_TOPIC = "app.meta.change.topic";
+
+    /**
+     * The delay in milliseconds to check again for application metadata changes if there was no change
+     */
+    public static final String APP_META_CHANGE_POLL_DELAY_MILLIS = "app.meta.change.poll.delay.millis";
+
+    /**
+     * Maximum number of decoded application specifications cached in each process
+     */
+    public static final String APP_META_CACHE_SIZE = "app.meta.cache.size";
+
+    /**
+     * Number of seconds after which a cached application specification expires
+     */
+    public static final String APP_META_CACHE_EXPIRATION_SECS = "app.meta.cache.expiration.secs";
+
     /**
      * Annotation for binding remote execution twill service
      */
@@ -360,6 +392,16 @@ public final class Constants {
     public static final String PROGRAM_STATUS_EVENT_FETCH_SIZE = "scheduler.program.status.event.fetch.size";
 
     public static final String JOB_QUEUE_NUM_PARTITIONS = "scheduler.job.queue.num.partitions";
+
+    /**
+     * Maximum number of trigger keys for which the schedules are cached by the scheduler
+     */
+    public static final String TRIGGER_CACHE_SIZE = "scheduler.trigger.cache.size";
+
+    /**
+     * Number of seconds after which the cached schedules of a trigger key expire
+     */
+    public static final String TRIGGER_CACHE_EXPIRATION_SECS = "scheduler.trigger.cache.expiration.secs";
   }
 
   /**
@@ -460,6 +502,8 @@ public final class Constants {
     public static final String DATA_STORAGE_SQL_PASSWORD = "data.storage.sql.jdbc.password";
     public static final String DATA_STORAGE_SQL_PROPERTY_PREFIX = "data.storage.sql.jdbc.property.";
     public static final String DATA_STORAGE_SQL_CONNECTION_SIZE = "data.storage.sql.jdbc.connection.pool.size";
+    public static final String DATA_STORAGE_SQL_SCAN_FETCH_SIZE = "data.storage.sql.scan.fetch.size";
+    public static final int DEFAULT_DATA_STORAGE_SQL_SCAN_FETCH_SIZE = 100;
 
     // used for Guice named bindings
     public static final String TABLE_TYPE = "table.type";
@@ -645,6 +689,8 @@ public final class Constants {
       public static final String HBASE_STATS_REPORT_INTERVAL = "metrics.dataset.hbase.stats.report.interval";
       /** Defines reporting interval for LevelDB stats, in seconds */
       public static final String LEVELDB_STATS_REPORT_INTERVAL = "metrics.dataset.leveldb.stats.report.interval";
+      /** Defines reporting interval for in-memory table stats, in seconds */
+      public static final String INMEMORY_STATS_REPORT_INTERVAL = "metrics.dataset.inmemory.stats.report.interval";
     }
 
     /**
@@ -826,6 +872,10 @@ public final class Constants {
     // log buffer writer configs
     public static final String LOG_BUFFER_BASE_DIR = "log.buffer.base.dir";
     public static final String LOG_BUFFER_MAX_FILE_SIZE_BYTES = "log.buffer.max.file.size.bytes";
+    public static final String LOG_BUFFER_MEMORY_MAPPED = "log.buffer.memory.mapped";
+    public static final String LOG_BUFFER_SYNC_INTERVAL_MS = "log.buffer.sync.interval.ms";
+    // number of shards the log buffer and its processor pipelines are split into
+    public static final String LOG_BUFFER_NUM_SHARDS = "log.buffer.num.shards";
     // log buffer recovery configs
     public static final String LOG_BUFFER_RECOVERY_BATCH_SIZE = "log.buffer.recovery.batch.size";
     // number of events to be sent to time event queue processor from incoming queue
@@ -909,8 +959,16 @@ public final class Constants {
     public static final String LOG_APPENDER_EXT_DIR = "app.program.log.appender.extensions.dir";
     public static final String LOG_APPENDER_PROPERTY_PREFIX = "app.program.log.appender.system.properties.";
 
+    // log follow configs
+    public static final String LOG_FOLLOW_POLL_INTERVAL_MS = "log.follow.poll.interval.ms";
+    public static final String LOG_FOLLOW_HEARTBEAT_INTERVAL_MS = "log.follow.heartbeat.interval.ms";
+    public static final String LOG_FOLLOW_MAX_EVENTS_PER_READ = "log.follow.max.events.per.read";
+    public static final String LOG_FOLLOW_THREADS = "log.follow.threads";
+
     // Property key in the logger context to indicate it is performing pipeline validation
     public static final String PIPELINE_VALIDATION = "log.pipeline.validation";
+    // Property key in the logger context to indicate the periodic log file clean up should not be started
+    public static final String PIPELINE_FILE_CLEANUP_DISABLED = "log.pipeline.file.cleanup.disabled";
 
     public static final String SYSTEM_PIPELINE_CHECKPOINT_PREFIX = "cdap";
 
@@ -1206,6 +1264,7 @@ public final class Constants {
   public static final String CFG_DATA_LEVELDB_BLOCKSIZE = "data.local.storage.blocksize";
   public static final String CFG_DATA_LEVELDB_CACHESIZE = "data.local.storage.cachesize";
   public static final String CFG_DATA_LEVELDB_FSYNC = "data.local.storage.fsync";
+  public static final String CFG_DATA_LEVELDB_ROW_LOCK_STRIPES = "data.local.storage.row.lock.stripes";
 
   /**
    * Defaults for Data Fabric.
@@ -1214,6 +1273,7 @@ public final class Constants {
   public static final int DEFAULT_DATA_LEVELDB_BLOCKSIZE = 1024;
   public static final long DEFAULT_DATA_LEVELDB_CACHESIZE = 1024 * 1024 * 100;
   public static final boolean DEFAULT_DATA_LEVELDB_FSYNC = true;
+  public static final int DEFAULT_DATA_LEVELDB_ROW_LOCK_STRIPES = 1024;
 
   /**
    * Used for upgrade and backwards compatability
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.utils;
+
+import com.google.common.cache.Cache;
+
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * A wrapper of a {@link Cache} of values that are loaded from a store outside of the cache, and invalidated after the
+ * values are changed in the store.
+ *
+ * The cache keeps a generation that is incremented on every invalidation. The generation is obtained before a value
+ * is loaded, and the value is only put into the cache if no invalidation happened since then. This prevents a value
+ * that was loaded before a change from being cached after the invalidation for that change.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public final class GenerationalCache<K, V> {
+
+  private final Cache<K, V> cache;
+  private long generation;
+
+  public GenerationalCache(Cache<K, V> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Returns the current generation of the cache. It must be obtained before the value to
+   * {@link #put(Object, Object, long)} is loaded.
+   */
+  public synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Returns the cached value of the given key, or {@code null} if it is not cached.
+   */
+  @Nullable
+  public V getIfPresent(K key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Caches the given value, unless the cache was invalidated since the given generation was obtained.
+   *
+   * @param key the key of the value
+   * @param value the value loaded from the store
+   * @param generation the generation obtained by {@link #getGeneration()} before the value was loaded
+   */
+  public synchronized void put(K key, V value, long generation) {
+    if (generation == this.generation) {
+      cache.put(key, value);
+    }
+  }
+
+  /**
+   * Invalidates the value of the given key.
+   */
+  public synchronized void invalidate(K key) {
+    generation++;
+    cache.invalidate(key);
+  }
+
+  /**
+   * Invalidates the values of all keys that match the given predicate.
+   */
+  public synchronized void invalidateIf(Predicate<? super K> predicate) {
+    generation++;
+    cache.asMap().keySet().removeIf(predicate);
+  }
+
+  /**
+   * Invalidates all values.
+   */
+  public synchronized void invalidateAll() {
+    generation++;
+    cache.invalidateAll();
+  }
+}
@@ -27,7 +27,7 @@ import io.cdap.cdap.proto.id.ProgramRunId;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -183,14 +183,14 @@ public final class RunRecordMeta extends RunRecord {
     private ArtifactId artifactId;
 
     private Builder() {
-      systemArgs = new HashMap<>();
+      systemArgs = new LinkedHashMap<>();
     }
 
     private Builder(RunRecordMeta record) {
       super(record);
       programRunId = record.getProgramRunId();
       twillRunId = record.getTwillRunId();
-      systemArgs = new HashMap<>(record.getSystemArgs());
+      systemArgs = new LinkedHashMap<>(record.getSystemArgs());
       sourceId = record.getSourceId();
       principal = record.getPrincipal();
       artifactId = record.getArtifactId();
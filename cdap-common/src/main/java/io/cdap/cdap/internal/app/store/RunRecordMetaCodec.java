@@ -0,0 +1,206 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.Decoder;
+import io.cdap.cdap.common.io.Encoder;
+import io.cdap.cdap.proto.ProgramRunCluster;
+import io.cdap.cdap.proto.ProgramRunClusterStatus;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramRunId;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Encodes {@link RunRecordMeta} in a compact binary format, which is smaller and faster to decode than the JSON
+ * format that run records were stored in before. The {@link ProgramRunId} of the run record is not encoded, since
+ * it is already part of the key the run record is stored with.
+ *
+ * The format is versioned, and the version is stored alongside the encoded bytes, so that the format can evolve while
+ * run records encoded in older versions remain readable.
+ */
+public final class RunRecordMetaCodec {
+
+  /**
+   * The version of the format produced by {@link #encode(RunRecordMeta)}.
+   */
+  public static final int VERSION = 1;
+
+  private RunRecordMetaCodec() {
+    // no-op
+  }
+
+  /**
+   * Encodes the given {@link RunRecordMeta} in the format of the current {@link #VERSION}.
+   *
+   * @param meta the run record to encode
+   * @return the encoded bytes
+   * @throws IOException if failed to encode
+   */
+  public static byte[] encode(RunRecordMeta meta) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream(256);
+    Encoder encoder = new BinaryEncoder(os);
+
+    encoder.writeLong(meta.getStartTs());
+    writeNullableLong(encoder, meta.getRunTs());
+    writeNullableLong(encoder, meta.getStopTs());
+    writeNullableLong(encoder, meta.getSuspendTs());
+    writeNullableLong(encoder, meta.getResumeTs());
+    encoder.writeString(meta.getStatus().name());
+    writeMap(encoder, meta.getProperties());
+
+    ProgramRunCluster cluster = meta.getCluster();
+    encoder.writeBool(cluster != null);
+    if (cluster != null) {
+      encoder.writeString(cluster.getStatus().name());
+      writeNullableLong(encoder, cluster.getEnd());
+      writeNullableLong(encoder, cluster.getNumNodes() == null ? null : cluster.getNumNodes().longValue());
+    }
+
+    ProfileId profileId = meta.getProfileId();
+    encoder.writeBool(profileId != null);
+    if (profileId != null) {
+      encoder.writeString(profileId.getNamespace());
+      encoder.writeString(profileId.getProfile());
+    }
+
+    writeNullableString(encoder, meta.getTwillRunId());
+    writeMap(encoder, meta.getSystemArgs());
+    encoder.writeBytes(meta.getSourceId());
+
+    ArtifactId artifactId = meta.getArtifactId();
+    encoder.writeBool(artifactId != null);
+    if (artifactId != null) {
+      encoder.writeString(artifactId.getName());
+      encoder.writeString(artifactId.getVersion().getVersion());
+      encoder.writeString(artifactId.getScope().name());
+    }
+
+    writeNullableString(encoder, meta.getPrincipal());
+    return os.toByteArray();
+  }
+
+  /**
+   * Decodes a {@link RunRecordMeta} encoded by {@link #encode(RunRecordMeta)}.
+   *
+   * @param version the version of the format the bytes are encoded in
+   * @param programRunId the run id of the run record
+   * @param data the encoded bytes
+   * @return the decoded {@link RunRecordMeta}
+   * @throws IOException if failed to decode
+   * @throws IllegalArgumentException if the version is not supported
+   */
+  public static RunRecordMeta decode(int version, ProgramRunId programRunId, byte[] data) throws IOException {
+    if (version != VERSION) {
+      throw new IllegalArgumentException(String.format("Unsupported run record format version %d for run %s",
+                                                       version, programRunId));
+    }
+    Decoder decoder = new BinaryDecoder(new ByteArrayInputStream(data));
+
+    RunRecordMeta.Builder builder = RunRecordMeta.builder()
+      .setProgramRunId(programRunId)
+      .setRunId(programRunId.getRun())
+      .setStartTime(decoder.readLong())
+      .setRunTime(readNullableLong(decoder))
+      .setStopTime(readNullableLong(decoder))
+      .setSuspendTime(readNullableLong(decoder))
+      .setResumeTime(readNullableLong(decoder))
+      .setStatus(ProgramRunStatus.valueOf(decoder.readString()))
+      .setProperties(readMap(decoder));
+
+    if (decoder.readBool()) {
+      ProgramRunClusterStatus status = ProgramRunClusterStatus.valueOf(decoder.readString());
+      Long end = readNullableLong(decoder);
+      Long numNodes = readNullableLong(decoder);
+      builder.setCluster(new ProgramRunCluster(status, end, numNodes == null ? null : numNodes.intValue()));
+    }
+    if (decoder.readBool()) {
+      builder.setProfileId(new ProfileId(decoder.readString(), decoder.readString()));
+    }
+
+    builder
+      .setTwillRunId(readNullableString(decoder))
+      .setSystemArgs(readMap(decoder))
+      .setSourceId(Bytes.toBytes(decoder.readBytes()));
+
+    if (decoder.readBool()) {
+      String name = decoder.readString();
+      ArtifactVersion artifactVersion = new ArtifactVersion(decoder.readString());
+      builder.setArtifactId(new ArtifactId(name, artifactVersion, ArtifactScope.valueOf(decoder.readString())));
+    }
+
+    return builder.setPrincipal(readNullableString(decoder)).build();
+  }
+
+  private static void writeNullableLong(Encoder encoder, @Nullable Long value) throws IOException {
+    encoder.writeBool(value != null);
+    if (value != null) {
+      encoder.writeLong(value);
+    }
+  }
+
+  @Nullable
+  private static Long readNullableLong(Decoder decoder) throws IOException {
+    return decoder.readBool() ? decoder.readLong() : null;
+  }
+
+  private static void writeNullableString(Encoder encoder, @Nullable String value) throws IOException {
+    encoder.writeBool(value != null);
+    if (value != null) {
+      encoder.writeString(value);
+    }
+  }
+
+  @Nullable
+  private static String readNullableString(Decoder decoder) throws IOException {
+    return decoder.readBool() ? decoder.readString() : null;
+  }
+
+  private static void writeMap(Encoder encoder, @Nullable Map<String, String> map) throws IOException {
+    // a null map, which a run record deserialized from JSON can have, is read as an empty map like in the JSON format
+    if (map == null) {
+      encoder.writeInt(0);
+      return;
+    }
+    encoder.writeInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      encoder.writeString(entry.getKey());
+      encoder.writeString(entry.getValue());
+    }
+  }
+
+  private static Map<String, String> readMap(Decoder decoder) throws IOException {
+    int size = decoder.readInt();
+    Map<String, String> map = new LinkedHashMap<>(size);
+    for (int i = 0; i < size; i++) {
+      map.put(decoder.readString(), decoder.readString());
+    }
+    return map;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.io;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.common.io.DatumWriter;
+
+/**
+ * Caches the code generated codecs for objects of a type and schema, so that they are shared by all users of the
+ * same type and schema, such as multiple instances of a dataset. Values are only weakly referenced, so that the
+ * cached codecs, and with them the classes they were generated for, can be collected once no longer in use.
+ */
+public final class ObjectCodecCache {
+
+  private static final LoadingCache<CacheKey, DatumWriter<?>> DATUM_WRITERS =
+    CacheBuilder.newBuilder().weakValues().build(new CacheLoader<CacheKey, DatumWriter<?>>() {
+      @Override
+      public DatumWriter<?> load(CacheKey key) {
+        // Use a new factory for each type, so that its ClassLoaders are not retained after the writer is collected
+        return new ASMDatumWriterFactory(new ASMFieldAccessorFactory()).create(key.type, key.schema);
+      }
+    });
+
+  private static final LoadingCache<CacheKey, ObjectRowMapper<?>> ROW_MAPPERS =
+    CacheBuilder.newBuilder().weakValues().build(new CacheLoader<CacheKey, ObjectRowMapper<?>>() {
+      @Override
+      public ObjectRowMapper<?> load(CacheKey key) {
+        return new ObjectRowMapper<>(key.type, key.schema, new ASMFieldAccessorFactory());
+      }
+    });
+
+  /**
+   * Returns a thread safe {@link DatumWriter} generated with ASM for the given type and schema.
+   *
+   * @throws RuntimeException if the writer cannot be generated, for example for interfaces that only have getters
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> DatumWriter<T> getDatumWriter(TypeToken<T> type, Schema schema) {
+    try {
+      return (DatumWriter<T>) DATUM_WRITERS.getUnchecked(new CacheKey(type, schema));
+    } catch (UncheckedExecutionException e) {
+      throw propagate(e);
+    }
+  }
+
+  /**
+   * Returns a thread safe {@link ObjectRowMapper} for the given type and schema.
+   *
+   * @throws IllegalArgumentException if the schema is not a record of simple fields
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> ObjectRowMapper<T> getRowMapper(TypeToken<T> type, Schema schema) {
+    try {
+      return (ObjectRowMapper<T>) ROW_MAPPERS.getUnchecked(new CacheKey(type, schema));
+    } catch (UncheckedExecutionException e) {
+      throw propagate(e);
+    }
+  }
+
+  private static RuntimeException propagate(UncheckedExecutionException e) {
+    if (e.getCause() instanceof RuntimeException) {
+      throw (RuntimeException) e.getCause();
+    }
+    throw e;
+  }
+
+  private static final class CacheKey {
+    private final TypeToken<?> type;
+    private final Schema schema;
+
+    private CacheKey(TypeToken<?> type, Schema schema) {
+      this.type = type;
+      this.schema = schema;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      CacheKey cacheKey = (CacheKey) o;
+      return schema.equals(cacheKey.schema) && type.equals(cacheKey.type);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(schema, type);
+    }
+  }
+
+  private ObjectCodecCache() {
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.io;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Longs;
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.dataset.table.Put;
+import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Table;
+import io.cdap.cdap.common.lang.Instantiator;
+import io.cdap.cdap.common.lang.InstantiatorFactory;
+import io.cdap.cdap.internal.lang.Fields;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+/**
+ * Maps objects of a record type to and from the columns of a {@link Table} row, with the same encoding as
+ * {@link ReflectionPutWriter} and {@link ReflectionRowReader}. Unlike those, the mapping of each field is resolved
+ * once when the mapper is created, and fields are accessed through ASM generated {@link FieldAccessor}s, so that
+ * writing or reading an object does not inspect the type or the schema again.
+ *
+ * Instances are thread safe. Use {@link ObjectCodecCache#getRowMapper(TypeToken, Schema)} to share mappers of the
+ * same type and schema.
+ *
+ * @param <T> the type of object to map
+ */
+public final class ObjectRowMapper<T> {
+
+  private final TypeToken<T> type;
+  private final Schema schema;
+  private final Instantiator<T> instantiator;
+  private final List<FieldMapping> mappings;
+
+  ObjectRowMapper(TypeToken<T> type, Schema schema, FieldAccessorFactory fieldAccessorFactory) {
+    Preconditions.checkArgument(schema.getType() == Schema.Type.RECORD, "Schema must be a record.");
+    Preconditions.checkArgument(!schema.getFields().isEmpty(), "Record must contain at least one field.");
+    this.type = type;
+    this.schema = schema;
+    this.instantiator = new InstantiatorFactory(true).get(type);
+    this.mappings = new ArrayList<>(schema.getFields().size());
+    for (Schema.Field field : schema.getFields()) {
+      Preconditions.checkArgument(
+        field.getSchema().isSimpleOrNullableSimple(),
+        "Schema must only contain simple fields (boolean, int, long, float, double, bytes, string)");
+      mappings.add(new FieldMapping(type, field, fieldAccessorFactory));
+    }
+  }
+
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Adds the columns of the given object to the given {@link Put}.
+   *
+   * @param object the object to write
+   * @param put the put to add the columns to
+   * @throws IOException if the object cannot be encoded with the schema
+   */
+  public void write(T object, Put put) throws IOException {
+    if (object.getClass() != type.getRawType()) {
+      // fields may be resolved differently for sub-classes
+      new ReflectionPutWriter<T>(schema).write(object, put);
+      return;
+    }
+    try {
+      for (FieldMapping mapping : mappings) {
+        mapping.write(object, put);
+      }
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Creates an object from the columns of the given {@link Row}.
+   *
+   * @param row the row to read
+   * @return a new object
+   * @throws IOException if a non-nullable field is missing in the row, or if a value cannot be decoded
+   */
+  public T read(Row row) throws IOException {
+    try {
+      T object = instantiator.create();
+      for (FieldMapping mapping : mappings) {
+        mapping.read(row, object);
+      }
+      return object;
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * The mapping between a field of the object and a column.
+   */
+  private static final class FieldMapping {
+    private final String name;
+    private final byte[] column;
+    private final Schema.Type valueType;
+    private final boolean nullable;
+    @Nullable
+    private final FieldAccessor accessor;
+    // the getter to use for writing if the class has no field with the name
+    @Nullable
+    private final Method getter;
+    private final Class<?> fieldClass;
+
+    FieldMapping(TypeToken<?> type, Schema.Field field, FieldAccessorFactory fieldAccessorFactory) {
+      this.name = field.getName();
+      this.column = Bytes.toBytes(name);
+      Schema fieldSchema = field.getSchema();
+      this.nullable = fieldSchema.isNullable();
+      this.valueType = nullable ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
+
+      FieldAccessor accessor = null;
+      Method getter = null;
+      Class<?> fieldClass = null;
+      try {
+        fieldClass = type.resolveType(Fields.findField(type.getType(), name).getGenericType()).getRawType();
+        accessor = fieldAccessorFactory.getFieldAccessor(type, name);
+      } catch (NoSuchFieldException e) {
+        // same as the ReflectionWriter, use the getter if there is no field
+        getter = findGetter(type.getRawType(), name);
+      }
+      this.accessor = accessor;
+      this.getter = getter;
+      this.fieldClass = fieldClass;
+    }
+
+    void write(Object object, Put put) throws Exception {
+      Object value;
+      if (accessor != null) {
+        value = accessor.get(object);
+      } else if (getter != null) {
+        value = getter.invoke(object);
+      } else {
+        throw new IOException("Unable to read field value through getter. Class=" + object.getClass()
+                                + ", field=" + name);
+      }
+
+      if (value == null) {
+        if (nullable) {
+          // write a null value, to make sure to delete any existing value
+          put.add(column, (byte[]) null);
+          return;
+        }
+        if (valueType != Schema.Type.NULL) {
+          throw new IOException("Value of non-nullable field " + name + " is null.");
+        }
+      }
+
+      switch (valueType) {
+        case NULL:
+          break;
+        case BOOLEAN:
+          put.add(column, Bytes.toBytes((Boolean) value));
+          break;
+        case INT:
+          put.add(column, Bytes.toBytes(((Number) value).intValue()));
+          break;
+        case LONG:
+          put.add(column, Bytes.toBytes(((Number) value).longValue()));
+          break;
+        case FLOAT:
+          put.add(column, Bytes.toBytes((Float) value));
+          break;
+        case DOUBLE:
+          put.add(column, Bytes.toBytes((Double) value));
+          break;
+        case STRING:
+          put.add(column, Bytes.toBytes(value.toString()));
+          break;
+        case BYTES:
+          if (value instanceof ByteBuffer) {
+            put.add(column, Bytes.toBytes((ByteBuffer) value));
+          } else if (value instanceof UUID) {
+            UUID uuid = (UUID) value;
+            put.add(column, Bytes.add(Bytes.toBytes(uuid.getMostSignificantBits()),
+                                      Bytes.toBytes(uuid.getLeastSignificantBits())));
+          } else {
+            put.add(column, (byte[]) value);
+          }
+          break;
+        default:
+          throw new IOException("Unsupported type " + valueType + " of field " + name);
+      }
+    }
+
+    void read(Row row, Object object) throws Exception {
+      if (accessor == null) {
+        throw new IOException("No such field in type. Type: " + object.getClass() + ", field: " + name);
+      }
+      byte[] bytes = valueType == Schema.Type.NULL ? null : row.get(column);
+      if (bytes == null) {
+        if (!nullable && valueType != Schema.Type.NULL) {
+          throw new IOException("No value for " + name + " exists.");
+        }
+        accessor.set(object, null);
+        return;
+      }
+      accessor.set(object, decode(bytes));
+    }
+
+    private Object decode(byte[] bytes) throws IOException {
+      switch (valueType) {
+        case BOOLEAN:
+          return Bytes.toBoolean(bytes);
+        case INT:
+          int value = Bytes.toInt(bytes);
+          if (fieldClass.equals(byte.class) || fieldClass.equals(Byte.class)) {
+            return (byte) value;
+          }
+          if (fieldClass.equals(char.class) || fieldClass.equals(Character.class)) {
+            return (char) value;
+          }
+          if (fieldClass.equals(short.class) || fieldClass.equals(Short.class)) {
+            return (short) value;
+          }
+          return value;
+        case LONG:
+          return Bytes.toLong(bytes);
+        case FLOAT:
+          return Bytes.toFloat(bytes);
+        case DOUBLE:
+          return Bytes.toDouble(bytes);
+        case STRING:
+          String str = Bytes.toString(bytes);
+          if (fieldClass.equals(URI.class)) {
+            return URI.create(str);
+          } else if (fieldClass.equals(URL.class)) {
+            return new URL(str);
+          }
+          return str;
+        case BYTES:
+          if (fieldClass.equals(byte[].class)) {
+            return bytes;
+          }
+          ByteBuffer buffer = ByteBuffer.wrap(bytes);
+          if (fieldClass.equals(UUID.class) && bytes.length == Longs.BYTES * 2) {
+            return new UUID(buffer.getLong(), buffer.getLong());
+          }
+          return buffer;
+        default:
+          throw new IOException("Unsupported type " + valueType + " of field " + name);
+      }
+    }
+
+    @Nullable
+    private static Method findGetter(Class<?> rawType, String fieldName) {
+      String suffix = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+      for (String prefix : new String[] { "get", "is" }) {
+        try {
+          Method method = rawType.getMethod(prefix + suffix);
+          if (!method.getDeclaringClass().equals(Object.class)) {
+            return method;
+          }
+        } catch (NoSuchMethodException e) {
+          // try the next prefix
+        }
+      }
+      return null;
+    }
+  }
+}
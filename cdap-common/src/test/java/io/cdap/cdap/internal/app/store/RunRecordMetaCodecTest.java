@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.proto.ProgramRunCluster;
+import io.cdap.cdap.proto.ProgramRunClusterStatus;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.ProgramType;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramRunId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link RunRecordMetaCodec}.
+ */
+public class RunRecordMetaCodecTest {
+
+  private static final ProgramRunId RUN_ID = NamespaceId.DEFAULT.app("app").program(ProgramType.WORKFLOW, "workflow")
+    .run("a2b6bc29-4d5f-11e9-8ab3-000000c1f1a8");
+
+  @Test
+  public void testFullRecord() throws Exception {
+    RunRecordMeta meta = RunRecordMeta.builder()
+      .setProgramRunId(RUN_ID)
+      .setRunId(RUN_ID.getRun())
+      .setStartTime(100L)
+      .setRunTime(110L)
+      .setStopTime(200L)
+      .setSuspendTime(150L)
+      .setResumeTime(160L)
+      .setStatus(ProgramRunStatus.COMPLETED)
+      .setProperties(ImmutableMap.of("workflowrunid", "run1"))
+      .setCluster(new ProgramRunCluster(ProgramRunClusterStatus.DEPROVISIONED, 210L, 3))
+      .setProfileId(NamespaceId.SYSTEM.profile("native"))
+      .setTwillRunId("twill")
+      .setSystemArgs(ImmutableMap.of("key", "value", "key2", "value2"))
+      .setSourceId(Bytes.toBytes("source"))
+      .setArtifactId(new ArtifactId("artifact", new ArtifactVersion("1.0.0"), ArtifactScope.USER))
+      .setPrincipal("user/host@REALM")
+      .build();
+
+    RunRecordMeta decoded = RunRecordMetaCodec.decode(RunRecordMetaCodec.VERSION, RUN_ID,
+                                                      RunRecordMetaCodec.encode(meta));
+    Assert.assertEquals(meta, decoded);
+    // fields that are not part of equals
+    Assert.assertEquals(meta.getCluster(), decoded.getCluster());
+    Assert.assertEquals(meta.getProfileId(), decoded.getProfileId());
+    Assert.assertEquals(meta.getSystemArgs(), decoded.getSystemArgs());
+  }
+
+  @Test
+  public void testMinimalRecord() throws Exception {
+    RunRecordMeta meta = RunRecordMeta.builder()
+      .setProgramRunId(RUN_ID)
+      .setRunId(RUN_ID.getRun())
+      .setStartTime(100L)
+      .setStatus(ProgramRunStatus.PENDING)
+      .setSourceId(new byte[0])
+      .build();
+
+    RunRecordMeta decoded = RunRecordMetaCodec.decode(RunRecordMetaCodec.VERSION, RUN_ID,
+                                                      RunRecordMetaCodec.encode(meta));
+    Assert.assertEquals(meta, decoded);
+    Assert.assertEquals(meta.getCluster(), decoded.getCluster());
+    Assert.assertEquals(meta.getProfileId(), decoded.getProfileId());
+    Assert.assertNull(decoded.getArtifactId());
+  }
+
+  @Test
+  public void testMaps() throws Exception {
+    Map<String, String> properties = new LinkedHashMap<>();
+    for (int i = 20; i > 0; i--) {
+      properties.put("key" + i, "value" + i);
+    }
+    RunRecordMeta meta = RunRecordMeta.builder()
+      .setProgramRunId(RUN_ID)
+      .setRunId(RUN_ID.getRun())
+      .setStartTime(100L)
+      .setStatus(ProgramRunStatus.RUNNING)
+      .setProperties(properties)
+      .setSystemArgs(properties)
+      .setSourceId(new byte[0])
+      .build();
+
+    RunRecordMeta decoded = RunRecordMetaCodec.decode(RunRecordMetaCodec.VERSION, RUN_ID,
+                                                      RunRecordMetaCodec.encode(meta));
+    Assert.assertEquals(meta, decoded);
+    // the order of the entries is preserved
+    Assert.assertEquals(new ArrayList<>(properties.keySet()), new ArrayList<>(decoded.getProperties().keySet()));
+    Assert.assertEquals(new ArrayList<>(properties.keySet()), new ArrayList<>(decoded.getSystemArgs().keySet()));
+
+    // run records written as JSON can have no properties
+    RunRecordMeta json = new Gson().fromJson("{\"runid\":\"" + RUN_ID.getRun() + "\",\"starting\":100," +
+                                               "\"status\":\"COMPLETED\",\"sourceid\":[1]}", RunRecordMeta.class);
+    Assert.assertNull(json.getProperties());
+    decoded = RunRecordMetaCodec.decode(RunRecordMetaCodec.VERSION, RUN_ID, RunRecordMetaCodec.encode(json));
+    Assert.assertTrue(decoded.getProperties().isEmpty());
+    Assert.assertTrue(decoded.getSystemArgs().isEmpty());
+    Assert.assertEquals(decoded, RunRecordMeta.builder(json).setProgramRunId(RUN_ID).build());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedVersion() throws Exception {
+    RunRecordMetaCodec.decode(RunRecordMetaCodec.VERSION + 1, RUN_ID, new byte[0]);
+  }
+}
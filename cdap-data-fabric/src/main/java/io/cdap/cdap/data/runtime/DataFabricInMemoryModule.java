@@ -22,6 +22,7 @@ import com.google.inject.Scopes;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
 import com.google.inject.name.Names;
 import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableTxSystemClient;
 import io.cdap.cdap.data2.transaction.DelegatingTransactionSystemClientService;
 import io.cdap.cdap.data2.transaction.TransactionSystemClientService;
 import io.cdap.cdap.data2.transaction.metrics.TransactionManagerMetricsCollector;
@@ -82,7 +83,8 @@ public class DataFabricInMemoryModule extends AbstractModule {
 
     @Override
     protected TransactionSystemClient getTransactionSystemClient() {
-      return injector.getInstance(InMemoryTxSystemClient.class);
+      // register transactions with the in-memory tables as they start, such that no version they can read is pruned
+      return new InMemoryTableTxSystemClient(injector.getInstance(InMemoryTxSystemClient.class));
     }
   }
 }
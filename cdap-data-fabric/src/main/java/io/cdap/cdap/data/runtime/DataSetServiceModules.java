@@ -44,6 +44,7 @@ import io.cdap.cdap.data2.dataset2.DefaultDatasetDefinitionRegistryFactory;
 import io.cdap.cdap.data2.dataset2.StaticDatasetFramework;
 import io.cdap.cdap.data2.metrics.DatasetMetricsReporter;
 import io.cdap.cdap.data2.metrics.HBaseDatasetMetricsReporter;
+import io.cdap.cdap.data2.metrics.InMemoryDatasetMetricsReporter;
 import io.cdap.cdap.data2.metrics.LevelDBDatasetMetricsReporter;
 import io.cdap.cdap.gateway.handlers.CommonHandlers;
 import io.cdap.http.HttpHandler;
@@ -83,7 +84,8 @@ public class DataSetServiceModules extends RuntimeModule {
             CommonHandlers.add(handlerBinder);
             handlerBinder.addBinding().to(DatasetAdminOpHTTPHandler.class);
 
-            Multibinder.newSetBinder(binder(), DatasetMetricsReporter.class);
+            Multibinder.newSetBinder(binder(), DatasetMetricsReporter.class)
+              .addBinding().to(InMemoryDatasetMetricsReporter.class);
 
             bind(DatasetOpExecutorService.class).in(Scopes.SINGLETON);
             expose(DatasetOpExecutorService.class);
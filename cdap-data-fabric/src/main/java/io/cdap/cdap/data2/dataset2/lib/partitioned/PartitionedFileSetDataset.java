@@ -57,19 +57,23 @@ import io.cdap.cdap.api.dataset.lib.PartitionMetadata;
 import io.cdap.cdap.api.dataset.lib.PartitionOutput;
 import io.cdap.cdap.api.dataset.lib.PartitionedFileSet;
 import io.cdap.cdap.api.dataset.lib.PartitionedFileSetArguments;
+import io.cdap.cdap.api.dataset.lib.PartitionedFileSetProperties;
 import io.cdap.cdap.api.dataset.lib.Partitioning;
 import io.cdap.cdap.api.dataset.lib.Partitioning.FieldType;
 import io.cdap.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
 import io.cdap.cdap.api.dataset.table.Put;
 import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.logging.LogSamplers;
 import io.cdap.cdap.common.logging.Loggers;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.data.RuntimeProgramContext;
 import io.cdap.cdap.data.RuntimeProgramContextAware;
 import io.cdap.cdap.data2.dataset2.lib.file.FileSetDataset;
+import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.explore.client.ExploreFacade;
 import io.cdap.cdap.proto.id.DatasetId;
 import org.apache.tephra.Transaction;
@@ -81,6 +85,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -129,6 +134,8 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private static final byte[] LAST_MODIFICATION_TIME_COL = { 'm' };
   private static final byte[] RELATIVE_PATH = { 'p' };
   private static final byte[] METADATA_PREFIX = { 'm', '.' };
+  // prefix of the columns holding the values of the indexed partitioning fields
+  private static final byte[] INDEXED_FIELD_PREFIX = { 'f', '.' };
 
   protected final FileSet files;
   protected final DatasetSpecification spec;
@@ -140,6 +147,7 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private final Provider<ExploreFacade> exploreFacadeProvider;
 
   private final DatasetId datasetInstanceId;
+  private final List<String> indexedFields;
 
   // Keep track of all partitions' being added/dropped in this transaction, so we can rollback their paths,
   // if necessary.
@@ -166,6 +174,7 @@ public class PartitionedFileSetDataset extends AbstractDataset
     this.partitioning = partitioning;
     this.exploreFacadeProvider = exploreFacadeProvider;
     this.datasetInstanceId = new DatasetId(datasetContext.getNamespaceId(), name);
+    this.indexedFields = PartitionedFileSetProperties.getIndexedPartitioningFields(spec.getProperties());
   }
 
   @Override
@@ -356,6 +365,11 @@ public class PartitionedFileSetDataset extends AbstractDataset
     if (!appending) {
       put.add(RELATIVE_PATH, Bytes.toBytes(path));
       put.add(CREATION_TIME_COL, nowInMillis);
+      // the values of the indexed fields are maintained in the composite indexes of the partitions table
+      for (String fieldName : indexedFields) {
+        put.add(getIndexedFieldColumn(fieldName),
+                FieldTypes.toBytes(key.getField(fieldName), partitioning.getFieldType(fieldName)));
+      }
     }
     put.add(LAST_MODIFICATION_TIME_COL, nowInMillis);
 
@@ -757,6 +771,13 @@ public class PartitionedFileSetDataset extends AbstractDataset
   // if decodeMetadata is false, null is passed as the PartitionMetadata to the PartitionConsumer,
   // for efficiency reasons, since the metadata is not always needed
   protected void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata) {
+    String indexedField = filter == null ? null : selectIndexedField(filter);
+    if (indexedField != null) {
+      try (Scanner scanner = scanIndex(indexedField, filter.getCondition(indexedField))) {
+        readPartitions(scanner, filter, consumer, decodeMetadata, Long.MAX_VALUE);
+      }
+      return;
+    }
     byte[] startKey = generateStartKey(filter);
     byte[] endKey = generateStopKey(filter);
     getPartitions(filter, consumer, decodeMetadata, startKey, endKey, Long.MAX_VALUE);
@@ -764,34 +785,176 @@ public class PartitionedFileSetDataset extends AbstractDataset
 
   private void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata,
                              @Nullable byte[] startKey, @Nullable byte[] endKey, long limit) {
+    Scan scan = new Scan(startKey, endKey, createFuzzyRowFilter(filter, partitioning));
+    try (Scanner scanner = partitionsTable.scan(scan)) {
+      readPartitions(scanner, filter, consumer, decodeMetadata, limit);
+    }
+  }
+
+  private void readPartitions(Scanner scanner, @Nullable PartitionFilter filter, PartitionConsumer consumer,
+                              boolean decodeMetadata, long limit) {
     long count = 0L;
-    try (Scanner scanner = partitionsTable.scan(startKey, endKey)) {
-      while (count < limit) {
-        Row row = scanner.next();
-        if (row == null) {
-          break;
+    while (count < limit) {
+      Row row = scanner.next();
+      if (row == null) {
+        break;
+      }
+      PartitionKey key;
+      try {
+        key = parseRowKey(row.getRow(), partitioning);
+      } catch (IllegalArgumentException e) {
+        LOG.debug(String.format("Failed to parse row key for partitioned file set '%s': %s",
+                                getName(), Bytes.toStringBinary(row.getRow())));
+        continue;
+      }
+      if (filter != null && !filter.match(key)) {
+        continue;
+      }
+      byte[] pathBytes = row.get(RELATIVE_PATH);
+      if (pathBytes != null) {
+        consumer.consume(key, Bytes.toString(pathBytes), decodeMetadata ? metadataFromRow(row) : null);
+      }
+      count++;
+    }
+    if (count == 0) {
+      warnIfInvalidPartitionFilter(filter, partitioning);
+    }
+  }
+
+  /**
+   * Selects the indexed field to answer a partition filter from, or returns null if scanning the partitions table
+   * is expected to be cheaper. An index is used for a value condition, unless the filter has a value condition on
+   * the first field of the partitioning, and for a range condition only if the filter has no condition on the first
+   * field at all.
+   */
+  @Nullable
+  private String selectIndexedField(PartitionFilter filter) {
+    if (indexedFields.isEmpty()) {
+      return null;
+    }
+    PartitionFilter.Condition<? extends Comparable> firstCondition =
+      filter.getCondition(partitioning.getFields().keySet().iterator().next());
+    if (firstCondition != null && firstCondition.isSingleValue()) {
+      return null;
+    }
+    String rangeField = null;
+    for (String fieldName : indexedFields) {
+      PartitionFilter.Condition<? extends Comparable> condition = filter.getCondition(fieldName);
+      if (condition == null) {
+        continue;
+      }
+      if (condition.isSingleValue()) {
+        return fieldName;
+      }
+      if (rangeField == null) {
+        rangeField = fieldName;
+      }
+    }
+    return firstCondition == null ? rangeField : null;
+  }
+
+  /**
+   * Returns a scanner over the partitions whose value of an indexed field matches a condition.
+   */
+  @VisibleForTesting
+  Scanner scanIndex(String fieldName, PartitionFilter.Condition<? extends Comparable> condition) {
+    FieldType fieldType = partitioning.getFieldType(fieldName);
+    if (condition.isSingleValue()) {
+      return partitionsTable.readByCompositeIndex(fieldName, toFilterBytes(fieldName, fieldType, condition.getValue()));
+    }
+    byte[] lower = condition.getLower() == null ? null : toFilterBytes(fieldName, fieldType, condition.getLower());
+    byte[] upper = condition.getUpper() == null ? null : toFilterBytes(fieldName, fieldType, condition.getUpper());
+    if (lower != null && upper != null && Bytes.compareTo(lower, upper) >= 0) {
+      // the range is empty, and a scan cannot start after its end
+      return new Scanner() {
+        @Nullable
+        @Override
+        public Row next() {
+          return null;
         }
-        PartitionKey key;
+
+        @Override
+        public void close() {
+          // no-op
+        }
+      };
+    }
+    return partitionsTable.scanByCompositeIndex(fieldName, new byte[0][], lower, upper);
+  }
+
+  private static byte[] toFilterBytes(String fieldName, FieldType fieldType, Comparable value) {
+    try {
+      fieldType.validate(value);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid partition filter: Condition for field '%s' is incompatible with the partitioning: %s",
+        fieldName, e.getMessage()));
+    }
+    return FieldTypes.toBytes(value, fieldType);
+  }
+
+  /**
+   * Creates a filter that skips over the partitions that do not match the value conditions of a partition filter
+   * on fields that are not covered by the start and stop key of the scan. Such a condition can only be expressed
+   * as a fuzzy row key if the offset of its field in the row key is known, that is, if all fields before it either
+   * have a value condition or a fixed length.
+   *
+   * @return the filter, or null if the partition filter has no such conditions
+   */
+  @Nullable
+  @VisibleForTesting
+  static FuzzyRowFilter createFuzzyRowFilter(@Nullable PartitionFilter filter, Partitioning partitioning) {
+    if (filter == null) {
+      return null;
+    }
+    List<byte[]> values = new ArrayList<>();
+    List<Boolean> fixed = new ArrayList<>();
+    boolean leading = true;
+    int numFields = 0;
+    int length = 0;
+    int fuzzyLength = 0;
+    for (Map.Entry<String, FieldType> entry : partitioning.getFields().entrySet()) {
+      FieldType fieldType = entry.getValue();
+      PartitionFilter.Condition<? extends Comparable> condition = filter.getCondition(entry.getKey());
+      byte[] bytes;
+      if (condition != null && condition.isSingleValue()) {
         try {
-          key = parseRowKey(row.getRow(), partitioning);
+          fieldType.validate(condition.getValue());
         } catch (IllegalArgumentException e) {
-          LOG.debug(String.format("Failed to parse row key for partitioned file set '%s': %s",
-                                  getName(), Bytes.toStringBinary(row.getRow())));
-          continue;
-        }
-        if (filter != null && !filter.match(key)) {
-          continue;
+          // the condition cannot match any partition, which is left to the row by row match
+          return null;
         }
-        byte[] pathBytes = row.get(RELATIVE_PATH);
-        if (pathBytes != null) {
-          consumer.consume(key, Bytes.toString(pathBytes), decodeMetadata ? metadataFromRow(row) : null);
-        }
-        count++;
+        bytes = FieldTypes.toBytes(condition.getValue(), fieldType);
+      } else if (fieldType == FieldType.STRING) {
+        break; // the offset of the following fields in the row key is unknown
+      } else {
+        leading = false;
+        bytes = new byte[FieldTypes.determineLengthInBytes(Bytes.EMPTY_BYTE_ARRAY, 0, fieldType)];
+      }
+      values.add(bytes);
+      fixed.add(condition != null && condition.isSingleValue());
+      length += bytes.length + (numFields++ == 0 ? 0 : 1);
+      if (!leading && fixed.get(fixed.size() - 1)) {
+        // include the separator following the value, so that a string value does not match longer strings
+        fuzzyLength = numFields < partitioning.getFields().size() ? length + 1 : length;
       }
-      if (count == 0) {
-        warnIfInvalidPartitionFilter(filter, partitioning);
+    }
+    if (fuzzyLength == 0) {
+      return null;
+    }
+    byte[] fuzzyKey = new byte[fuzzyLength];
+    byte[] fuzzyMask = new byte[fuzzyLength];
+    int offset = 0;
+    for (int i = 0; i < values.size() && offset < fuzzyLength; i++) {
+      byte[] bytes = values.get(i);
+      if (fixed.get(i)) {
+        System.arraycopy(bytes, 0, fuzzyKey, offset, bytes.length);
+      } else {
+        Arrays.fill(fuzzyMask, offset, offset + bytes.length, (byte) 1);
       }
+      offset += bytes.length + 1; // this leaves a fixed \0 byte after the value
     }
+    return new FuzzyRowFilter(Collections.singletonList(ImmutablePair.of(fuzzyKey, fuzzyMask)));
   }
 
   private PartitionMetadata metadataFromRow(Row row) {
@@ -1209,6 +1372,13 @@ public class PartitionedFileSetDataset extends AbstractDataset
     return rowKey;
   }
 
+  /**
+   * Returns the column of the partitions table that holds the value of an indexed partitioning field.
+   */
+  static byte[] getIndexedFieldColumn(String fieldName) {
+    return Bytes.add(INDEXED_FIELD_PREFIX, Bytes.toBytes(fieldName));
+  }
+
   private byte[] generateStartKey(PartitionFilter filter) {
     if (null == filter) {
       return null;
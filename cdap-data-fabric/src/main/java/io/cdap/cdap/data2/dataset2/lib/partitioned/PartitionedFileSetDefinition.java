@@ -17,6 +17,7 @@
 package io.cdap.cdap.data2.dataset2.lib.partitioned;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
@@ -48,6 +49,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -90,10 +92,7 @@ public class PartitionedFileSetDefinition
     Partitioning partitioning = PartitionedFileSetProperties.getPartitioning(properties.getProperties());
     Preconditions.checkArgument(partitioning != null, "Properties do not contain partitioning");
     // define the columns for indexing on the partitionsTable
-    DatasetProperties indexedTableProperties = DatasetProperties.builder()
-      .addAll(properties.getProperties())
-      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, INDEXED_COLS)
-      .build();
+    DatasetProperties indexedTableProperties = getIndexedTableProperties(properties, partitioning);
 
     Map<String, String> pfsProperties = new HashMap<>(properties.getProperties());
 
@@ -138,10 +137,7 @@ public class PartitionedFileSetDefinition
     Map<String, String> pfsProperties = new HashMap<>(properties.getProperties());
 
     // define the columns for indexing on the partitionsTable
-    DatasetProperties indexedTableProperties = DatasetProperties.builder()
-      .addAll(properties.getProperties())
-      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, INDEXED_COLS)
-      .build();
+    DatasetProperties indexedTableProperties = getIndexedTableProperties(properties, newPartitioning);
 
     // only set the default base path property if the default was set the last time it was configured,
     // and no base path is in the current properties.
@@ -164,6 +160,34 @@ public class PartitionedFileSetDefinition
       .build();
   }
 
+  /**
+   * Returns the properties of the partitions table. Besides the write pointer and creation time, the partitions
+   * are indexed by each of the indexed partitioning fields, with a composite index named after the field.
+   */
+  private static DatasetProperties getIndexedTableProperties(DatasetProperties properties,
+                                                             Partitioning partitioning) {
+    DatasetProperties.Builder builder = DatasetProperties.builder()
+      .addAll(properties.getProperties())
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, INDEXED_COLS);
+    List<String> indexedFields = PartitionedFileSetProperties.getIndexedPartitioningFields(properties.getProperties());
+    if (indexedFields.isEmpty()) {
+      return builder.build();
+    }
+    StringBuilder compositeIndexes = new StringBuilder();
+    String sep = "";
+    for (String fieldName : indexedFields) {
+      Preconditions.checkArgument(partitioning.getFieldType(fieldName) != null,
+                                  "Indexed field '%s' is not a field of the partitioning %s",
+                                  fieldName, partitioning);
+      Preconditions.checkArgument(CharMatcher.anyOf(",;=").matchesNoneOf(fieldName),
+                                  "Indexed field '%s' must not contain any of ',;='", fieldName);
+      compositeIndexes.append(sep).append(fieldName).append('=')
+        .append(Bytes.toString(PartitionedFileSetDataset.getIndexedFieldColumn(fieldName)));
+      sep = ";";
+    }
+    return builder.add(IndexedTable.COMPOSITE_INDEXES_CONF_KEY, compositeIndexes.toString()).build();
+  }
+
   @Override
   public DatasetAdmin getAdmin(DatasetContext datasetContext, DatasetSpecification spec,
                                ClassLoader classLoader) throws IOException {
@@ -36,6 +36,7 @@ import io.cdap.cdap.api.dataset.table.Increment;
 import io.cdap.cdap.api.dataset.table.Put;
 import io.cdap.cdap.api.dataset.table.Result;
 import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.api.dataset.table.Table;
 import io.cdap.cdap.api.dataset.table.TableProperties;
@@ -278,7 +279,7 @@ public abstract class AbstractTable implements Table, TransactionAware {
     public void initialize(Split split) throws InterruptedException {
       TableSplit tableSplit = (TableSplit) split;
       try {
-        this.scanner = scan(tableSplit.getStart(), tableSplit.getStop());
+        this.scanner = scan(new Scan(tableSplit.getStart(), tableSplit.getStop(), tableSplit.getFilter()));
       } catch (Exception e) {
         LOG.debug("scan failed for table: " + getTransactionAwareName(), e);
         throw new DataSetException("scan failed", e);
@@ -28,15 +28,18 @@ import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.data.batch.Split;
 import io.cdap.cdap.api.dataset.DataSetException;
 import io.cdap.cdap.api.dataset.metrics.MeteredDataset;
+import io.cdap.cdap.api.dataset.table.BulkLoadable;
 import io.cdap.cdap.api.dataset.table.ConflictDetection;
 import io.cdap.cdap.api.dataset.table.Filter;
 import io.cdap.cdap.api.dataset.table.Get;
+import io.cdap.cdap.api.dataset.table.Put;
 import io.cdap.cdap.api.dataset.table.Result;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.api.dataset.table.TableProperties;
 import io.cdap.cdap.api.dataset.table.TableSplit;
+import io.cdap.cdap.api.dataset.table.ValueFilter;
 import io.cdap.cdap.api.metrics.MetricsCollector;
 import io.cdap.cdap.common.conf.Constants;
 import org.apache.tephra.Transaction;
@@ -53,6 +56,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import javax.annotation.Nullable;
 
@@ -73,19 +77,33 @@ import javax.annotation.Nullable;
  *       not in in-memory buffer twice, two times it will try to fetch it from persistent store.
  *       Given the snapshot isolation tx model, this can be improved in future implementations.
  * <p>
- * NOTE: current implementation persists changes only at the end of transaction. Beware of OOME. There should be better
- *       implementation for MapReduce case (YMMV though, for counters/aggregations this implementation looks sweet)
+ * NOTE: by default changes are persisted only at the end of transaction. Beware of OOME. For large transactions, like
+ *       MapReduce tasks, {@link Table#PROPERTY_BUFFER_FLUSH_SIZE} bounds the memory used by the in-memory buffer by
+ *       persisting it early, and keeps track of what was persisted to undo it on rollback.
  * <p>
  * NOTE: Using {@link #get(byte[], byte[], byte[], int)} is generally always not efficient since it always hits the
  *       persisted store even if all needed data is in-memory buffer. See more info at method javadoc
+ * <p>
+ * NOTE: {@link #bulkLoad(Iterator)} bypasses the in-memory buffer: sorted rows are persisted in batches as they are
+ *       loaded, and only their keys are kept to undo them on rollback.
  */
 // todo: copying passed params to write methods may be done more efficiently: no need to copy when no changes are made
-public abstract class BufferingTable extends AbstractTable implements MeteredDataset {
+public abstract class BufferingTable extends AbstractTable implements MeteredDataset, BulkLoadable<Put> {
 
   private static final Logger LOG = LoggerFactory.getLogger(BufferingTable.class);
 
   protected static final byte[] DELETE_MARKER = new byte[0];
 
+  // Estimated heap overhead of a row and of a column in the in-memory buffer, besides the key and value bytes:
+  // map entries, the column map of a row, the Update wrapper, and the array headers
+  private static final int BUFFERED_ROW_OVERHEAD = 128;
+  private static final int BUFFERED_COLUMN_OVERHEAD = 96;
+
+  // Size in bytes of the batches persisted by a bulk load, unless a smaller buffer flush size is configured
+  private static final long BULK_LOAD_BATCH_SIZE = 16L * 1024 * 1024;
+  // Value of the columns kept to undo a bulk load: undo only needs the keys
+  private static final Update BULK_LOADED = new PutValue(null);
+
   // name of the table
   private final String name;
   // conflict detection level
@@ -94,6 +112,10 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   private final byte[] nameAsTxChangePrefix;
   // Whether read-less increments should be used when increment() is called
   private final boolean enableReadlessIncrements;
+  // Size in bytes of the in-memory buffer at which it is persisted before the tx commits, 0 to only persist on commit
+  private final long bufferFlushSize;
+  // Approximate size in bytes of the data in each split, 0 to compute a default number of splits
+  private final long splitSize;
 
   // In-memory buffer that keeps not yet persisted data. It is row->(column->value) map. Value can be null which means
   // that the corresponded column was removed.
@@ -102,6 +124,14 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   // Keeps track of what was persisted so far
   private NavigableMap<byte[], NavigableMap<byte[], Update>> toUndo;
 
+  // Estimated size in bytes of the keys and values in the in-memory buffer
+  private long buffSize;
+
+  // Keeps track of the rows and columns persisted by bulk loads, which are not used for conflict detection
+  private NavigableMap<byte[], NavigableMap<byte[], Update>> bulkLoaded;
+  // The last row persisted by a bulk load in the current tx
+  private byte[] lastBulkLoadedRow;
+
   // Report data ops metrics to
   private MetricsCollector metricsCollector;
 
@@ -145,6 +175,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     this.name = name;
     this.conflictLevel = TableProperties.getConflictDetection(properties, ConflictDetection.ROW);
     this.enableReadlessIncrements = enableReadlessIncrements;
+    // Buffered read-less increments cannot be persisted more than once per tx, as they would overwrite each other
+    this.bufferFlushSize = enableReadlessIncrements ? 0L : TableProperties.getBufferFlushSize(properties);
+    this.splitSize = TableProperties.getSplitSize(properties);
     // TODO: having central dataset management service will allow us to use table ids instead of names, which will
     //       reduce changeset size transferred to/from server
     // we want it to be of format length+value to avoid conflicts like table="ab", row="cd" vs table="abc", row="d"
@@ -273,7 +306,10 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
     // starting with fresh buffer when tx starts
     buff.clear();
+    buffSize = 0L;
     toUndo = null;
+    bulkLoaded = null;
+    lastBulkLoadedRow = null;
     this.tx = tx;
   }
 
@@ -312,13 +348,29 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     for (byte[] changedRow : buff.keySet()) {
       changes.add(Bytes.add(getNameAsTxChangePrefix(), changedRow));
     }
+    // changes persisted before commit are no longer in the buffer
+    if (toUndo != null) {
+      for (byte[] changedRow : toUndo.keySet()) {
+        changes.add(Bytes.add(getNameAsTxChangePrefix(), changedRow));
+      }
+    }
     return changes;
   }
 
   private Collection<byte[]> getColumnChanges() {
-    // we resolve conflicts on row level of individual table
     List<byte[]> changes = new ArrayList<>(buff.size());
-    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : buff.entrySet()) {
+    addColumnChanges(buff, changes);
+    // changes persisted before commit are no longer in the buffer
+    if (toUndo != null) {
+      addColumnChanges(toUndo, changes);
+    }
+    return changes;
+  }
+
+  private void addColumnChanges(NavigableMap<byte[], NavigableMap<byte[], Update>> rowChanges,
+                                List<byte[]> changes) {
+    // we resolve conflicts on row level of individual table
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : rowChanges.entrySet()) {
       if (rowChange.getValue() == null) {
         // NOTE: as of now we cannot detect conflict between delete whole row and row's column value change.
         //       this is not a big problem as of now, as row deletion is now act as deletion of every column, but this
@@ -333,41 +385,87 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
         changes.add(Bytes.add(getNameAsTxChangePrefix(), rowTxChange, column));
       }
     }
-    return changes;
   }
 
   @Override
   public boolean commitTx() throws Exception {
     if (!buff.isEmpty()) {
-      // We first assume that all data will be persisted. So that if exception happen during persist we try to
-      // rollback everything we had in in-memory buffer.
-      toUndo = buff;
-      // clearing up in-memory buffer by initializing new map.
-      // NOTE: we want to init map here so that if no changes are made we re-use same instance of the map in next tx
-      // NOTE: we could cache two maps and swap them to avoid creation of map instances, but code would be ugly
-      buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
-      // TODO: tracking of persisted items can be optimized by returning a pair {succeededOrNot, persisted} which
-      //       tells if persisting succeeded and what was persisted (i.e. what we will have to undo in case of rollback)
-      persist(toUndo);
+      persistBuffer();
     }
     return true;
   }
 
+  /**
+   * Persists the in-memory buffer and adds its changes to the changes to undo on rollback.
+   */
+  private void persistBuffer() throws Exception {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> toPersist = buff;
+    // We first assume that all data will be persisted. So that if exception happen during persist we try to
+    // rollback everything we had in in-memory buffer.
+    if (toUndo == null) {
+      toUndo = toPersist;
+    } else {
+      // the buffer was persisted before in this tx: only keys matter for undo, so later updates can replace earlier
+      for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : toPersist.entrySet()) {
+        NavigableMap<byte[], Update> undoColumns = toUndo.get(rowChange.getKey());
+        if (undoColumns == null || rowChange.getValue() == null) {
+          toUndo.put(rowChange.getKey(), rowChange.getValue());
+        } else {
+          undoColumns.putAll(rowChange.getValue());
+        }
+      }
+    }
+    // clearing up in-memory buffer by initializing new map.
+    // NOTE: we want to init map here so that if no changes are made we re-use same instance of the map in next tx
+    // NOTE: we could cache two maps and swap them to avoid creation of map instances, but code would be ugly
+    buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    buffSize = 0L;
+    // TODO: tracking of persisted items can be optimized by returning a pair {succeededOrNot, persisted} which
+    //       tells if persisting succeeded and what was persisted (i.e. what we will have to undo in case of rollback)
+    persist(toPersist);
+  }
+
+  /**
+   * Persists the in-memory buffer before the transaction commits if it has grown beyond the configured size.
+   * Persisted changes are visible to this transaction through the persisted store.
+   */
+  private void flushBufferIfNeeded() {
+    if (bufferFlushSize <= 0 || buffSize < bufferFlushSize) {
+      return;
+    }
+    LOG.trace("Persisting {} bytes of buffered changes of {} before commit", buffSize, getTransactionAwareName());
+    try {
+      persistBuffer();
+    } catch (Exception e) {
+      LOG.debug("persisting buffered changes failed for table: " + getTransactionAwareName(), e);
+      throw new DataSetException("persisting buffered changes failed", e);
+    }
+  }
+
   @Override
   public void postTxCommit() {
     // don't need buffer anymore: tx has been committed
     buff.clear();
+    buffSize = 0L;
     toUndo = null;
+    bulkLoaded = null;
+    lastBulkLoadedRow = null;
     tx = null;
   }
 
   @Override
   public boolean rollbackTx() throws Exception {
     buff.clear();
+    buffSize = 0L;
     if (toUndo != null) {
       undo(toUndo);
       toUndo = null;
     }
+    if (bulkLoaded != null) {
+      undo(bulkLoaded);
+      bulkLoaded = null;
+    }
+    lastBulkLoadedRow = null;
     tx = null;
     return true;
   }
@@ -497,6 +595,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     putInternal(row, columns, values);
     // report metrics _after_ write was performed
     reportWrite(1, getSize(row) + getSize(columns) + getSize(values));
+    flushBufferIfNeeded();
   }
 
   private void putInternal(byte[] row, byte[][] columns, byte[][] values) {
@@ -505,6 +604,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     if (colVals == null) {
       colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
       newRow = true;
+      buffSize += getSize(row) + BUFFERED_ROW_OVERHEAD;
     }
     for (int i = 0; i < columns.length; i++) {
       // NOTE: we copy passed column's and value's byte arrays to protect buffer against possible changes of these
@@ -512,7 +612,13 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
       if (values[i] != null && values[i].length == 0) {
         warnAboutEmptyValue(columns[i]);
       }
-      colVals.put(copy(columns[i]), new PutValue(copy(values[i])));
+      Update previous = colVals.put(copy(columns[i]), new PutValue(copy(values[i])));
+      buffSize += getSize(values[i]);
+      if (previous == null) {
+        buffSize += getSize(columns[i]) + BUFFERED_COLUMN_OVERHEAD;
+      } else {
+        buffSize -= getSize(previous.getBytes());
+      }
     }
     if (newRow) {
       // NOTE: we copy passed row's byte arrays to protect buffer against possible changes of this array on client
@@ -520,6 +626,90 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
   }
 
+  /**
+   * Persists the given rows in batches, in the order they are given, without adding them to the in-memory buffer.
+   * Changes buffered before are persisted first, so that they are overwritten by the loaded rows.
+   *
+   * If read-less increments are enabled, the buffer cannot be persisted before the tx commits, and the rows are
+   * written to the buffer like with {@link #put(Put)}.
+   */
+  @WriteOnly
+  @Override
+  public void bulkLoad(Iterator<Put> puts) {
+    ensureTransactionIsStarted();
+    if (enableReadlessIncrements) {
+      while (puts.hasNext()) {
+        put(puts.next());
+      }
+      return;
+    }
+    try {
+      if (!buff.isEmpty()) {
+        persistBuffer();
+      }
+      long batchSize = bufferFlushSize > 0 ? Math.min(bufferFlushSize, BULK_LOAD_BATCH_SIZE) : BULK_LOAD_BATCH_SIZE;
+      NavigableMap<byte[], NavigableMap<byte[], Update>> batch = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      long size = 0L;
+      // Only advanced to lastBulkLoadedRow once the rows are persisted, so that a rejected call has no effect on it
+      byte[] lastRow = lastBulkLoadedRow;
+      while (puts.hasNext()) {
+        Put put = puts.next();
+        byte[] row = put.getRow();
+        if (lastRow != null && Bytes.compareTo(row, lastRow) <= 0) {
+          throw new IllegalArgumentException(String.format(
+            "Rows must be loaded in ascending order, but row %s follows row %s",
+            Bytes.toStringBinary(row), Bytes.toStringBinary(lastRow)));
+        }
+        lastRow = row;
+        NavigableMap<byte[], Update> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        int dataSize = getSize(row);
+        for (Map.Entry<byte[], byte[]> column : put.getValues().entrySet()) {
+          columns.put(column.getKey(), new PutValue(column.getValue()));
+          dataSize += getSize(column.getKey()) + getSize(column.getValue());
+        }
+        if (columns.isEmpty()) {
+          continue;
+        }
+        batch.put(row, columns);
+        size += dataSize;
+        reportWrite(1, dataSize);
+        if (size >= batchSize) {
+          persistBulkLoaded(batch);
+          lastBulkLoadedRow = lastRow;
+          batch = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+          size = 0L;
+        }
+      }
+      if (!batch.isEmpty()) {
+        persistBulkLoaded(batch);
+      }
+      lastBulkLoadedRow = lastRow;
+    } catch (IllegalArgumentException e) {
+      throw e;
+    } catch (Exception e) {
+      LOG.debug("bulk load failed for table: " + getTransactionAwareName(), e);
+      throw new DataSetException("bulk load failed", e);
+    }
+  }
+
+  /**
+   * Persists a batch of bulk loaded rows, after adding their keys to the changes to undo on rollback.
+   */
+  private void persistBulkLoaded(NavigableMap<byte[], NavigableMap<byte[], Update>> batch) throws Exception {
+    if (bulkLoaded == null) {
+      bulkLoaded = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    }
+    // the rows are sorted and were not loaded before in this tx
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> row : batch.entrySet()) {
+      NavigableMap<byte[], Update> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (byte[] column : row.getValue().keySet()) {
+        columns.put(copy(column), BULK_LOADED);
+      }
+      bulkLoaded.put(copy(row.getKey()), columns);
+    }
+    persist(batch);
+  }
+
   /**
    * NOTE: Depending on the use-case, calling this method may be much less efficient than calling same method
    *       with columns as parameters because it will require a round trip to persistent store.
@@ -559,6 +749,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     putInternal(row, columns, new byte[columns.length][]);
     // "0" because we don't know what gets deleted
     reportWrite(1, 0);
+    flushBufferIfNeeded();
   }
 
   @ReadWrite
@@ -611,6 +802,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
     putInternal(row, columns, updatedValues);
     reportWrite(1, getSize(row) + getSize(columns) + getSize(amounts));
+    flushBufferIfNeeded();
 
     return new Result(row, result);
   }
@@ -650,6 +842,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
       if (Arrays.equals(expectedValue, currentValue)) {
         putInternal(row, columns, new byte[][]{newValue});
         reportWrite(1, getSize(row) + getSize(column) + getSize(newValue));
+        flushBufferIfNeeded();
         return true;
       }
     } catch (Exception e) {
@@ -662,8 +855,21 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   }
 
   /**
-   * Fallback implementation of getSplits, {@link SplitsUtil#primitiveGetSplits(int, byte[], byte[])}.
-   * Ideally should be overridden by subclasses.
+   * Returns a {@link SplitsUtil.SizeEstimator} for the persisted data of this table, used to compute splits of about
+   * equal size. Subclasses that can estimate the size of their data should override this method.
+   *
+   * @return the size estimator, or {@code null} if the size of the data cannot be estimated
+   */
+  @Nullable
+  protected SplitsUtil.SizeEstimator getSizeEstimator() {
+    return null;
+  }
+
+  /**
+   * Computes splits of about equal data size with {@link SplitsUtil#sizeAwareGetSplits}, if the table provides a
+   * {@link #getSizeEstimator() size estimator}. Otherwise, or if the size cannot be estimated, falls back to
+   * {@link SplitsUtil#primitiveGetSplits(int, byte[], byte[])}, which divides the key space evenly.
+   * The approximate size of each split can be configured with {@link TableProperties#setSplitSize}.
    *
    * @param numSplits Desired number of splits. If greater than zero, at most this many splits will be returned.
    *                  If less or equal to zero, any number of splits can be returned.
@@ -674,7 +880,18 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   @Override
   public List<Split> getSplits(int numSplits, byte[] start, byte[] stop) {
     ensureTransactionIsStarted();
-    List<KeyRange> keyRanges = SplitsUtil.primitiveGetSplits(numSplits, start, stop);
+    List<KeyRange> keyRanges = null;
+    SplitsUtil.SizeEstimator sizeEstimator = getSizeEstimator();
+    if (sizeEstimator != null) {
+      try {
+        keyRanges = SplitsUtil.sizeAwareGetSplits(numSplits, splitSize, start, stop, sizeEstimator);
+      } catch (Exception e) {
+        LOG.warn("Failed to estimate the data size of table {}. Dividing the key space evenly instead.", name, e);
+      }
+    }
+    if (keyRanges == null) {
+      keyRanges = SplitsUtil.primitiveGetSplits(numSplits, start, stop);
+    }
     return Lists.transform(keyRanges, new Function<KeyRange, Split>() {
       @Nullable
       @Override
@@ -697,6 +914,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     ensureTransactionIsStarted();
     NavigableMap<byte[], NavigableMap<byte[], Update>> bufferMap = scanBuffer(scan);
     try {
+      if (scan.getFilter() instanceof ValueFilter && !bufferMap.isEmpty()) {
+        return scanWithValueFilter(scan, bufferMap);
+      }
       return new BufferingScanner(bufferMap, scanPersisted(scan));
     } catch (Exception e) {
       LOG.debug("scan failed for table: " + getTransactionAwareName() +
@@ -722,10 +942,64 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     return bufferMap;
   }
 
+  /**
+   * Scans with a {@link ValueFilter} while there are buffered changes in the scanned range. The filter is evaluated
+   * by the persisted scan, which does not see the buffered changes. Hence the rows with buffered changes are
+   * skipped in the persisted scan, and the filter is evaluated on their merged content instead.
+   */
+  private Scanner scanWithValueFilter(Scan scan,
+                                      NavigableMap<byte[], NavigableMap<byte[], Update>> bufferMap) throws Exception {
+    ValueFilter filter = (ValueFilter) scan.getFilter();
+
+    // read the persisted content of all changed rows that are not deleted in this tx with a single multi-get
+    List<Get> gets = new ArrayList<>();
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> entry : bufferMap.entrySet()) {
+      if (entry.getValue() != null) {
+        gets.add(new Get(entry.getKey()));
+      }
+    }
+    List<Map<byte[], byte[]>> persistedRows = gets.isEmpty() ? Collections.emptyList() : getPersisted(gets);
+
+    NavigableMap<byte[], NavigableMap<byte[], Update>> matchingRows = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    for (int i = 0; i < gets.size(); i++) {
+      byte[] row = gets.get(i).getRow();
+      NavigableMap<byte[], byte[]> columns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      columns.putAll(persistedRows.get(i));
+      mergeToPersisted(columns, bufferMap.get(row), null);
+      columns = unwrapDeletes(columns);
+      if (!columns.isEmpty() && filter.matches(columns)) {
+        NavigableMap<byte[], Update> values = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        for (Map.Entry<byte[], byte[]> column : columns.entrySet()) {
+          values.put(column.getKey(), new PutValue(column.getValue()));
+        }
+        matchingRows.put(row, values);
+      }
+    }
+
+    final Scanner persistedScanner = scanPersisted(scan);
+    return new BufferingScanner(matchingRows, new Scanner() {
+      @Nullable
+      @Override
+      public Row next() {
+        Row row = persistedScanner.next();
+        while (row != null && bufferMap.containsKey(row.getRow())) {
+          row = persistedScanner.next();
+        }
+        return row;
+      }
+
+      @Override
+      public void close() {
+        persistedScanner.close();
+      }
+    });
+  }
+
   private NavigableMap<byte[], NavigableMap<byte[], Update>> applyFilter(
                                                         NavigableMap<byte[], NavigableMap<byte[], Update>> bufferMap,
                                                         @Nullable Filter filter) {
-    if (filter == null) {
+    // value filters are evaluated on the merged rows when scanning
+    if (filter == null || filter instanceof ValueFilter) {
       return bufferMap;
     }
 
@@ -38,8 +38,8 @@ import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.api.dataset.table.Table;
-import io.cdap.cdap.internal.io.ReflectionPutWriter;
-import io.cdap.cdap.internal.io.ReflectionRowReader;
+import io.cdap.cdap.internal.io.ObjectCodecCache;
+import io.cdap.cdap.internal.io.ObjectRowMapper;
 import io.cdap.cdap.internal.io.TypeRepresentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,10 +61,9 @@ public class ObjectMappedTableDataset<T> extends AbstractDataset implements Obje
   private final Table table;
   private final Schema objectSchema;
   private final TypeRepresentation typeRepresentation;
-  private final ReflectionPutWriter<T> putWriter;
   // we get this lazily, since we may not have the actual Type when using this as a RecordScannable,
   // but we do expect to have it when using it in a program context
-  private ReflectionRowReader<T> rowReader;
+  private ObjectRowMapper<T> rowMapper;
 
   // schema is passed in as an argument because it is a required dataset property for validation purposes, so
   // the ObjectMappedTableDefinition will always have it. We could always derive the schema from the type,
@@ -76,16 +75,16 @@ public class ObjectMappedTableDataset<T> extends AbstractDataset implements Obje
     this.objectSchema = objectSchema;
     this.typeRepresentation = typeRep;
     this.typeRepresentation.setClassLoader(classLoader);
-    this.putWriter = new ReflectionPutWriter<>(objectSchema);
   }
 
   @SuppressWarnings("unchecked")
-  private ReflectionRowReader<T> getReflectionRowReader() {
-    if (rowReader == null) {
+  private ObjectRowMapper<T> getRowMapper() {
+    if (rowMapper == null) {
       try {
         // this can throw a runtime exception from a ClassNotFoundException
         Type type = typeRepresentation.toType();
-        rowReader = new ReflectionRowReader<>(objectSchema, (TypeToken<T>) TypeToken.of(type));
+        // the mapper is shared by all instances with the same type and schema
+        rowMapper = ObjectCodecCache.getRowMapper((TypeToken<T>) TypeToken.of(type), objectSchema);
       } catch (RuntimeException e) {
         String missingClass = isClassNotFoundException(e);
         if (missingClass != null) {
@@ -96,7 +95,7 @@ public class ObjectMappedTableDataset<T> extends AbstractDataset implements Obje
         throw e;
       }
     }
-    return rowReader;
+    return rowMapper;
   }
 
   private String isClassNotFoundException(Throwable e) {
@@ -120,7 +119,7 @@ public class ObjectMappedTableDataset<T> extends AbstractDataset implements Obje
   public void write(byte[] key, T object) {
     Put put = new Put(key);
     try {
-      putWriter.write(object, put);
+      getRowMapper().write(object, put);
       table.put(put);
     } catch (IOException e) {
       // should never happen
@@ -272,7 +271,7 @@ public class ObjectMappedTableDataset<T> extends AbstractDataset implements Obje
       if (row.isEmpty()) {
         return null;
       }
-      return getReflectionRowReader().read(row, objectSchema);
+      return getRowMapper().read(row);
     } catch (Exception e) {
       // should not happen. Can happen if somebody changes the type in an incompatible way?
       throw new DataSetException("Failed to decode object: " + e.getMessage(), e);
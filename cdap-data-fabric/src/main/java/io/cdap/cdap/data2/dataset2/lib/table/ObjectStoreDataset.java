@@ -36,9 +36,13 @@ import io.cdap.cdap.api.dataset.lib.KeyValueTable;
 import io.cdap.cdap.api.dataset.lib.ObjectStore;
 import io.cdap.cdap.common.io.BinaryDecoder;
 import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.DatumWriter;
+import io.cdap.cdap.internal.io.ObjectCodecCache;
 import io.cdap.cdap.internal.io.ReflectionDatumReader;
 import io.cdap.cdap.internal.io.ReflectionDatumWriter;
 import io.cdap.cdap.internal.io.TypeRepresentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -54,14 +58,16 @@ import javax.annotation.Nullable;
 @Beta
 public class ObjectStoreDataset<T> extends AbstractDataset implements ObjectStore<T> {
 
+  private static final Logger LOG = LoggerFactory.getLogger(ObjectStoreDataset.class);
+
   private final KeyValueTable kvTable;
   private final TypeRepresentation typeRep;
   private final Schema schema;
 
-  private final ReflectionDatumWriter<T> datumWriter;
-  // we get this lazily, since we may not have the actual Type when simply instantiating this class (for instance, when
-  // datasets are instantiated in DatasetSystemMetadataWriter for checking RecordScannable/BatchWritable/etc.),
+  // we get these lazily, since we may not have the actual Type when simply instantiating this class (for instance,
+  // when datasets are instantiated in DatasetSystemMetadataWriter for checking RecordScannable/BatchWritable/etc.),
   // but we do expect to have it when using it in a program context
+  private DatumWriter<T> datumWriter;
   private ReflectionDatumReader<T> datumReader;
 
   public ObjectStoreDataset(String name, KeyValueTable kvTable, TypeRepresentation typeRep,
@@ -71,7 +77,6 @@ public class ObjectStoreDataset<T> extends AbstractDataset implements ObjectStor
     this.typeRep = typeRep;
     this.typeRep.setClassLoader(classLoader);
     this.schema = schema;
-    this.datumWriter = new ReflectionDatumWriter<>(this.schema);
   }
 
   public ObjectStoreDataset(String name, KeyValueTable kvTable,
@@ -141,7 +146,7 @@ public class ObjectStoreDataset<T> extends AbstractDataset implements ObjectStor
     ByteArrayOutputStream bos = new ByteArrayOutputStream();
     BinaryEncoder encoder = new BinaryEncoder(bos);
     try {
-      this.datumWriter.encode(object, encoder);
+      getDatumWriter().encode(object, encoder);
     } catch (IOException e) {
       // SHOULD NEVER happen
       throw new DataSetException("Failed to encode object to be written: " + e.getMessage(), e);
@@ -149,6 +154,20 @@ public class ObjectStoreDataset<T> extends AbstractDataset implements ObjectStor
     return bos.toByteArray();
   }
 
+  @SuppressWarnings("unchecked")
+  private DatumWriter<T> getDatumWriter() {
+    if (datumWriter == null) {
+      try {
+        // the code generated writer is shared by all instances with the same type and schema
+        datumWriter = ObjectCodecCache.getDatumWriter((TypeToken<T>) TypeToken.of(typeRep.toType()), schema);
+      } catch (RuntimeException e) {
+        LOG.debug("Cannot generate writer for dataset {}, using reflection instead.", getName(), e);
+        datumWriter = new ReflectionDatumWriter<>(schema);
+      }
+    }
+    return datumWriter;
+  }
+
   @SuppressWarnings("unchecked")
   private ReflectionDatumReader<T> getReflectionDatumReader() {
     if (datumReader == null) {
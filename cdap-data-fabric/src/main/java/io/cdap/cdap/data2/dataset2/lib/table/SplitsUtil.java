@@ -19,8 +19,14 @@ package io.cdap.cdap.data2.dataset2.lib.table;
 import com.google.common.collect.Lists;
 import io.cdap.cdap.api.common.Bytes;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
 
 /**
  * Provides handy methods for simple table splits calculation.
@@ -40,6 +46,32 @@ public class SplitsUtil {
    */
   static final int DEFAULT_NUMBER_OF_SPLITS = 8;
 
+  /**
+   * The number of parts a key range is divided into in each round of computing splits from approximate sizes.
+   * Each round hence resolves four bits of the keys, which matters for keys with a long common prefix.
+   */
+  private static final int PARTS_PER_ROUND = 16;
+
+  /**
+   * The maximum number of rounds of dividing key ranges when computing splits from approximate sizes. This bounds
+   * the number of size estimates for ranges whose data cannot be divided, such as a single very large row.
+   */
+  private static final int MAX_ROUNDS = 64;
+
+  /**
+   * Estimates the size of the data stored in key ranges.
+   */
+  public interface SizeEstimator {
+
+    /**
+     * Returns the approximate size in bytes of the data stored in each of the given key ranges.
+     *
+     * @param ranges the key ranges to estimate
+     * @return the sizes, in the same order as the ranges
+     */
+    long[] getApproximateSizes(List<KeyRange> ranges) throws IOException;
+  }
+
   /**
    * Simplest possible implementation of getSplits. Takes the given start and end and divides the key space in
    * between into (almost) even partitions, using a long integer approximation of the keys.
@@ -79,6 +111,131 @@ public class SplitsUtil {
     return ranges;
   }
 
+  /**
+   * Computes splits of about equal data size, using the approximate sizes of key ranges. Ranges that are larger than
+   * the target size are divided until they are small enough, and adjacent ranges are then merged up to the target
+   * size. If no data is found in the given range, this falls back to
+   * {@link #primitiveGetSplits(int, byte[], byte[])}.
+   *
+   * @param numSplits if greater than zero, at most this many splits are returned
+   * @param splitSize the target size in bytes of each split; if not positive, the data is divided into
+   *                  {@code numSplits} splits, or {@link #DEFAULT_NUMBER_OF_SPLITS} if that is not given either
+   * @param start if non-null, the returned splits will only cover keys that are greater or equal
+   * @param stop if non-null, the returned splits will only cover keys that are less
+   * @param estimator to estimate the size of key ranges
+   */
+  static List<KeyRange> sizeAwareGetSplits(int numSplits, long splitSize, @Nullable byte[] start,
+                                           @Nullable byte[] stop, SizeEstimator estimator) throws IOException {
+    if (start != null && stop != null && Bytes.compareTo(start, stop) >= 0) {
+      return Collections.emptyList();
+    }
+    KeyRange fullRange = new KeyRange(start, stop);
+    long totalSize = estimator.getApproximateSizes(Collections.singletonList(fullRange))[0];
+    if (totalSize <= 0) {
+      return primitiveGetSplits(numSplits, start, stop);
+    }
+
+    long targetSize = splitSize > 0 ? splitSize : totalSize / (numSplits > 0 ? numSplits : DEFAULT_NUMBER_OF_SPLITS);
+    if (numSplits > 0) {
+      // never return more than the requested number of splits
+      targetSize = Math.max(targetSize, (totalSize + numSplits - 1) / numSplits);
+    }
+    targetSize = Math.max(1L, targetSize);
+    // divide into parts smaller than the target size, such that merging them gives splits close to the target size
+    long partSize = Math.max(1L, targetSize / 4);
+
+    // divide ranges until they are at most of the part size, estimating all new parts of a round in one call
+    List<SizedRange> ranges = Collections.singletonList(new SizedRange(fullRange, totalSize));
+    for (int round = 0; round < MAX_ROUNDS; round++) {
+      List<SizedRange> divided = new ArrayList<>();
+      List<SizedRange> toEstimate = new ArrayList<>();
+      for (SizedRange range : ranges) {
+        List<byte[]> splitKeys = range.size > partSize
+          ? splitKeys(range.range.getStart(), range.range.getStop(), PARTS_PER_ROUND)
+          : Collections.<byte[]>emptyList();
+        if (splitKeys.isEmpty()) {
+          divided.add(range);
+          continue;
+        }
+        byte[] partStart = range.range.getStart();
+        for (int i = 0; i <= splitKeys.size(); i++) {
+          byte[] partStop = i < splitKeys.size() ? splitKeys.get(i) : range.range.getStop();
+          SizedRange part = new SizedRange(new KeyRange(partStart, partStop), 0L);
+          divided.add(part);
+          toEstimate.add(part);
+          partStart = partStop;
+        }
+      }
+      if (toEstimate.isEmpty()) {
+        break;
+      }
+      List<KeyRange> keyRanges = new ArrayList<>(toEstimate.size());
+      for (SizedRange range : toEstimate) {
+        keyRanges.add(range.range);
+      }
+      long[] estimates = estimator.getApproximateSizes(keyRanges);
+      for (int i = 0; i < estimates.length; i++) {
+        toEstimate.get(i).size = estimates[i];
+      }
+      ranges = divided;
+    }
+
+    // merge adjacent ranges into splits of up to the target size
+    List<KeyRange> splits = new ArrayList<>();
+    byte[] splitStart = start;
+    long currentSize = 0;
+    for (SizedRange range : ranges) {
+      boolean isLastSplit = numSplits > 0 && splits.size() == numSplits - 1;
+      if (currentSize > 0 && currentSize + range.size > targetSize && !isLastSplit) {
+        byte[] splitStop = range.range.getStart();
+        splits.add(new KeyRange(splitStart, splitStop));
+        splitStart = splitStop;
+        currentSize = 0;
+      }
+      currentSize += range.size;
+    }
+    splits.add(new KeyRange(splitStart, stop));
+    return splits;
+  }
+
+  /**
+   * Returns up to {@code numParts - 1} increasing keys that divide the range between the given start and stop into
+   * parts of about equal key space, all strictly between start and stop. Keys are approximated as long values after
+   * their common prefix, so that ranges of keys with a long common prefix can still be divided.
+   */
+  static List<byte[]> splitKeys(@Nullable byte[] start, @Nullable byte[] stop, int numParts) {
+    byte[] lower = start == null ? Bytes.EMPTY_BYTE_ARRAY : start;
+    int prefixLength = commonPrefixLength(lower, stop);
+    byte[] prefix = Bytes.head(lower, prefixLength);
+    long begin = longForKey(Bytes.tail(lower, lower.length - prefixLength), false);
+    long end = longForKey(stop == null ? null : Bytes.tail(stop, stop.length - prefixLength), true);
+
+    List<byte[]> keys = new ArrayList<>();
+    byte[] previous = lower;
+    for (int i = 1; i < numParts; i++) {
+      byte[] key = Bytes.add(prefix, keyForBound(begin + (end - begin) * i / numParts));
+      // due to truncation, keys of narrow ranges may repeat or fall outside of the range
+      if (Bytes.compareTo(previous, key) < 0 && (stop == null || Bytes.compareTo(key, stop) < 0)) {
+        keys.add(key);
+        previous = key;
+      }
+    }
+    return keys;
+  }
+
+  // helper method to compute the length of the common prefix of two keys, 0 if the second key is null
+  private static int commonPrefixLength(byte[] key, @Nullable byte[] other) {
+    if (other == null) {
+      return 0;
+    }
+    int maxLength = Math.min(key.length, other.length);
+    int length = 0;
+    while (length < maxLength && key[length] == other[length]) {
+      length++;
+    }
+    return length;
+  }
+
   // helper method to approximate a row key as a long value. Takes the first 7 bytes from the key and prepends a 0x0;
   // if the key is less than 7 bytes, pads it with zeros to the right.
   static long longForKey(byte[] key, boolean isStop) {
@@ -109,4 +266,79 @@ public class SplitsUtil {
     }
     return Bytes.head(bytes, lastNonZero + 1);
   }
+
+  /**
+   * A {@link SizeEstimator} for data that is stored in contiguous regions of known size, such as the regions of an
+   * HBase table. The data of each region is assumed to be distributed evenly over the key space of the region.
+   */
+  public static final class RegionSizeEstimator implements SizeEstimator {
+
+    // region start key -> total size of the data in all regions before the region
+    private final NavigableMap<byte[], Long> offsets;
+    private final NavigableMap<byte[], Long> regionSizes;
+    private final long totalSize;
+
+    /**
+     * Creates an estimator for the given regions.
+     *
+     * @param regionSizes map from the start key of each region to its size in bytes
+     */
+    public RegionSizeEstimator(NavigableMap<byte[], Long> regionSizes) {
+      this.offsets = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      this.regionSizes = regionSizes;
+      long offset = 0L;
+      for (Map.Entry<byte[], Long> entry : regionSizes.entrySet()) {
+        offsets.put(entry.getKey(), offset);
+        offset += entry.getValue();
+      }
+      this.totalSize = offset;
+    }
+
+    @Override
+    public long[] getApproximateSizes(List<KeyRange> ranges) {
+      long[] sizes = new long[ranges.size()];
+      for (int i = 0; i < sizes.length; i++) {
+        KeyRange range = ranges.get(i);
+        long start = range.getStart() == null ? 0L : getOffset(range.getStart());
+        long stop = range.getStop() == null ? totalSize : getOffset(range.getStop());
+        sizes[i] = Math.max(0L, stop - start);
+      }
+      return sizes;
+    }
+
+    // returns the approximate size of the data stored before the given key
+    private long getOffset(byte[] key) {
+      Map.Entry<byte[], Long> region = offsets.floorEntry(key);
+      if (region == null) {
+        return 0L;
+      }
+      byte[] regionStart = region.getKey();
+      byte[] regionStop = offsets.higherKey(regionStart);
+      long regionSize = regionSizes.get(regionStart);
+
+      // approximate the key positions as long values after the common prefix of the region bounds
+      int prefixLength = commonPrefixLength(regionStart, regionStop);
+      long begin = longForKey(Bytes.tail(regionStart, regionStart.length - prefixLength), false);
+      long end = longForKey(regionStop == null ? null : Bytes.tail(regionStop, regionStop.length - prefixLength), true);
+      long position = longForKey(Bytes.tail(key, key.length - prefixLength), false);
+      if (end <= begin) {
+        return region.getValue();
+      }
+      double fraction = Math.min(1.0d, Math.max(0.0d, (double) (position - begin) / (double) (end - begin)));
+      return region.getValue() + (long) (regionSize * fraction);
+    }
+  }
+
+  /**
+   * A key range with its approximate size.
+   */
+  private static final class SizedRange {
+    private final KeyRange range;
+    private long size;
+
+    private SizedRange(KeyRange range, long size) {
+      this.range = range;
+      this.size = size;
+    }
+  }
 }
@@ -22,34 +22,60 @@ import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.hbase.wd.AbstractRowKeyDistributor;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.apache.twill.common.Threads;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 
 /**
- * Implements Scanner on top of HBase resultSetScanner.
+ * Implements Scanner on top of HBase resultSetScanner. Optionally, batches of results can be prefetched from the
+ * {@link ResultScanner} in a background thread, so that fetching the next batch from the region servers overlaps
+ * with the processing of the current batch by the caller.
  */
 public class HBaseScanner implements Scanner {
-  private static final Logger LOG = LoggerFactory.getLogger(HBaseScanner.class);
+  // Shared by all prefetching scanners. Threads are created on demand and expire when idle.
+  private static final ExecutorService PREFETCH_EXECUTOR =
+    Executors.newCachedThreadPool(Threads.createDaemonThreadFactory("hbase-scanner-prefetch-%d"));
 
   private final ResultScanner scanner;
   private final byte[] columnFamily;
   private final AbstractRowKeyDistributor rowKeyDistributor;
+  private final Prefetcher prefetcher;
 
   public HBaseScanner(ResultScanner scanner, byte[] columnFamily,
                       @Nullable AbstractRowKeyDistributor rowKeyDistributor) {
-    this.scanner = scanner;
-    this.columnFamily = columnFamily;
-    this.rowKeyDistributor = rowKeyDistributor;
+    this(scanner, columnFamily, rowKeyDistributor, 0, 0);
   }
 
   public HBaseScanner(ResultScanner scanner, byte[] columnFamily) {
     this(scanner, columnFamily, null);
   }
 
+  /**
+   * Creates a scanner that prefetches results in the background.
+   *
+   * @param prefetchDepth the maximum number of batches to fetch ahead of the caller. If not positive,
+   *                      no prefetching is done
+   * @param batchSize the number of results to fetch with each call to {@link ResultScanner#next(int)}
+   */
+  public HBaseScanner(ResultScanner scanner, byte[] columnFamily,
+                      @Nullable AbstractRowKeyDistributor rowKeyDistributor, int prefetchDepth, int batchSize) {
+    this.scanner = scanner;
+    this.columnFamily = columnFamily;
+    this.rowKeyDistributor = rowKeyDistributor;
+    this.prefetcher = scanner == null || prefetchDepth <= 0
+      ? null : new Prefetcher(scanner, prefetchDepth, Math.max(1, batchSize));
+  }
+
   @Override
   public Row next() {
     if (scanner == null) {
@@ -59,7 +85,7 @@ public class HBaseScanner implements Scanner {
     try {
       //Loop until one row is read completely or until end is reached.
       while (true) {
-        final Result result = scanner.next();
+        final Result result = prefetcher == null ? scanner.next() : prefetcher.next();
         if (result == null || result.isEmpty()) {
           break;
         }
@@ -87,6 +113,136 @@ public class HBaseScanner implements Scanner {
 
   @Override
   public void close() {
+    if (prefetcher != null) {
+      prefetcher.close();
+    }
     scanner.close();
   }
+
+  /**
+   * Fetches batches of results from a {@link ResultScanner} in a background thread into a bounded queue.
+   *
+   * The state moves from {@link #NEW} to {@link #RUNNING} when the background thread starts, and to {@link #CLOSED}
+   * on {@link #close()}. As the transitions are atomic, the background thread either never uses the scanner, or
+   * {@link #close()} waits until it stopped using the scanner, including a fetch that is in progress.
+   */
+  private static final class Prefetcher implements Runnable {
+
+    // Marks the end of the results in the queue
+    private static final Result[] END = new Result[0];
+
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int CLOSED = 2;
+
+    private final ResultScanner scanner;
+    private final int batchSize;
+    private final BlockingQueue<Object> queue;
+    private final CountDownLatch stopped;
+    private final AtomicInteger state;
+    private Result[] batch;
+    private int batchIndex;
+
+    Prefetcher(ResultScanner scanner, int depth, int batchSize) {
+      this.scanner = scanner;
+      this.batchSize = batchSize;
+      this.queue = new ArrayBlockingQueue<>(depth);
+      this.stopped = new CountDownLatch(1);
+      this.state = new AtomicInteger(NEW);
+      PREFETCH_EXECUTOR.execute(this);
+    }
+
+    @Override
+    public void run() {
+      if (!state.compareAndSet(NEW, RUNNING)) {
+        // closed before started
+        return;
+      }
+      try {
+        while (state.get() == RUNNING) {
+          Result[] results = scanner.next(batchSize);
+          if (results == null || results.length == 0) {
+            enqueue(END);
+            return;
+          }
+          enqueue(results);
+        }
+      } catch (InterruptedException e) {
+        // The executor is shutting down, no need to deliver anything
+      } catch (Throwable t) {
+        try {
+          enqueue(t);
+        } catch (InterruptedException e) {
+          // The executor is shutting down
+        }
+      } finally {
+        stopped.countDown();
+      }
+    }
+
+    /**
+     * Puts an item into the queue, unless the prefetcher is closed while waiting for space in the queue.
+     */
+    private void enqueue(Object item) throws InterruptedException {
+      while (state.get() == RUNNING) {
+        // close() clears the queue, the timeout only guards against a clear that happened before the wait
+        if (queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Returns the next prefetched result, or {@code null} if the scanner is exhausted.
+     */
+    @Nullable
+    Result next() throws IOException {
+      while (batch == null || batchIndex >= batch.length) {
+        if (batch == END) {
+          return null;
+        }
+        Object item;
+        try {
+          item = queue.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for prefetched results");
+        }
+        if (item instanceof Throwable) {
+          batch = END;
+          Throwables.propagateIfPossible((Throwable) item, IOException.class);
+          throw new IOException((Throwable) item);
+        }
+        batch = (Result[]) item;
+        batchIndex = 0;
+      }
+      return batch[batchIndex++];
+    }
+
+    /**
+     * Stops the prefetching and waits for the background thread to stop using the scanner. A fetch in progress is
+     * not interrupted, but completes before this method returns.
+     */
+    void close() {
+      if (state.getAndSet(CLOSED) != RUNNING) {
+        // either the background thread never uses the scanner, or close() was called before
+        return;
+      }
+      // unblock the background thread if it waits for space in the queue
+      queue.clear();
+      boolean interrupted = false;
+      while (true) {
+        try {
+          stopped.await();
+          break;
+        } catch (InterruptedException e) {
+          // the scanner must not be closed while it is still used, hence keep waiting
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
 }
@@ -20,6 +20,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -30,15 +32,19 @@ import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.DataSetException;
 import io.cdap.cdap.api.dataset.DatasetContext;
 import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.api.dataset.table.ColumnValueFilter;
 import io.cdap.cdap.api.dataset.table.Filter;
+import io.cdap.cdap.api.dataset.table.FilterList;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.api.dataset.table.TableProperties;
+import io.cdap.cdap.api.dataset.table.ValueFilter;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.data2.dataset2.lib.table.BufferingTable;
 import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.data2.dataset2.lib.table.IncrementValue;
 import io.cdap.cdap.data2.dataset2.lib.table.PutValue;
+import io.cdap.cdap.data2.dataset2.lib.table.SplitsUtil;
 import io.cdap.cdap.data2.dataset2.lib.table.Update;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.PrefixedNamespaces;
 import io.cdap.cdap.data2.util.TableId;
@@ -53,11 +59,17 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.OperationWithAttributes;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.filter.BinaryComparator;
+import org.apache.hadoop.hbase.filter.BinaryPrefixComparator;
+import org.apache.hadoop.hbase.filter.ByteArrayComparable;
+import org.apache.hadoop.hbase.filter.CompareFilter;
+import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.tephra.Transaction;
 import org.apache.tephra.TransactionCodec;
@@ -73,6 +85,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -88,12 +102,23 @@ public class HBaseTable extends BufferingTable {
   private static final String CONFIG_HBASE_CLIENT_SCANNER_CACHING = HConstants.HBASE_CLIENT_SCANNER_CACHING;
   private static final String CONFIG_HBASE_CLIENT_CACHE_BLOCKS = "hbase.client.cache.blocks";
 
+  // Estimated size of a region that region servers report with a size of 0 MB
+  private static final long UNKNOWN_REGION_SIZE = 512L * 1024;
+  // Region sizes are shared by the instances of a table for a short time, as getting them requires the status
+  // of the whole cluster
+  private static final Cache<String, NavigableMap<byte[], Long>> REGION_SIZES = CacheBuilder.newBuilder()
+    .expireAfterWrite(60, TimeUnit.SECONDS)
+    .maximumSize(1000)
+    .build();
+
   public static final String DELTA_WRITE = "d";
   public static final String WRITE_POINTER = "wp";
   public static final String TX_MAX_LIFETIME_MILLIS_KEY = "cdap.tx.max.lifetime.millis";
   public static final String TX_ID = "txid";
 
   public static final String SAFE_INCREMENTS = "dataset.table.safe.readless.increments";
+  // Number of batches of scan results to prefetch in the background. Prefetching is disabled if not positive.
+  public static final String SCANNER_PREFETCH_DEPTH = "dataset.table.scanner.prefetch.depth";
 
   private final HBaseTableUtil tableUtil;
   private final HTable hTable;
@@ -104,6 +129,7 @@ public class HBaseTable extends BufferingTable {
   // name length + name of the table: handy to have one cached
   private final byte[] nameAsTxChangePrefix;
   private final boolean safeReadlessIncrements;
+  private final boolean readlessIncrements;
   // tx max lifetime property comes usually from cConf in DefaultTransactionProcessor but if it is not available
   // briefly during startup, the coprocessor gets it from the operation's attribute.
   private final byte[] txMaxLifetimeMillis;
@@ -138,6 +164,7 @@ public class HBaseTable extends BufferingTable {
     // table name is not the same as the dataset name anymore
     this.nameAsTxChangePrefix = Bytes.add(new byte[]{(byte) this.hTableName.length()}, Bytes.toBytes(this.hTableName));
     this.safeReadlessIncrements = args.containsKey(SAFE_INCREMENTS) && Boolean.valueOf(args.get(SAFE_INCREMENTS));
+    this.readlessIncrements = TableProperties.getReadlessIncrementSupport(spec.getProperties());
     this.txMaxLifetimeMillis = Bytes.toBytes(TimeUnit.SECONDS.toMillis(
       cConf.getInt(TxConstants.Manager.CFG_TX_MAX_LIFETIME, TxConstants.Manager.DEFAULT_TX_MAX_LIFETIME)));
     this.arguments = args;
@@ -434,6 +461,38 @@ public class HBaseTable extends BufferingTable {
     return getInternal(row, columns);
   }
 
+  @Nullable
+  @Override
+  protected SplitsUtil.SizeEstimator getSizeEstimator() {
+    NavigableMap<byte[], Long> regionSizes;
+    try {
+      regionSizes = REGION_SIZES.get(hTableName, this::getRegionSizes);
+    } catch (ExecutionException e) {
+      LOG.warn("Failed to get the region sizes of HBase table {}", hTableName, e.getCause());
+      return null;
+    }
+    return regionSizes.isEmpty() ? null : new SplitsUtil.RegionSizeEstimator(regionSizes);
+  }
+
+  /**
+   * Returns the approximate sizes in bytes of the regions of this table. Region servers report sizes in MB, hence
+   * a region with a size of 0 holds an unknown amount of data of less than 1 MB, which is estimated as half a MB.
+   * If all regions have a size of 0, the sizes tell nothing about the data and an empty map is returned.
+   */
+  private NavigableMap<byte[], Long> getRegionSizes() throws IOException {
+    NavigableMap<byte[], Long> regionSizes;
+    try (HBaseAdmin admin = new HBaseAdmin(hTable.getConfiguration())) {
+      regionSizes = tableUtil.getRegionSizes(admin, hTable);
+    }
+    NavigableMap<byte[], Long> estimates = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    boolean hasSize = false;
+    for (Map.Entry<byte[], Long> entry : regionSizes.entrySet()) {
+      hasSize = hasSize || entry.getValue() > 0;
+      estimates.put(entry.getKey(), entry.getValue() > 0 ? entry.getValue() : UNKNOWN_REGION_SIZE);
+    }
+    return hasSize ? estimates : Collections.emptyNavigableMap();
+  }
+
   @ReadOnly
   @Override
   protected Scanner scanPersisted(io.cdap.cdap.api.dataset.table.Scan scan) throws Exception {
@@ -452,15 +511,26 @@ public class HBaseTable extends BufferingTable {
       hScan.setCacheBlocks(false);
     }
 
+    int caching;
     if (scan.getProperties().containsKey(CONFIG_HBASE_CLIENT_SCANNER_CACHING)) {
-      hScan.setCaching(Integer.valueOf(scan.getProperties().get(CONFIG_HBASE_CLIENT_SCANNER_CACHING)));
+      caching = Integer.valueOf(scan.getProperties().get(CONFIG_HBASE_CLIENT_SCANNER_CACHING));
     } else if (arguments.containsKey(CONFIG_HBASE_CLIENT_SCANNER_CACHING)) {
-      hScan.setCaching(Integer.valueOf(arguments.get(CONFIG_HBASE_CLIENT_SCANNER_CACHING)));
+      caching = Integer.valueOf(arguments.get(CONFIG_HBASE_CLIENT_SCANNER_CACHING));
     } else if (properties.containsKey(CONFIG_HBASE_CLIENT_SCANNER_CACHING)) {
-      hScan.setCaching(Integer.valueOf(properties.get(CONFIG_HBASE_CLIENT_SCANNER_CACHING)));
+      caching = Integer.valueOf(properties.get(CONFIG_HBASE_CLIENT_SCANNER_CACHING));
     } else {
       // NOTE: by default we use this hard-coded value, for backwards-compatibility with CDAP<4.1.2|4.2.1|4.3
-      hScan.setCaching(1000);
+      caching = 1000;
+    }
+    hScan.setCaching(caching);
+
+    int prefetchDepth = 0;
+    if (scan.getProperties().containsKey(SCANNER_PREFETCH_DEPTH)) {
+      prefetchDepth = Integer.valueOf(scan.getProperties().get(SCANNER_PREFETCH_DEPTH));
+    } else if (arguments.containsKey(SCANNER_PREFETCH_DEPTH)) {
+      prefetchDepth = Integer.valueOf(arguments.get(SCANNER_PREFETCH_DEPTH));
+    } else if (properties.containsKey(SCANNER_PREFETCH_DEPTH)) {
+      prefetchDepth = Integer.valueOf(properties.get(SCANNER_PREFETCH_DEPTH));
     }
 
     byte[] startRow = scan.getStartRow();
@@ -472,11 +542,42 @@ public class HBaseTable extends BufferingTable {
       hScan.setStopRow(stopRow);
     }
 
-    setFilterIfNeeded(hScan, scan.getFilter());
+    // Readless increments are only added up after the filters of the scan are applied on the region servers,
+    // hence value filters are evaluated on the client for tables that support readless increments.
+    Filter filter = scan.getFilter();
+    ValueFilter clientFilter = readlessIncrements && filter instanceof ValueFilter ? (ValueFilter) filter : null;
+    setFilterIfNeeded(hScan, clientFilter == null ? filter : null);
     hScan.setAttribute(TxConstants.TX_OPERATION_ATTRIBUTE_KEY, getEncodedTx());
 
-    ResultScanner resultScanner = wrapResultScanner(hTable.getScanner(hScan.build()));
-    return new HBaseScanner(resultScanner, columnFamily);
+    Scanner scanner;
+    if (prefetchDepth > 0) {
+      // The batches are read in a separate thread, which would not be covered by the @ReadOnly annotation of the
+      // wrapped scanner. Access is already checked when calling this method, hence use the scanner directly.
+      scanner = new HBaseScanner(hTable.getScanner(hScan.build()), columnFamily, null, prefetchDepth, caching);
+    } else {
+      ResultScanner resultScanner = wrapResultScanner(hTable.getScanner(hScan.build()));
+      scanner = new HBaseScanner(resultScanner, columnFamily);
+    }
+    return clientFilter == null ? scanner : filterScanner(scanner, clientFilter);
+  }
+
+  private static Scanner filterScanner(final Scanner scanner, final ValueFilter filter) {
+    return new Scanner() {
+      @Nullable
+      @Override
+      public io.cdap.cdap.api.dataset.table.Row next() {
+        io.cdap.cdap.api.dataset.table.Row row = scanner.next();
+        while (row != null && !filter.matches(row.getColumns())) {
+          row = scanner.next();
+        }
+        return row;
+      }
+
+      @Override
+      public void close() {
+        scanner.close();
+      }
+    };
   }
 
   private void setFilterIfNeeded(ScanBuilder scan, @Nullable Filter filter) {
@@ -492,11 +593,95 @@ public class HBaseTable extends BufferingTable {
         fuzzyPairs.add(Pair.newPair(pair.getFirst(), pair.getSecond()));
       }
       scan.setFilter(new org.apache.hadoop.hbase.filter.FuzzyRowFilter(fuzzyPairs));
+    } else if (filter instanceof ValueFilter) {
+      scan.setFilter(toHBaseFilter((ValueFilter) filter));
     } else {
       throw new IllegalArgumentException("Unsupported filter: " + filter);
     }
   }
 
+  /**
+   * Converts a {@link ValueFilter} into HBase filters that are evaluated on the region servers.
+   */
+  private org.apache.hadoop.hbase.filter.Filter toHBaseFilter(ValueFilter filter) {
+    if (filter instanceof FilterList) {
+      FilterList filterList = (FilterList) filter;
+      List<org.apache.hadoop.hbase.filter.Filter> filters = new ArrayList<>();
+      for (ValueFilter child : filterList.getFilters()) {
+        filters.add(toHBaseFilter(child));
+      }
+      org.apache.hadoop.hbase.filter.FilterList.Operator operator = filterList.getOperator() == FilterList.Operator.AND
+        ? org.apache.hadoop.hbase.filter.FilterList.Operator.MUST_PASS_ALL
+        : org.apache.hadoop.hbase.filter.FilterList.Operator.MUST_PASS_ONE;
+      return new org.apache.hadoop.hbase.filter.FilterList(operator, filters);
+    }
+    if (!(filter instanceof ColumnValueFilter)) {
+      throw new IllegalArgumentException("Unsupported filter: " + filter);
+    }
+
+    ColumnValueFilter columnFilter = (ColumnValueFilter) filter;
+    byte[] column = columnFilter.getColumn();
+    List<byte[]> values = columnFilter.getValues();
+    // Deletes are persisted as empty values, hence a deleted column must be treated like a missing column
+    if (columnFilter.getType() == ColumnValueFilter.Type.IS_NULL) {
+      return createColumnFilter(column, CompareFilter.CompareOp.EQUAL, new BinaryComparator(DELETE_MARKER), false);
+    }
+    SingleColumnValueFilter notDeleted =
+      createColumnFilter(column, CompareFilter.CompareOp.GREATER, new BinaryComparator(DELETE_MARKER), true);
+    org.apache.hadoop.hbase.filter.Filter valueFilter;
+    switch (columnFilter.getType()) {
+      case EQUAL:
+        valueFilter = createColumnFilter(column, CompareFilter.CompareOp.EQUAL,
+                                         new BinaryComparator(values.get(0)), true);
+        break;
+      case NOT_EQUAL:
+        valueFilter = createColumnFilter(column, CompareFilter.CompareOp.NOT_EQUAL,
+                                         new BinaryComparator(values.get(0)), true);
+        break;
+      case LESS:
+        valueFilter = createColumnFilter(column, CompareFilter.CompareOp.LESS,
+                                         new BinaryComparator(values.get(0)), true);
+        break;
+      case LESS_OR_EQUAL:
+        valueFilter = createColumnFilter(column, CompareFilter.CompareOp.LESS_OR_EQUAL,
+                                         new BinaryComparator(values.get(0)), true);
+        break;
+      case GREATER:
+        valueFilter = createColumnFilter(column, CompareFilter.CompareOp.GREATER,
+                                         new BinaryComparator(values.get(0)), true);
+        break;
+      case GREATER_OR_EQUAL:
+        valueFilter = createColumnFilter(column, CompareFilter.CompareOp.GREATER_OR_EQUAL,
+                                         new BinaryComparator(values.get(0)), true);
+        break;
+      case PREFIX:
+        valueFilter = createColumnFilter(column, CompareFilter.CompareOp.EQUAL,
+                                         new BinaryPrefixComparator(values.get(0)), true);
+        break;
+      case IN:
+        List<org.apache.hadoop.hbase.filter.Filter> filters = new ArrayList<>();
+        for (byte[] value : values) {
+          filters.add(createColumnFilter(column, CompareFilter.CompareOp.EQUAL, new BinaryComparator(value), true));
+        }
+        valueFilter = new org.apache.hadoop.hbase.filter.FilterList(
+          org.apache.hadoop.hbase.filter.FilterList.Operator.MUST_PASS_ONE, filters);
+        break;
+      case IS_NOT_NULL:
+        return notDeleted;
+      default:
+        throw new IllegalArgumentException("Unsupported filter: " + filter);
+    }
+    return new org.apache.hadoop.hbase.filter.FilterList(
+      org.apache.hadoop.hbase.filter.FilterList.Operator.MUST_PASS_ALL, notDeleted, valueFilter);
+  }
+
+  private SingleColumnValueFilter createColumnFilter(byte[] column, CompareFilter.CompareOp op,
+                                                     ByteArrayComparable comparator, boolean filterIfMissing) {
+    SingleColumnValueFilter filter = new SingleColumnValueFilter(columnFamily, column, op, comparator);
+    filter.setFilterIfMissing(filterIfMissing);
+    return filter;
+  }
+
   /**
    * Creates an {@link Get} for the specified row and columns.
    *
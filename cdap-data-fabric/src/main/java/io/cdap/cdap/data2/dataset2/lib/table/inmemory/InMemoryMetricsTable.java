@@ -73,7 +73,7 @@ public class InMemoryMetricsTable implements MetricsTable {
     for (NavigableMap.Entry<byte[], ? extends SortedMap<byte[], Long>> entry : updates.entrySet()) {
       convertedUpdates.put(entry.getKey(), Maps.transformValues(entry.getValue(), Updates.LONG_TO_UPDATE));
     }
-    InMemoryTableService.merge(tableName, convertedUpdates, System.currentTimeMillis());
+    InMemoryTableService.mergeLatest(tableName, convertedUpdates, System.currentTimeMillis());
   }
 
   @Override
@@ -82,7 +82,7 @@ public class InMemoryMetricsTable implements MetricsTable {
     for (NavigableMap.Entry<byte[], ? extends SortedMap<byte[], byte[]>> entry : updates.entrySet()) {
       convertedUpdates.put(entry.getKey(), Maps.transformValues(entry.getValue(), Updates.BYTES_TO_UPDATE));
     }
-    InMemoryTableService.merge(tableName, convertedUpdates, System.currentTimeMillis());
+    InMemoryTableService.mergeLatest(tableName, convertedUpdates, System.currentTimeMillis());
   }
 
   @Override
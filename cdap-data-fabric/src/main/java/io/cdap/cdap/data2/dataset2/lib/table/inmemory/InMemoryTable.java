@@ -29,6 +29,7 @@ import io.cdap.cdap.api.dataset.table.ConflictDetection;
 import io.cdap.cdap.api.dataset.table.Filter;
 import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.api.dataset.table.ValueFilter;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.data2.dataset2.lib.table.BufferingTable;
 import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
@@ -51,6 +52,9 @@ public class InMemoryTable extends BufferingTable {
    */
   public static final String TYPE = "memoryTable";
 
+  // the transaction registered with the InMemoryTableService, to prevent removal of the versions it can read
+  private Transaction registeredTx;
+
   /**
    * To be used in tests which do not need namespaces
    */
@@ -85,6 +89,42 @@ public class InMemoryTable extends BufferingTable {
           false, spec.getProperties());
   }
 
+  @Override
+  public void startTx(Transaction tx) {
+    super.startTx(tx);
+    endRegisteredTx();
+    InMemoryTableService.startTx(tx);
+    registeredTx = tx;
+  }
+
+  @Override
+  public void postTxCommit() {
+    super.postTxCommit();
+    endRegisteredTx();
+  }
+
+  @Override
+  public boolean rollbackTx() throws Exception {
+    try {
+      return super.rollbackTx();
+    } finally {
+      endRegisteredTx();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    endRegisteredTx();
+    super.close();
+  }
+
+  private void endRegisteredTx() {
+    if (registeredTx != null) {
+      InMemoryTableService.endTx(registeredTx);
+      registeredTx = null;
+    }
+  }
+
   @WriteOnly
   @Override
   public void increment(byte[] row, byte[][] columns, long[] amounts) {
@@ -102,7 +142,7 @@ public class InMemoryTable extends BufferingTable {
 
   @WriteOnly
   private void persistUpdates(NavigableMap<byte[], NavigableMap<byte[], Update>> updates) {
-    InMemoryTableService.merge(getTableName(), updates, tx.getWritePointer());
+    InMemoryTableService.merge(getTableName(), updates, tx);
   }
 
   @Override
@@ -169,6 +209,14 @@ public class InMemoryTable extends BufferingTable {
         }
       }
       return result;
+    } else if (filter instanceof ValueFilter) {
+      NavigableMap<byte[], NavigableMap<byte[], byte[]>> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      for (Map.Entry<byte[], NavigableMap<byte[], byte[]>> entry : map.entrySet()) {
+        if (((ValueFilter) filter).matches(entry.getValue())) {
+          result.put(entry.getKey(), entry.getValue());
+        }
+      }
+      return result;
     } else {
       throw new DataSetException("Unknown filter type: " + filter);
     }
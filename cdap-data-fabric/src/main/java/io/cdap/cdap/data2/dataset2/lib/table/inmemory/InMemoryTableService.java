@@ -32,192 +32,327 @@ import org.apache.tephra.Transaction;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.Nullable;
 
 /**
  * Holds all in-memory tables for {@link InMemoryTable}.
+ *
+ * Tables are kept in concurrent maps, such that writes to different rows and tables do not block each other.
+ * Writes share the read lock of the table they operate on, and deletes take its write lock, such that a write never
+ * goes to a row or column that a concurrent delete has removed. The non-transactional {@link #swap} and
+ * {@link #increment} operations are also synchronized on the table, as they are read-modify-write.
+ *
+ * Transactional writes keep one version per transaction. To bound the memory used, the versions of a cell that no
+ * in-progress transaction can read are removed when the cell is written: all versions older than the latest valid
+ * version at or below the smallest visibility upper bound of all in-progress transactions. Transactions are tracked
+ * with {@link #startTx(Transaction)} and {@link #endTx(Transaction)}, across all tables. As a transaction may start
+ * to use a table after another transaction has written to it, transactions must be registered when they start,
+ * which {@link InMemoryTableTxSystemClient} does. {@link InMemoryTable} also registers the transactions it is used
+ * in, which only protects them from the time they first use an in-memory table.
  */
-// todo: use locks instead of synchronize
 // todo: consider using SortedMap instead of NavigableMap in APIs
 public class InMemoryTableService {
-  private static Map<String, ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>>> tables =
-    Maps.newHashMap();
+  private static final ConcurrentMap<String, TableData> tables = new ConcurrentHashMap<>();
+  // visibility upper bound -> number of registrations of in-progress transactions with that bound
+  private static final ConcurrentNavigableMap<Long, Integer> visibilityUpperBounds = new ConcurrentSkipListMap<>();
 
-  public static synchronized boolean exists(String tableName) {
+  public static boolean exists(String tableName) {
     return tables.containsKey(tableName);
   }
 
-  public static synchronized void create(String tableName) {
-    if (!tables.containsKey(tableName)) {
-      tables.put(tableName, new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR));
-    }
+  public static void create(String tableName) {
+    tables.putIfAbsent(tableName, new TableData());
   }
 
-  public static synchronized void truncate(String tableName) {
-    tables.get(tableName).clear();
+  public static void truncate(String tableName) {
+    TableData table = tables.get(tableName);
+    table.lock.writeLock().lock();
+    try {
+      for (byte[] row : table.rows.keySet()) {
+        table.removeRow(row);
+      }
+    } finally {
+      table.lock.writeLock().unlock();
+    }
   }
 
-  public static synchronized void drop(String tableName) {
+  public static void drop(String tableName) {
     tables.remove(tableName);
   }
 
-  public static synchronized void reset() {
+  public static void reset() {
     tables.clear();
   }
 
+  /**
+   * Registers an in-progress transaction, such that the versions it can read are not removed from any table until
+   * {@link #endTx(Transaction)} is called for it. A transaction may be registered more than once, and must then be
+   * unregistered as many times.
+   */
+  public static void startTx(Transaction tx) {
+    visibilityUpperBounds.merge(tx.getVisibilityUpperBound(), 1, Integer::sum);
+  }
+
+  /**
+   * Unregisters a transaction that was registered with {@link #startTx(Transaction)}.
+   */
+  public static void endTx(Transaction tx) {
+    visibilityUpperBounds.computeIfPresent(tx.getVisibilityUpperBound(),
+                                           (bound, count) -> count == 1 ? null : count - 1);
+  }
+
   // no nulls
-  public static synchronized void merge(String tableName,
-                                        SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> changes,
-                                        long version) {
+  public static void merge(String tableName,
+                           SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> changes,
+                           long version) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
+    TableData table = tables.get(tableName);
     SortedMap<byte[], ? extends SortedMap<byte[], Update>> changesCopy = deepCopyUpdates(changes);
-    for (Map.Entry<byte[], ? extends SortedMap<byte[], Update>> change : changesCopy.entrySet()) {
-      merge(table, change.getKey(), change.getValue(), version);
+    table.lock.readLock().lock();
+    try {
+      for (Map.Entry<byte[], ? extends SortedMap<byte[], Update>> change : changesCopy.entrySet()) {
+        merge(table, change.getKey(), change.getValue(), version);
+      }
+    } finally {
+      table.lock.readLock().unlock();
     }
   }
 
-  private static void merge(ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table,
-                            byte[] row, Map<byte[], Update> changes, long version) {
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    if (rowMap == null) {
-      rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      table.put(row, rowMap);
+  /**
+   * Merges the changes of a transaction with its write pointer as version, and removes the versions of the changed
+   * cells that are no longer visible to any in-progress transaction.
+   */
+  public static void merge(String tableName,
+                           SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> changes,
+                           Transaction tx) {
+    TableData table = tables.get(tableName);
+    SortedMap<byte[], ? extends SortedMap<byte[], Update>> changesCopy = deepCopyUpdates(changes);
+    // the transaction itself is registered, hence the bound is at most its own visibility upper bound
+    Long pruneBound = visibilityUpperBounds.isEmpty() ? null : visibilityUpperBounds.firstKey();
+    long[] invalids = tx.getInvalids();
+    table.lock.readLock().lock();
+    try {
+      for (Map.Entry<byte[], ? extends SortedMap<byte[], Update>> change : changesCopy.entrySet()) {
+        NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = merge(table, change.getKey(), change.getValue(),
+                                                                        tx.getWritePointer());
+        if (pruneBound == null) {
+          continue;
+        }
+        for (byte[] column : change.getValue().keySet()) {
+          NavigableMap<Long, Update> versions = rowMap.get(column);
+          if (versions != null) {
+            prune(table, versions, Math.min(pruneBound, tx.getVisibilityUpperBound()), invalids);
+          }
+        }
+      }
+    } finally {
+      table.lock.readLock().unlock();
     }
+  }
+
+  /**
+   * Merges the changes with the given version, and removes all older versions of the changed cells. This is only
+   * meant for non-transactional tables, that only ever read the latest version of a cell.
+   */
+  public static void mergeLatest(String tableName,
+                                 SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> changes,
+                                 long version) {
+    TableData table = tables.get(tableName);
+    SortedMap<byte[], ? extends SortedMap<byte[], Update>> changesCopy = deepCopyUpdates(changes);
+    table.lock.readLock().lock();
+    try {
+      for (Map.Entry<byte[], ? extends SortedMap<byte[], Update>> change : changesCopy.entrySet()) {
+        NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = merge(table, change.getKey(), change.getValue(),
+                                                                        version);
+        for (byte[] column : change.getValue().keySet()) {
+          NavigableMap<Long, Update> versions = rowMap.get(column);
+          if (versions != null) {
+            table.removeVersionsBefore(versions, version);
+          }
+        }
+      }
+    } finally {
+      table.lock.readLock().unlock();
+    }
+  }
+
+  private static NavigableMap<byte[], NavigableMap<Long, Update>> merge(TableData table, byte[] row,
+                                                                        Map<byte[], Update> changes, long version) {
+    // get the correct row from the table, create it if it doesn't exist
+    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.getOrCreateRow(row);
     // now merge the changes into the row, one by one
     for (Map.Entry<byte[], Update> keyVal : changes.entrySet()) {
-      // create the column in the row if it does not exist
-      NavigableMap<Long, Update> colMap = rowMap.get(keyVal.getKey());
-      if (colMap == null) {
-        colMap = Maps.newTreeMap();
-        rowMap.put(keyVal.getKey(), colMap);
+      // create the column in the row if it does not exist, and put into the column with given version
+      table.mergeVersion(table.getOrCreateColumn(rowMap, keyVal.getKey()), version, keyVal.getValue());
+    }
+    return rowMap;
+  }
+
+  /**
+   * Removes all versions of a cell that are older than the latest valid version at or below the prune bound.
+   * Transactions whose visibility upper bound is at least the prune bound can see that version, hence never read
+   * older ones.
+   */
+  private static void prune(TableData table, NavigableMap<Long, Update> versions, long pruneBound, long[] invalids) {
+    for (Long version : versions.headMap(pruneBound, true).descendingKeySet()) {
+      if (Arrays.binarySearch(invalids, version) < 0) {
+        table.removeVersionsBefore(versions, version);
+        return;
       }
-      // put into the column with given version
-      Update merged = Updates.mergeUpdates(colMap.get(version), keyVal.getValue());
-      colMap.put(version, merged);
     }
   }
 
   // todo: remove it from here: only used by "system" metrics table, which should be revised
   @Deprecated
-  public static synchronized Map<byte[], Long> increment(String tableName, byte[] row, Map<byte[], Long> increments) {
+  public static Map<byte[], Long> increment(String tableName, byte[] row, Map<byte[], Long> increments) {
     Map<byte[], Long> resultMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    if (rowMap == null) {
-      rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      table.put(row, rowMap);
-    }
-    // now increment each column, one by one
-    long versionForWrite = System.currentTimeMillis();
-    for (Map.Entry<byte[], Long> inc : increments.entrySet()) {
-      IncrementValue increment = new IncrementValue(inc.getValue());
-      // create the column in the row if it does not exist
-      NavigableMap<Long, Update> colMap = rowMap.get(inc.getKey());
-      Update last = null;
-      if (colMap == null) {
-        colMap = Maps.newTreeMap();
-        rowMap.put(inc.getKey(), colMap);
-      } else {
-        last = colMap.lastEntry().getValue();
+    TableData table = tables.get(tableName);
+    table.lock.readLock().lock();
+    try {
+      synchronized (table) {
+        // get the correct row from the table, create it if it doesn't exist
+        NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.getOrCreateRow(copy(row));
+        // now increment each column, one by one
+        long versionForWrite = System.currentTimeMillis();
+        for (Map.Entry<byte[], Long> inc : increments.entrySet()) {
+          IncrementValue increment = new IncrementValue(inc.getValue());
+          // create the column in the row if it does not exist
+          NavigableMap<Long, Update> colMap = table.getOrCreateColumn(rowMap, copy(inc.getKey()));
+          Map.Entry<Long, Update> last = colMap.lastEntry();
+          Update merged = Updates.mergeUpdates(last == null ? null : last.getValue(), increment);
+          // put into the column with given version, only the latest version is ever read
+          long newValue = Bytes.toLong(merged.getBytes());
+          resultMap.put(inc.getKey(), newValue);
+          table.putVersion(colMap, versionForWrite, merged);
+          table.removeVersionsBefore(colMap, versionForWrite);
+        }
       }
-      Update merged = Updates.mergeUpdates(last, increment);
-      // put into the column with given version
-      long newValue = Bytes.toLong(merged.getBytes());
-      resultMap.put(inc.getKey(), newValue);
-      colMap.put(versionForWrite, merged);
+    } finally {
+      table.lock.readLock().unlock();
     }
     return resultMap;
   }
 
-  public static synchronized boolean swap(String tableName, byte[] row, byte[] column,
-                                          byte[] oldValue, byte[] newValue) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    Update existingValue = null;
-    if (rowMap != null) {
-      NavigableMap<Long, Update> columnMap = rowMap.get(column);
-      if (columnMap != null) {
-        existingValue = columnMap.lastEntry().getValue();
-      }
-    }
-    // verify existing value matches
-    if (oldValue == null && existingValue != null) {
-      return false;
-    }
-    if (oldValue != null && (existingValue == null || !Bytes.equals(oldValue, existingValue.getBytes()))) {
-      return false;
-    }
-    // write new value
-    if (newValue == null) {
-      if (rowMap != null) {
-        rowMap.remove(column);
-      }
-    } else {
-      if (rowMap == null) {
-        rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-        table.put(row, rowMap);
-      }
-      NavigableMap<Long, Update> columnMap = rowMap.get(column);
-      if (columnMap == null) {
-        columnMap = Maps.newTreeMap();
-        rowMap.put(column, columnMap);
+  public static boolean swap(String tableName, byte[] row, byte[] column,
+                             byte[] oldValue, byte[] newValue) {
+    TableData table = tables.get(tableName);
+    table.lock.readLock().lock();
+    try {
+      synchronized (table) {
+        NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.rows.get(row);
+        Update existingValue = null;
+        if (rowMap != null) {
+          NavigableMap<Long, Update> columnMap = rowMap.get(column);
+          if (columnMap != null && !columnMap.isEmpty()) {
+            existingValue = columnMap.lastEntry().getValue();
+          }
+        }
+        // verify existing value matches
+        if (oldValue == null && existingValue != null) {
+          return false;
+        }
+        if (oldValue != null && (existingValue == null || !Bytes.equals(oldValue, existingValue.getBytes()))) {
+          return false;
+        }
+        // write new value
+        if (newValue == null) {
+          if (rowMap != null) {
+            table.removeColumn(rowMap, column);
+          }
+        } else {
+          if (rowMap == null) {
+            rowMap = table.getOrCreateRow(copy(row));
+          }
+          NavigableMap<Long, Update> columnMap = table.getOrCreateColumn(rowMap, copy(column));
+          long version = System.currentTimeMillis();
+          table.putVersion(columnMap, version, new PutValue(copy(newValue)));
+          table.removeVersionsBefore(columnMap, version);
+        }
+        return true;
       }
-      PutValue newPut = new PutValue(newValue);
-      columnMap.put(System.currentTimeMillis(), newPut);
+    } finally {
+      table.lock.readLock().unlock();
     }
-    return true;
   }
 
-  public static synchronized void undo(String tableName,
-                                       NavigableMap<byte[], NavigableMap<byte[], Update>> changes,
-                                       long version) {
+  public static void undo(String tableName,
+                          NavigableMap<byte[], NavigableMap<byte[], Update>> changes,
+                          long version) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    for (Map.Entry<byte[], NavigableMap<byte[], Update>> change : changes.entrySet()) {
-      byte[] row = change.getKey();
-      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-      if (rowMap != null) {
-        for (byte[] column : change.getValue().keySet()) {
-          NavigableMap<Long, Update> values = rowMap.get(column);
-          values.remove(version);
+    TableData table = tables.get(tableName);
+    table.lock.readLock().lock();
+    try {
+      for (Map.Entry<byte[], NavigableMap<byte[], Update>> change : changes.entrySet()) {
+        byte[] row = change.getKey();
+        NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.rows.get(row);
+        if (rowMap != null) {
+          for (byte[] column : change.getValue().keySet()) {
+            NavigableMap<Long, Update> values = rowMap.get(column);
+            if (values != null) {
+              table.removeVersion(values, version);
+            }
+          }
         }
       }
+    } finally {
+      table.lock.readLock().unlock();
     }
   }
 
-  public static synchronized void delete(String tableName, Iterable<byte[]> rows) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    for (byte[] row : rows) {
-      table.remove(row);
+  public static void delete(String tableName, Iterable<byte[]> rows) {
+    TableData table = tables.get(tableName);
+    table.lock.writeLock().lock();
+    try {
+      for (byte[] row : rows) {
+        table.removeRow(row);
+      }
+    } finally {
+      table.lock.writeLock().unlock();
     }
   }
 
-  public static synchronized void deleteColumns(String tableName, byte[] row, byte[] column) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    NavigableMap<byte[], NavigableMap<Long, Update>> columnValues = table.get(row);
-    columnValues.remove(column);
+  public static void deleteColumns(String tableName, byte[] row, byte[] column) {
+    TableData table = tables.get(tableName);
+    table.lock.writeLock().lock();
+    try {
+      NavigableMap<byte[], NavigableMap<Long, Update>> columnValues = table.rows.get(row);
+      table.removeColumn(columnValues, column);
+    } finally {
+      table.lock.writeLock().unlock();
+    }
   }
 
-  public static synchronized void delete(String tableName, byte[] rowPrefix) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    if (rowPrefix.length == 0) {
-      table.clear();
-    } else {
-      byte[] rowAfter = rowAfterPrefix(rowPrefix);
-      if (rowAfter == null) {
-        table.tailMap(rowPrefix).clear();
+  public static void delete(String tableName, byte[] rowPrefix) {
+    TableData table = tables.get(tableName);
+    table.lock.writeLock().lock();
+    try {
+      NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> rows;
+      if (rowPrefix.length == 0) {
+        rows = table.rows;
       } else {
-        table.subMap(rowPrefix, rowAfter).clear();
+        byte[] rowAfter = rowAfterPrefix(rowPrefix);
+        if (rowAfter == null) {
+          rows = table.rows.tailMap(rowPrefix, true);
+        } else {
+          rows = table.rows.subMap(rowPrefix, true, rowAfter, false);
+        }
+      }
+      for (byte[] row : rows.keySet()) {
+        table.removeRow(row);
       }
+    } finally {
+      table.lock.writeLock().unlock();
     }
   }
 
@@ -238,23 +373,24 @@ public class InMemoryTableService {
     return null;
   }
 
-  public static synchronized NavigableMap<byte[], NavigableMap<Long, byte[]>> get(String tableName,
-                                                                                  byte[] row,
-                                                                                  @Nullable Transaction tx) {
+  public static NavigableMap<byte[], NavigableMap<Long, byte[]>> get(String tableName,
+                                                                     byte[] row,
+                                                                     @Nullable Transaction tx) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
+    TableData table = tables.get(tableName);
     Preconditions.checkArgument(table != null, "table not found: " + tableName);
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
+    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.rows.get(row);
     return deepCopy(Updates.rowToBytes(getVisible(rowMap, tx)));
   }
 
-  public static synchronized NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>>
-                             getRowRange(String tableName,
-                                         byte[] startRow,
-                                         byte[] stopRow,
-                                         @Nullable Transaction tx) {
+  public static NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>>
+                getRowRange(String tableName,
+                            byte[] startRow,
+                            byte[] stopRow,
+                            @Nullable Transaction tx) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> tableData = tables.get(tableName);
+    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> tableData =
+      tables.get(tableName).rows;
     NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> rows;
     if (startRow == null && stopRow == null) {
       rows = tableData;
@@ -277,10 +413,23 @@ public class InMemoryTableService {
     return result;
   }
 
-  public static synchronized Collection<String> list() {
+  public static Collection<String> list() {
     return ImmutableList.copyOf(tables.keySet());
   }
 
+  /**
+   * Collects the stats of all in-memory tables.
+   *
+   * @return map of table name -> table stats
+   */
+  public static Map<String, TableStats> getTableStats() {
+    Map<String, TableStats> stats = new HashMap<>();
+    for (Map.Entry<String, TableData> entry : tables.entrySet()) {
+      stats.put(entry.getKey(), new TableStats(Math.max(0L, entry.getValue().size.get())));
+    }
+    return stats;
+  }
+
   private static NavigableMap<byte[], NavigableMap<Long, Update>> getVisible(
     NavigableMap<byte[], NavigableMap<Long, Update>> rowMap, final Transaction tx) {
 
@@ -364,4 +513,136 @@ public class InMemoryTableService {
       return Longs.compare(right, left);
     }
   };
+
+  /**
+   * Represents the stats of an in-memory table.
+   */
+  public static final class TableStats {
+    private final long memorySizeBytes;
+
+    public TableStats(long memorySizeBytes) {
+      this.memorySizeBytes = memorySizeBytes;
+    }
+
+    /**
+     * @return the estimated size in bytes of the memory used by the rows, columns, versions and values of the table
+     */
+    public long getMemorySizeBytes() {
+      return memorySizeBytes;
+    }
+  }
+
+  /**
+   * The data of an in-memory table: row -> column -> version -> value, all kept in concurrent maps.
+   */
+  private static final class TableData {
+    // estimated memory used by the map entries and objects of a row, a column and a version, excluding the data
+    private static final int ROW_OVERHEAD = 96;
+    private static final int COLUMN_OVERHEAD = 96;
+    private static final int VERSION_OVERHEAD = 64;
+
+    private final ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> rows =
+      new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    // shared by writes and exclusive to deletes
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // estimated size in bytes of the memory used by the table
+    private final AtomicLong size = new AtomicLong();
+
+    NavigableMap<byte[], NavigableMap<Long, Update>> getOrCreateRow(byte[] row) {
+      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = rows.get(row);
+      if (rowMap == null) {
+        NavigableMap<byte[], NavigableMap<Long, Update>> newRow = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+        rowMap = rows.putIfAbsent(row, newRow);
+        if (rowMap == null) {
+          rowMap = newRow;
+          size.addAndGet(ROW_OVERHEAD + row.length);
+        }
+      }
+      return rowMap;
+    }
+
+    NavigableMap<Long, Update> getOrCreateColumn(NavigableMap<byte[], NavigableMap<Long, Update>> rowMap,
+                                                 byte[] column) {
+      NavigableMap<Long, Update> colMap = rowMap.get(column);
+      if (colMap == null) {
+        NavigableMap<Long, Update> newColumn = new ConcurrentSkipListMap<>();
+        colMap = rowMap.putIfAbsent(column, newColumn);
+        if (colMap == null) {
+          colMap = newColumn;
+          size.addAndGet(COLUMN_OVERHEAD + column.length);
+        }
+      }
+      return colMap;
+    }
+
+    /**
+     * Merges an update into the given version of a cell, as the same transaction may write a cell more than once.
+     */
+    void mergeVersion(NavigableMap<Long, Update> versions, long version, Update update) {
+      while (true) {
+        Update existing = versions.get(version);
+        if (existing == null) {
+          if (versions.putIfAbsent(version, update) == null) {
+            size.addAndGet(sizeOf(update));
+            return;
+          }
+        } else {
+          Update merged = Updates.mergeUpdates(existing, update);
+          if (versions.replace(version, existing, merged)) {
+            size.addAndGet(sizeOf(merged) - sizeOf(existing));
+            return;
+          }
+        }
+      }
+    }
+
+    void putVersion(NavigableMap<Long, Update> versions, long version, Update update) {
+      Update existing = versions.put(version, update);
+      size.addAndGet(sizeOf(update) - (existing == null ? 0L : sizeOf(existing)));
+    }
+
+    void removeVersion(NavigableMap<Long, Update> versions, long version) {
+      Update removed = versions.remove(version);
+      if (removed != null) {
+        size.addAndGet(-sizeOf(removed));
+      }
+    }
+
+    void removeVersionsBefore(NavigableMap<Long, Update> versions, long version) {
+      for (Long older : versions.headMap(version, false).keySet()) {
+        removeVersion(versions, older);
+      }
+    }
+
+    void removeColumn(NavigableMap<byte[], NavigableMap<Long, Update>> rowMap, byte[] column) {
+      NavigableMap<Long, Update> versions = rowMap.remove(column);
+      if (versions != null) {
+        size.addAndGet(-sizeOf(column, versions));
+      }
+    }
+
+    void removeRow(byte[] row) {
+      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = rows.remove(row);
+      if (rowMap != null) {
+        long rowSize = ROW_OVERHEAD + row.length;
+        for (Map.Entry<byte[], NavigableMap<Long, Update>> column : rowMap.entrySet()) {
+          rowSize += sizeOf(column.getKey(), column.getValue());
+        }
+        size.addAndGet(-rowSize);
+      }
+    }
+
+    private static long sizeOf(byte[] column, NavigableMap<Long, Update> versions) {
+      long columnSize = COLUMN_OVERHEAD + column.length;
+      for (Update update : versions.values()) {
+        columnSize += sizeOf(update);
+      }
+      return columnSize;
+    }
+
+    private static long sizeOf(Update update) {
+      byte[] bytes = update.getBytes();
+      return VERSION_OVERHEAD + (bytes == null ? 0 : bytes.length);
+    }
+  }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table.inmemory;
+
+import org.apache.tephra.InvalidTruncateTimeException;
+import org.apache.tephra.Transaction;
+import org.apache.tephra.TransactionCouldNotTakeSnapshotException;
+import org.apache.tephra.TransactionFailureException;
+import org.apache.tephra.TransactionNotInProgressException;
+import org.apache.tephra.TransactionSystemClient;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link TransactionSystemClient} that registers every transaction with the {@link InMemoryTableService} from the
+ * time it starts until it is committed, aborted or invalidated. This way, the versions that a transaction can read
+ * are retained even if the transaction only starts to use an in-memory table after other transactions wrote to it.
+ */
+public class InMemoryTableTxSystemClient implements TransactionSystemClient {
+
+  private final TransactionSystemClient delegate;
+  // transaction id -> transaction registered with the InMemoryTableService
+  private final ConcurrentMap<Long, Transaction> registered = new ConcurrentHashMap<>();
+
+  public InMemoryTableTxSystemClient(TransactionSystemClient delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Transaction startShort() {
+    return register(delegate.startShort());
+  }
+
+  @Override
+  public Transaction startShort(int timeout) {
+    return register(delegate.startShort(timeout));
+  }
+
+  @Override
+  public Transaction startLong() {
+    return register(delegate.startLong());
+  }
+
+  @Override
+  public boolean canCommit(Transaction tx, Collection<byte[]> changeIds) throws TransactionNotInProgressException {
+    //noinspection deprecation
+    return delegate.canCommit(tx, changeIds);
+  }
+
+  @Override
+  public void canCommitOrThrow(Transaction tx, Collection<byte[]> changeIds) throws TransactionFailureException {
+    delegate.canCommitOrThrow(tx, changeIds);
+  }
+
+  @Override
+  public boolean commit(Transaction tx) throws TransactionNotInProgressException {
+    try {
+      //noinspection deprecation
+      return delegate.commit(tx);
+    } finally {
+      unregister(tx.getTransactionId());
+    }
+  }
+
+  @Override
+  public void commitOrThrow(Transaction tx) throws TransactionFailureException {
+    try {
+      delegate.commitOrThrow(tx);
+    } finally {
+      unregister(tx.getTransactionId());
+    }
+  }
+
+  @Override
+  public void abort(Transaction tx) {
+    try {
+      delegate.abort(tx);
+    } finally {
+      unregister(tx.getTransactionId());
+    }
+  }
+
+  @Override
+  public boolean invalidate(long tx) {
+    try {
+      return delegate.invalidate(tx);
+    } finally {
+      unregister(tx);
+    }
+  }
+
+  @Override
+  public Transaction checkpoint(Transaction tx) throws TransactionNotInProgressException {
+    // a checkpoint keeps the transaction id and the visibility upper bound, hence the registration remains valid
+    return delegate.checkpoint(tx);
+  }
+
+  @Override
+  public InputStream getSnapshotInputStream() throws TransactionCouldNotTakeSnapshotException {
+    return delegate.getSnapshotInputStream();
+  }
+
+  @Override
+  public String status() {
+    return delegate.status();
+  }
+
+  @Override
+  public void resetState() {
+    delegate.resetState();
+  }
+
+  @Override
+  public boolean truncateInvalidTx(Set<Long> invalidTxIds) {
+    return delegate.truncateInvalidTx(invalidTxIds);
+  }
+
+  @Override
+  public boolean truncateInvalidTxBefore(long time) throws InvalidTruncateTimeException {
+    return delegate.truncateInvalidTxBefore(time);
+  }
+
+  @Override
+  public int getInvalidSize() {
+    return delegate.getInvalidSize();
+  }
+
+  @Override
+  public void pruneNow() {
+    delegate.pruneNow();
+  }
+
+  private Transaction register(Transaction tx) {
+    registered.put(tx.getTransactionId(), tx);
+    InMemoryTableService.startTx(tx);
+    return tx;
+  }
+
+  /**
+   * Unregisters a transaction once. A transaction whose commit failed is aborted afterwards, which must not
+   * unregister it again, as that would drop the registration of another transaction with the same bound.
+   */
+  private void unregister(long txId) {
+    Transaction tx = registered.remove(txId);
+    if (tx != null) {
+      InMemoryTableService.endTx(tx);
+    }
+  }
+}
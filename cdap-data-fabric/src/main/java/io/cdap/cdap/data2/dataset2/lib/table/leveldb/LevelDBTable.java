@@ -23,18 +23,24 @@ import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.DataSetException;
 import io.cdap.cdap.api.dataset.DatasetContext;
 import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.api.dataset.table.Filter;
+import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.api.dataset.table.ValueFilter;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.data2.dataset2.lib.table.BufferingTable;
 import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.data2.dataset2.lib.table.IncrementValue;
 import io.cdap.cdap.data2.dataset2.lib.table.PutValue;
+import io.cdap.cdap.data2.dataset2.lib.table.SplitsUtil;
 import io.cdap.cdap.data2.dataset2.lib.table.Update;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.PrefixedNamespaces;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import javax.annotation.Nullable;
@@ -126,18 +132,33 @@ public class LevelDBTable extends BufferingTable {
     return core.getRow(row, null, startColumn, stopColumn, limit, tx);
   }
 
+  @ReadOnly
+  @Override
+  protected List<Map<byte[], byte[]>> getPersisted(List<Get> gets) throws Exception {
+    List<byte[]> rows = new ArrayList<>(gets.size());
+    List<byte[][]> columns = new ArrayList<>(gets.size());
+    for (Get get : gets) {
+      rows.add(get.getRow());
+      List<byte[]> getColumns = get.getColumns();
+      columns.add(getColumns == null ? null : getColumns.toArray(new byte[getColumns.size()][]));
+    }
+    return new ArrayList<>(core.getRows(rows, columns, tx));
+  }
+
+  @Nullable
+  @Override
+  protected SplitsUtil.SizeEstimator getSizeEstimator() {
+    return core::getApproximateSizes;
+  }
+
   @ReadOnly
   @Override
   protected Scanner scanPersisted(Scan scan) throws Exception {
 
-    FuzzyRowFilter filter = null;
-    if (scan.getFilter() != null) {
-      // todo: currently we support only FuzzyRowFilter as an experimental feature
-      if (scan.getFilter() instanceof FuzzyRowFilter) {
-        filter = (FuzzyRowFilter) scan.getFilter();
-      } else {
-        throw new DataSetException("Unknown filter type: " + scan.getFilter());
-      }
+    Filter filter = scan.getFilter();
+    // todo: currently we support only FuzzyRowFilter and value filters as an experimental feature
+    if (filter != null && !(filter instanceof FuzzyRowFilter) && !(filter instanceof ValueFilter)) {
+      throw new DataSetException("Unknown filter type: " + filter);
     }
     final Scanner scanner = core.scan(scan.getStartRow(), scan.getStopRow(), filter, null, tx);
     return new Scanner() {
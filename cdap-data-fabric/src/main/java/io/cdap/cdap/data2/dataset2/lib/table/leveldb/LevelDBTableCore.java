@@ -18,14 +18,18 @@ package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
 
 import com.google.common.base.Throwables;
 import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Filter;
 import io.cdap.cdap.api.dataset.table.Result;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.api.dataset.table.ValueFilter;
 import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
+import io.cdap.cdap.data2.dataset2.lib.table.KeyRange;
 import org.apache.tephra.Transaction;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Range;
 import org.iq80.leveldb.ReadOptions;
 import org.iq80.leveldb.Snapshot;
 import org.iq80.leveldb.WriteBatch;
@@ -34,13 +38,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
 import javax.annotation.Nullable;
 
 /**
@@ -64,6 +71,9 @@ public class LevelDBTableCore {
   // used for obtaining the next row/column for upper bound
   private static final byte[] ONE_ZERO = { 0x00 };
 
+  // a key that is greater than the keys of all rows, as rows are at most Short.MAX_VALUE bytes long
+  private static final byte[] LAST_KEY = createLastKey();
+
   private static byte[] upperBound(byte[] column) {
     return Bytes.add(column, ONE_ZERO);
   }
@@ -85,30 +95,37 @@ public class LevelDBTableCore {
   }
 
 
-  public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
-    byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
-    // verify
-    if (oldValue == null && existing != null) {
-      return false;
-    }
-    if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
-      return false;
-    }
-    // write
-    if (newValue == null) {
-      // to-do
-      deleteColumn(row, column);
-    } else {
-      persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), Long.MAX_VALUE);
+  public boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
+    Iterable<Lock> locks = lockRows(Collections.singleton(row));
+    try {
+      byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
+      // verify
+      if (oldValue == null && existing != null) {
+        return false;
+      }
+      if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
+        return false;
+      }
+      // write
+      if (newValue == null) {
+        // to-do
+        deleteColumn(row, column);
+      } else {
+        persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), Long.MAX_VALUE);
+      }
+      return true;
+    } finally {
+      unlock(locks);
     }
-    return true;
   }
 
-  public synchronized Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
+  public Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
     Map<byte[], Long> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
 
     DB db = getDB();
     WriteBatch writeBatch = db.createWriteBatch();
+    Iterable<Lock> locks = lockRows(Collections.singleton(row));
+    // the snapshot must be taken after acquiring the locks, in order to see the writes of the previous holders
     try (Snapshot snapshot = db.getSnapshot()) {
       ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
 
@@ -120,19 +137,25 @@ public class LevelDBTableCore {
         writeBatch.put(rowKey, Bytes.toBytes(newValue));
       }
       db.write(writeBatch, service.getWriteOptions());
+    } finally {
+      unlock(locks);
     }
 
     return result;
   }
 
-
-  public synchronized void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
+  /**
+   * Applies the increments of all rows in a single atomic write. Only the rows being incremented are locked, so
+   * that increments of other rows of the table can proceed concurrently.
+   */
+  public void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
     if (updates.isEmpty()) {
       return;
     }
 
     DB db = getDB();
     WriteBatch writeBatch = db.createWriteBatch();
+    Iterable<Lock> locks = lockRows(updates.keySet());
     try (Snapshot snapshot = db.getSnapshot()) {
       ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
 
@@ -145,6 +168,22 @@ public class LevelDBTableCore {
         }
       }
       db.write(writeBatch, service.getWriteOptions());
+    } finally {
+      unlock(locks);
+    }
+  }
+
+  private Iterable<Lock> lockRows(Collection<byte[]> rows) {
+    Iterable<Lock> locks = service.getRowLocks(tableName, rows);
+    for (Lock lock : locks) {
+      lock.lock();
+    }
+    return locks;
+  }
+
+  private void unlock(Iterable<Lock> locks) {
+    for (Lock lock : locks) {
+      lock.unlock();
     }
   }
 
@@ -193,7 +232,7 @@ public class LevelDBTableCore {
   }
 
   public Scanner scan(byte[] startRow, byte[] stopRow,
-                      @Nullable FuzzyRowFilter filter, @Nullable byte[][] columns, @Nullable Transaction tx)
+                      @Nullable Filter filter, @Nullable byte[][] columns, @Nullable Transaction tx)
     throws IOException {
     if (columns != null) {
       if (columns.length == 0) {
@@ -232,6 +271,45 @@ public class LevelDBTableCore {
     }
   }
 
+  /**
+   * Reads multiple rows using a single iterator, visiting the rows in sorted order so that the iterator only moves
+   * forward through the table.
+   *
+   * @param rows the rows to read
+   * @param columns the columns to read for each row, null for a row means all columns
+   * @return one column map per row, in the order of the given rows
+   */
+  public List<NavigableMap<byte[], byte[]>> getRows(List<byte[]> rows, List<byte[][]> columns,
+                                                    @Nullable Transaction tx) throws IOException {
+    Integer[] order = new Integer[rows.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (i1, i2) -> Bytes.compareTo(rows.get(i1), rows.get(i2)));
+
+    List<NavigableMap<byte[], byte[]>> results = new ArrayList<>(Collections.nCopies(rows.size(), null));
+    try (DBIterator iterator = getDB().iterator()) {
+      for (int i : order) {
+        byte[] row = rows.get(i);
+        byte[][] rowColumns = columns.get(i);
+        if (rowColumns != null) {
+          if (rowColumns.length == 0) {
+            results.set(i, Collections.emptyNavigableMap());
+            continue;
+          }
+          rowColumns = Arrays.copyOf(rowColumns, rowColumns.length);
+          Arrays.sort(rowColumns, Bytes.BYTES_COMPARATOR);
+        }
+        byte[] startKey = createStartKey(row, rowColumns == null ? null : rowColumns[0]);
+        byte[] endKey = createEndKey(row, rowColumns == null ? null : upperBound(rowColumns[rowColumns.length - 1]));
+        iterator.seek(startKey);
+        results.set(i, getRow(iterator, endKey, tx, false, rowColumns,
+                              rowColumns == null ? -1 : rowColumns.length).getSecond());
+      }
+    }
+    return results;
+  }
+
   private static Scanner createEmptyScanner() {
     return new Scanner() {
       @Override
@@ -476,13 +554,15 @@ public class LevelDBTableCore {
     private final DBIterator iterator;
     private final byte[][] columns;
     private final FuzzyRowFilter filter;
+    private final ValueFilter valueFilter;
 
     LevelDBScanner(DBIterator iterator, byte[] endKey,
-                   @Nullable FuzzyRowFilter filter, @Nullable byte[][] columns, @Nullable Transaction tx) {
+                   @Nullable Filter filter, @Nullable byte[][] columns, @Nullable Transaction tx) {
       this.tx = tx;
       this.endKey = endKey;
       this.iterator = iterator;
-      this.filter = filter;
+      this.filter = filter instanceof FuzzyRowFilter ? (FuzzyRowFilter) filter : null;
+      this.valueFilter = filter instanceof ValueFilter ? (ValueFilter) filter : null;
       this.columns = columns;
     }
 
@@ -512,6 +592,10 @@ public class LevelDBTableCore {
               }
             }
           }
+          // apply value filter if any
+          if (valueFilter != null && !valueFilter.matches(result.getSecond())) {
+            continue;
+          }
           return new Result(result.getFirst(), result.getSecond());
         }
       } catch (Exception e) {
@@ -530,6 +614,21 @@ public class LevelDBTableCore {
     }
   }
 
+  /**
+   * Returns the approximate size in bytes of the data stored in each of the given row ranges. Only data that has been
+   * written to the files of the table is counted, data that is still in memory is not.
+   */
+  public long[] getApproximateSizes(List<KeyRange> ranges) throws IOException {
+    Range[] dbRanges = new Range[ranges.size()];
+    for (int i = 0; i < dbRanges.length; i++) {
+      KeyRange range = ranges.get(i);
+      byte[] start = createStartKey(range.getStart() == null ? Bytes.EMPTY_BYTE_ARRAY : range.getStart());
+      byte[] end = range.getStop() == null ? LAST_KEY : createEndKey(range.getStop());
+      dbRanges[i] = new Range(start, end);
+    }
+    return getDB().getApproximateSizes(dbRanges);
+  }
+
   // ------- helpers to create the keys for writes and scans ----------
 
   private static byte[] createPutKey(byte[] rowKey, byte[] columnKey, long version) {
@@ -544,6 +643,12 @@ public class LevelDBTableCore {
     return createStartKey(row); // the first key of the stop is the first to be excluded
   }
 
+  private static byte[] createLastKey() {
+    byte[] row = new byte[Short.MAX_VALUE];
+    Arrays.fill(row, (byte) 0xff);
+    return createStartKey(row);
+  }
+
   private static byte[] createStartKey(byte[] row, byte[] column) {
     return KeyValue.getKey(row, DATA_COLFAM, column, KeyValue.LATEST_TIMESTAMP, KeyValue.Type.Maximum);
   }
@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.cdap.cdap.common.conf.CConfiguration;
@@ -40,9 +41,12 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
 import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
 
@@ -59,6 +63,7 @@ public class LevelDBTableService implements AutoCloseable {
   private String basePath;
   private WriteOptions writeOptions;
   private boolean isClosed;
+  private Striped<Lock> rowLocks = Striped.lock(Constants.DEFAULT_DATA_LEVELDB_ROW_LOCK_STRIPES);
 
   private final ConcurrentMap<String, DB> tables = Maps.newConcurrentMap();
 
@@ -90,6 +95,8 @@ public class LevelDBTableService implements AutoCloseable {
     cacheSize = config.getLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, Constants.DEFAULT_DATA_LEVELDB_CACHESIZE);
     writeOptions = new WriteOptions().sync(
       config.getBoolean(Constants.CFG_DATA_LEVELDB_FSYNC, Constants.DEFAULT_DATA_LEVELDB_FSYNC));
+    rowLocks = Striped.lock(config.getInt(Constants.CFG_DATA_LEVELDB_ROW_LOCK_STRIPES,
+                                          Constants.DEFAULT_DATA_LEVELDB_ROW_LOCK_STRIPES));
   }
 
   /**
@@ -171,6 +178,20 @@ public class LevelDBTableService implements AutoCloseable {
     return writeOptions;
   }
 
+  /**
+   * Returns the locks guarding read-modify-write operations on the given rows of a table. The locks are shared by
+   * all users of the table in this process, and are returned in a consistent order, so that acquiring them in
+   * iteration order cannot deadlock. A lock may be returned more than once if rows share the same stripe.
+   */
+  Iterable<Lock> getRowLocks(String tableName, Collection<byte[]> rows) {
+    int tableHash = tableName.hashCode();
+    Collection<Integer> keys = new ArrayList<>(rows.size());
+    for (byte[] row : rows) {
+      keys.add(31 * tableHash + Arrays.hashCode(row));
+    }
+    return rowLocks.bulkGet(keys);
+  }
+
   public DB getTable(String tableName) throws IOException {
     ensureOpen();
     DB db = tables.get(tableName);
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.metrics;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.AbstractScheduledService;
+import com.google.inject.Inject;
+import io.cdap.cdap.api.dataset.DatasetManagementException;
+import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.data2.dataset2.DatasetFramework;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBNameConverter;
+import io.cdap.cdap.data2.util.TableId;
+import io.cdap.cdap.proto.DatasetSpecificationSummary;
+import io.cdap.cdap.proto.id.DatasetId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.apache.twill.common.Threads;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the memory used by in-memory datasets from the {@link InMemoryTableService}.
+ */
+public class InMemoryDatasetMetricsReporter extends AbstractScheduledService implements DatasetMetricsReporter {
+  private static final int BYTES_IN_MB = 1024 * 1024;
+
+  private final int reportIntervalInSec;
+  private final MetricsCollectionService metricsService;
+  private final DatasetFramework dsFramework;
+  private ScheduledExecutorService executor;
+
+  @Inject
+  public InMemoryDatasetMetricsReporter(MetricsCollectionService metricsService, DatasetFramework dsFramework,
+                                        CConfiguration conf) {
+    this.metricsService = metricsService;
+    this.reportIntervalInSec = conf.getInt(Constants.Metrics.Dataset.INMEMORY_STATS_REPORT_INTERVAL);
+    this.dsFramework = dsFramework;
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  protected void runOneIteration() throws Exception {
+    reportStats();
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    return Scheduler.newFixedRateSchedule(0, reportIntervalInSec, TimeUnit.SECONDS);
+  }
+
+  @Override
+  protected final ScheduledExecutorService executor() {
+    executor = Executors.newSingleThreadScheduledExecutor(
+      Threads.createDaemonThreadFactory("InMemoryDatasetMetricsReporter-scheduler"));
+    return executor;
+  }
+
+  private void reportStats() throws Exception {
+    Map<TableId, Long> tableSizes = new HashMap<>();
+    for (Map.Entry<String, InMemoryTableService.TableStats> entry : InMemoryTableService.getTableStats().entrySet()) {
+      TableId tableId;
+      try {
+        tableId = LevelDBNameConverter.from(entry.getKey());
+      } catch (IllegalArgumentException e) {
+        // not a namespaced dataset table, such as tables created directly by tests
+        continue;
+      }
+      tableSizes.put(tableId, entry.getValue().getMemorySizeBytes());
+    }
+    if (tableSizes.size() > 0) {
+      report(tableSizes);
+    }
+  }
+
+  private void report(Map<TableId, Long> tableSizes) throws DatasetManagementException {
+    // a dataset can be composed of multiple tables, hence sum up the sizes of all its tables
+    Map<DatasetId, Long> datasetSizes = new HashMap<>();
+    Map<String, Iterable<DatasetSpecificationSummary>> instancesByNamespace = new HashMap<>();
+    for (Map.Entry<TableId, Long> tableEntry : tableSizes.entrySet()) {
+      String namespace = tableEntry.getKey().getNamespace();
+      // emit metrics for only user datasets, tables in system namespace are ignored
+      if (NamespaceId.SYSTEM.getNamespace().equals(namespace)) {
+        continue;
+      }
+      String tableName = tableEntry.getKey().getTableName();
+
+      Iterable<DatasetSpecificationSummary> instances = instancesByNamespace.get(namespace);
+      if (instances == null) {
+        instances = dsFramework.getInstances(new NamespaceId(namespace));
+        instancesByNamespace.put(namespace, instances);
+      }
+      for (DatasetSpecificationSummary spec : instances) {
+        DatasetId datasetId = new DatasetId(namespace, spec.getName());
+        DatasetSpecification specification = dsFramework.getDatasetSpec(datasetId);
+        if (specification != null && specification.isParent(tableName)) {
+          datasetSizes.merge(datasetId, tableEntry.getValue(), Long::sum);
+          break;
+        }
+      }
+    }
+
+    for (Map.Entry<DatasetId, Long> datasetEntry : datasetSizes.entrySet()) {
+      DatasetId datasetId = datasetEntry.getKey();
+      MetricsContext collector =
+        metricsService.getContext(ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, datasetId.getNamespace(),
+                                                  Constants.Metrics.Tag.DATASET, datasetId.getDataset()));
+      // also report the exact size, as most in-memory datasets are smaller than a MB
+      collector.gauge("dataset.size.mb", datasetEntry.getValue() / BYTES_IN_MB);
+      collector.gauge("dataset.size.bytes", datasetEntry.getValue());
+    }
+  }
+}
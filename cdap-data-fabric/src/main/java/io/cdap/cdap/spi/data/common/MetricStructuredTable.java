@@ -16,10 +16,12 @@
 
 package io.cdap.cdap.spi.data.common;
 
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.metrics.MetricsCollector;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.spi.data.InvalidFieldException;
+import io.cdap.cdap.spi.data.SortOrder;
 import io.cdap.cdap.spi.data.StructuredRow;
 import io.cdap.cdap.spi.data.StructuredTable;
 import io.cdap.cdap.spi.data.table.StructuredTableId;
@@ -66,6 +68,25 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields)
+    throws InvalidFieldException, IOException {
+    try {
+      if (!emitTimeMetrics) {
+        structuredTable.multiUpsert(multiFields);
+      } else {
+        long curTime = System.nanoTime();
+        structuredTable.multiUpsert(multiFields);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multiUpsert.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multiUpsert.count", 1L);
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multiUpsert.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException, IOException {
     try {
@@ -107,6 +128,27 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    try {
+      Collection<StructuredRow> result;
+      if (!emitTimeMetrics) {
+        result = structuredTable.multiRead(multiKeys);
+      } else {
+        long curTime = System.nanoTime();
+        result = structuredTable.multiRead(multiKeys);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multiRead.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multiRead.count", 1L);
+      return result;
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multiRead.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException, IOException {
     try {
@@ -120,13 +162,34 @@ public class MetricStructuredTable implements StructuredTable {
         metricsCollector.increment(metricPrefix + "scan.time", duration);
       }
       metricsCollector.increment(metricPrefix + "scan.count", 1L);
-      return result;
+      return new RowCountingIterator(result, metricPrefix + "scan.rows");
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "scan.error", 1L);
+      throw e;
+    }
+  }
+  @Override
+  public CloseableIterator<StructuredRow> scan(Range keyRange, int limit, Collection<String> columns,
+                                               SortOrder sortOrder) throws InvalidFieldException, IOException {
+    try {
+      CloseableIterator<StructuredRow> result;
+      if (!emitTimeMetrics) {
+        result = structuredTable.scan(keyRange, limit, columns, sortOrder);
+      } else {
+        long curTime = System.nanoTime();
+        result = structuredTable.scan(keyRange, limit, columns, sortOrder);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "scan.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "scan.count", 1L);
+      return new RowCountingIterator(result, metricPrefix + "scan.rows");
     } catch (Exception e) {
       metricsCollector.increment(metricPrefix + "scan.error", 1L);
       throw e;
     }
   }
 
+
   @Override
   public CloseableIterator<StructuredRow> scan(Field<?> index) throws InvalidFieldException, IOException {
     try {
@@ -140,13 +203,34 @@ public class MetricStructuredTable implements StructuredTable {
         metricsCollector.increment(metricPrefix + "index.scan.time", duration);
       }
       metricsCollector.increment(metricPrefix + "index.scan.count", 1L);
-      return result;
+      return new RowCountingIterator(result, metricPrefix + "index.scan.rows");
     } catch (Exception e) {
       metricsCollector.increment(metricPrefix + "index.scan.error", 1L);
       throw e;
     }
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> scanIndex(Range indexRange,
+                                                    int limit) throws InvalidFieldException, IOException {
+    try {
+      CloseableIterator<StructuredRow> result;
+      if (!emitTimeMetrics) {
+        result = structuredTable.scanIndex(indexRange, limit);
+      } else {
+        long curTime = System.nanoTime();
+        result = structuredTable.scanIndex(indexRange, limit);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "index.range.scan.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "index.range.scan.count", 1L);
+      return new RowCountingIterator(result, metricPrefix + "index.range.scan.rows");
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "index.range.scan.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public boolean compareAndSwap(Collection<Field<?>> keys, Field<?> oldValue, Field<?> newValue)
     throws InvalidFieldException, IOException, IllegalArgumentException {
@@ -205,6 +289,25 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    try {
+      if (!emitTimeMetrics) {
+        structuredTable.multiDelete(multiKeys);
+      } else {
+        long curTime = System.nanoTime();
+        structuredTable.multiDelete(multiKeys);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multiDelete.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multiDelete.count", 1L);
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multiDelete.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public void deleteAll(Range keyRange) throws InvalidFieldException, IOException {
     try {
@@ -227,4 +330,36 @@ public class MetricStructuredTable implements StructuredTable {
   public void close() throws IOException {
     structuredTable.close();
   }
+
+  /**
+   * Emits the number of rows read from a scan when the scan is closed.
+   */
+  private final class RowCountingIterator extends AbstractCloseableIterator<StructuredRow> {
+    private final CloseableIterator<StructuredRow> delegate;
+    private final String metricName;
+    private long rows;
+
+    RowCountingIterator(CloseableIterator<StructuredRow> delegate, String metricName) {
+      this.delegate = delegate;
+      this.metricName = metricName;
+    }
+
+    @Override
+    protected StructuredRow computeNext() {
+      if (!delegate.hasNext()) {
+        return endOfData();
+      }
+      rows++;
+      return delegate.next();
+    }
+
+    @Override
+    public void close() {
+      try {
+        delegate.close();
+      } finally {
+        metricsCollector.increment(metricName, rows);
+      }
+    }
+  }
 }
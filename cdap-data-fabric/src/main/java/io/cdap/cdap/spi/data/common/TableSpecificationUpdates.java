@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.spi.data.common;
+
+import io.cdap.cdap.spi.data.table.StructuredTableSpecification;
+import io.cdap.cdap.spi.data.table.field.FieldType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility methods for the {@link io.cdap.cdap.spi.data.StructuredTableAdmin} implementations to validate updates
+ * of {@link StructuredTableSpecification}.
+ */
+public final class TableSpecificationUpdates {
+
+  private TableSpecificationUpdates() {
+    // no-op
+  }
+
+  /**
+   * Returns the fields that the new specification of a table adds to the existing specification.
+   *
+   * @param existing the specification the table currently has
+   * @param updated the new specification of the table
+   * @return the fields of the new specification that the existing one does not have
+   * @throws IllegalArgumentException if the new specification changes anything else than adding fields or
+   *                                  composite indexes
+   */
+  public static List<FieldType> getAddedFields(StructuredTableSpecification existing,
+                                               StructuredTableSpecification updated) {
+    validate(existing, updated);
+    List<FieldType> added = new ArrayList<>(updated.getFieldTypes());
+    added.removeAll(existing.getFieldTypes());
+    return added;
+  }
+
+  /**
+   * Returns the composite indexes that the new specification of a table adds to the existing specification.
+   *
+   * @param existing the specification the table currently has
+   * @param updated the new specification of the table
+   * @return the composite indexes of the new specification that the existing one does not have
+   * @throws IllegalArgumentException if the new specification changes anything else than adding fields or
+   *                                  composite indexes
+   */
+  public static List<List<String>> getAddedCompositeIndexes(StructuredTableSpecification existing,
+                                                            StructuredTableSpecification updated) {
+    validate(existing, updated);
+    List<List<String>> added = new ArrayList<>(updated.getCompositeIndexes());
+    added.removeAll(existing.getCompositeIndexes());
+    return added;
+  }
+
+  private static void validate(StructuredTableSpecification existing, StructuredTableSpecification updated) {
+    if (!existing.getTableId().equals(updated.getTableId())
+      || !existing.getPrimaryKeys().equals(updated.getPrimaryKeys())
+      || !existing.getIndexes().equals(updated.getIndexes())) {
+      throw new IllegalArgumentException(
+        String.format("Cannot update table %s from %s to %s. Only fields and composite indexes can be added to a table",
+                      existing.getTableId(), existing, updated));
+    }
+    if (!updated.getFieldTypes().containsAll(existing.getFieldTypes())) {
+      throw new IllegalArgumentException(
+        String.format("Cannot remove or change fields of table %s. Existing fields are %s, new fields are %s",
+                      existing.getTableId(), existing.getFieldTypes(), updated.getFieldTypes()));
+    }
+    if (!updated.getCompositeIndexes().containsAll(existing.getCompositeIndexes())) {
+      throw new IllegalArgumentException(
+        String.format("Cannot remove composite indexes from table %s. Existing indexes are %s, new indexes are %s",
+                      existing.getTableId(), existing.getCompositeIndexes(), updated.getCompositeIndexes()));
+    }
+  }
+}
@@ -21,13 +21,17 @@ import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.dataset.lib.IndexedTable;
+import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.api.dataset.table.Put;
+import io.cdap.cdap.api.dataset.table.Result;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.data2.dataset2.lib.table.MDSKey;
 import io.cdap.cdap.spi.data.InvalidFieldException;
+import io.cdap.cdap.spi.data.SortOrder;
 import io.cdap.cdap.spi.data.StructuredRow;
 import io.cdap.cdap.spi.data.StructuredTable;
+import io.cdap.cdap.spi.data.table.StructuredTableId;
 import io.cdap.cdap.spi.data.table.StructuredTableSchema;
 import io.cdap.cdap.spi.data.table.field.Field;
 import io.cdap.cdap.spi.data.table.field.FieldType;
@@ -37,11 +41,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Nosql structured table implementation. This table will prepend the table name as the prefix for each row key.
@@ -57,16 +69,32 @@ public final class NoSqlStructuredTable implements StructuredTable {
   public NoSqlStructuredTable(IndexedTable table, StructuredTableSchema schema) {
     this.table = table;
     this.schema = schema;
-    this.keyPrefix = new MDSKey.Builder().add(schema.getTableId().getName()).build();
+    this.keyPrefix = new MDSKey(getRowKeyPrefix(schema.getTableId()));
     this.fieldValidator = new FieldValidator(schema);
   }
 
+  /**
+   * Returns the prefix of the row keys of all rows of the given table.
+   */
+  static byte[] getRowKeyPrefix(StructuredTableId tableId) {
+    return new MDSKey.Builder().add(tableId.getName()).build().getKey();
+  }
+
   @Override
   public void upsert(Collection<Field<?>> fields) throws InvalidFieldException {
     LOG.trace("Table {}: Write fields {}", schema.getTableId(), fields);
     table.put(convertFieldsToBytes(fields));
   }
 
+  @Override
+  public void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields) throws InvalidFieldException {
+    LOG.trace("Table {}: Write multiple fields {}", schema.getTableId(), multiFields);
+    // writes are buffered by the table until the transaction commits, hence there is no round trip per row
+    for (Collection<Field<?>> fields : multiFields) {
+      table.put(convertFieldsToBytes(fields));
+    }
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException {
     LOG.trace("Table {}: Read with keys {}", schema.getTableId(), keys);
@@ -86,12 +114,67 @@ public final class NoSqlStructuredTable implements StructuredTable {
     return row.isEmpty() ? Optional.empty() : Optional.of(new NoSqlStructuredRow(row, schema));
   }
 
+  @Override
+  public Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException {
+    LOG.trace("Table {}: Read with multiple keys {}", schema.getTableId(), multiKeys);
+    List<Get> gets = new ArrayList<>(multiKeys.size());
+    for (Collection<Field<?>> keys : multiKeys) {
+      gets.add(new Get(convertKeyToBytes(keys, false)));
+    }
+    List<StructuredRow> result = new ArrayList<>(gets.size());
+    for (Row row : table.get(gets)) {
+      if (!row.isEmpty()) {
+        result.add(new NoSqlStructuredRow(row, schema));
+      }
+    }
+    return result;
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException {
     LOG.trace("Table {}: Scan range {} with limit {}", schema.getTableId(), keyRange, limit);
     return new LimitIterator(new ScannerIterator(getScanner(keyRange), schema), limit);
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> scan(Range keyRange, int limit, Collection<String> columns,
+                                               SortOrder sortOrder) throws InvalidFieldException {
+    LOG.trace("Table {}: Scan range {} with limit {}, columns {} and order {}", schema.getTableId(), keyRange, limit,
+              columns, sortOrder);
+    ScannerIterator iterator = new ScannerIterator(getScanner(keyRange), schema, convertColumnsToBytes(columns));
+    if (sortOrder == SortOrder.ASC) {
+      return new LimitIterator(iterator, limit);
+    }
+
+    // The table can only be scanned in ascending order, hence only the last rows of the range up to the limit are
+    // kept while scanning, and are then returned in reverse order. This reads the entire range, however large it is
+    // compared to the limit.
+    Deque<StructuredRow> rows = new ArrayDeque<>();
+    try {
+      while (limit > 0 && iterator.hasNext()) {
+        if (rows.size() == limit) {
+          rows.pollFirst();
+        }
+        rows.addLast(iterator.next());
+      }
+    } finally {
+      iterator.close();
+    }
+    Iterator<StructuredRow> descending = rows.descendingIterator();
+    return new AbstractCloseableIterator<StructuredRow>() {
+      @Override
+      protected StructuredRow computeNext() {
+        return descending.hasNext() ? descending.next() : endOfData();
+      }
+
+      @Override
+      public void close() {
+        // no-op
+      }
+    };
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Field<?> index) throws InvalidFieldException {
     LOG.trace("Table {}: Scan index {}", schema.getTableId(), index);
@@ -104,6 +187,18 @@ public final class NoSqlStructuredTable implements StructuredTable {
     return new ScannerIterator(scanner, schema);
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> scanIndex(Range indexRange, int limit) throws InvalidFieldException {
+    LOG.trace("Table {}: Scan index range {} with limit {}", schema.getTableId(), indexRange, limit);
+    List<String> compositeIndex = fieldValidator.validateCompositeIndexRange(indexRange);
+    Scanner scanner = table.scanByCompositeIndex(NoSqlStructuredTableContext.getCompositeIndexName(compositeIndex),
+                                                 fieldsToBytes(indexRange.getBegin()),
+                                                 indexRange.getBeginBound() == Range.Bound.INCLUSIVE,
+                                                 fieldsToBytes(indexRange.getEnd()),
+                                                 indexRange.getEndBound() == Range.Bound.INCLUSIVE);
+    return new LimitIterator(new ScannerIterator(scanner, schema), limit);
+  }
+
   @Override
   public boolean compareAndSwap(Collection<Field<?>> keys, Field<?> oldValue, Field<?> newValue) {
     LOG.trace("Table {}: CompareAndSwap with keys {}, oldValue {}, newValue {}", schema.getTableId(), keys,
@@ -152,6 +247,14 @@ public final class NoSqlStructuredTable implements StructuredTable {
     table.delete(convertKeyToBytes(keys, false));
   }
 
+  @Override
+  public void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys) throws InvalidFieldException {
+    LOG.trace("Table {}: Delete with multiple keys {}", schema.getTableId(), multiKeys);
+    for (Collection<Field<?>> keys : multiKeys) {
+      table.delete(convertKeyToBytes(keys, false));
+    }
+  }
+
   @Override
   public void deleteAll(Range keyRange) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: DeleteAll with range {}", schema.getTableId(), keyRange);
@@ -163,6 +266,38 @@ public final class NoSqlStructuredTable implements StructuredTable {
     }
   }
 
+  /**
+   * Rewrites a batch of the rows of this table, so that they are added to all the indexes of the table. This is used
+   * to add the existing rows to composite indexes that are added to the table.
+   *
+   * @param startRow the row key to start from, {@code null} to start from the first row of the table
+   * @param limit the maximum number of rows to rewrite
+   * @return the row key to continue from with the next batch, or {@code null} if all rows are rewritten
+   */
+  @Nullable
+  byte[] reindex(@Nullable byte[] startRow, int limit) {
+    byte[] stopRow = Bytes.stopKeyForPrefix(keyPrefix.getKey());
+    List<Row> rows = new ArrayList<>();
+    try (Scanner scanner = table.scan(startRow == null ? keyPrefix.getKey() : startRow, stopRow)) {
+      Row row;
+      while (rows.size() < limit && (row = scanner.next()) != null) {
+        rows.add(row);
+      }
+    }
+
+    for (Row row : rows) {
+      Put put = new Put(row.getRow());
+      for (Map.Entry<byte[], byte[]> column : row.getColumns().entrySet()) {
+        put.add(column.getKey(), column.getValue());
+      }
+      addCompositeIndexKeyColumns(put, new NoSqlStructuredRow(row, schema).getPrimaryKeys());
+      // an unchanged row is not indexed again by the put, hence the row is deleted first
+      table.delete(row.getRow());
+      table.put(put);
+    }
+    return rows.size() < limit ? null : Bytes.add(rows.get(rows.size() - 1).getRow(), new byte[] { 0 });
+  }
+
   @Override
   public void close() throws IOException {
     table.close();
@@ -247,9 +382,31 @@ public final class NoSqlStructuredTable implements StructuredTable {
     for (int index = 0; index < columns.length; index++) {
       put.add(columns[index], values[index]);
     }
+    addCompositeIndexKeyColumns(put, fields);
     return put;
   }
 
+  /**
+   * Adds the primary keys that are part of a composite index as columns to the put. The primary keys are otherwise
+   * only stored in the row key, which the composite indexes cannot be built from.
+   */
+  private void addCompositeIndexKeyColumns(Put put, Collection<Field<?>> fields) throws InvalidFieldException {
+    for (Field<?> field : fields) {
+      if (schema.isPrimaryKeyColumn(field.getName()) && schema.isCompositeIndexColumn(field.getName())) {
+        put.add(Bytes.toBytes(field.getName()), fieldToBytes(field));
+      }
+    }
+  }
+
+  private byte[][] fieldsToBytes(Collection<Field<?>> fields) throws InvalidFieldException {
+    byte[][] bytes = new byte[fields.size()][];
+    int i = 0;
+    for (Field<?> field : fields) {
+      bytes[i++] = fieldToBytes(field);
+    }
+    return bytes;
+  }
+
   private void addKey(MDSKey.Builder key, Field<?> field, FieldType.Type type) throws InvalidFieldException {
     if (field.getValue() == null) {
       throw new InvalidFieldException(schema.getTableId(), field.getName(), "is a primary key and value is null");
@@ -356,10 +513,19 @@ public final class NoSqlStructuredTable implements StructuredTable {
   static final class ScannerIterator extends AbstractCloseableIterator<StructuredRow> {
     private final Scanner scanner;
     private final StructuredTableSchema schema;
+    private final byte[][] columns;
 
     ScannerIterator(Scanner scanner, StructuredTableSchema schema) {
+      this(scanner, schema, null);
+    }
+
+    /**
+     * Creates an iterator that only keeps the given columns of the rows, if columns are given.
+     */
+    ScannerIterator(Scanner scanner, StructuredTableSchema schema, @Nullable byte[][] columns) {
       this.scanner = scanner;
       this.schema = schema;
+      this.columns = columns;
     }
 
     @Override
@@ -368,6 +534,16 @@ public final class NoSqlStructuredTable implements StructuredTable {
       if (row == null) {
         return endOfData();
       }
+      if (columns != null) {
+        Map<byte[], byte[]> values = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        for (byte[] column : columns) {
+          byte[] value = row.get(column);
+          if (value != null) {
+            values.put(column, value);
+          }
+        }
+        row = new Result(row.getRow(), values);
+      }
       return new NoSqlStructuredRow(row, schema);
     }
 
@@ -16,8 +16,14 @@
 
 package io.cdap.cdap.spi.data.nosql;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
+import io.cdap.cdap.api.Transactional;
+import io.cdap.cdap.api.Transactionals;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.Dataset;
 import io.cdap.cdap.api.dataset.DatasetAdmin;
 import io.cdap.cdap.api.dataset.DatasetContext;
 import io.cdap.cdap.api.dataset.DatasetDefinition;
@@ -29,14 +35,21 @@ import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.spi.data.StructuredTableAdmin;
 import io.cdap.cdap.spi.data.TableAlreadyExistsException;
+import io.cdap.cdap.spi.data.TableNotFoundException;
+import io.cdap.cdap.spi.data.common.TableSpecificationUpdates;
+import io.cdap.cdap.spi.data.nosql.dataset.NoSQLTransactionals;
+import io.cdap.cdap.spi.data.nosql.dataset.TableDatasetSupplier;
 import io.cdap.cdap.spi.data.table.StructuredTableId;
 import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
+import io.cdap.cdap.spi.data.table.StructuredTableSchema;
 import io.cdap.cdap.spi.data.table.StructuredTableSpecification;
+import org.apache.tephra.TransactionSystemClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * The Nosql admin will use the existing dataset framework to create and drop tables.
@@ -47,15 +60,22 @@ public final class NoSqlStructuredTableAdmin implements StructuredTableAdmin {
   private static final DatasetContext SYSTEM_CONTEXT = DatasetContext.from(NamespaceId.SYSTEM.getNamespace());
 
   static final String ENTITY_TABLE_NAME = "entity.store";
+  private static final int REINDEX_BATCH_SIZE = 1000;
+  private static final byte[] REINDEX_ROW_PREFIX = {(byte) 0xff};
+  private static final byte[] REINDEX_START_COLUMN = Bytes.toBytes("reindex.start");
+  // Arguments to access the rows that keep the progress of reindexes, which are not part of any index
+  private static final Map<String, String> NO_INDEX_ARGUMENTS =
+    ImmutableMap.of(IndexedTable.INDEX_COLUMNS_CONF_KEY, "", IndexedTable.DYNAMIC_INDEXING_PREFIX, "");
 
   private final NoSqlStructuredTableDatasetDefinition indexTableDefinition;
   private final DatasetSpecification indexTableSpec;
   private final StructuredTableRegistry registry;
+  private final TransactionSystemClient txClient;
 
   @Inject
   public NoSqlStructuredTableAdmin(
     @Named(Constants.Dataset.TABLE_TYPE) DatasetDefinition tableDefinition,
-    StructuredTableRegistry registry) {
+    StructuredTableRegistry registry, TransactionSystemClient txClient) {
     //noinspection unchecked - due to the guice binding we know that the tableDefinition is of the right type
     this.indexTableDefinition =
       new NoSqlStructuredTableDatasetDefinition(new IndexedTableDefinition("indexedTable", tableDefinition));
@@ -63,6 +83,7 @@ public final class NoSqlStructuredTableAdmin implements StructuredTableAdmin {
       indexTableDefinition.configure(ENTITY_TABLE_NAME,
                                      DatasetProperties.builder().add(IndexedTable.DYNAMIC_INDEXING, "true").build());
     this.registry = registry;
+    this.txClient = txClient;
   }
 
   @Override
@@ -79,6 +100,44 @@ public final class NoSqlStructuredTableAdmin implements StructuredTableAdmin {
     registry.registerSpecification(spec);
   }
 
+  @Override
+  public void update(StructuredTableSpecification spec) throws IOException {
+    StructuredTableSpecification existing = registry.getSpecification(spec.getTableId());
+    if (existing == null) {
+      throw new TableNotFoundException(spec.getTableId());
+    }
+    boolean fieldsAdded = !TableSpecificationUpdates.getAddedFields(existing, spec).isEmpty();
+    boolean indexesAdded = !TableSpecificationUpdates.getAddedCompositeIndexes(existing, spec).isEmpty();
+    if (!fieldsAdded && !indexesAdded) {
+      // Complete the reindex of a previous update that did not finish
+      byte[] startRow = getReindexStart(existing.getTableId());
+      if (startRow != null) {
+        LOG.info("Resuming the reindex of table {} in namespace {}", spec.getTableId(), NamespaceId.SYSTEM);
+        reindex(existing, startRow);
+      }
+      return;
+    }
+
+    LOG.info("Updating table {} in namespace {} to {}", spec.getTableId(), NamespaceId.SYSTEM, spec);
+    if (indexesAdded) {
+      // Persist that the existing rows need to be reindexed before registering the new specification, so that
+      // the reindex is resumed by the next update if it does not complete
+      setReindexStart(spec.getTableId(), NoSqlStructuredTable.getRowKeyPrefix(spec.getTableId()));
+    }
+    // Register the new specification before the reindex, so that rows written from now on are added to the new
+    // indexes. Rows are stored by column name, hence new fields only need the new specification.
+    registry.removeSpecification(spec.getTableId());
+    try {
+      registry.registerSpecification(spec);
+    } catch (TableAlreadyExistsException e) {
+      // This can only happen if the table is updated concurrently
+      throw new IOException(String.format("Table %s was updated concurrently", spec.getTableId()), e);
+    }
+    if (indexesAdded) {
+      reindex(spec, NoSqlStructuredTable.getRowKeyPrefix(spec.getTableId()));
+    }
+  }
+
   @Override
   public StructuredTableSpecification getSpecification(StructuredTableId tableId) {
     return registry.getSpecification(tableId);
@@ -92,7 +151,76 @@ public final class NoSqlStructuredTableAdmin implements StructuredTableAdmin {
       DatasetAdmin admin = indexTableDefinition.getAdmin(SYSTEM_CONTEXT, indexTableSpec, null);
       LOG.info("Dropping dataset indexed table {} in namespace {}", indexTableSpec.getName(), NamespaceId.SYSTEM);
       admin.drop();
+      return;
     }
+    // Remove the progress of a reindex that did not complete, which is not needed anymore
+    Transactionals.execute(createTransactional(), context -> {
+      IndexedTable entityTable = context.getDataset(ENTITY_TABLE_NAME, NO_INDEX_ARGUMENTS);
+      entityTable.delete(getReindexRowKey(tableId));
+    }, IOException.class);
+  }
+
+  /**
+   * Adds the existing rows of a table to all its indexes, with a transaction for each batch of rows. The row to
+   * continue from is persisted in the same transaction as each batch, and removed with the last batch.
+   *
+   * @param spec the specification of the table
+   * @param startRow the row to start from
+   */
+  private void reindex(StructuredTableSpecification spec, byte[] startRow) throws IOException {
+    Map<String, String> arguments = NoSqlStructuredTableContext.getDatasetArguments(spec);
+    StructuredTableSchema schema = new StructuredTableSchema(spec);
+    byte[] reindexRow = getReindexRowKey(spec.getTableId());
+    byte[] nextRow = startRow;
+    do {
+      byte[] batchStart = nextRow;
+      nextRow = Transactionals.execute(createTransactional(), context -> {
+        IndexedTable entityTable = context.getDataset(ENTITY_TABLE_NAME, arguments);
+        byte[] next = new NoSqlStructuredTable(entityTable, schema).reindex(batchStart, REINDEX_BATCH_SIZE);
+        if (next == null) {
+          entityTable.delete(reindexRow);
+          return null;
+        }
+        entityTable.put(reindexRow, REINDEX_START_COLUMN, next);
+        return next;
+      }, IOException.class);
+    } while (nextRow != null);
+  }
+
+  /**
+   * Returns the row to continue the reindex of a table from, or {@code null} if the table needs no reindex.
+   */
+  @Nullable
+  private byte[] getReindexStart(StructuredTableId tableId) throws IOException {
+    return Transactionals.execute(createTransactional(), context -> {
+      IndexedTable entityTable = context.getDataset(ENTITY_TABLE_NAME, NO_INDEX_ARGUMENTS);
+      return entityTable.get(getReindexRowKey(tableId), REINDEX_START_COLUMN);
+    }, IOException.class);
+  }
+
+  @VisibleForTesting
+  void setReindexStart(StructuredTableId tableId, byte[] startRow) throws IOException {
+    Transactionals.execute(createTransactional(), context -> {
+      IndexedTable entityTable = context.getDataset(ENTITY_TABLE_NAME, NO_INDEX_ARGUMENTS);
+      entityTable.put(getReindexRowKey(tableId), REINDEX_START_COLUMN, startRow);
+    }, IOException.class);
+  }
+
+  /**
+   * Returns the row of the entity table that keeps the progress of the reindex of a table. It starts with a byte that
+   * no row of a table starts with, as those start with the length of the table name.
+   */
+  private static byte[] getReindexRowKey(StructuredTableId tableId) {
+    return Bytes.add(REINDEX_ROW_PREFIX, Bytes.toBytes(tableId.getName()));
+  }
+
+  private Transactional createTransactional() {
+    return NoSQLTransactionals.createTransactional(txClient, new TableDatasetSupplier() {
+      @Override
+      public <T extends Dataset> T getTableDataset(String name, Map<String, String> arguments) throws IOException {
+        return getEntityTable(arguments);
+      }
+    });
   }
 
   <T> T getEntityTable(Map<String, String> arguments) throws IOException {
@@ -31,7 +31,9 @@ import io.cdap.cdap.spi.data.table.StructuredTableSchema;
 import io.cdap.cdap.spi.data.table.StructuredTableSpecification;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * The nosql context to get the table.
@@ -59,17 +61,9 @@ public class NoSqlStructuredTableContext implements StructuredTableContext {
         throw new TableNotFoundException(tableId);
       }
 
-      Map<String, String> arguments = new HashMap<>();
-      if (specification.getIndexes().isEmpty()) {
-        // No indexes on the table
-        arguments.put(IndexedTable.INDEX_COLUMNS_CONF_KEY, "");
-        arguments.put(IndexedTable.DYNAMIC_INDEXING_PREFIX, "");
-      } else {
-        arguments.put(IndexedTable.INDEX_COLUMNS_CONF_KEY, Joiner.on(",").join(specification.getIndexes()));
-        arguments.put(IndexedTable.DYNAMIC_INDEXING_PREFIX, tableId.getName());
-      }
       StructuredTable table =
-        new NoSqlStructuredTable(datasetContext.getDataset(NoSqlStructuredTableAdmin.ENTITY_TABLE_NAME, arguments),
+        new NoSqlStructuredTable(datasetContext.getDataset(NoSqlStructuredTableAdmin.ENTITY_TABLE_NAME,
+                                                           getDatasetArguments(specification)),
                                  new StructuredTableSchema(specification));
       return new MetricStructuredTable(tableId, table, metricsCollector, emitTimeMetrics);
     } catch (DatasetInstantiationException e) {
@@ -77,4 +71,35 @@ public class NoSqlStructuredTableContext implements StructuredTableContext {
         tableId, String.format("Error instantiating table %s", tableId), e);
     }
   }
+
+  /**
+   * Returns the runtime arguments of the entity table that configure the indexes of the given table.
+   */
+  static Map<String, String> getDatasetArguments(StructuredTableSpecification specification) {
+    Map<String, String> arguments = new HashMap<>();
+    if (specification.getIndexes().isEmpty() && specification.getCompositeIndexes().isEmpty()) {
+      // No indexes on the table
+      arguments.put(IndexedTable.INDEX_COLUMNS_CONF_KEY, "");
+      arguments.put(IndexedTable.DYNAMIC_INDEXING_PREFIX, "");
+      return arguments;
+    }
+
+    arguments.put(IndexedTable.INDEX_COLUMNS_CONF_KEY, Joiner.on(",").join(specification.getIndexes()));
+    arguments.put(IndexedTable.DYNAMIC_INDEXING_PREFIX, specification.getTableId().getName());
+    if (!specification.getCompositeIndexes().isEmpty()) {
+      // each composite index is named by its columns, e.g. "status.start=status,start"
+      arguments.put(IndexedTable.COMPOSITE_INDEXES_CONF_KEY,
+                    specification.getCompositeIndexes().stream()
+                      .map(columns -> getCompositeIndexName(columns) + "=" + Joiner.on(",").join(columns))
+                      .collect(Collectors.joining(";")));
+    }
+    return arguments;
+  }
+
+  /**
+   * Returns the name of the {@link IndexedTable} composite index with the given columns.
+   */
+  static String getCompositeIndexName(List<String> columns) {
+    return Joiner.on(".").join(columns);
+  }
 }
@@ -20,6 +20,7 @@ import com.google.common.base.Joiner;
 import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.spi.data.InvalidFieldException;
+import io.cdap.cdap.spi.data.SortOrder;
 import io.cdap.cdap.spi.data.StructuredRow;
 import io.cdap.cdap.spi.data.StructuredTable;
 import io.cdap.cdap.spi.data.table.StructuredTableSchema;
@@ -44,6 +45,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -57,15 +59,27 @@ import javax.annotation.Nullable;
  */
 public class PostgresSqlStructuredTable implements StructuredTable {
   private static final Logger LOG = LoggerFactory.getLogger(PostgresSqlStructuredTable.class);
+  // maximum number of rows addressed by a single multi-row statement, to stay below the limit of parameters
+  private static final int MAX_ROWS_PER_STATEMENT = 1000;
 
   private final Connection connection;
   private final StructuredTableSchema tableSchema;
   private final FieldValidator fieldValidator;
+  private final int scanFetchSize;
 
-  public PostgresSqlStructuredTable(Connection connection, StructuredTableSchema tableSchema) {
+  /**
+   * Creates a table that operates with the given connection. Scans are only streamed if auto-commit is disabled on
+   * the connection, otherwise the JDBC driver reads all the rows of a scan into memory at once.
+   *
+   * @param connection the connection to the database
+   * @param tableSchema the schema of the table
+   * @param scanFetchSize the number of rows to fetch from the database at a time while iterating over a scan
+   */
+  public PostgresSqlStructuredTable(Connection connection, StructuredTableSchema tableSchema, int scanFetchSize) {
     this.connection = connection;
     this.tableSchema = tableSchema;
     this.fieldValidator = new FieldValidator(tableSchema);
+    this.scanFetchSize = scanFetchSize;
   }
 
   @Override
@@ -80,6 +94,51 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     upsertInternal(fields);
   }
 
+  @Override
+  public void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Write multiple fields {}", tableSchema.getTableId(), multiFields);
+    // rows with the same columns are written with one batch of the same statement. A new batch is started whenever
+    // the columns change, so that the rows are written in the order they are given.
+    String batchQuery = null;
+    PreparedStatement statement = null;
+    try {
+      for (Collection<Field<?>> fields : multiFields) {
+        Set<String> fieldNames = fields.stream().map(Field::getName).collect(Collectors.toSet());
+        if (!fieldNames.containsAll(tableSchema.getPrimaryKeys())) {
+          throw new InvalidFieldException(tableSchema.getTableId(), fields,
+                                          String.format("Given fields %s do not contain all the " +
+                                                          "primary keys %s", fieldNames,
+                                                        tableSchema.getPrimaryKeys()));
+        }
+        String sqlQuery = getWriteSqlQuery(fields, null);
+        if (!sqlQuery.equals(batchQuery)) {
+          if (statement != null) {
+            statement.executeBatch();
+            statement.close();
+          }
+          statement = connection.prepareStatement(sqlQuery);
+          batchQuery = sqlQuery;
+        }
+        int index = 1;
+        for (Field<?> field : fields) {
+          setField(statement, field, index);
+          index++;
+        }
+        statement.addBatch();
+      }
+      if (statement != null) {
+        LOG.trace("SQL statement: {}", statement);
+        statement.executeBatch();
+      }
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to write to table %s with multiple fields %s",
+                                          tableSchema.getTableId().getName(), multiFields), e);
+    } finally {
+      closeQuietly(statement);
+    }
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException, IOException {
     return readRow(keys, null);
@@ -98,16 +157,68 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     return readRow(keys, columnFields);
   }
 
+  @Override
+  public Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Read with multiple keys {}", tableSchema.getTableId(), multiKeys);
+    List<StructuredRow> result = new ArrayList<>(multiKeys.size());
+    for (List<Collection<Field<?>>> keysBatch : partitionKeys(multiKeys)) {
+      String readQuery = "SELECT * FROM " + tableSchema.getTableId().getName()
+        + " WHERE " + getInClause(keysBatch.size()) + ";";
+      try (PreparedStatement statement = connection.prepareStatement(readQuery)) {
+        setKeys(statement, keysBatch);
+        LOG.trace("SQL statement: {}", statement);
+        try (ResultSet resultSet = statement.executeQuery()) {
+          ResultSetMetaData metaData = resultSet.getMetaData();
+          int numCols = metaData.getColumnCount();
+          while (resultSet.next()) {
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 1; i <= numCols; i++) {
+              row.put(metaData.getColumnName(i), resultSet.getObject(i));
+            }
+            result.add(new SqlStructuredRow(tableSchema, row));
+          }
+        }
+      } catch (SQLException e) {
+        throw new IOException(String.format("Failed to read from table %s with multiple keys %s",
+                                            tableSchema.getTableId().getName(), keysBatch), e);
+      }
+    }
+    return result;
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: Scan range {} with limit {}", tableSchema.getTableId(), keyRange, limit);
+    return scanInternal(keyRange, limit, null, SortOrder.ASC);
+  }
+
+  @Override
+  public CloseableIterator<StructuredRow> scan(Range keyRange, int limit, Collection<String> columns,
+                                               SortOrder sortOrder) throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Scan range {} with limit {}, columns {} and order {}", tableSchema.getTableId(), keyRange,
+              limit, columns, sortOrder);
+    // always have the primary key fields included in the columns
+    Set<String> columnFields = new LinkedHashSet<>(tableSchema.getPrimaryKeys());
+    for (String column : columns) {
+      if (tableSchema.getType(column) == null) {
+        throw new InvalidFieldException(tableSchema.getTableId(), column);
+      }
+      columnFields.add(column);
+    }
+    return scanInternal(keyRange, limit, columnFields, sortOrder);
+  }
+
+  private CloseableIterator<StructuredRow> scanInternal(Range keyRange, int limit, @Nullable Collection<String> columns,
+                                                        SortOrder sortOrder) throws InvalidFieldException, IOException {
     fieldValidator.validatePrimaryKeys(keyRange.getBegin(), true);
     fieldValidator.validatePrimaryKeys(keyRange.getEnd(), true);
-    String scanQuery = getScanQuery(keyRange, limit);
+    String scanQuery = getScanQuery(keyRange, limit, columns, sortOrder);
 
     // We don't close the statement here because once it is closed, the result set is also closed.
+    PreparedStatement statement = null;
     try {
-      PreparedStatement statement = connection.prepareStatement(scanQuery);
+      statement = prepareScanStatement(scanQuery, limit);
       int index = 1;
       if (keyRange.getBegin() != null) {
         for (Field<?> key : keyRange.getBegin()) {
@@ -125,6 +236,7 @@ public class PostgresSqlStructuredTable implements StructuredTable {
       ResultSet resultSet = statement.executeQuery();
       return new ResultSetIterator(statement, resultSet, tableSchema);
     } catch (SQLException e) {
+      closeQuietly(statement);
       throw new IOException(String.format("Failed to scan from table %s with range %s",
                                           tableSchema.getTableId().getName(), keyRange), e);
     }
@@ -140,18 +252,50 @@ public class PostgresSqlStructuredTable implements StructuredTable {
 
     String sql = getReadQuery(Collections.singleton(index), null, false);
     // We don't close the statement here because once it is closed, the result set is also closed.
+    PreparedStatement statement = null;
     try {
-      PreparedStatement statement = connection.prepareStatement(sql);
+      statement = prepareScanStatement(sql, Integer.MAX_VALUE);
       setField(statement, index, 1);
       LOG.trace("SQL statement: {}", statement);
       ResultSet resultSet = statement.executeQuery();
       return new ResultSetIterator(statement, resultSet, tableSchema);
     } catch (SQLException e) {
+      closeQuietly(statement);
       throw new IOException(String.format("Failed to scan from table %s with index %s",
                                           tableSchema.getTableId().getName(), index), e);
     }
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> scanIndex(Range indexRange,
+                                                    int limit) throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Scan index range {} with limit {}", tableSchema.getTableId(), indexRange, limit);
+    List<String> compositeIndex = fieldValidator.validateCompositeIndexRange(indexRange);
+    String scanQuery = getIndexScanQuery(indexRange, compositeIndex, limit);
+
+    // We don't close the statement here because once it is closed, the result set is also closed.
+    PreparedStatement statement = null;
+    try {
+      statement = prepareScanStatement(scanQuery, limit);
+      int index = 1;
+      for (Field<?> field : indexRange.getBegin()) {
+        setField(statement, field, index);
+        index++;
+      }
+      for (Field<?> field : indexRange.getEnd()) {
+        setField(statement, field, index);
+        index++;
+      }
+      LOG.trace("SQL statement: {}", statement);
+      ResultSet resultSet = statement.executeQuery();
+      return new ResultSetIterator(statement, resultSet, tableSchema);
+    } catch (SQLException e) {
+      closeQuietly(statement);
+      throw new IOException(String.format("Failed to scan from table %s with index range %s",
+                                          tableSchema.getTableId().getName(), indexRange), e);
+    }
+  }
+
   @Override
   public boolean compareAndSwap(Collection<Field<?>> keys, Field<?> oldValue, Field<?> newValue)
     throws InvalidFieldException, IOException {
@@ -266,6 +410,24 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Delete with multiple keys {}", tableSchema.getTableId(), multiKeys);
+    for (List<Collection<Field<?>>> keysBatch : partitionKeys(multiKeys)) {
+      String sqlQuery = "DELETE FROM " + tableSchema.getTableId().getName()
+        + " WHERE " + getInClause(keysBatch.size()) + ";";
+      try (PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
+        setKeys(statement, keysBatch);
+        LOG.trace("SQL statement: {}", statement);
+        statement.executeUpdate();
+      } catch (SQLException e) {
+        throw new IOException(String.format("Failed to delete the rows from table %s with multiple keys %s",
+                                            tableSchema.getTableId().getName(), keysBatch), e);
+      }
+    }
+  }
+
   @Override
   public void deleteAll(Range keyRange) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: DeleteAll with range {}", tableSchema.getTableId(), keyRange);
@@ -303,6 +465,33 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
   }
 
+  /**
+   * Prepares a statement for a scan, such that the rows are streamed from the database with a cursor, instead of
+   * fetching all the rows of the result when the query is executed.
+   *
+   * @param sql the scan query
+   * @param limit the maximum number of rows the query returns
+   * @return the prepared statement
+   */
+  private PreparedStatement prepareScanStatement(String sql, int limit) throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                                                              ResultSet.CONCUR_READ_ONLY);
+    // no need to fetch more rows than the limit
+    statement.setFetchSize(Math.max(1, Math.min(scanFetchSize, limit)));
+    return statement;
+  }
+
+  private static void closeQuietly(@Nullable Statement statement) {
+    if (statement == null) {
+      return;
+    }
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      LOG.warn("Failed to close the SQL statement", e);
+    }
+  }
+
   private void upsertInternal(Collection<Field<?>> fields) throws IOException {
     String sqlQuery = getWriteSqlQuery(fields, null);
     try (PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
@@ -319,6 +508,38 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
   }
 
+  /**
+   * Validates the given primary keys, and partitions them into batches that can be addressed by a single statement.
+   */
+  private List<List<Collection<Field<?>>>> partitionKeys(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException {
+    List<List<Collection<Field<?>>>> batches = new ArrayList<>();
+    List<Collection<Field<?>>> batch = new ArrayList<>();
+    for (Collection<Field<?>> keys : multiKeys) {
+      fieldValidator.validatePrimaryKeys(keys, false);
+      if (batch.size() == MAX_ROWS_PER_STATEMENT) {
+        batches.add(batch);
+        batch = new ArrayList<>();
+      }
+      batch.add(keys);
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch);
+    }
+    return batches;
+  }
+
+  private void setKeys(PreparedStatement statement,
+                       Collection<Collection<Field<?>>> multiKeys) throws SQLException, InvalidFieldException {
+    int index = 1;
+    for (Collection<Field<?>> keys : multiKeys) {
+      for (Field<?> key : keys) {
+        setField(statement, key, index);
+        index++;
+      }
+    }
+  }
+
   /**
    * Read a row from the table. Null columns mean read from all columns.
    *
@@ -467,20 +688,67 @@ public class PostgresSqlStructuredTable implements StructuredTable {
    *
    * @param range the range to scan.
    * @param limit limit number of row
+   * @param columns the columns to select, null to select all columns
+   * @param sortOrder the order of the primary keys to return the rows in
    * @return the scan query
    */
-  private String getScanQuery(Range range, int limit) {
-    StringBuilder queryString = new StringBuilder("SELECT * FROM ").append(tableSchema.getTableId().getName());
+  private String getScanQuery(Range range, int limit, @Nullable Collection<String> columns, SortOrder sortOrder) {
+    StringBuilder queryString =
+      new StringBuilder("SELECT ")
+        .append(columns == null ? "*" : Joiner.on(",").join(columns))
+        .append(" FROM ")
+        .append(tableSchema.getTableId().getName());
     if (!range.getBegin().isEmpty() || !range.getEnd().isEmpty()) {
       queryString.append(" WHERE ");
       appendRange(queryString, range);
     }
 
-    queryString.append(getOrderByClause(tableSchema.getPrimaryKeys()));
+    queryString.append(getOrderByClause(tableSchema.getPrimaryKeys(), sortOrder));
     queryString.append(" LIMIT ").append(limit).append(";");
     return queryString.toString();
   }
 
+  /**
+   * Get the index scan query from the range. The rows are returned in the order of the composite index, that is,
+   * ordered by the index columns and then by the primary keys that are not part of the index.
+   *
+   * @param range the range of the values of the leading index columns to scan
+   * @param compositeIndex the columns of the composite index to scan
+   * @param limit limit number of row
+   * @return the index scan query
+   */
+  private String getIndexScanQuery(Range range, List<String> compositeIndex, int limit) {
+    StringBuilder queryString = new StringBuilder("SELECT * FROM ").append(tableSchema.getTableId().getName());
+    // rows with a null value for any of the index columns are not part of the index
+    StringJoiner notNullJoiner = new StringJoiner(" AND ", " WHERE ", "");
+    for (String column : compositeIndex) {
+      notNullJoiner.add(column + " IS NOT NULL");
+    }
+    queryString.append(notNullJoiner.toString());
+    if (!range.getBegin().isEmpty() || !range.getEnd().isEmpty()) {
+      queryString.append(" AND ");
+      appendRange(queryString, range);
+    }
+
+    queryString.append(getOrderByClause(getCompositeIndexOrder(tableSchema.getPrimaryKeys(), compositeIndex)));
+    queryString.append(" LIMIT ").append(limit).append(";");
+    return queryString.toString();
+  }
+
+  /**
+   * Returns the columns by which the rows of a composite index are ordered, which are the index columns followed by
+   * the primary keys that are not part of the index.
+   */
+  static List<String> getCompositeIndexOrder(List<String> primaryKeys, List<String> compositeIndex) {
+    List<String> columns = new ArrayList<>(compositeIndex);
+    for (String key : primaryKeys) {
+      if (!columns.contains(key)) {
+        columns.add(key);
+      }
+    }
+    return columns;
+  }
+
   private void appendRange(StringBuilder statement, Range range) {
     appendScanBound(statement, range.getBegin(), range.getBeginBound().equals(Range.Bound.INCLUSIVE) ? ">=" : ">");
     if (!range.getBegin().isEmpty() && !range.getEnd().isEmpty()) {
@@ -521,6 +789,27 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     return statement.toString();
   }
 
+  /**
+   * Get the clause to match any of the given number of primary keys. For example, if the primary keys are key1, key2,
+   * this will generate the following clause for two keys: (key1,key2) IN ((?,?),(?,?))
+   *
+   * @param numKeys the number of keys to match
+   * @return the in clause
+   */
+  private String getInClause(int numKeys) {
+    StringJoiner keyJoiner = new StringJoiner(",", "(", ")");
+    StringJoiner valueJoiner = new StringJoiner(",", "(", ")");
+    for (String key : tableSchema.getPrimaryKeys()) {
+      keyJoiner.add(key);
+      valueJoiner.add("?");
+    }
+    StringJoiner inJoiner = new StringJoiner(",", "(", ")");
+    for (int i = 0; i < numKeys; i++) {
+      inJoiner.add(valueJoiner.toString());
+    }
+    return keyJoiner.toString() + " IN " + inJoiner.toString();
+  }
+
   private String getEqualsClause(Collection<Field<?>> keys) {
     StringJoiner joiner = new StringJoiner(" AND ");
     for (Field<?> key : keys) {
@@ -530,9 +819,13 @@ public class PostgresSqlStructuredTable implements StructuredTable {
   }
 
   private String getOrderByClause(List<String> keys) {
+    return getOrderByClause(keys, SortOrder.ASC);
+  }
+
+  private String getOrderByClause(List<String> keys, SortOrder sortOrder) {
     StringJoiner joiner = new StringJoiner(", ", " ORDER BY ", "");
     for (String key : keys) {
-      joiner.add(key);
+      joiner.add(sortOrder == SortOrder.DESC ? key + " DESC" : key);
     }
     return joiner.toString();
   }
@@ -556,6 +849,10 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
   }
 
+  /**
+   * Iterates over the rows of a {@link ResultSet}. With a fetch size set on the statement, the rows are fetched from
+   * the database in batches while iterating.
+   */
   private static final class ResultSetIterator extends AbstractCloseableIterator<StructuredRow> {
     private final Statement statement;
     private final ResultSet resultSet;
@@ -590,8 +887,9 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     @Override
     public void close() {
       try {
-        statement.close();
+        // closing the result set closes the cursor in the database, before the statement is released
         resultSet.close();
+        statement.close();
       } catch (SQLException e) {
         LOG.warn("Failed to close the result set", e);
       }
@@ -21,6 +21,8 @@ import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import io.cdap.cdap.spi.data.StructuredTableAdmin;
 import io.cdap.cdap.spi.data.TableAlreadyExistsException;
+import io.cdap.cdap.spi.data.TableNotFoundException;
+import io.cdap.cdap.spi.data.common.TableSpecificationUpdates;
 import io.cdap.cdap.spi.data.table.StructuredTableId;
 import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
 import io.cdap.cdap.spi.data.table.StructuredTableSpecification;
@@ -35,9 +37,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.sql.DataSource;
@@ -78,6 +84,7 @@ public class PostgresSqlStructuredTableAdmin implements StructuredTableAdmin {
           LOG.debug("Create index statement: {}", indexStatement);
           statement.execute(indexStatement);
         }
+        createCompositeIndexes(connection, statement, spec, spec.getCompositeIndexes());
 
         registry.registerSpecification(spec);
       }
@@ -86,6 +93,39 @@ public class PostgresSqlStructuredTableAdmin implements StructuredTableAdmin {
     }
   }
 
+  @Override
+  public void update(StructuredTableSpecification spec) throws IOException {
+    StructuredTableSpecification existing = registry.getSpecification(spec.getTableId());
+    if (existing == null) {
+      throw new TableNotFoundException(spec.getTableId());
+    }
+    List<FieldType> addedFields = TableSpecificationUpdates.getAddedFields(existing, spec);
+    List<List<String>> addedIndexes = TableSpecificationUpdates.getAddedCompositeIndexes(existing, spec);
+    if (addedFields.isEmpty() && addedIndexes.isEmpty()) {
+      return;
+    }
+
+    LOG.info("Updating table {} to {}", spec.getTableId(), spec);
+    try (Connection connection = dataSource.getConnection()) {
+      try (Statement statement = connection.createStatement()) {
+        // The new columns are null for the existing rows
+        for (FieldType field : addedFields) {
+          statement.execute(String.format("ALTER TABLE %s ADD COLUMN IF NOT EXISTS %s %s",
+                                          spec.getTableId().getName(), field.getName(), getPostgresSqlType(field)));
+        }
+        // The new indexes are built from the existing rows by the database
+        createCompositeIndexes(connection, statement, spec, addedIndexes);
+      }
+      registry.removeSpecification(spec.getTableId());
+      registry.registerSpecification(spec);
+    } catch (TableAlreadyExistsException e) {
+      // This can only happen if the table is updated concurrently
+      throw new IOException(String.format("Table %s was updated concurrently", spec.getTableId()), e);
+    } catch (SQLException e) {
+      throw new IOException(String.format("Error updating table %s", spec.getTableId()), e);
+    }
+  }
+
   @Nullable
   @Override
   public StructuredTableSpecification getSpecification(StructuredTableId tableId) {
@@ -143,6 +183,51 @@ public class PostgresSqlStructuredTableAdmin implements StructuredTableAdmin {
     return Sets.difference(indexes, existingIndexes);
   }
 
+  /**
+   * Creates the given composite indexes of the table that do not exist yet. Each index is created on the index
+   * columns followed by the primary keys not in the index, which is the order in which index scans return rows.
+   */
+  private void createCompositeIndexes(Connection connection, Statement statement,
+                                      StructuredTableSpecification specification,
+                                      List<List<String>> compositeIndexes) throws SQLException {
+    if (compositeIndexes.isEmpty()) {
+      return;
+    }
+    Set<List<String>> existingIndexes = getExistingIndexColumns(connection, specification.getTableId());
+    String table = specification.getTableId().getName();
+    for (List<String> compositeIndex : compositeIndexes) {
+      List<String> columns = PostgresSqlStructuredTable.getCompositeIndexOrder(specification.getPrimaryKeys(),
+                                                                               compositeIndex);
+      if (existingIndexes.contains(columns)) {
+        continue;
+      }
+      String indexStatement = String.format("CREATE INDEX %s_%s_cidx ON %s (%s)", table,
+                                            Joiner.on("_").join(compositeIndex), table, Joiner.on(",").join(columns));
+      LOG.debug("Create index statement: {}", indexStatement);
+      statement.execute(indexStatement);
+    }
+  }
+
+  /**
+   * Returns the columns of each index that exists on the table, in the order of the index.
+   */
+  private Set<List<String>> getExistingIndexColumns(Connection connection,
+                                                    StructuredTableId tableId) throws SQLException {
+    Map<String, SortedMap<Integer, String>> indexColumns = new HashMap<>();
+    DatabaseMetaData metaData = connection.getMetaData();
+    try (ResultSet rs = metaData.getIndexInfo(null, null, tableId.getName(), false, false)) {
+      while (rs.next()) {
+        String indexName = rs.getString("INDEX_NAME");
+        String columnName = rs.getString("COLUMN_NAME");
+        if (indexName != null && columnName != null) {
+          indexColumns.computeIfAbsent(indexName, k -> new TreeMap<>())
+            .put(rs.getInt("ORDINAL_POSITION"), columnName.toLowerCase());
+        }
+      }
+    }
+    return indexColumns.values().stream().map(columns -> new ArrayList<>(columns.values())).collect(Collectors.toSet());
+  }
+
   private String getCreateStatement(StructuredTableSpecification specification) {
     StringBuilder createStmt = new StringBuilder();
     createStmt.append("CREATE TABLE ").append(specification.getTableId().getName()).append(" (");
@@ -181,6 +181,11 @@ public class SqlStructuredTableRegistry implements StructuredTableRegistry {
           throw exception;
         }
 
+        @Override
+        public void update(StructuredTableSpecification spec) {
+          throw exception;
+        }
+
         @Override
         public StructuredTableSpecification getSpecification(StructuredTableId tableId) {
           return SPEC;
@@ -68,6 +68,7 @@ public final class StoreDefinition {
     UsageStore.createTables(tableAdmin, overWrite);
     FieldLineageStore.createTables(tableAdmin, overWrite);
     LogFileMetaStore.createTables(tableAdmin, overWrite);
+    LogLevelStatsStore.createTables(tableAdmin, overWrite);
   }
 
   public static void createAllTables(StructuredTableAdmin tableAdmin, StructuredTableRegistry registry)
@@ -384,6 +385,7 @@ public final class StoreDefinition {
     public static final StructuredTableId PROGRAM_COUNTS = new StructuredTableId("program_counts");
     // TODO: CDAP-14876 Move this table into it's own store, along with associated methods
     public static final StructuredTableId SUBSCRIBER_STATES = new StructuredTableId("subscriber_state");
+    public static final StructuredTableId RUN_TIME_BUCKETS = new StructuredTableId("run_time_buckets");
 
     public static final String NAMESPACE_FIELD = "namespace";
     public static final String APPLICATION_FIELD = "application";
@@ -397,12 +399,16 @@ public final class StoreDefinition {
     public static final String RUN_STATUS = "run_status";
     public static final String RUN_START_TIME = "run_start_time";
     public static final String RUN_RECORD_DATA = "run_record_data";
+    public static final String RUN_RECORD_FORMAT = "run_record_format";
+    public static final String RUN_RECORD_BINARY_DATA = "run_record_binary_data";
     public static final String WORKFLOW_DATA = "workflow_data";
     public static final String COUNT_TYPE = "count_type";
     public static final String COUNTS = "counts";
     public static final String SUBSCRIBER_TOPIC = "subscriber_topic";
     public static final String SUBSCRIBER_MESSAGE = "subscriber_message";
     public static final String SUBSCRIBER = "subscriber";
+    public static final String TIME_BUCKET = "time_bucket";
+    public static final String RUN_STOP_TIME = "run_stop_time";
 
 
     public static final StructuredTableSpecification APPLICATION_SPECIFICATIONS_TABLE_SPEC =
@@ -441,9 +447,12 @@ public final class StoreDefinition {
                     Fields.stringType(PROGRAM_FIELD),
                     Fields.longType(RUN_START_TIME),
                     Fields.stringType(RUN_FIELD),
-                    Fields.stringType(RUN_RECORD_DATA))
+                    Fields.stringType(RUN_RECORD_DATA),
+                    Fields.intType(RUN_RECORD_FORMAT),
+                    Fields.bytesType(RUN_RECORD_BINARY_DATA))
         .withPrimaryKeys(RUN_STATUS, NAMESPACE_FIELD, APPLICATION_FIELD, VERSION_FIELD, PROGRAM_TYPE_FIELD,
                          PROGRAM_FIELD, RUN_START_TIME, RUN_FIELD)
+        .withCompositeIndex(RUN_STATUS, RUN_START_TIME)
         .build();
 
     public static final StructuredTableSpecification WORKFLOWS_SPEC =
@@ -483,6 +492,22 @@ public final class StoreDefinition {
         .withPrimaryKeys(SUBSCRIBER_TOPIC, SUBSCRIBER)
         .build();
 
+    public static final StructuredTableSpecification RUN_TIME_BUCKETS_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(RUN_TIME_BUCKETS)
+        .withFields(Fields.longType(TIME_BUCKET),
+                    Fields.stringType(NAMESPACE_FIELD),
+                    Fields.stringType(APPLICATION_FIELD),
+                    Fields.stringType(VERSION_FIELD),
+                    Fields.stringType(PROGRAM_TYPE_FIELD),
+                    Fields.stringType(PROGRAM_FIELD),
+                    Fields.stringType(RUN_FIELD),
+                    Fields.longType(RUN_START_TIME),
+                    Fields.longType(RUN_STOP_TIME))
+        .withPrimaryKeys(TIME_BUCKET, NAMESPACE_FIELD, APPLICATION_FIELD, VERSION_FIELD, PROGRAM_TYPE_FIELD,
+                         PROGRAM_FIELD, RUN_FIELD)
+        .build();
+
     public static void createTables(StructuredTableAdmin tableAdmin,
                                     boolean overWrite) throws IOException, TableAlreadyExistsException {
       if (overWrite || tableAdmin.getSpecification(APPLICATION_SPECIFICATIONS) == null) {
@@ -491,8 +516,13 @@ public final class StoreDefinition {
       if (overWrite || tableAdmin.getSpecification(WORKFLOW_NODE_STATES) == null) {
         tableAdmin.create(WORKFLOW_NODE_STATES_SPEC);
       }
-      if (overWrite || tableAdmin.getSpecification(RUN_RECORDS) == null) {
+      StructuredTableSpecification runRecordsSpec = tableAdmin.getSpecification(RUN_RECORDS);
+      if (overWrite || runRecordsSpec == null) {
         tableAdmin.create(RUN_RECORDS_SPEC);
+      } else {
+        // adds the fields and indexes introduced after the table was created, or completes a previous update that
+        // did not finish
+        tableAdmin.update(RUN_RECORDS_SPEC);
       }
       if (overWrite || tableAdmin.getSpecification(WORKFLOWS) == null) {
         tableAdmin.create(WORKFLOWS_SPEC);
@@ -503,6 +533,9 @@ public final class StoreDefinition {
       if (overWrite || tableAdmin.getSpecification(SUBSCRIBER_STATES) == null) {
         tableAdmin.create(SUBSCRIBER_STATE_SPEC);
       }
+      if (overWrite || tableAdmin.getSpecification(RUN_TIME_BUCKETS) == null) {
+        tableAdmin.create(RUN_TIME_BUCKETS_SPEC);
+      }
     }
   }
 
@@ -1055,4 +1088,40 @@ public final class StoreDefinition {
       }
     }
   }
+
+  /**
+   * Schema for log level statistics of program runs.
+   */
+  public static final class LogLevelStatsStore {
+    public static final StructuredTableId LOG_LEVEL_STATS = new StructuredTableId("log_level_stats");
+
+    public static final String LOGGING_CONTEXT_FIELD = "logging_context";
+    public static final String RUN_FIELD = "run_id";
+    public static final String TIME_FIELD = "time";
+    public static final String TRACE_FIELD = "trace";
+    public static final String DEBUG_FIELD = "debug";
+    public static final String INFO_FIELD = "info";
+    public static final String WARN_FIELD = "warn";
+    public static final String ERROR_FIELD = "error";
+
+    public static final StructuredTableSpecification LOG_LEVEL_STATS_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(LOG_LEVEL_STATS)
+        .withFields(Fields.stringType(LOGGING_CONTEXT_FIELD),
+                    Fields.stringType(RUN_FIELD),
+                    Fields.longType(TIME_FIELD),
+                    Fields.longType(TRACE_FIELD),
+                    Fields.longType(DEBUG_FIELD),
+                    Fields.longType(INFO_FIELD),
+                    Fields.longType(WARN_FIELD),
+                    Fields.longType(ERROR_FIELD))
+        .withPrimaryKeys(LOGGING_CONTEXT_FIELD, RUN_FIELD, TIME_FIELD).build();
+
+    public static void createTables(StructuredTableAdmin tableAdmin,
+                                    boolean overWrite) throws IOException, TableAlreadyExistsException {
+      if (overWrite || tableAdmin.getSpecification(LOG_LEVEL_STATS) == null) {
+        tableAdmin.create(LOG_LEVEL_STATS_SPEC);
+      }
+    }
+  }
 }
@@ -33,6 +33,8 @@ import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -828,6 +830,164 @@ public class IndexedTableTest {
       dsFrameworkUtil.deleteInstance(incrTabInstance);
     }
   }
+  @Test
+  public void testCompositeIndex() throws Exception {
+    DatasetId compositeTabInstance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("compositeIndex");
+    dsFrameworkUtil.createInstance("indexedTable", compositeTabInstance, DatasetProperties.builder()
+      .add(IndexedTable.COMPOSITE_INDEXES_CONF_KEY, "byTypeTime=ns,type,time;byOwner=owner")
+      .add(IndexedTable.COMPOSITE_INDEX_COVERED_COLUMNS_CONF_KEY, "byTypeTime=name")
+      .build());
+    final IndexedTable iTable = dsFrameworkUtil.getInstance(compositeTabInstance);
+    TransactionExecutor txnl = dsFrameworkUtil.newTransactionExecutor(iTable);
+
+    final byte[] nsCol = Bytes.toBytes("ns");
+    final byte[] typeCol = Bytes.toBytes("type");
+    final byte[] timeCol = Bytes.toBytes("time");
+    final byte[] nameCol = Bytes.toBytes("name");
+    final byte[] ownerCol = Bytes.toBytes("owner");
+    final byte[] ns1 = Bytes.toBytes("ns1");
+    final byte[] ns2 = Bytes.toBytes("ns2");
+    final byte[] typeX = Bytes.toBytes("x");
+    // a type that has the value of another type as prefix, and contains the delimiter byte
+    final byte[] typeXX = { 'x', 0x00, 'x' };
+    final byte[] owner1 = Bytes.toBytes("owner1");
+    final byte[] owner2 = Bytes.toBytes("owner2");
+
+    try {
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          iTable.put(Arrays.asList(
+            new Put(keyA).add(nsCol, ns1).add(typeCol, typeX).add(timeCol, Bytes.toBytes(30L))
+              .add(nameCol, valA).add(ownerCol, owner1),
+            new Put(keyB).add(nsCol, ns1).add(typeCol, typeX).add(timeCol, Bytes.toBytes(10L))
+              .add(nameCol, valB).add(ownerCol, owner2),
+            new Put(keyC).add(nsCol, ns1).add(typeCol, typeXX).add(timeCol, Bytes.toBytes(20L))
+              .add(nameCol, valC).add(ownerCol, owner1),
+            new Put(keyD).add(nsCol, ns2).add(typeCol, typeX).add(timeCol, Bytes.toBytes(20L))
+              .add(nameCol, valD).add(ownerCol, owner1),
+            // not indexed by byTypeTime, as it has no time
+            new Put(keyE).add(nsCol, ns1).add(typeCol, typeX).add(nameCol, valE),
+            // a second put for the same row in the batch must update the index entries of the first one
+            new Put(keyD).add(timeCol, Bytes.toBytes(40L))));
+        }
+      });
+
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // prefix lookups return the rows in the order of the remaining index columns
+          assertRows(iTable.readByCompositeIndex("byTypeTime", ns1, typeX), keyB, keyA);
+          assertRows(iTable.readByCompositeIndex("byTypeTime", ns1), keyB, keyA, keyC);
+          assertRows(iTable.readByCompositeIndex("byTypeTime", ns2, typeX), keyD);
+          assertRows(iTable.readByCompositeIndex("byTypeTime", ns1, typeX, Bytes.toBytes(30L)), keyA);
+          assertRows(iTable.readByCompositeIndex("byTypeTime", ns2, typeXX));
+          // range on the column following the prefix
+          assertRows(iTable.scanByCompositeIndex("byTypeTime", new byte[][] { ns1, typeX },
+                                                 Bytes.toBytes(10L), Bytes.toBytes(30L)), keyB);
+          assertRows(iTable.scanByCompositeIndex("byTypeTime", new byte[][] { ns1, typeX },
+                                                 Bytes.toBytes(11L), null), keyA);
+          assertRows(iTable.scanByCompositeIndex("byTypeTime", new byte[][] { ns1 }, null, typeXX), keyB, keyA);
+          assertRows(iTable.scanByCompositeIndex("byTypeTime", new byte[][] { ns1 }, typeXX, null), keyC);
+          // ranges over prefixes of the index columns, with exclusive and inclusive bounds
+          assertRows(iTable.scanByCompositeIndex("byTypeTime", new byte[][] { ns1, typeX }, false,
+                                                 new byte[][] { ns2 }, true), keyC, keyD);
+          assertRows(iTable.scanByCompositeIndex("byTypeTime", new byte[][] { ns1, typeX, Bytes.toBytes(10L) }, false,
+                                                 new byte[][] { ns1, typeXX }, false), keyA);
+          assertRows(iTable.scanByCompositeIndex("byTypeTime", new byte[][] { ns1, typeX, Bytes.toBytes(10L) }, true,
+                                                 new byte[][] { ns1, typeX, Bytes.toBytes(30L) }, true), keyB, keyA);
+          assertRows(iTable.scanByCompositeIndex("byTypeTime", new byte[0][], true, new byte[][] { ns1 }, false));
+          assertRows(iTable.scanByCompositeIndex("byTypeTime", new byte[][] { ns2 }, true, new byte[0][], true), keyD);
+
+          // the covering index returns the indexed and covered columns only
+          Row row = readFirst(iTable.readByCompositeIndex("byTypeTime", ns2));
+          TableAssert.assertColumns(row, new byte[][] { nameCol, nsCol, timeCol, typeCol },
+                                    new byte[][] { valD, ns2, Bytes.toBytes(40L), typeX });
+          // the non-covering index returns the complete rows
+          row = readFirst(iTable.readByCompositeIndex("byOwner", owner2));
+          TableAssert.assertColumns(row, new byte[][] { nameCol, nsCol, ownerCol, timeCol, typeCol },
+                                    new byte[][] { valB, ns1, owner2, Bytes.toBytes(10L), typeX });
+          assertRows(iTable.readByCompositeIndex("byOwner", owner1), keyA, keyC, keyD);
+
+          try {
+            iTable.readByCompositeIndex("unknown", ns1);
+            fail("Expected IllegalArgumentException for an unknown composite index");
+          } catch (IllegalArgumentException e) {
+            // expected
+          }
+          try {
+            iTable.scanByCompositeIndex("byOwner", new byte[][] { owner1 }, null, null);
+            fail("Expected IllegalArgumentException for a range beyond the index columns");
+          } catch (IllegalArgumentException e) {
+            // expected
+          }
+          try {
+            iTable.increment(keyA, nameCol, 1L);
+            fail("Expected IllegalArgumentException performing increment on a covered column");
+          } catch (IllegalArgumentException e) {
+            // expected
+          }
+        }
+      });
+
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // move A to another time, update the covered column of B, and complete E
+          iTable.put(keyA, timeCol, Bytes.toBytes(5L));
+          iTable.put(keyB, nameCol, valBB);
+          iTable.put(keyE, timeCol, Bytes.toBytes(50L));
+          // remove C from the byTypeTime index, and swap the owner of D
+          iTable.delete(keyC, typeCol);
+          Assert.assertTrue(iTable.compareAndSwap(keyD, ownerCol, owner1, owner2));
+        }
+      });
+
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          assertRows(iTable.readByCompositeIndex("byTypeTime", ns1), keyA, keyB, keyE);
+          Row row = readFirst(iTable.readByCompositeIndex("byTypeTime", ns1, typeX, Bytes.toBytes(10L)));
+          Assert.assertArrayEquals(valBB, row.get(nameCol));
+          assertRows(iTable.readByCompositeIndex("byOwner", owner1), keyA, keyC);
+          assertRows(iTable.readByCompositeIndex("byOwner", owner2), keyB, keyD);
+
+          // remove the covered column of A, and delete B
+          iTable.delete(keyA, nameCol);
+          iTable.delete(keyB);
+        }
+      });
+
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          assertRows(iTable.readByCompositeIndex("byTypeTime", ns1), keyA, keyE);
+          Row row = readFirst(iTable.readByCompositeIndex("byTypeTime", ns1, typeX, Bytes.toBytes(5L)));
+          Assert.assertNull(row.get(nameCol));
+          assertRows(iTable.readByCompositeIndex("byOwner", owner2), keyD);
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(compositeTabInstance);
+    }
+  }
+
+  /**
+   * Asserts that the given scanner returns rows with exactly the given keys, in order, and closes it.
+   */
+  private void assertRows(Scanner scanner, byte[]... keys) {
+    try {
+      for (byte[] key : keys) {
+        Row row = scanner.next();
+        assertNotNull(row);
+        assertArrayEquals(key, row.getRow());
+      }
+      assertEmpty(scanner);
+    } finally {
+      scanner.close();
+    }
+  }
+
   /**
    * Asserts that the given scanner contains no more rows.
    */
@@ -31,6 +31,7 @@ import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -97,6 +98,41 @@ public class KeyValueTableTest {
     });
   }
 
+  @Test
+  public void testBulkLoad() throws Exception {
+    DatasetId instance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("bulk");
+    dsFrameworkUtil.createInstance("keyValueTable", instance, DatasetProperties.EMPTY);
+    try {
+      final KeyValueTable table = dsFrameworkUtil.getInstance(instance);
+      final List<KeyValue<byte[], byte[]>> entries = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        entries.add(new KeyValue<>(Bytes.toBytes(String.format("k%04d", i)), Bytes.toBytes(i)));
+      }
+      TransactionExecutor txnl = dsFrameworkUtil.newTransactionExecutor(table);
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          table.bulkLoad(entries.iterator());
+        }
+      });
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          try (CloseableIterator<KeyValue<byte[], byte[]>> iterator = table.scan(null, null)) {
+            for (KeyValue<byte[], byte[]> expected : entries) {
+              KeyValue<byte[], byte[]> actual = iterator.next();
+              Assert.assertArrayEquals(expected.getKey(), actual.getKey());
+              Assert.assertArrayEquals(expected.getValue(), actual.getValue());
+            }
+            Assert.assertFalse(iterator.hasNext());
+          }
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(instance);
+    }
+  }
+
   @Test
   public void testASyncWriteReadSwapDelete() throws Exception {
     TransactionExecutor txnl = dsFrameworkUtil.newTransactionExecutor(kvTable);
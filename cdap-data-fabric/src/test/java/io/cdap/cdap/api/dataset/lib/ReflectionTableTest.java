@@ -23,9 +23,12 @@ import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.dataset.DatasetProperties;
 import io.cdap.cdap.api.dataset.table.Put;
+import io.cdap.cdap.api.dataset.table.Result;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Table;
 import io.cdap.cdap.data2.dataset2.DatasetFrameworkTestUtil;
+import io.cdap.cdap.internal.io.ObjectCodecCache;
+import io.cdap.cdap.internal.io.ObjectRowMapper;
 import io.cdap.cdap.internal.io.ReflectionPutWriter;
 import io.cdap.cdap.internal.io.ReflectionRowReader;
 import io.cdap.cdap.internal.io.ReflectionRowRecordReader;
@@ -35,10 +38,16 @@ import org.apache.tephra.TransactionAware;
 import org.apache.tephra.TransactionExecutor;
 import org.junit.Assert;
 import org.junit.ClassRule;
+import org.junit.Ignore;
 import org.junit.Test;
 
+import java.net.URI;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -199,6 +208,41 @@ public class ReflectionTableTest {
     }
   }
 
+  public static class Record {
+    private int count;
+    private boolean flag;
+    private short small;
+    private long time;
+    private UUID uuid;
+    private URI uri;
+    private ByteBuffer buffer;
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Record)) {
+        return false;
+      }
+
+      Record that = (Record) o;
+
+      return count == that.count &&
+        flag == that.flag &&
+        small == that.small &&
+        time == that.time &&
+        Objects.equal(uuid, that.uuid) &&
+        Objects.equal(uri, that.uri) &&
+        Objects.equal(buffer, that.buffer);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(count, flag, small, time, uuid, uri, buffer);
+    }
+  }
+
   @Test
   public void testPutAndGet() throws Exception {
     dsFrameworkUtil.createInstance("table", users, DatasetProperties.builder().build());
@@ -321,6 +365,88 @@ public class ReflectionTableTest {
     }
   }
 
+  @Test
+  public void testRowMapper() throws Exception {
+    // the row mapper must encode and decode the same as the reflection based writer and reader
+    Schema schema = new ReflectionSchemaGenerator().generate(User.class);
+    ObjectRowMapper<User> mapper = ObjectCodecCache.getRowMapper(TypeToken.of(User.class), schema);
+    Assert.assertSame(mapper, ObjectCodecCache.getRowMapper(TypeToken.of(User.class), schema));
+    for (User user : Arrays.asList(SAMUEL, SAMUEL_NO_FIRST, SAMUEL_NO_ID, SAMUEL_NO_TS, SAMUEL_NO_SALARY,
+                                   SAMUEL_NO_PURCHASE, SAMUEL_NO_BLOB)) {
+      assertRowMapper(mapper, new ReflectionPutWriter<User>(schema),
+                      new ReflectionRowReader<>(schema, TypeToken.of(User.class)), user);
+    }
+
+    Record record = new Record();
+    record.count = 17;
+    record.flag = true;
+    record.small = 3;
+    record.time = System.currentTimeMillis();
+    record.uuid = UUID.randomUUID();
+    record.uri = URI.create("http://localhost:1234/path");
+    record.buffer = ByteBuffer.wrap(new byte[] { 1, 2, 3 });
+    schema = new ReflectionSchemaGenerator().generate(Record.class);
+    assertRowMapper(ObjectCodecCache.getRowMapper(TypeToken.of(Record.class), schema),
+                    new ReflectionPutWriter<Record>(schema),
+                    new ReflectionRowReader<>(schema, TypeToken.of(Record.class)), record);
+  }
+
+  @Ignore
+  @Test
+  public void testRowMapperSpeed() throws Exception {
+    Schema schema = new ReflectionSchemaGenerator().generate(User.class);
+    ReflectionPutWriter<User> putWriter = new ReflectionPutWriter<>(schema);
+    ReflectionRowReader<User> rowReader = new ReflectionRowReader<>(schema, TypeToken.of(User.class));
+    ObjectRowMapper<User> mapper = ObjectCodecCache.getRowMapper(TypeToken.of(User.class), schema);
+    byte[] rowKey = Bytes.toBytes(123);
+    int iterations = 1000000;
+
+    for (int run = 0; run < 3; run++) {
+      long startTime = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        Put put = new Put(rowKey);
+        putWriter.write(SAMUEL, put);
+        rowReader.read(new Result(rowKey, put.getValues()), schema);
+      }
+      long endTime = System.nanoTime();
+      System.out.println("Reflection time spent: "
+                           + TimeUnit.MILLISECONDS.convert(endTime - startTime, TimeUnit.NANOSECONDS));
+
+      startTime = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        Put put = new Put(rowKey);
+        mapper.write(SAMUEL, put);
+        mapper.read(new Result(rowKey, put.getValues()));
+      }
+      endTime = System.nanoTime();
+      System.out.println("Row mapper time spent: "
+                           + TimeUnit.MILLISECONDS.convert(endTime - startTime, TimeUnit.NANOSECONDS));
+    }
+  }
+
+  private <T> void assertRowMapper(ObjectRowMapper<T> mapper, ReflectionPutWriter<T> putWriter,
+                                   ReflectionRowReader<T> rowReader, T obj) throws Exception {
+    byte[] rowKey = Bytes.toBytes(123);
+    Put expected = new Put(rowKey);
+    putWriter.write(obj, expected);
+    Put actual = new Put(rowKey);
+    mapper.write(obj, actual);
+    Assert.assertEquals(toStringMap(expected.getValues()), toStringMap(actual.getValues()));
+
+    Row row = new Result(rowKey, actual.getValues());
+    Assert.assertEquals(obj, mapper.read(row));
+    Assert.assertEquals(rowReader.read(row, mapper.getSchema()), mapper.read(row));
+  }
+
+  private Map<String, String> toStringMap(Map<byte[], byte[]> values) {
+    Map<String, String> result = new TreeMap<>();
+    for (Map.Entry<byte[], byte[]> entry : values.entrySet()) {
+      result.put(Bytes.toStringBinary(entry.getKey()),
+                 entry.getValue() == null ? null : Bytes.toStringBinary(entry.getValue()));
+    }
+    return result;
+  }
+
   private void assertGetAndPut(final Table table, final byte[] rowKey, final User obj,
                                final Schema schema) throws Exception {
     // TableDataset is not accessible here, but we know that's the underlying implementation...
@@ -24,6 +24,9 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.cdap.cdap.api.Predicate;
 import io.cdap.cdap.api.dataset.DataSetException;
+import io.cdap.cdap.api.dataset.DatasetProperties;
+import io.cdap.cdap.api.dataset.IncompatibleUpdateException;
+import io.cdap.cdap.api.dataset.InstanceConflictException;
 import io.cdap.cdap.api.dataset.PartitionNotFoundException;
 import io.cdap.cdap.api.dataset.lib.FileSet;
 import io.cdap.cdap.api.dataset.lib.FileSetArguments;
@@ -38,10 +41,13 @@ import io.cdap.cdap.api.dataset.lib.PartitionedFileSet;
 import io.cdap.cdap.api.dataset.lib.PartitionedFileSetArguments;
 import io.cdap.cdap.api.dataset.lib.PartitionedFileSetProperties;
 import io.cdap.cdap.api.dataset.lib.Partitioning;
+import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.api.dataset.table.TableProperties;
 import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.namespace.NamespacePathLocator;
 import io.cdap.cdap.data2.dataset2.DatasetFrameworkTestUtil;
+import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.proto.id.DatasetId;
 import io.cdap.cdap.test.SlowTests;
 import org.apache.hadoop.security.UserGroupInformation;
@@ -65,11 +71,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
@@ -942,9 +951,186 @@ public class PartitionedFileSetTest {
   @Test
   @Category(SlowTests.class)
   public void testAddRemoveGetPartitions() throws Exception {
+    testAddRemoveGetPartitions(dsFrameworkUtil.<PartitionedFileSet>getInstance(pfsInstance));
+  }
 
-    final PartitionedFileSet dataset = dsFrameworkUtil.getInstance(pfsInstance);
+  @Test
+  @Category(SlowTests.class)
+  public void testAddRemoveGetPartitionsWithIndexes() throws Exception {
+    DatasetId id = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("indexed");
+    dsFrameworkUtil.createInstance("partitionedFileSet", id, PartitionedFileSetProperties.builder()
+      .setPartitioning(PARTITIONING_1)
+      .setIndexedPartitioningFields("i", "l")
+      .build());
+    try {
+      // filters on i and l are answered from the indexes, and must return the same partitions as a scan
+      testAddRemoveGetPartitions(dsFrameworkUtil.<PartitionedFileSet>getInstance(id));
+    } finally {
+      dsFrameworkUtil.deleteInstance(id);
+    }
+  }
+
+  @Test
+  public void testFuzzyRowFilter() {
+    Partitioning partitioning = Partitioning.builder()
+      .addIntField("i")
+      .addLongField("l")
+      .addStringField("s")
+      .build();
+
+    // conditions on the leading fields are covered by the start and stop key of the scan
+    Assert.assertNull(PartitionedFileSetDataset.createFuzzyRowFilter(
+      PartitionFilter.builder().addValueCondition("i", 1).build(), partitioning));
+    // the offset of the fields following a string field without a value condition is unknown
+    Assert.assertNull(PartitionedFileSetDataset.createFuzzyRowFilter(
+      PartitionFilter.builder().addValueCondition("i", 1).build(), PARTITIONING_1));
+
+    PartitionFilter filter = PartitionFilter.builder()
+      .addRangeCondition("i", 0, 10)
+      .addValueCondition("l", 7L)
+      .addValueCondition("s", "a")
+      .build();
+    FuzzyRowFilter fuzzyRowFilter = PartitionedFileSetDataset.createFuzzyRowFilter(filter, partitioning);
+    Assert.assertNotNull(fuzzyRowFilter);
+    for (int i : new int[] { Integer.MIN_VALUE, -1, 0, 5, Integer.MAX_VALUE }) {
+      for (long l : new long[] { Long.MIN_VALUE, -7L, 7L, 8L, Long.MAX_VALUE }) {
+        for (String s : new String[] { "a", "b" }) {
+          PartitionKey key = PartitionKey.builder().addIntField("i", i).addLongField("l", l).addStringField("s", s)
+            .build();
+          byte[] rowKey = PartitionedFileSetDataset.generateRowKey(key, partitioning);
+          // the range condition on i is left to the start and stop key and the row by row match
+          Assert.assertEquals("Unexpected result for " + key, l == 7L && s.equals("a"),
+                              fuzzyRowFilter.filterRow(rowKey) == FuzzyRowFilter.ReturnCode.INCLUDE);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testIndexedFieldsOfAllTypes() throws Exception {
+    // the first field has no condition, so that range conditions on the other fields are answered from the indexes
+    Partitioning partitioning = Partitioning.builder()
+      .addStringField("x")
+      .addStringField("s")
+      .addIntField("i")
+      .addLongField("l")
+      .build();
+    List<String> strings = Arrays.asList("a", "ab", "b", "c");
+    List<Integer> ints = Arrays.asList(Integer.MIN_VALUE, -100, 0, 100, Integer.MAX_VALUE);
+    List<Long> longs = Arrays.asList(Long.MIN_VALUE, -5L, 0L, 5L, Long.MAX_VALUE);
+
+    DatasetId id = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("indexedTypes");
+    dsFrameworkUtil.createInstance("partitionedFileSet", id, PartitionedFileSetProperties.builder()
+      .setPartitioning(partitioning)
+      .setIndexedPartitioningFields("s", "i", "l")
+      .build());
+    try {
+      PartitionedFileSetDataset dataset = dsFrameworkUtil.getInstance(id);
+      Set<PartitionKey> keys = new HashSet<>();
+      for (int n = 0; n < 10; n++) {
+        keys.add(PartitionKey.builder()
+                   .addStringField("x", "x")
+                   .addStringField("s", strings.get(n % strings.size()))
+                   .addIntField("i", ints.get(n % ints.size()))
+                   .addLongField("l", longs.get(2 * n % longs.size()))
+                   .build());
+      }
+      dsFrameworkUtil.newTransactionExecutor(dataset).execute(() -> {
+        for (PartitionKey key : keys) {
+          dataset.addPartition(key, key.toString());
+        }
+      });
+
+      dsFrameworkUtil.newTransactionExecutor(dataset).execute(() -> {
+        testIndexedField(dataset, partitioning, keys, "s", strings);
+        testIndexedField(dataset, partitioning, keys, "i", ints);
+        testIndexedField(dataset, partitioning, keys, "l", longs);
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(id);
+    }
+  }
+
+  /**
+   * Verifies that value and range conditions on an indexed field, with every combination of the given values as
+   * bounds, only read the matching partitions from the index.
+   */
+  private <T extends Comparable<T>> void testIndexedField(PartitionedFileSetDataset dataset, Partitioning partitioning,
+                                                          Set<PartitionKey> keys, String fieldName, List<T> values) {
+    List<PartitionFilter> filters = new ArrayList<>();
+    List<T> bounds = new ArrayList<>(values);
+    bounds.add(null);
+    for (T lower : bounds) {
+      if (lower != null) {
+        filters.add(PartitionFilter.builder().addValueCondition(fieldName, lower).build());
+      }
+      for (T upper : bounds) {
+        if ((lower != null || upper != null) && !Objects.equals(lower, upper)) {
+          filters.add(PartitionFilter.builder().addRangeCondition(fieldName, lower, upper).build());
+        }
+      }
+    }
+
+    for (PartitionFilter filter : filters) {
+      Set<PartitionKey> expected = new HashSet<>();
+      for (PartitionKey key : keys) {
+        if (filter.match(key)) {
+          expected.add(key);
+        }
+      }
+      Set<PartitionKey> indexed = new HashSet<>();
+      try (Scanner scanner = dataset.scanIndex(fieldName, filter.getCondition(fieldName))) {
+        Row row;
+        while ((row = scanner.next()) != null) {
+          indexed.add(PartitionedFileSetDataset.parseRowKey(row.getRow(), partitioning));
+        }
+      }
+      Assert.assertEquals("Unexpected partitions read from the index for " + filter, expected, indexed);
+
+      Set<PartitionKey> partitions = new HashSet<>();
+      for (PartitionDetail partition : dataset.getPartitions(filter)) {
+        partitions.add(partition.getPartitionKey());
+      }
+      Assert.assertEquals("Unexpected partitions for " + filter, expected, partitions);
+    }
+  }
+
+  @Test
+  public void testUpdateIndexedFields() throws Exception {
+    DatasetId id = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("indexedUpdate");
+    dsFrameworkUtil.createInstance("partitionedFileSet", id, PartitionedFileSetProperties.builder()
+      .setPartitioning(PARTITIONING_1)
+      .setIndexedPartitioningFields("i")
+      .build());
+    try {
+      // updating with the same indexed fields is allowed
+      dsFrameworkUtil.getFramework().updateInstance(id, PartitionedFileSetProperties.builder()
+        .setPartitioning(PARTITIONING_1)
+        .setIndexedPartitioningFields("i")
+        .setDescription("same indexes")
+        .build());
+
+      // the indexes cannot be removed, replaced or extended, since existing partitions would not be indexed
+      List<DatasetProperties> incompatible = Arrays.asList(
+        PartitionedFileSetProperties.builder().setPartitioning(PARTITIONING_1).build(),
+        PartitionedFileSetProperties.builder().setPartitioning(PARTITIONING_1)
+          .setIndexedPartitioningFields("l").build(),
+        PartitionedFileSetProperties.builder().setPartitioning(PARTITIONING_1)
+          .setIndexedPartitioningFields("i", "l").build());
+      for (DatasetProperties properties : incompatible) {
+        try {
+          dsFrameworkUtil.getFramework().updateInstance(id, properties);
+          Assert.fail("Expected the update of the indexed fields to be rejected: " + properties.getProperties());
+        } catch (InstanceConflictException e) {
+          Assert.assertTrue(e.getCause() instanceof IncompatibleUpdateException);
+        }
+      }
+    } finally {
+      dsFrameworkUtil.deleteInstance(id);
+    }
+  }
 
+  private void testAddRemoveGetPartitions(final PartitionedFileSet dataset) throws Exception {
     final PartitionKey[][][] keys = new PartitionKey[4][4][4];
     final String[][][] paths = new String[4][4][4];
     final Set<BasicPartition> allPartitionDetails = Sets.newHashSet();
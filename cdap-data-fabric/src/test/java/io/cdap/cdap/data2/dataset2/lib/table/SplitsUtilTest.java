@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table;
+
+import io.cdap.cdap.api.common.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * Tests for {@link SplitsUtil}.
+ */
+public class SplitsUtilTest {
+
+  @Test
+  public void testSplitKeys() {
+    assertSplitKeys(Bytes.toBytes("a"), Bytes.toBytes("c"), 1);
+    assertSplitKeys(Bytes.toBytes("a"), Bytes.toBytes("c"), 16);
+
+    // keys with a common prefix longer than the long approximation can still be divided
+    assertSplitKeys(Bytes.toBytes("some/long/common/prefix/a"), Bytes.toBytes("some/long/common/prefix/b"), 16);
+
+    // open ranges
+    assertSplitKeys(null, null, 16);
+    assertSplitKeys(Bytes.toBytes("x"), null, 16);
+
+    // no key between adjacent keys
+    Assert.assertTrue(SplitsUtil.splitKeys(Bytes.toBytes("a"), new byte[] { 'a', 0x00 }, 16).isEmpty());
+  }
+
+  @Test
+  public void testSkewedData() throws IOException {
+    // all data is in the keys between "m" and "n"
+    SplitsUtil.SizeEstimator estimator = createEstimator(Bytes.EMPTY_BYTE_ARRAY, 0L, Bytes.toBytes("m"), 1000000L,
+                                                         Bytes.toBytes("n"), 0L);
+
+    List<KeyRange> splits = SplitsUtil.sizeAwareGetSplits(4, 0L, null, null, estimator);
+    assertCovers(null, null, splits);
+    Assert.assertEquals(4, splits.size());
+    for (KeyRange split : splits) {
+      long size = estimator.getApproximateSizes(Collections.singletonList(split))[0];
+      Assert.assertTrue("Unexpected size " + size + " of split " + split, size > 200000L && size < 300000L);
+    }
+
+    // the key space divided evenly puts all data into a single split
+    List<KeyRange> primitive = SplitsUtil.primitiveGetSplits(4, null, null);
+    long maxSize = 0L;
+    for (long size : estimator.getApproximateSizes(primitive)) {
+      maxSize = Math.max(maxSize, size);
+    }
+    Assert.assertEquals(1000000L, maxSize);
+  }
+
+  @Test
+  public void testSplitSize() throws IOException {
+    SplitsUtil.SizeEstimator estimator = createEstimator(Bytes.EMPTY_BYTE_ARRAY, 500000L, Bytes.toBytes("m"),
+                                                         500000L);
+
+    List<KeyRange> splits = SplitsUtil.sizeAwareGetSplits(-1, 100000L, Bytes.toBytes("c"), Bytes.toBytes("x"),
+                                                          estimator);
+    assertCovers(Bytes.toBytes("c"), Bytes.toBytes("x"), splits);
+    long totalSize = 0L;
+    for (long size : estimator.getApproximateSizes(splits)) {
+      Assert.assertTrue("Split exceeds the split size: " + size, size <= 100000L);
+      totalSize += size;
+    }
+    Assert.assertTrue(splits.size() >= totalSize / 100000L);
+    Assert.assertTrue(splits.size() <= 2 * (totalSize / 100000L) + 1);
+
+    // the number of splits caps the count even if the split size is smaller
+    splits = SplitsUtil.sizeAwareGetSplits(3, 100000L, Bytes.toBytes("c"), Bytes.toBytes("x"), estimator);
+    assertCovers(Bytes.toBytes("c"), Bytes.toBytes("x"), splits);
+    Assert.assertTrue(splits.size() <= 3);
+  }
+
+  @Test
+  public void testUnsplittableData() throws IOException {
+    // all data is in a single key, which cannot be divided
+    final byte[] hotKey = Bytes.toBytes("hot");
+    SplitsUtil.SizeEstimator estimator = ranges -> {
+      long[] sizes = new long[ranges.size()];
+      for (int i = 0; i < sizes.length; i++) {
+        KeyRange range = ranges.get(i);
+        boolean contains = (range.getStart() == null || Bytes.compareTo(range.getStart(), hotKey) <= 0)
+          && (range.getStop() == null || Bytes.compareTo(hotKey, range.getStop()) < 0);
+        sizes[i] = contains ? 1000L : 0L;
+      }
+      return sizes;
+    };
+    List<KeyRange> splits = SplitsUtil.sizeAwareGetSplits(8, 0L, null, null, estimator);
+    assertCovers(null, null, splits);
+    Assert.assertTrue(splits.size() <= 8);
+  }
+
+  @Test
+  public void testNoData() throws IOException {
+    SplitsUtil.SizeEstimator estimator = createEstimator(Bytes.EMPTY_BYTE_ARRAY, 0L);
+    Assert.assertEquals(SplitsUtil.primitiveGetSplits(5, Bytes.toBytes("a"), Bytes.toBytes("z")),
+                        SplitsUtil.sizeAwareGetSplits(5, 1000L, Bytes.toBytes("a"), Bytes.toBytes("z"), estimator));
+    Assert.assertTrue(SplitsUtil.sizeAwareGetSplits(5, 0L, Bytes.toBytes("z"), Bytes.toBytes("a"),
+                                                    estimator).isEmpty());
+  }
+
+  /**
+   * Creates a {@link SplitsUtil.RegionSizeEstimator} from pairs of region start keys and region sizes.
+   */
+  private SplitsUtil.SizeEstimator createEstimator(Object... regions) {
+    NavigableMap<byte[], Long> regionSizes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (int i = 0; i < regions.length; i += 2) {
+      regionSizes.put((byte[]) regions[i], (Long) regions[i + 1]);
+    }
+    return new SplitsUtil.RegionSizeEstimator(regionSizes);
+  }
+
+  private void assertSplitKeys(@Nullable byte[] start, @Nullable byte[] stop, int expectedKeys) {
+    List<byte[]> keys = SplitsUtil.splitKeys(start, stop, expectedKeys + 1);
+    Assert.assertEquals(expectedKeys, keys.size());
+    byte[] previous = start;
+    for (byte[] key : keys) {
+      assertBetween(previous, key, stop);
+      previous = key;
+    }
+  }
+
+  private void assertCovers(@Nullable byte[] start, @Nullable byte[] stop, List<KeyRange> splits) {
+    Assert.assertFalse(splits.isEmpty());
+    Assert.assertArrayEquals(start, splits.get(0).getStart());
+    Assert.assertArrayEquals(stop, splits.get(splits.size() - 1).getStop());
+    for (int i = 1; i < splits.size(); i++) {
+      byte[] previousStop = splits.get(i - 1).getStop();
+      Assert.assertArrayEquals(previousStop, splits.get(i).getStart());
+      assertBetween(splits.get(i - 1).getStart(), previousStop, splits.get(i).getStop());
+    }
+  }
+
+  private void assertBetween(@Nullable byte[] start, byte[] key, @Nullable byte[] stop) {
+    Assert.assertTrue(start == null || Bytes.compareTo(start, key) < 0);
+    Assert.assertTrue(stop == null || Bytes.compareTo(key, stop) < 0);
+  }
+}
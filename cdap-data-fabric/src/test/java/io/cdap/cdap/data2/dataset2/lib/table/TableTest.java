@@ -22,12 +22,17 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.data.batch.SplitReader;
 import io.cdap.cdap.api.dataset.DatasetAdmin;
 import io.cdap.cdap.api.dataset.DatasetContext;
 import io.cdap.cdap.api.dataset.DatasetProperties;
 import io.cdap.cdap.api.dataset.metrics.MeteredDataset;
+import io.cdap.cdap.api.dataset.table.BulkLoadable;
+import io.cdap.cdap.api.dataset.table.ColumnValueFilter;
 import io.cdap.cdap.api.dataset.table.ConflictDetection;
 import io.cdap.cdap.api.dataset.table.Delete;
+import io.cdap.cdap.api.dataset.table.Filter;
+import io.cdap.cdap.api.dataset.table.FilterList;
 import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.api.dataset.table.Increment;
 import io.cdap.cdap.api.dataset.table.Put;
@@ -37,6 +42,8 @@ import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.api.dataset.table.Table;
 import io.cdap.cdap.api.dataset.table.TableProperties;
+import io.cdap.cdap.api.dataset.table.TableSplit;
+import io.cdap.cdap.api.dataset.table.ValueFilter;
 import io.cdap.cdap.api.metrics.MetricsCollector;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.utils.ImmutablePair;
@@ -57,6 +64,10 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -1225,6 +1236,22 @@ public abstract class TableTest<T extends Table> {
           Assert.assertArrayEquals(V2, val2);
         }
       }
+
+      // results must be in the order of the gets, also for missing and repeated rows
+      Transaction tx5 = txClient.startShort();
+      ((TransactionAware) table).startTx(tx5);
+      gets = Lists.newArrayList(new Get("r99"), new Get("x"), new Get("r5").add(C2), new Get("r5").add(C1),
+                                new Get("r0").add(C3));
+      results = table.get(gets);
+      txClient.commitOrThrow(tx5);
+      Assert.assertEquals(5, results.size());
+      Assert.assertEquals(2, results.get(0).getColumns().size());
+      Assert.assertTrue(results.get(1).isEmpty());
+      Assert.assertArrayEquals(V2, results.get(2).get(C2));
+      Assert.assertNull(results.get(2).get(C1));
+      Assert.assertArrayEquals(V1, results.get(3).get(C1));
+      Assert.assertNull(results.get(3).get(C2));
+      Assert.assertTrue(results.get(4).isEmpty());
     } finally {
       admin.drop();
     }
@@ -1355,6 +1382,184 @@ public abstract class TableTest<T extends Table> {
     Assert.assertEquals(9, count);
   }
 
+  @Test
+  public void testScanWithValueFilter() throws Exception {
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE);
+    admin.create();
+    try {
+      Transaction tx1 = txClient.startShort();
+      Table table = getTable(CONTEXT1, MY_TABLE);
+      ((TransactionAware) table).startTx(tx1);
+
+      // c1 has value "v<i>" in each row, c2 only exists in even rows
+      for (int i = 0; i < 10; i++) {
+        Put put = new Put("r" + i).add(C1, "v" + i);
+        if (i % 2 == 0) {
+          put.add(C2, "e");
+        }
+        table.put(put);
+      }
+
+      // check that filters work against data written in same tx
+      verifyScanWithValueFilter(table);
+
+      txClient.canCommitOrThrow(tx1, ((TransactionAware) table).getTxChanges());
+      Assert.assertTrue(((TransactionAware) table).commitTx());
+      txClient.commitOrThrow(tx1);
+      ((TransactionAware) table).postTxCommit();
+
+      // verify against persisted data
+      Transaction tx2 = txClient.startShort();
+      ((TransactionAware) table).startTx(tx2);
+      verifyScanWithValueFilter(table);
+
+      // change rows in the tx, such that the filter result differs from the persisted rows
+      ValueFilter filter = ColumnValueFilter.equal(C1, Bytes.toBytes("v1"));
+      table.put(new Put("r1").add(C1, "x"));
+      table.put(new Put("r2").add(C1, "v1"));
+      table.put(new Put("r10").add(C1, "v1"));
+      table.delete(new Delete("r3"));
+      table.put(new Put("r3").add(C1, "v1"));
+      table.delete(new Delete("r3"));
+      verifyValueFilterWithChanges(table, filter);
+
+      txClient.canCommitOrThrow(tx2, ((TransactionAware) table).getTxChanges());
+      Assert.assertTrue(((TransactionAware) table).commitTx());
+      txClient.commitOrThrow(tx2);
+      ((TransactionAware) table).postTxCommit();
+
+      Transaction tx3 = txClient.startShort();
+      ((TransactionAware) table).startTx(tx3);
+      verifyValueFilterWithChanges(table, filter);
+
+      // the filter of a table split is applied when reading the split, also after serialization
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      new TableSplit(null, Bytes.toBytes("r5"), FilterList.or(filter, ColumnValueFilter.isNull(C2)))
+        .writeExternal(new DataOutputStream(bos));
+      TableSplit split = new TableSplit();
+      split.readExternal(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+      Assert.assertEquals(FilterList.or(filter, ColumnValueFilter.isNull(C2)), split.getFilter());
+
+      List<String> rows = new ArrayList<>();
+      SplitReader<byte[], Row> reader = table.createSplitReader(split);
+      reader.initialize(split);
+      while (reader.nextKeyValue()) {
+        rows.add(Bytes.toString(reader.getCurrentKey()));
+      }
+      reader.close();
+      Assert.assertEquals(ImmutableList.of("r1", "r10", "r2"), rows);
+      txClient.commitOrThrow(tx3);
+    } finally {
+      admin.drop();
+    }
+  }
+
+  @Test
+  public void testScanWithValueFilterOnDeletedColumn() throws Exception {
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE);
+    admin.create();
+    try {
+      Transaction tx1 = txClient.startShort();
+      Table table = getTable(CONTEXT1, MY_TABLE);
+      ((TransactionAware) table).startTx(tx1);
+      table.put(new Put("r1").add(C1, "v1").add(C2, "e"));
+      table.put(new Put("r2").add(C1, "v2").add(C2, "e"));
+      txClient.canCommitOrThrow(tx1, ((TransactionAware) table).getTxChanges());
+      Assert.assertTrue(((TransactionAware) table).commitTx());
+      txClient.commitOrThrow(tx1);
+      ((TransactionAware) table).postTxCommit();
+
+      // a deleted column must be treated like a missing column, in the tx that deletes it and after it is persisted
+      Transaction tx2 = txClient.startShort();
+      ((TransactionAware) table).startTx(tx2);
+      table.delete(new Delete(Bytes.toBytes("r1"), C2));
+      verifyValueFilterOnDeletedColumn(table);
+      txClient.canCommitOrThrow(tx2, ((TransactionAware) table).getTxChanges());
+      Assert.assertTrue(((TransactionAware) table).commitTx());
+      txClient.commitOrThrow(tx2);
+      ((TransactionAware) table).postTxCommit();
+
+      Transaction tx3 = txClient.startShort();
+      ((TransactionAware) table).startTx(tx3);
+      verifyValueFilterOnDeletedColumn(table);
+      txClient.commitOrThrow(tx3);
+    } finally {
+      admin.drop();
+    }
+  }
+
+  private static void verifyValueFilterOnDeletedColumn(Table table) {
+    Assert.assertEquals(ImmutableList.of("r1"), scanRows(table, ColumnValueFilter.isNull(C2)));
+    Assert.assertEquals(ImmutableList.of("r2"), scanRows(table, ColumnValueFilter.isNotNull(C2)));
+    Assert.assertEquals(ImmutableList.of("r2"), scanRows(table, ColumnValueFilter.notEqual(C2, Bytes.toBytes("x"))));
+    Assert.assertEquals(ImmutableList.of("r2"), scanRows(table, ColumnValueFilter.less(C2, Bytes.toBytes("z"))));
+    Assert.assertEquals(ImmutableList.of("r2"), scanRows(table, ColumnValueFilter.prefix(C2, Bytes.toBytes(""))));
+    Assert.assertEquals(ImmutableList.of("r1", "r2"),
+                        scanRows(table, FilterList.or(ColumnValueFilter.isNull(C2),
+                                                      ColumnValueFilter.equal(C1, Bytes.toBytes("v2")))));
+  }
+
+  private static void verifyScanWithValueFilter(Table table) {
+    Assert.assertEquals(ImmutableList.of("r3"), scanRows(table, ColumnValueFilter.equal(C1, Bytes.toBytes("v3"))));
+    Assert.assertEquals(ImmutableList.of("r2", "r3", "r4"),
+                        scanRows(table, ColumnValueFilter.range(C1, Bytes.toBytes("v2"), Bytes.toBytes("v5"))));
+    Assert.assertEquals(10, scanRows(table, ColumnValueFilter.prefix(C1, Bytes.toBytes("v"))).size());
+    Assert.assertEquals(ImmutableList.of("r1", "r7"),
+                        scanRows(table, ColumnValueFilter.in(C1, Bytes.toBytes("v1"), Bytes.toBytes("v7"),
+                                                             Bytes.toBytes("x"))));
+    Assert.assertEquals(ImmutableList.of("r1", "r3", "r5", "r7", "r9"),
+                        scanRows(table, ColumnValueFilter.isNull(C2)));
+    Assert.assertEquals(ImmutableList.of("r0", "r2", "r4", "r6", "r8"),
+                        scanRows(table, ColumnValueFilter.isNotNull(C2)));
+    // rows without the column never pass a comparison
+    Assert.assertEquals(ImmutableList.of(), scanRows(table, ColumnValueFilter.notEqual(C2, Bytes.toBytes("e"))));
+    Assert.assertEquals(ImmutableList.of("r1", "r8"),
+                        scanRows(table, FilterList.or(ColumnValueFilter.equal(C1, Bytes.toBytes("v1")),
+                                                      FilterList.and(ColumnValueFilter.isNotNull(C2),
+                                                                     ColumnValueFilter.greater(C1,
+                                                                                               Bytes.toBytes("v7"))))));
+    // filters are applied within the scanned range
+    Scanner scanner = table.scan(new Scan(Bytes.toBytes("r5"), null, ColumnValueFilter.isNotNull(C2)));
+    Row row = scanner.next();
+    Assert.assertEquals("r6", Bytes.toString(row.getRow()));
+    Assert.assertEquals(ImmutableMap.of("c1", "v6", "c2", "e"), toStringMap(row));
+    Assert.assertEquals("r8", Bytes.toString(scanner.next().getRow()));
+    Assert.assertNull(scanner.next());
+    scanner.close();
+  }
+
+  private static void verifyValueFilterWithChanges(Table table, ValueFilter filter) {
+    Scanner scanner = table.scan(new Scan(null, null, filter));
+    // rows are returned with all their columns, including persisted ones
+    Row row = scanner.next();
+    Assert.assertEquals("r10", Bytes.toString(row.getRow()));
+    Assert.assertEquals(ImmutableMap.of("c1", "v1"), toStringMap(row));
+    row = scanner.next();
+    Assert.assertEquals("r2", Bytes.toString(row.getRow()));
+    Assert.assertEquals(ImmutableMap.of("c1", "v1", "c2", "e"), toStringMap(row));
+    Assert.assertNull(scanner.next());
+    scanner.close();
+  }
+
+  private static List<String> scanRows(Table table, Filter filter) {
+    List<String> rows = new ArrayList<>();
+    try (Scanner scanner = table.scan(new Scan(null, null, filter))) {
+      Row row;
+      while ((row = scanner.next()) != null) {
+        rows.add(Bytes.toString(row.getRow()));
+      }
+    }
+    return rows;
+  }
+
+  private static Map<String, String> toStringMap(Row row) {
+    Map<String, String> result = new TreeMap<>();
+    for (Map.Entry<byte[], byte[]> column : row.getColumns().entrySet()) {
+      result.put(Bytes.toString(column.getKey()), Bytes.toString(column.getValue()));
+    }
+    return result;
+  }
+
   private static int countRows(Table table) throws Exception {
     Scanner scanner = table.scan(null, null);
     int count = 0;
@@ -1796,6 +2001,138 @@ public abstract class TableTest<T extends Table> {
     }
   }
 
+  @Test
+  public void testPersistingBufferBeforeCommit() throws Exception {
+    // persist the buffer on every write
+    DatasetProperties props = TableProperties.builder()
+      .setConflictDetection(ConflictDetection.ROW)
+      .setBufferFlushSize(1)
+      .build();
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE, props);
+    admin.create();
+    try {
+      Transaction tx1 = txClient.startShort();
+      Table myTable1 = getTable(CONTEXT1, MY_TABLE, props);
+      ((TransactionAware) myTable1).startTx(tx1);
+      myTable1.put(R1, a(C1), a(V1));
+      myTable1.put(R2, a(C2), a(V2));
+      myTable1.put(R1, a(C1), a(V3));
+      myTable1.delete(R2, a(C2));
+      myTable1.increment(R3, C3, 2L);
+      myTable1.increment(R3, C3, 3L);
+
+      // changes persisted before commit are visible to the tx, through both gets and scans
+      TableAssert.assertRow(a(C1, V3), myTable1.get(R1));
+      TableAssert.assertRow(a(), myTable1.get(R2));
+      TableAssert.assertRow(a(C3, L5), myTable1.get(R3));
+      TableAssert.assertScan(a(R1, R3), aa(a(C1, V3), a(C3, L5)), myTable1, new Scan(null, null));
+
+      // but not to other txs
+      Transaction tx2 = txClient.startShort();
+      Table myTable2 = getTable(CONTEXT1, MY_TABLE, props);
+      ((TransactionAware) myTable2).startTx(tx2);
+      TableAssert.assertRow(a(), myTable2.get(R1));
+      myTable2.put(R3, a(C1), a(V1));
+
+      // rows persisted before commit are still part of the tx changes
+      txClient.canCommitOrThrow(tx2, ((TransactionAware) myTable2).getTxChanges());
+      Assert.assertTrue(((TransactionAware) myTable2).commitTx());
+      txClient.commitOrThrow(tx2);
+      ((TransactionAware) myTable2).postTxCommit();
+      try {
+        txClient.canCommitOrThrow(tx1, ((TransactionAware) myTable1).getTxChanges());
+        Assert.fail("Conflict not detected!");
+      } catch (TransactionConflictException e) {
+        // expected
+      }
+      Assert.assertTrue(((TransactionAware) myTable1).rollbackTx());
+      txClient.abort(tx1);
+
+      // all changes of the rolled back tx are undone, including those persisted before commit
+      Transaction tx3 = txClient.startShort();
+      Table myTable3 = getTable(CONTEXT1, MY_TABLE, props);
+      ((TransactionAware) myTable3).startTx(tx3);
+      TableAssert.assertRow(a(), myTable3.get(R1));
+      TableAssert.assertRow(a(), myTable3.get(R2));
+      TableAssert.assertRow(a(C1, V1), myTable3.get(R3));
+      txClient.abort(tx3);
+    } finally {
+      admin.drop();
+    }
+  }
+
+  @Test
+  public void testBulkLoad() throws Exception {
+    // use a small batch size, so that the load is persisted in multiple batches
+    DatasetProperties props = TableProperties.builder()
+      .setConflictDetection(ConflictDetection.ROW)
+      .setBufferFlushSize(10)
+      .build();
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE, props);
+    admin.create();
+    try {
+      Transaction tx1 = txClient.startShort();
+      Table myTable1 = getTable(CONTEXT1, MY_TABLE, props);
+      ((TransactionAware) myTable1).startTx(tx1);
+      myTable1.put(R1, a(C1), a(V1));
+      myTable1.put(R2, a(C1), a(V1));
+      // the load overwrites what was written before, and later loads continue after the last loaded row
+      ((BulkLoadable<Put>) myTable1).bulkLoad(Arrays.asList(new Put(R2, C1, V2), new Put(R3, C1, V3)).iterator());
+      ((BulkLoadable<Put>) myTable1).bulkLoad(Collections.singletonList(new Put(R4, C2, V4)).iterator());
+      try {
+        ((BulkLoadable<Put>) myTable1).bulkLoad(Collections.singletonList(new Put(R3, C1, V5)).iterator());
+        Assert.fail("Expected rows out of order to be rejected");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      // a rejected load only advances the last loaded row past the rows it persisted
+      try {
+        ((BulkLoadable<Put>) myTable1).bulkLoad(Arrays.asList(new Put(R5, C1, V5), new Put(R3, C1, V5)).iterator());
+        Assert.fail("Expected rows out of order to be rejected");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      ((BulkLoadable<Put>) myTable1).bulkLoad(Collections.singletonList(new Put(R5, C2, V5)).iterator());
+      TableAssert.assertRow(a(C1, V2), myTable1.get(R2));
+      TableAssert.assertScan(a(R1, R2, R3, R4, R5), aa(a(C1, V1), a(C1, V2), a(C1, V3), a(C2, V4), a(C2, V5)),
+                             myTable1, new Scan(null, null));
+
+      // loaded rows are not visible to other txs before commit, and are not part of conflict detection
+      Transaction tx2 = txClient.startShort();
+      Table myTable2 = getTable(CONTEXT1, MY_TABLE, props);
+      ((TransactionAware) myTable2).startTx(tx2);
+      TableAssert.assertRow(a(), myTable2.get(R3));
+      myTable2.put(R3, a(C2), a(V2));
+      txClient.canCommitOrThrow(tx2, ((TransactionAware) myTable2).getTxChanges());
+      Assert.assertTrue(((TransactionAware) myTable2).commitTx());
+      txClient.commitOrThrow(tx2);
+      ((TransactionAware) myTable2).postTxCommit();
+
+      txClient.canCommitOrThrow(tx1, ((TransactionAware) myTable1).getTxChanges());
+      Assert.assertTrue(((TransactionAware) myTable1).commitTx());
+      txClient.commitOrThrow(tx1);
+      ((TransactionAware) myTable1).postTxCommit();
+
+      // a rolled back load is undone
+      Transaction tx3 = txClient.startShort();
+      Table myTable3 = getTable(CONTEXT1, MY_TABLE, props);
+      ((TransactionAware) myTable3).startTx(tx3);
+      ((BulkLoadable<Put>) myTable3).bulkLoad(Arrays.asList(new Put(R1, C1, V5), new Put(R5, C1, V5)).iterator());
+      Assert.assertTrue(((TransactionAware) myTable3).rollbackTx());
+      txClient.abort(tx3);
+
+      Transaction tx4 = txClient.startShort();
+      Table myTable4 = getTable(CONTEXT1, MY_TABLE, props);
+      ((TransactionAware) myTable4).startTx(tx4);
+      TableAssert.assertScan(a(R1, R2, R3, R4, R5),
+                             aa(a(C1, V1), a(C1, V2), a(C1, V3, C2, V2), a(C2, V4), a(C2, V5)),
+                             myTable4, new Scan(null, null));
+      txClient.abort(tx4);
+    } finally {
+      admin.drop();
+    }
+  }
+
   // this test ensures that an existing client survives the truncating or dropping and recreating of a table
   @Test
   public void testClientSurvivesTableReset() throws Exception {
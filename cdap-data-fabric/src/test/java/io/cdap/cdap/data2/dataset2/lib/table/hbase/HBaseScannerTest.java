@@ -0,0 +1,206 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table.hbase;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Row;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Unit tests for {@link HBaseScanner}.
+ */
+public class HBaseScannerTest {
+
+  private static final byte[] FAMILY = Bytes.toBytes("d");
+  private static final byte[] COLUMN = Bytes.toBytes("c");
+
+  @Test
+  public void testScan() {
+    for (int prefetchDepth : new int[] { 0, 1, 4 }) {
+      for (int batchSize : new int[] { 1, 7, 100 }) {
+        TestResultScanner resultScanner = new TestResultScanner(createResults(50), null, null);
+        HBaseScanner scanner = new HBaseScanner(resultScanner, FAMILY, null, prefetchDepth, batchSize);
+        for (int i = 0; i < 50; i++) {
+          Row row = scanner.next();
+          Assert.assertNotNull(row);
+          Assert.assertEquals("r" + i, Bytes.toString(row.getRow()));
+          Assert.assertEquals(i, Bytes.toInt(row.get(COLUMN)));
+        }
+        Assert.assertNull(scanner.next());
+        Assert.assertNull(scanner.next());
+        scanner.close();
+        Assert.assertTrue(resultScanner.closed);
+      }
+    }
+  }
+
+  @Test
+  public void testPrefetchFailure() {
+    TestResultScanner resultScanner = new TestResultScanner(createResults(10), new IOException("Failed"), null);
+    HBaseScanner scanner = new HBaseScanner(resultScanner, FAMILY, null, 2, 3);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertNotNull(scanner.next());
+    }
+    try {
+      scanner.next();
+      Assert.fail("Expected scan failure");
+    } catch (RuntimeException e) {
+      Assert.assertTrue(e.getCause() instanceof IOException);
+    }
+    scanner.close();
+    Assert.assertTrue(resultScanner.closed);
+  }
+
+  @Test(timeout = 10000)
+  public void testCloseWhilePrefetching() throws Exception {
+    TestResultScanner resultScanner = new TestResultScanner(createResults(1000), null, null);
+    HBaseScanner scanner = new HBaseScanner(resultScanner, FAMILY, null, 2, 10);
+    Assert.assertNotNull(scanner.next());
+
+    // Wait until the prefetch queue is full and the prefetching is blocked
+    while (resultScanner.fetches.get() < 4) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    scanner.close();
+    Assert.assertTrue(resultScanner.closed);
+    // No more fetches after close
+    int fetches = resultScanner.fetches.get();
+    TimeUnit.MILLISECONDS.sleep(100);
+    Assert.assertEquals(fetches, resultScanner.fetches.get());
+    Assert.assertFalse(resultScanner.usedAfterClose);
+  }
+
+  @Test(timeout = 10000)
+  public void testCloseDuringFetch() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    TestResultScanner resultScanner = new TestResultScanner(createResults(10), null, release);
+    HBaseScanner scanner = new HBaseScanner(resultScanner, FAMILY, null, 2, 10);
+    resultScanner.fetching.await();
+
+    // close waits for the fetch in progress before closing the underlying scanner
+    Thread closer = new Thread(scanner::close);
+    closer.start();
+    closer.join(200);
+    Assert.assertTrue(closer.isAlive());
+    Assert.assertFalse(resultScanner.closed);
+
+    release.countDown();
+    closer.join();
+    Assert.assertTrue(resultScanner.closed);
+    Assert.assertEquals(1, resultScanner.fetches.get());
+    Assert.assertFalse(resultScanner.usedAfterClose);
+  }
+
+  @Test
+  public void testCloseBeforePrefetching() throws Exception {
+    List<TestResultScanner> resultScanners = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      TestResultScanner resultScanner = new TestResultScanner(createResults(10), null, null);
+      new HBaseScanner(resultScanner, FAMILY, null, 2, 10).close();
+      Assert.assertTrue(resultScanner.closed);
+      resultScanners.add(resultScanner);
+    }
+    // prefetching that did not start before the close never starts
+    TimeUnit.MILLISECONDS.sleep(100);
+    for (TestResultScanner resultScanner : resultScanners) {
+      Assert.assertFalse(resultScanner.usedAfterClose);
+    }
+  }
+
+  private List<Result> createResults(int count) {
+    List<Result> results = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      List<Cell> cells = Collections.singletonList(new KeyValue(Bytes.toBytes("r" + i), FAMILY, COLUMN,
+                                                                Bytes.toBytes(i)));
+      results.add(Result.create(cells));
+    }
+    return results;
+  }
+
+  /**
+   * A {@link ResultScanner} over a list of results, which optionally fails after all results are returned. Fetches
+   * optionally block until the given latch is released.
+   */
+  private static final class TestResultScanner implements ResultScanner {
+
+    private final Iterator<Result> results;
+    private final IOException failure;
+    private final CountDownLatch release;
+    private final CountDownLatch fetching = new CountDownLatch(1);
+    private final AtomicInteger fetches = new AtomicInteger();
+    private volatile boolean closed;
+    private volatile boolean usedAfterClose;
+
+    TestResultScanner(List<Result> results, @Nullable IOException failure, @Nullable CountDownLatch release) {
+      this.results = results.iterator();
+      this.failure = failure;
+      this.release = release;
+    }
+
+    @Override
+    public Result next() throws IOException {
+      Result[] next = next(1);
+      return next.length == 0 ? null : next[0];
+    }
+
+    @Override
+    public Result[] next(int nbRows) throws IOException {
+      usedAfterClose |= closed;
+      Assert.assertFalse("Scanner used after close", closed);
+      fetching.countDown();
+      if (release != null) {
+        Uninterruptibles.awaitUninterruptibly(release);
+      }
+      usedAfterClose |= closed;
+      fetches.incrementAndGet();
+      List<Result> batch = new ArrayList<>();
+      while (batch.size() < nbRows && results.hasNext()) {
+        batch.add(results.next());
+      }
+      if (batch.isEmpty() && failure != null) {
+        throw failure;
+      }
+      return batch.toArray(new Result[batch.size()]);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public Iterator<Result> iterator() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
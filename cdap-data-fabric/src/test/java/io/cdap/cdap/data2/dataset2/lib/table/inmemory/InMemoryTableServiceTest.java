@@ -20,11 +20,22 @@ import com.google.common.collect.Maps;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.data2.dataset2.lib.table.PutValue;
 import io.cdap.cdap.data2.dataset2.lib.table.Update;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.tephra.Transaction;
+import org.apache.tephra.TransactionManager;
+import org.apache.tephra.TransactionSystemClient;
+import org.apache.tephra.inmemory.InMemoryTxSystemClient;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NavigableMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -97,6 +108,201 @@ public class InMemoryTableServiceTest {
     verify123();
   }
 
+  @Test
+  public void testVersionPruning() {
+    InMemoryTableService.create("pruning");
+    byte[] row = new byte[] {1};
+    byte[] column = new byte[] {2};
+
+    // each transaction starts after the previous one committed
+    writeInTx("pruning", row, column, newTx(0L, 1L));
+    writeInTx("pruning", row, column, newTx(1L, 2L));
+    writeInTx("pruning", row, column, newTx(2L, 3L));
+    // version 1 is not visible to any transaction anymore
+    assertVersions("pruning", row, column, 2L, 3L);
+
+    // a long running transaction can read version 3, hence it must be retained, even if it did not use the table yet
+    Transaction reader = newTx(3L, 4L);
+    InMemoryTableService.startTx(reader);
+    writeInTx("pruning", row, column, newTx(4L, 5L));
+    writeInTx("pruning", row, column, newTx(5L, 6L));
+    assertVersions("pruning", row, column, 3L, 5L, 6L);
+    Assert.assertArrayEquals(new byte[] {3}, InMemoryTableService.get("pruning", row, reader).get(column).get(3L));
+    InMemoryTableService.endTx(reader);
+
+    // invalid versions do not count as the latest visible version
+    Transaction tx = new Transaction(6L, 7L, new long[] {6L}, new long[0], Transaction.NO_TX_IN_PROGRESS);
+    writeInTx("pruning", row, column, tx);
+    assertVersions("pruning", row, column, 5L, 6L, 7L);
+
+    // non-transactional writes only keep the latest version
+    InMemoryTableService.mergeLatest("pruning", createUpdates(row, column, (byte) 3), 100L);
+    assertVersions("pruning", row, column, 100L);
+
+    InMemoryTableService.drop("pruning");
+  }
+
+  @Test
+  public void testPruningWithTransactionNotUsingTable() throws Exception {
+    InMemoryTableService.create("lazy");
+    byte[] row = new byte[] {1};
+    byte[] column = new byte[] {2};
+
+    TransactionManager txManager = new TransactionManager(new Configuration());
+    txManager.startAndWait();
+    try {
+      TransactionSystemClient txClient = new InMemoryTableTxSystemClient(new InMemoryTxSystemClient(txManager));
+      // the writers use the table, hence register with it like an InMemoryTable does
+      Transaction first = txClient.startShort();
+      writeInTx("lazy", row, column, first);
+      txClient.commitOrThrow(first);
+
+      // the reader starts while another writer is in progress, hence cannot read the version of that writer
+      Transaction inProgress = txClient.startShort();
+      Transaction reader = txClient.startShort();
+      writeInTx("lazy", row, column, inProgress);
+      txClient.commitOrThrow(inProgress);
+
+      // the later writers have a higher visibility upper bound than the reader, which has not used the table yet
+      Transaction writer = null;
+      for (int i = 0; i < 3; i++) {
+        writer = txClient.startShort();
+        writeInTx("lazy", row, column, writer);
+        txClient.commitOrThrow(writer);
+      }
+      NavigableMap<byte[], NavigableMap<Long, byte[]>> result = InMemoryTableService.get("lazy", row, reader);
+      Assert.assertEquals(first.getWritePointer(), (long) result.get(column).firstKey());
+      txClient.commitOrThrow(reader);
+
+      // once the reader ended, the versions only it could read are pruned by the next write
+      Transaction last = txClient.startShort();
+      writeInTx("lazy", row, column, last);
+      txClient.commitOrThrow(last);
+      assertVersions("lazy", row, column, writer.getWritePointer(), last.getWritePointer());
+    } finally {
+      txManager.stopAndWait();
+      InMemoryTableService.drop("lazy");
+    }
+  }
+
+  @Test
+  public void testConcurrentMerges() throws Exception {
+    InMemoryTableService.create("concurrent");
+    int threads = 8;
+    final int writesPerThread = 1000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        final byte thread = (byte) i;
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < writesPerThread; j++) {
+            // all threads write to the same cells concurrently, each with its own version
+            InMemoryTableService.merge("concurrent", createUpdates(Bytes.toBytes(j % 10), Bytes.toBytes(j),
+                                                                   thread), thread);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> rows =
+      InMemoryTableService.getRowRange("concurrent", null, null, null);
+    Assert.assertEquals(10, rows.size());
+    for (NavigableMap<byte[], NavigableMap<Long, byte[]>> columns : rows.values()) {
+      Assert.assertEquals(writesPerThread / 10, columns.size());
+      for (NavigableMap<Long, byte[]> versions : columns.values()) {
+        Assert.assertEquals(threads, versions.size());
+      }
+    }
+    InMemoryTableService.drop("concurrent");
+  }
+
+  @Test
+  public void testConcurrentMergesAndDeletes() throws Exception {
+    InMemoryTableService.create("deletes");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> writer = executor.submit(() -> {
+        for (int i = 0; i < 10000; i++) {
+          InMemoryTableService.merge("deletes", createUpdates(Bytes.toBytes(i % 10), new byte[] {1}, (byte) 1), i);
+        }
+      });
+      Future<?> deleter = executor.submit(() -> {
+        while (!writer.isDone()) {
+          InMemoryTableService.truncate("deletes");
+          InMemoryTableService.delete("deletes", Bytes.EMPTY_BYTE_ARRAY);
+        }
+      });
+      writer.get(1, TimeUnit.MINUTES);
+      deleter.get(1, TimeUnit.MINUTES);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // no write went to a removed row, hence the size of the table is accurate after removing all rows
+    InMemoryTableService.truncate("deletes");
+    Assert.assertTrue(InMemoryTableService.getRowRange("deletes", null, null, null).isEmpty());
+    Assert.assertEquals(0L, InMemoryTableService.getTableStats().get("deletes").getMemorySizeBytes());
+    InMemoryTableService.drop("deletes");
+  }
+
+  @Test
+  public void testTableStats() {
+    InMemoryTableService.create("stats");
+    Assert.assertEquals(0L, InMemoryTableService.getTableStats().get("stats").getMemorySizeBytes());
+
+    for (int i = 0; i < 100; i++) {
+      InMemoryTableService.merge("stats", createUpdates(Bytes.toBytes(i), new byte[] {1}, (byte) 1), 1L);
+    }
+    long size = InMemoryTableService.getTableStats().get("stats").getMemorySizeBytes();
+    Assert.assertTrue(size > 100 * (Integer.BYTES + 2));
+
+    // replacing all versions with a single one frees memory
+    for (int i = 0; i < 100; i++) {
+      InMemoryTableService.merge("stats", createUpdates(Bytes.toBytes(i), new byte[] {1}, (byte) 1), 2L);
+    }
+    Assert.assertTrue(InMemoryTableService.getTableStats().get("stats").getMemorySizeBytes() > size);
+    for (int i = 0; i < 100; i++) {
+      InMemoryTableService.mergeLatest("stats", createUpdates(Bytes.toBytes(i), new byte[] {1}, (byte) 1), 3L);
+    }
+    Assert.assertEquals(size, InMemoryTableService.getTableStats().get("stats").getMemorySizeBytes());
+
+    InMemoryTableService.delete("stats", Bytes.EMPTY_BYTE_ARRAY);
+    Assert.assertEquals(0L, InMemoryTableService.getTableStats().get("stats").getMemorySizeBytes());
+
+    InMemoryTableService.drop("stats");
+    Assert.assertFalse(InMemoryTableService.getTableStats().containsKey("stats"));
+  }
+
+  private static Transaction newTx(long readPointer, long writePointer) {
+    return new Transaction(readPointer, writePointer, new long[0], new long[0], Transaction.NO_TX_IN_PROGRESS);
+  }
+
+  private static void writeInTx(String table, byte[] row, byte[] column, Transaction tx) {
+    InMemoryTableService.startTx(tx);
+    InMemoryTableService.merge(table, createUpdates(row, column, (byte) tx.getWritePointer()), tx);
+    InMemoryTableService.endTx(tx);
+  }
+
+  private static NavigableMap<byte[], NavigableMap<byte[], Update>> createUpdates(byte[] row, byte[] column,
+                                                                                  byte value) {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> updates = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    NavigableMap<byte[], Update> rowUpdate = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    rowUpdate.put(column, new PutValue(new byte[] {value}));
+    updates.put(row, rowUpdate);
+    return updates;
+  }
+
+  private static void assertVersions(String table, byte[] row, byte[] column, Long... expected) {
+    NavigableMap<Long, byte[]> versions = InMemoryTableService.get(table, row, null).get(column);
+    Assert.assertEquals(Arrays.asList(expected), new ArrayList<>(versions.descendingKeySet()));
+  }
+
   private void verify123() {
     NavigableMap<byte[], NavigableMap<Long, byte[]>> rowFromGet =
       InMemoryTableService.get("table", new byte[]{1}, new Transaction(1L, 2L, new long[0], new long[0], 1L));
@@ -19,8 +19,7 @@ package io.cdap.cdap.data2.dataset2.lib.table.inmemory;
 import io.cdap.cdap.api.dataset.DatasetAdmin;
 import io.cdap.cdap.api.dataset.DatasetContext;
 import io.cdap.cdap.api.dataset.DatasetProperties;
-import io.cdap.cdap.api.dataset.table.ConflictDetection;
-import io.cdap.cdap.api.dataset.table.TableProperties;
+import io.cdap.cdap.api.dataset.DatasetSpecification;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.data2.dataset2.lib.table.BufferingTableTest;
 
@@ -36,8 +35,8 @@ public class InMemoryTableTest extends BufferingTableTest<InMemoryTable> {
   @Override
   protected InMemoryTable getTable(DatasetContext datasetContext, String name,
                                    DatasetProperties props, Map<String, String> runtimeArguments) throws Exception {
-    ConflictDetection conflictLevel = TableProperties.getConflictDetection(props, ConflictDetection.ROW);
-    return new InMemoryTable(datasetContext, name, conflictLevel, cConf);
+    return new InMemoryTable(datasetContext, DatasetSpecification.builder(name, "table").properties(
+      props.getProperties()).build(), cConf);
   }
 
   @Override
@@ -16,8 +16,11 @@
 
 package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSortedMap;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.DatasetProperties;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
@@ -37,15 +40,31 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.security.auth.context.AuthenticationContextModules;
 import io.cdap.cdap.security.authorization.AuthorizationEnforcementModule;
 import io.cdap.cdap.security.authorization.AuthorizationTestModule;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
+import org.junit.Ignore;
+import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * metrics table test for levelDB.
  */
 public class LevelDBMetricsTableTest extends MetricsTableTest {
 
+  private static final Logger LOG = LoggerFactory.getLogger(LevelDBMetricsTableTest.class);
+
   private static DatasetFramework dsFramework;
 
   @ClassRule
@@ -76,4 +95,74 @@ public class LevelDBMetricsTableTest extends MetricsTableTest {
     return DatasetsUtil.getOrCreateDataset(dsFramework, metricsDatasetInstanceId, MetricsTable.class.getName(),
                                            DatasetProperties.EMPTY, null);
   }
+
+  /**
+   * Tests that concurrent batch increments are not lost. Each thread increments its own row and a row shared by all
+   * threads, through its own table instance, which is how metrics processors use the table.
+   */
+  @Test
+  public void testIncrementContention() throws Exception {
+    runConcurrentIncrements("testIncrementContention", 8, 100);
+  }
+
+  /**
+   * Measures the throughput of concurrent batch increments with 1 to 32 threads, the same way as
+   * {@link #testIncrementContention()}. It is not run by default, as it only logs timings.
+   */
+  @Ignore
+  @Test
+  public void testIncrementContentionSpeed() throws Exception {
+    int totalIncrements = 32000;
+    for (int threads = 1; threads <= 32; threads *= 2) {
+      int rounds = totalIncrements / threads;
+      Stopwatch stopwatch = new Stopwatch().start();
+      runConcurrentIncrements("testIncrementContentionSpeed" + threads, threads, rounds);
+      LOG.info("{} threads: {} batch increments in {} ms", threads, rounds * threads,
+               stopwatch.elapsedTime(TimeUnit.MILLISECONDS));
+    }
+  }
+
+  private void runConcurrentIncrements(String tableName, int threads, int rounds) throws Exception {
+    byte[] column = Bytes.toBytes("c");
+    byte[] sharedRow = Bytes.toBytes("shared");
+
+    // create the table upfront, so that the threads only get instances of it
+    getTable(tableName).close();
+    CyclicBarrier barrier = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        byte[] ownRow = Bytes.toBytes("row" + i);
+        futures.add(executor.submit(() -> {
+          try (MetricsTable table = getTable(tableName)) {
+            NavigableMap<byte[], NavigableMap<byte[], Long>> updates =
+              ImmutableSortedMap.<byte[], NavigableMap<byte[], Long>>orderedBy(Bytes.BYTES_COMPARATOR)
+                .put(ownRow, ImmutableSortedMap.<byte[], Long>orderedBy(Bytes.BYTES_COMPARATOR)
+                  .put(column, 1L).build())
+                .put(sharedRow, ImmutableSortedMap.<byte[], Long>orderedBy(Bytes.BYTES_COMPARATOR)
+                  .put(column, 1L).build())
+                .build();
+            barrier.await();
+            for (int j = 0; j < rounds; j++) {
+              table.increment(updates);
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    try (MetricsTable table = getTable(tableName)) {
+      Assert.assertEquals(rounds * threads, Bytes.toLong(table.get(sharedRow, column)));
+      for (int i = 0; i < threads; i++) {
+        Assert.assertEquals(rounds, Bytes.toLong(table.get(Bytes.toBytes("row" + i), column)));
+      }
+    }
+  }
 }
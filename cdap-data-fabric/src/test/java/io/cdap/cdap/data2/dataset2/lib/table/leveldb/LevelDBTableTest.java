@@ -19,9 +19,16 @@ package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
 import com.google.common.base.Preconditions;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.data.batch.Split;
 import io.cdap.cdap.api.dataset.DatasetContext;
 import io.cdap.cdap.api.dataset.DatasetProperties;
 import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.api.dataset.table.Put;
+import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.api.dataset.table.TableProperties;
+import io.cdap.cdap.api.dataset.table.TableSplit;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.guice.ConfigModule;
@@ -34,6 +41,7 @@ import io.cdap.cdap.data2.dataset2.lib.table.inmemory.PrefixedNamespaces;
 import io.cdap.cdap.security.auth.context.AuthenticationContextModules;
 import io.cdap.cdap.security.authorization.AuthorizationEnforcementModule;
 import io.cdap.cdap.security.authorization.AuthorizationTestModule;
+import org.apache.tephra.Transaction;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -41,7 +49,10 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * test for LevelDB tables.
@@ -111,4 +122,60 @@ public class LevelDBTableTest extends BufferingTableTest<LevelDBTable> {
         PrefixedNamespaces.namespace(cConf, CONTEXT1.getNamespaceId(), tableName)));
     }
   }
+
+  @Test
+  public void testSizeAwareSplits() throws Exception {
+    // all rows have the same prefix, hence dividing the key space evenly would put them into a single split
+    DatasetProperties props = TableProperties.builder().setSplitSize(2 * 1024 * 1024).build();
+    LevelDBTableAdmin admin = getTableAdmin(CONTEXT1, "splits", props);
+    admin.create();
+    try {
+      int numRows = 8000;
+      Random random = new Random(0);
+      List<Put> puts = new ArrayList<>();
+      for (int i = 0; i < numRows; i++) {
+        byte[] value = new byte[1024];
+        random.nextBytes(value);
+        puts.add(new Put(Bytes.toBytes(String.format("row/%05d", i)), Bytes.toBytes("c"), value));
+      }
+      Transaction tx = txClient.startShort();
+      LevelDBTable table = getTable(CONTEXT1, "splits", props);
+      table.startTx(tx);
+      table.bulkLoad(puts.iterator());
+      txClient.canCommitOrThrow(tx, table.getTxChanges());
+      Assert.assertTrue(table.commitTx());
+      txClient.commitOrThrow(tx);
+      table.postTxCommit();
+
+      // reopen the table, which writes the data still in memory to the table files
+      service.clearTables();
+
+      tx = txClient.startShort();
+      table = getTable(CONTEXT1, "splits", props);
+      table.startTx(tx);
+      List<Split> splits = table.getSplits();
+      Assert.assertTrue("Unexpected number of splits: " + splits.size(), splits.size() >= 3 && splits.size() <= 6);
+      // all splits but the last one should have about the split size
+      int totalRows = 0;
+      for (int i = 0; i < splits.size(); i++) {
+        TableSplit split = (TableSplit) splits.get(i);
+        int rows = 0;
+        try (Scanner scanner = table.scan(split.getStart(), split.getStop())) {
+          Row row;
+          while ((row = scanner.next()) != null) {
+            Assert.assertNotNull(row.get(Bytes.toBytes("c")));
+            rows++;
+          }
+        }
+        if (i < splits.size() - 1) {
+          Assert.assertTrue("Unexpected number of rows in split: " + rows, rows > numRows / 8 && rows < numRows / 2);
+        }
+        totalRows += rows;
+      }
+      Assert.assertEquals(numRows, totalRows);
+      txClient.abort(tx);
+    } finally {
+      admin.drop();
+    }
+  }
 }
@@ -16,7 +16,9 @@
 
 package io.cdap.cdap.spi.data.nosql;
 
+import com.google.common.collect.Iterators;
 import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.dataset.table.Result;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scanner;
@@ -24,11 +26,18 @@ import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.data2.dataset2.DatasetFrameworkTestUtil;
 import io.cdap.cdap.data2.dataset2.lib.table.MDSKey;
+import io.cdap.cdap.spi.data.StructuredRow;
 import io.cdap.cdap.spi.data.StructuredTableAdmin;
 import io.cdap.cdap.spi.data.StructuredTableTest;
+import io.cdap.cdap.spi.data.table.StructuredTableId;
 import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
 import io.cdap.cdap.spi.data.table.StructuredTableSchema;
+import io.cdap.cdap.spi.data.table.StructuredTableSpecification;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.Fields;
+import io.cdap.cdap.spi.data.table.field.Range;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.tephra.TransactionManager;
@@ -40,6 +49,8 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -58,6 +69,7 @@ public class NoSqlStructuredTableTest extends StructuredTableTest {
 
   private static TransactionManager txManager;
   private static NoSqlStructuredTableAdmin noSqlTableAdmin;
+  private static StructuredTableRegistry registry;
   private static TransactionRunner transactionRunner;
 
   @Override
@@ -80,8 +92,7 @@ public class NoSqlStructuredTableTest extends StructuredTableTest {
     cConf.set(Constants.Dataset.DATA_STORAGE_IMPLEMENTATION, Constants.Dataset.DATA_STORAGE_NOSQL);
     noSqlTableAdmin = dsFrameworkUtil.getInjector().getInstance(NoSqlStructuredTableAdmin.class);
     transactionRunner = dsFrameworkUtil.getInjector().getInstance(NoSqlTransactionRunner.class);
-    StructuredTableRegistry registry =
-      dsFrameworkUtil.getInjector().getInstance(StructuredTableRegistry.class);
+    registry = dsFrameworkUtil.getInjector().getInstance(StructuredTableRegistry.class);
     registry.initialize();
   }
 
@@ -92,6 +103,52 @@ public class NoSqlStructuredTableTest extends StructuredTableTest {
     }
   }
 
+  @Test
+  public void testResumeReindex() throws Exception {
+    StructuredTableId tableId = new StructuredTableId("reindexTable");
+    StructuredTableSpecification spec = new StructuredTableSpecification.Builder()
+      .withId(tableId)
+      .withFields(Fields.intType("key"), Fields.stringType("col"))
+      .withPrimaryKeys("key")
+      .build();
+    noSqlTableAdmin.create(spec);
+    try {
+      List<Collection<Field<?>>> rows = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        rows.add(Arrays.asList(Fields.intField("key", i), Fields.stringField("col", "abc")));
+      }
+      transactionRunner.run(context -> {
+        for (Collection<Field<?>> row : rows) {
+          context.getTable(tableId).upsert(row);
+        }
+      });
+
+      // Simulate an update that registered the new specification but stopped before reindexing the existing rows
+      StructuredTableSpecification updated = new StructuredTableSpecification.Builder(spec)
+        .withCompositeIndex("col", "key").build();
+      noSqlTableAdmin.setReindexStart(tableId, NoSqlStructuredTable.getRowKeyPrefix(tableId));
+      registry.removeSpecification(tableId);
+      registry.registerSpecification(updated);
+      Range range = Range.singleton(Collections.singleton(Fields.stringField("col", "abc")));
+      Assert.assertEquals(0, countIndexed(tableId, range));
+
+      // Updating again with the same specification completes the reindex
+      noSqlTableAdmin.update(updated);
+      Assert.assertEquals(rows.size(), countIndexed(tableId, range));
+    } finally {
+      noSqlTableAdmin.drop(tableId);
+    }
+  }
+
+  private int countIndexed(StructuredTableId tableId, Range range) throws Exception {
+    return TransactionRunners.run(transactionRunner, context -> {
+      try (CloseableIterator<StructuredRow> iterator =
+             context.getTable(tableId).scanIndex(range, Integer.MAX_VALUE)) {
+        return Iterators.size(iterator);
+      }
+    });
+  }
+
   @Test
   public void testScannerIteratorSingle() throws Exception {
     testScannerIterator(1);
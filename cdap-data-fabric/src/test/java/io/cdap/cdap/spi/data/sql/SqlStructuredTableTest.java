@@ -24,6 +24,7 @@ import com.google.inject.Scopes;
 import com.opentable.db.postgres.embedded.EmbeddedPostgres;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.guice.ConfigModule;
 import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
 import io.cdap.cdap.data.runtime.StorageModule;
@@ -48,6 +49,8 @@ public class SqlStructuredTableTest extends StructuredTableTest {
   @BeforeClass
   public static void beforeClass() throws Exception {
     CConfiguration cConf = CConfiguration.create();
+    // use a small fetch size, such that scans fetch rows from the database in multiple batches
+    cConf.setInt(Constants.Dataset.DATA_STORAGE_SQL_SCAN_FETCH_SIZE, 5);
     pg = PostgresInstantiator.createAndStart(cConf, TEMP_FOLDER.newFolder());
 
     Injector injector = Guice.createInjector(
@@ -442,6 +442,30 @@ public class LogHandlerTest {
   }
 
 
+  @Test
+  public void testFollowCompletedRun() throws Exception {
+    ProgramId programId =
+      new NamespaceId(MockLogReader.TEST_NAMESPACE).app("testApp1").program(ProgramType.WORKER, "testWorker1");
+    RunRecord runRecord = mockLogReader.getRunRecord(programId);
+    String followUrl = String.format("apps/%s/%s/%s/runs/%s/logs/follow?format=json&start=%s",
+                                     "testApp1", "workers", "testWorker1", runRecord.getPid(),
+                                     MockLogReader.getMockTimeSecs(0));
+    // Logs of a completed run are complete, hence the response ends after sending them
+    HttpResponse response = doGet(getVersionedAPIPath(followUrl, MockLogReader.TEST_NAMESPACE));
+    Assert.assertEquals(HttpURLConnection.HTTP_OK, response.getResponseCode());
+
+    List<LogDataOffset> logDataOffsets = new ArrayList<>();
+    for (String line : response.getResponseBodyAsString().split("\n")) {
+      if (line.startsWith("data: ")) {
+        logDataOffsets.add(GSON.fromJson(line.substring("data: ".length()), LogDataOffset.class));
+      }
+    }
+    Assert.assertEquals(20, logDataOffsets.size());
+    for (LogDataOffset logDataOffset : logDataOffsets) {
+      Assert.assertTrue(logDataOffset.getLog().getMessage().contains("testWorker1"));
+    }
+  }
+
   private List<LogLine> getLogs(String namespaceId, String appId, String programType, String programName, String runId,
                                 String endPoint) throws IOException {
     return getLogs(namespaceId, appId, programType, programName, runId, endPoint, HttpURLConnection.HTTP_OK);
@@ -60,6 +60,8 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import javax.annotation.Nullable;
 
@@ -650,6 +652,33 @@ public abstract class HBaseTableUtil {
     return datasetStat;
   }
 
+  /**
+   * Collects the approximate sizes of the regions of an HBase table
+   *
+   * @param admin instance of {@link HBaseAdmin} to communicate with HBase
+   * @param table the table to get the region sizes of
+   * @return map of region start key -> size of the store files and memstore of the region, in bytes. Region servers
+   *         report sizes in MB, hence a region with less than 1 MB of data has a size of 0
+   * @throws IOException
+   */
+  public NavigableMap<byte[], Long> getRegionSizes(HBaseAdmin admin, HTable table) throws IOException {
+    Map<byte[], Long> sizesByRegionName = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    ClusterStatus clusterStatus = admin.getClusterStatus();
+    for (ServerName serverName : clusterStatus.getServers()) {
+      for (RegionLoad regionLoad : clusterStatus.getLoad(serverName).getRegionsLoad().values()) {
+        long sizeMB = regionLoad.getStorefileSizeMB() + regionLoad.getMemStoreSizeMB();
+        sizesByRegionName.put(regionLoad.getName(), sizeMB * 1024L * 1024L);
+      }
+    }
+
+    NavigableMap<byte[], Long> regionSizes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (HRegionInfo regionInfo : table.getRegionLocations().keySet()) {
+      Long size = sizesByRegionName.get(regionInfo.getRegionName());
+      regionSizes.put(regionInfo.getStartKey(), size == null ? 0L : size);
+    }
+    return regionSizes;
+  }
+
   protected void warnGlobalAdminCheckFailure() {
     LOG.warn("Unable to determine if cdap is a global admin or not. Failing back to {} configuration.",
              Constants.Startup.TX_PRUNE_ACL_CHECK);
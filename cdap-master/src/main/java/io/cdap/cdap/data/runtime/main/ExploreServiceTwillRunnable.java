@@ -50,6 +50,7 @@ import io.cdap.cdap.explore.executor.ExploreExecutorService;
 import io.cdap.cdap.explore.guice.ExploreClientModule;
 import io.cdap.cdap.explore.guice.ExploreRuntimeModule;
 import io.cdap.cdap.explore.service.hive.BaseHiveExploreService;
+import io.cdap.cdap.internal.app.store.ApplicationMetaCacheSubscriberService;
 import io.cdap.cdap.internal.app.store.DefaultStore;
 import io.cdap.cdap.logging.appender.LogAppenderInitializer;
 import io.cdap.cdap.logging.guice.KafkaLogAppenderModule;
@@ -151,6 +152,7 @@ public class ExploreServiceTwillRunnable extends AbstractMasterTwillRunnable {
   @Override
   protected void addServices(List<? super Service> services) {
     services.add(injector.getInstance(ExploreExecutorService.class));
+    services.add(injector.getInstance(ApplicationMetaCacheSubscriberService.class));
   }
 
   /**
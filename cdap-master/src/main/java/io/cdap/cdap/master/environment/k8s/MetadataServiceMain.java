@@ -34,6 +34,7 @@ import io.cdap.cdap.data2.audit.AuditModule;
 import io.cdap.cdap.data2.metadata.writer.MessagingMetadataPublisher;
 import io.cdap.cdap.data2.metadata.writer.MetadataPublisher;
 import io.cdap.cdap.explore.guice.ExploreClientModule;
+import io.cdap.cdap.internal.app.store.ApplicationMetaCacheSubscriberService;
 import io.cdap.cdap.internal.app.store.DefaultStore;
 import io.cdap.cdap.master.spi.environment.MasterEnvironment;
 import io.cdap.cdap.master.spi.environment.MasterEnvironmentContext;
@@ -110,6 +111,7 @@ public class MetadataServiceMain extends AbstractServiceMain<EnvironmentOptions>
                              EnvironmentOptions options) {
     services.add(injector.getInstance(MetadataService.class));
     services.add(injector.getInstance(MetadataSubscriberService.class));
+    services.add(injector.getInstance(ApplicationMetaCacheSubscriberService.class));
   }
 
   @Nullable
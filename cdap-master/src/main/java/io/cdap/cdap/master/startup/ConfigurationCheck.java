@@ -186,6 +186,7 @@ class ConfigurationCheck extends AbstractMasterCheck {
     validateMessagingTopic(Constants.Scheduler.TIME_EVENT_TOPIC, problemKeys);
     validateMessagingTopic(Constants.AppFabric.PROGRAM_STATUS_EVENT_TOPIC, problemKeys);
     validateMessagingTopic(Constants.AppFabric.PROGRAM_STATUS_RECORD_EVENT_TOPIC, problemKeys);
+    validateMessagingTopic(Constants.AppFabric.APP_META_CHANGE_TOPIC, problemKeys);
   }
 
   private void checkProgramConfigurations(Set<String> problemKeys) {
@@ -21,7 +21,7 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 import javax.management.MXBean;
 
 /**
- * {@link MXBean} for reporting CDAP Router request statistics.
+ * {@link MXBean} for reporting CDAP Router request statistics and active program runs.
  */
 public interface CDAPConnectionsMXBean {
 
@@ -56,4 +56,9 @@ public interface CDAPConnectionsMXBean {
    * Returns the number of {@code WARN} logs in the last hour.
    */
   long getWarnLogs();
+
+  /**
+   * Returns the number of program runs in user namespaces that are currently active.
+   */
+  long getActiveRuns();
 }
@@ -19,6 +19,7 @@ package io.cdap.cdap.operations.cdap;
 import com.google.inject.Injector;
 import io.cdap.cdap.api.metrics.MetricTimeSeries;
 import io.cdap.cdap.api.metrics.MetricsSystemClient;
+import io.cdap.cdap.app.store.Store;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.operations.OperationalStats;
 import io.cdap.cdap.proto.id.NamespaceId;
@@ -32,7 +33,8 @@ import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
- * {@link OperationalStats} for reporting Load on the CDAP Router in the past hour.
+ * {@link OperationalStats} for reporting Load on the CDAP Router in the past hour, and the number of active
+ * program runs.
  */
 public class CDAPLoad extends AbstractCDAPStats implements CDAPConnectionsMXBean {
 
@@ -46,16 +48,19 @@ public class CDAPLoad extends AbstractCDAPStats implements CDAPConnectionsMXBean
   );
 
   private MetricsSystemClient metricsSystemClient;
+  private Store store;
   private long totalRequests;
   private long successful;
   private long clientErrors;
   private long serverErrors;
   private long errorLogs;
   private long warnLogs;
+  private long activeRuns;
 
   @Override
   public void initialize(Injector injector) {
     metricsSystemClient = injector.getInstance(MetricsSystemClient.class);
+    store = injector.getInstance(Store.class);
   }
 
   @Override
@@ -93,6 +98,11 @@ public class CDAPLoad extends AbstractCDAPStats implements CDAPConnectionsMXBean
     return warnLogs;
   }
 
+  @Override
+  public long getActiveRuns() {
+    return activeRuns;
+  }
+
   @Override
   public void collect() throws IOException {
     // reset all metrics
@@ -133,6 +143,9 @@ public class CDAPLoad extends AbstractCDAPStats implements CDAPConnectionsMXBean
           break;
       }
     }
+
+    // The active runs are counted from the counts maintained by the store, not from the run records
+    activeRuns = store.countActiveRuns(null);
   }
 
   private void reset() {
@@ -142,5 +155,6 @@ public class CDAPLoad extends AbstractCDAPStats implements CDAPConnectionsMXBean
     serverErrors = 0;
     errorLogs = 0;
     warnLogs = 0;
+    activeRuns = 0;
   }
 }
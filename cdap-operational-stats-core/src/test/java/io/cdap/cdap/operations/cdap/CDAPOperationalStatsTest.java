@@ -19,14 +19,20 @@ package io.cdap.cdap.operations.cdap;
 import com.google.inject.Injector;
 import io.cdap.cdap.AllProgramsApp;
 import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.app.store.Store;
+import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.id.Id;
 import io.cdap.cdap.common.namespace.NamespaceAdmin;
 import io.cdap.cdap.common.utils.Tasks;
 import io.cdap.cdap.internal.AppFabricTestHelper;
+import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.operations.OperationalStats;
 import io.cdap.cdap.proto.NamespaceMeta;
+import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramRunId;
 import org.apache.tephra.Transaction;
 import org.apache.tephra.TransactionSystemClient;
 import org.junit.AfterClass;
@@ -35,6 +41,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
@@ -113,5 +120,29 @@ public class CDAPOperationalStatsTest {
     Assert.assertEquals(AbstractCDAPStats.SERVICE_NAME, requests.getServiceName());
     Assert.assertEquals("lastHourLoad", requests.getStatType());
     requests.collect();
+    Assert.assertEquals(0, requests.getActiveRuns());
+
+    // a run is active from its provisioning until it stops
+    Store store = injector.getInstance(Store.class);
+    ProgramRunId runId = NAMESPACE.app(AllProgramsApp.NAME).workflow(AllProgramsApp.NoOpWorkflow.NAME)
+      .run(RunIds.generate());
+    Map<String, String> systemArgs = Collections.singletonMap(SystemArguments.PROFILE_NAME,
+                                                              ProfileId.NATIVE.getScopedName());
+    store.setProvisioning(runId, Collections.emptyMap(), systemArgs, AppFabricTestHelper.createSourceId(1),
+                          NAMESPACE.artifact(AllProgramsApp.class.getSimpleName(), "1.0").toApiArtifactId());
+    requests.collect();
+    Assert.assertEquals(1, requests.getActiveRuns());
+
+    store.setProvisioned(runId, 0, AppFabricTestHelper.createSourceId(2));
+    store.setStart(runId, null, systemArgs, AppFabricTestHelper.createSourceId(3));
+    store.setRunning(runId, RunIds.getTime(runId.getRun(), TimeUnit.SECONDS) + 1, null,
+                     AppFabricTestHelper.createSourceId(4));
+    requests.collect();
+    Assert.assertEquals(1, requests.getActiveRuns());
+
+    store.setStop(runId, RunIds.getTime(runId.getRun(), TimeUnit.SECONDS) + 2, ProgramRunStatus.COMPLETED,
+                  AppFabricTestHelper.createSourceId(5));
+    requests.collect();
+    Assert.assertEquals(0, requests.getActiveRuns());
   }
 }
@@ -20,7 +20,6 @@ import com.google.gson.annotations.SerializedName;
 import io.cdap.cdap.proto.id.ProfileId;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -219,7 +218,7 @@ public class RunRecord {
     protected ProfileId profileId;
 
     protected Builder() {
-      properties = new HashMap<>();
+      properties = new LinkedHashMap<>();
     }
 
     protected Builder(RunRecord other) {
@@ -230,7 +229,11 @@ public class RunRecord {
       suspendTs = other.getSuspendTs();
       resumeTs = other.getResumeTs();
       stopTs = other.getStopTs();
-      properties = new HashMap<>(other.getProperties());
+      properties = new LinkedHashMap<>();
+      // the properties are null in a run record deserialized from JSON without properties
+      if (other.getProperties() != null) {
+        properties.putAll(other.getProperties());
+      }
       cluster = other.getCluster();
       profileId = other.getProfileId();
     }
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.proto;
+
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * A page of the run records of a program, with an opaque cursor to fetch the next page.
+ *
+ * @param <T> the type of the run records
+ */
+public class RunRecordPage<T extends RunRecord> {
+  private final List<T> runs;
+  private final String nextCursor;
+
+  public RunRecordPage(List<T> runs, @Nullable String nextCursor) {
+    this.runs = runs;
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * @return the run records of this page, with the newest run as the first run
+   */
+  public List<T> getRuns() {
+    return runs;
+  }
+
+  /**
+   * @return the cursor to pass to fetch the page that follows this page, or {@code null} if this is the last page
+   */
+  @Nullable
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    RunRecordPage<?> that = (RunRecordPage<?>) o;
+    return Objects.equals(runs, that.runs) &&
+      Objects.equals(nextCursor, that.nextCursor);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(runs, nextCursor);
+  }
+
+  @Override
+  public String toString() {
+    return "RunRecordPage{" +
+      "runs=" + runs +
+      ", nextCursor='" + nextCursor + '\'' +
+      '}';
+  }
+}
@@ -46,6 +46,18 @@ public interface StructuredTable extends Closeable {
    */
   void upsert(Collection<Field<?>> fields) throws InvalidFieldException, IOException;
 
+  /**
+   * Insert or replace multiple rows in the table. Each collection of fields contains both the primary key and the
+   * rest of the columns to write for one row, as in {@link #upsert(Collection)}. If the same row is given more than
+   * once, the rows are written in the order they are given.
+   *
+   * @param multiFields the fields of the rows to write
+   * @throws InvalidFieldException if any of the fields are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error writing to the table
+   */
+  void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields) throws InvalidFieldException, IOException;
+
   /**
    * Read a single row with all the columns from the table.
    *
@@ -73,6 +85,20 @@ public interface StructuredTable extends Closeable {
   Optional<StructuredRow> read(Collection<Field<?>> keys,
                                Collection<String> columns) throws InvalidFieldException, IOException;
 
+  /**
+   * Read multiple rows with all the columns from the table, with fewer round trips to the storage than reading the
+   * rows one by one.
+   *
+   * @param multiKeys the primary keys of the rows to read
+   * @return the rows that exist in the table, in no particular order. Rows that are missing in the table are not
+   *         contained, hence the result can have fewer rows than the keys given.
+   * @throws InvalidFieldException if any of the keys are not part of the table schema, or the types of the value
+   *                               do not match.
+   * @throws IOException if there is an error reading from the table
+   */
+  Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException;
+
   /**
    * Read a set of rows from the table matching the key range.
    * The rows returned will be sorted on the primary key order.
@@ -86,6 +112,27 @@ public interface StructuredTable extends Closeable {
    */
   CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException, IOException;
 
+  /**
+   * Read a set of rows from the table matching the key range, reading only the given columns.
+   * The rows returned will be sorted on the primary key order, ascending or descending as given by the sort order.
+   * The primary keys are always read, hence an empty collection of columns reads only the primary keys.
+   * A descending scan may cost time in proportion to the whole key range rather than to the limit, as implementations
+   * that can only scan in ascending order read the entire range to find its last rows. Callers that read the newest
+   * entries first should rather store an inverted value in the key, such as an inverted timestamp, and scan in
+   * ascending order.
+   *
+   * @param keyRange key range for the scan
+   * @param limit maximum number of rows to return
+   * @param columns the columns to read in addition to the primary keys
+   * @param sortOrder the order in which the rows are returned
+   * @return a {@link CloseableIterator} of rows
+   * @throws InvalidFieldException if any of the keys or columns are not part of the table schema, or the types of
+   *                               the value do not match
+   * @throws IOException if there is an error scanning the table
+   */
+  CloseableIterator<StructuredRow> scan(Range keyRange, int limit, Collection<String> columns,
+                                        SortOrder sortOrder) throws InvalidFieldException, IOException;
+
   /**
    * Read a set of rows from the table matching the index.
    * The rows returned will be sorted on the primary key order.
@@ -98,6 +145,24 @@ public interface StructuredTable extends Closeable {
    */
   CloseableIterator<StructuredRow> scan(Field<?> index) throws InvalidFieldException, IOException;
 
+  /**
+   * Read a set of rows from the table matching a range of a composite index. The range is given over the leading
+   * columns of a composite index: the fields of the begin and of the end of the range must each be a prefix of the
+   * columns of the same index, in the order of the index. For example, for an index on (status, time), a range from
+   * (status, time1) to (status, time2) returns the rows with the status and a time between time1 and time2.
+   * If multiple composite indexes start with the given fields, the first one defined in the table specification is
+   * used. Rows that have a null value in any of the index columns are not returned.
+   * The rows returned will be sorted on the index columns, followed by the primary keys.
+   *
+   * @param indexRange range over the leading columns of a composite index
+   * @param limit maximum number of rows to return
+   * @return a {@link CloseableIterator} of rows
+   * @throws InvalidFieldException if the fields of the range are not a prefix of the columns of a composite index,
+   *                               contain null values, or the types of the values do not match the schema
+   * @throws IOException if there is an error scanning the table
+   */
+  CloseableIterator<StructuredRow> scanIndex(Range indexRange, int limit) throws InvalidFieldException, IOException;
+
   /**
    * Atomically compare and swap the value of a column in a row if the expected value matches.
    * To match a non-existent value, the value of the expected field should be null.
@@ -138,6 +203,16 @@ public interface StructuredTable extends Closeable {
    */
   void delete(Collection<Field<?>> keys) throws InvalidFieldException, IOException;
 
+  /**
+   * Delete multiple rows from the table, with fewer round trips to the storage than deleting the rows one by one.
+   *
+   * @param multiKeys the primary keys of the rows to delete
+   * @throws InvalidFieldException if any of the keys are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error deleting from the table
+   */
+  void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys) throws InvalidFieldException, IOException;
+
   /**
    * Delete a range of rows from the table.
    *
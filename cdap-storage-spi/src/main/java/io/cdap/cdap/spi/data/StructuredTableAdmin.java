@@ -37,6 +37,20 @@ public interface StructuredTableAdmin {
    */
   void create(StructuredTableSpecification spec) throws IOException, TableAlreadyExistsException;
 
+  /**
+   * Update an existing StructuredTable to the {@link StructuredTableSpecification}. Currently, only fields and
+   * composite indexes can be added to a table. The new fields have no value in the rows that already exist in the
+   * table, and the existing rows are added to the new indexes. If a previous update did not complete, calling this
+   * method again with the same specification completes it.
+   *
+   * @param spec the new table specification
+   * @throws IOException if there is an error updating the table
+   * @throws TableNotFoundException if the table does not exist
+   * @throws IllegalArgumentException if the new specification changes the table other than by adding fields or
+   *                                  composite indexes
+   */
+  void update(StructuredTableSpecification spec) throws IOException;
+
   /**
    * Get the {@link StructuredTableSpecification} corresponding to the given table id.
    *
@@ -38,6 +38,8 @@ public class StructuredTableSchema {
   // primary keys have to be ordered as defined in the table schema
   private final List<String> primaryKeys;
   private final Set<String> indexes;
+  private final List<List<String>> compositeIndexes;
+  private final Set<String> compositeIndexColumns;
 
   public StructuredTableSchema(StructuredTableSpecification spec) {
     this.tableId = spec.getTableId();
@@ -45,6 +47,9 @@ public class StructuredTableSchema {
       Collectors.toMap(FieldType::getName, FieldType::getType)));
     this.primaryKeys = Collections.unmodifiableList(new ArrayList<>(spec.getPrimaryKeys()));
     this.indexes = Collections.unmodifiableSet(new HashSet<>(spec.getIndexes()));
+    this.compositeIndexes = spec.getCompositeIndexes();
+    this.compositeIndexColumns = Collections.unmodifiableSet(
+      compositeIndexes.stream().flatMap(List::stream).collect(Collectors.toSet()));
   }
 
   public StructuredTableId getTableId() {
@@ -59,6 +64,10 @@ public class StructuredTableSchema {
     return indexes;
   }
 
+  public List<List<String>> getCompositeIndexes() {
+    return compositeIndexes;
+  }
+
   /**
    * Check if the given field name is a column of the primary keys.
    *
@@ -79,6 +88,33 @@ public class StructuredTableSchema {
     return indexes.contains(fieldName);
   }
 
+  /**
+   * Check if the given field name is a column of any of the composite indexes.
+   *
+   * @param fieldName the field name to be checked
+   * @return true if this field name is a column of a composite index, false otherwise
+   */
+  public boolean isCompositeIndexColumn(String fieldName) {
+    return compositeIndexColumns.contains(fieldName);
+  }
+
+  /**
+   * Get the first composite index whose leading columns are the given columns.
+   *
+   * @param leadingColumns the names of the leading columns of the index, in the order of the index
+   * @return the columns of the composite index, null if no composite index starts with the given columns
+   */
+  @Nullable
+  public List<String> getCompositeIndex(List<String> leadingColumns) {
+    for (List<String> compositeIndex : compositeIndexes) {
+      if (compositeIndex.size() >= leadingColumns.size()
+        && compositeIndex.subList(0, leadingColumns.size()).equals(leadingColumns)) {
+        return compositeIndex;
+      }
+    }
+    return null;
+  }
+
   /**
    * Get the field type of the given field name.
    *
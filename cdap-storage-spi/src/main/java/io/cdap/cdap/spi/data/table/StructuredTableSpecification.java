@@ -25,9 +25,11 @@ import io.cdap.cdap.spi.data.table.field.Fields;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -39,6 +41,8 @@ import java.util.stream.Collectors;
  *   <li>fields - the schema of the table, consists of the column names and their types</li>
  *   <li>primaryKeys - the primary key for each row</li>
  *   <li>indexes - the columns to index on. Only one column can be part of an index</li>
+ *   <li>compositeIndexes - the composite indexes, each on one or more columns, which support range scans over
+ *   the values of the leading index columns</li>
  * </ul>
  */
 @Beta
@@ -51,16 +55,22 @@ public final class StructuredTableSpecification {
   private final List<FieldType> fieldTypes;
   private final List<String> primaryKeys;
   private final List<String> indexes;
+  private final List<List<String>> compositeIndexes;
 
   /**
    * Use {@link Builder} to create instances.
    */
   private StructuredTableSpecification(StructuredTableId tableId, List<FieldType> fieldTypes, List<String> primaryKeys,
-                                       List<String> indexes) {
+                                       List<String> indexes, List<List<String>> compositeIndexes) {
     this.tableId = tableId;
     this.fieldTypes = Collections.unmodifiableList(fieldTypes);
     this.primaryKeys = Collections.unmodifiableList(primaryKeys);
     this.indexes = Collections.unmodifiableList(indexes);
+    List<List<String>> indexColumns = new ArrayList<>(compositeIndexes.size());
+    for (List<String> columns : compositeIndexes) {
+      indexColumns.add(Collections.unmodifiableList(new ArrayList<>(columns)));
+    }
+    this.compositeIndexes = Collections.unmodifiableList(indexColumns);
   }
 
   /**
@@ -91,6 +101,14 @@ public final class StructuredTableSpecification {
     return indexes;
   }
 
+  /**
+   * @return the list of composite indexes defined on the table, each given by its columns in the order of the index
+   */
+  public List<List<String>> getCompositeIndexes() {
+    // specifications registered before composite indexes were introduced do not have the field
+    return compositeIndexes == null ? Collections.emptyList() : compositeIndexes;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -103,12 +121,13 @@ public final class StructuredTableSpecification {
     return Objects.equals(tableId, that.tableId) &&
       Objects.equals(fieldTypes, that.fieldTypes) &&
       Objects.equals(primaryKeys, that.primaryKeys) &&
-      Objects.equals(indexes, that.indexes);
+      Objects.equals(indexes, that.indexes) &&
+      Objects.equals(getCompositeIndexes(), that.getCompositeIndexes());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(tableId, fieldTypes, primaryKeys, indexes);
+    return Objects.hash(tableId, fieldTypes, primaryKeys, indexes, getCompositeIndexes());
   }
 
   @Override
@@ -118,6 +137,7 @@ public final class StructuredTableSpecification {
       ", fieldTypes=" + fieldTypes +
       ", primaryKeys=" + primaryKeys +
       ", indexes=" + indexes +
+      ", compositeIndexes=" + getCompositeIndexes() +
       '}';
   }
 
@@ -129,6 +149,7 @@ public final class StructuredTableSpecification {
     private List<FieldType> fieldTypes;
     private List<String> primaryKeys;
     private List<String> indexes;
+    private List<List<String>> compositeIndexes;
 
     /**
      * Create a builder that is initialized with all the information from an existing specification.
@@ -137,6 +158,7 @@ public final class StructuredTableSpecification {
       this.fieldTypes = new ArrayList<>();
       this.primaryKeys = new ArrayList<>();
       this.indexes = new ArrayList<>();
+      this.compositeIndexes = new ArrayList<>();
     }
 
     /**
@@ -147,6 +169,7 @@ public final class StructuredTableSpecification {
       this.fieldTypes = new ArrayList<>(existing.getFieldTypes());
       this.primaryKeys = new ArrayList<>(existing.getPrimaryKeys());
       this.indexes = new ArrayList<>(existing.getIndexes());
+      this.compositeIndexes = new ArrayList<>(existing.getCompositeIndexes());
     }
 
     /**
@@ -193,13 +216,26 @@ public final class StructuredTableSpecification {
       return this;
     }
 
+    /**
+     * Add a composite index on the given fields of the table. The rows of the table can be scanned in the order of
+     * the index, by ranges over the values of the leading index columns. This method can be called multiple times to
+     * define multiple composite indexes.
+     * See {@link FieldType#INDEX_COLUMN_TYPES} for valid index field types.
+     * @param columns the names of the fields that form the index, in the order of the index
+     * @return Builder instance
+     */
+    public Builder withCompositeIndex(String ...columns) {
+      this.compositeIndexes.add(Arrays.asList(columns));
+      return this;
+    }
+
     /**
      * Build the table specification
      * @return the table specification
      */
     public StructuredTableSpecification build() throws InvalidFieldException {
       validate();
-      return new StructuredTableSpecification(tableId, fieldTypes, primaryKeys, indexes);
+      return new StructuredTableSpecification(tableId, fieldTypes, primaryKeys, indexes, compositeIndexes);
     }
 
     private void validate() throws InvalidFieldException {
@@ -260,6 +296,33 @@ public final class StructuredTableSpecification {
             String.format("has wrong type for an index column. Valid types are: %s", FieldType.INDEX_COLUMN_TYPES));
         }
       }
+
+      // Validate that the composite indexes are distinct, and consist of distinct fields of valid type
+      Set<List<String>> distinctIndexes = new HashSet<>();
+      for (List<String> compositeIndex : compositeIndexes) {
+        if (compositeIndex.isEmpty()) {
+          throw new IllegalArgumentException("No columns specified for a composite index of the table " + tableId);
+        }
+        if (!distinctIndexes.add(compositeIndex)) {
+          throw new IllegalArgumentException(
+            String.format("Composite index %s is defined more than once for the table %s", compositeIndex, tableId));
+        }
+        if (new HashSet<>(compositeIndex).size() != compositeIndex.size()) {
+          throw new IllegalArgumentException(
+            String.format("Composite index %s of the table %s has duplicate columns", compositeIndex, tableId));
+        }
+        for (String column : compositeIndex) {
+          FieldType.Type type = typeMap.get(column);
+          if (type == null) {
+            throw new InvalidFieldException(tableId, column, "is not defined as an index column");
+          }
+          if (!Fields.isIndexColumnType(type)) {
+            throw new InvalidFieldException(
+              tableId, column,
+              String.format("has wrong type for an index column. Valid types are: %s", FieldType.INDEX_COLUMN_TYPES));
+          }
+        }
+      }
     }
   }
 }
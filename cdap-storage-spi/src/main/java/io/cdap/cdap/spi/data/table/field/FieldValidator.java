@@ -20,8 +20,10 @@ import io.cdap.cdap.api.annotation.Beta;
 import io.cdap.cdap.spi.data.InvalidFieldException;
 import io.cdap.cdap.spi.data.table.StructuredTableSchema;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * A field validator class which can be used to validate the given field.
@@ -91,4 +93,43 @@ public final class FieldValidator {
       i++;
     }
   }
+
+  /**
+   * Validate if the given range is a range over the leading columns of a composite index. The begin and the end of
+   * the range must each be a prefix of the columns of the same composite index, and must not contain null values.
+   *
+   * @param range the range to validate
+   * @return the columns of the composite index, in the order of the index
+   * @throws InvalidFieldException if the begin and end of the range are both empty, are not prefixes of the columns of
+   * a composite index, or contain a null value or a field that does not match the schema
+   */
+  public List<String> validateCompositeIndexRange(Range range) throws InvalidFieldException {
+    Collection<Field<?>> longest = range.getBegin().size() >= range.getEnd().size() ? range.getBegin() : range.getEnd();
+    List<String> compositeIndex =
+      tableSchema.getCompositeIndex(longest.stream().map(Field::getName).collect(Collectors.toList()));
+    if (longest.isEmpty() || compositeIndex == null) {
+      throw new InvalidFieldException(
+        tableSchema.getTableId(), longest,
+        String.format("Given fields %s are not the prefix of the columns of a composite index %s", longest,
+                      tableSchema.getCompositeIndexes()));
+    }
+
+    for (Collection<Field<?>> fields : Arrays.asList(range.getBegin(), range.getEnd())) {
+      int i = 0;
+      for (Field<?> field : fields) {
+        validateField(field);
+        if (!field.getName().equals(compositeIndex.get(i))) {
+          throw new InvalidFieldException(
+            tableSchema.getTableId(), fields,
+            String.format("Given fields %s are not the prefix of the composite index %s", fields, compositeIndex));
+        }
+        if (field.getValue() == null) {
+          throw new InvalidFieldException(tableSchema.getTableId(), field.getName(),
+                                          "is a composite index column but the value is null");
+        }
+        i++;
+      }
+    }
+    return compositeIndex;
+  }
 }
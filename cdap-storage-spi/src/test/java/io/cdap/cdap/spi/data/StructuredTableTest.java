@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -128,6 +129,60 @@ public abstract class StructuredTableTest {
     Assert.assertEquals(expected.subList(2, 3), actual);
   }
 
+  @Test
+  public void testProjectionAndReverseScan() throws Exception {
+    int max = 10;
+    List<Collection<Field<?>>> expected = writeSimpleStructuredRows(max, "");
+    Range range = Range.create(Collections.singleton(Fields.intField(KEY, 2)), Range.Bound.INCLUSIVE,
+                               Collections.singleton(Fields.intField(KEY, 7)), Range.Bound.EXCLUSIVE);
+    List<String> columns = Arrays.asList(KEY, KEY2, STRING_COL, DOUBLE_COL);
+
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      // only the given columns are read, in addition to the primary keys
+      try (CloseableIterator<StructuredRow> iterator = table.scan(range, max, Collections.singleton(STRING_COL),
+                                                                  SortOrder.ASC)) {
+        List<Collection<Field<?>>> rows = convertRowsToFields(iterator, columns);
+        Assert.assertEquals(5, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+          Assert.assertEquals(Arrays.asList(Fields.intField(KEY, i + 2), Fields.longField(KEY2, (long) i + 2),
+                                            Fields.stringField(STRING_COL, VAL + (i + 2)),
+                                            Fields.doubleField(DOUBLE_COL, null)), rows.get(i));
+        }
+      }
+
+      // only the primary keys, in descending order
+      try (CloseableIterator<StructuredRow> iterator = table.scan(range, max, Collections.emptyList(),
+                                                                  SortOrder.DESC)) {
+        List<Collection<Field<?>>> rows = convertRowsToFields(iterator, Arrays.asList(KEY, KEY2));
+        List<Collection<Field<?>>> expectedKeys = new ArrayList<>();
+        for (int i = 6; i >= 2; i--) {
+          expectedKeys.add(Arrays.asList(Fields.intField(KEY, i), Fields.longField(KEY2, (long) i)));
+        }
+        Assert.assertEquals(expectedKeys, rows);
+      }
+
+      // the limit applies to the rows in the sort order
+      List<String> allColumns = Arrays.asList(STRING_COL, DOUBLE_COL, FLOAT_COL, BYTES_COL);
+      try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), 3, allColumns, SortOrder.DESC)) {
+        List<Collection<Field<?>>> rows = convertRowsToFields(iterator, Arrays.asList(KEY, KEY2, STRING_COL,
+                                                                                      DOUBLE_COL, FLOAT_COL,
+                                                                                      BYTES_COL));
+        List<Collection<Field<?>>> reversed = new ArrayList<>(expected);
+        Collections.reverse(reversed);
+        Assert.assertEquals(reversed.subList(0, 3), rows);
+      }
+
+      // non-existent column
+      try {
+        table.scan(range, max, Collections.singleton("non"), SortOrder.ASC).close();
+        Assert.fail("Expected InvalidFieldException for scanning a non-existent column");
+      } catch (InvalidFieldException e) {
+        // Expected
+      }
+    });
+  }
+
   @Test
   public void testSimpleReadWriteDelete() throws Exception {
     int max = 10;
@@ -175,6 +230,102 @@ public abstract class StructuredTableTest {
     // TODO: test end only range
   }
 
+  @Test
+  public void testMultiReadWriteDelete() throws Exception {
+    int max = 10;
+    List<Collection<Field<?>>> expected = new ArrayList<>(max);
+    List<Collection<Field<?>>> keys = new ArrayList<>(max + 1);
+    for (int i = 0; i < max; i++) {
+      expected.add(Arrays.asList(Fields.intField(KEY, i),
+                                 Fields.longField(KEY2, (long) i),
+                                 Fields.stringField(STRING_COL, VAL + i),
+                                 Fields.doubleField(DOUBLE_COL, (double) i),
+                                 Fields.floatField(FLOAT_COL, (float) i),
+                                 Fields.bytesField(BYTES_COL, Bytes.toBytes("bytes-" + i))));
+      keys.add(Arrays.asList(Fields.intField(KEY, i), Fields.longField(KEY2, (long) i)));
+    }
+    // a key that does not exist
+    keys.add(Arrays.asList(Fields.intField(KEY, max), Fields.longField(KEY2, (long) max)));
+
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.multiUpsert(expected);
+    });
+    Assert.assertEquals(expected, multiReadSimpleStructuredRows(keys));
+
+    // rows written more than once in the same call are written in order
+    List<Field<?>> first = new ArrayList<>(expected.get(0));
+    first.set(2, Fields.stringField(STRING_COL, "first"));
+    List<Field<?>> second = new ArrayList<>(expected.get(0));
+    second.set(2, Fields.stringField(STRING_COL, "second"));
+    expected.set(0, second);
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.multiUpsert(Arrays.asList(first, expected.get(1), second));
+    });
+    Assert.assertEquals(expected, multiReadSimpleStructuredRows(keys));
+
+    // delete the first half of the rows
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.multiDelete(keys.subList(0, max / 2));
+    });
+    Assert.assertEquals(expected.subList(max / 2, max), multiReadSimpleStructuredRows(keys));
+    Assert.assertEquals(expected.subList(max / 2, max), readSimpleStructuredRows(max));
+
+    // empty collections are no-ops
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.multiUpsert(Collections.emptyList());
+      table.multiDelete(Collections.emptyList());
+      Assert.assertTrue(table.multiRead(Collections.emptyList()).isEmpty());
+    });
+  }
+
+  @Test
+  public void testLargeScan() throws Exception {
+    int max = 50;
+    List<Collection<Field<?>>> rows = new ArrayList<>(max);
+    for (int i = 0; i < max; i++) {
+      rows.add(Arrays.asList(Fields.intField(KEY, i), Fields.longField(KEY2, (long) i),
+                             Fields.stringField(STRING_COL, VAL + i)));
+    }
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.multiUpsert(rows);
+    });
+
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      int count = 0;
+      try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), Integer.MAX_VALUE)) {
+        while (iterator.hasNext()) {
+          StructuredRow row = iterator.next();
+          Assert.assertEquals(count, (int) row.getInteger(KEY));
+          // other operations can be performed while iterating over a scan
+          Optional<StructuredRow> read = table.read(Arrays.asList(Fields.intField(KEY, count),
+                                                                  Fields.longField(KEY2, (long) count)));
+          Assert.assertEquals(VAL + count, read.map(r -> r.getString(STRING_COL)).orElse(null));
+          count++;
+        }
+      }
+      Assert.assertEquals(max, count);
+
+      // stop iterating before the end of a scan
+      try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), Integer.MAX_VALUE)) {
+        Assert.assertEquals(0, (int) iterator.next().getInteger(KEY));
+      }
+
+      List<Collection<Field<?>>> expectedKeys = new ArrayList<>();
+      for (int i = 0; i < 12; i++) {
+        expectedKeys.add(Collections.singletonList(Fields.intField(KEY, i)));
+      }
+      try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), 12)) {
+        Assert.assertEquals(expectedKeys, convertRowsToFields(iterator, Collections.singletonList(KEY)));
+      }
+    });
+  }
+
   @Test
   public void testSimpleUpdate() throws Exception {
     int max = 10;
@@ -445,6 +596,148 @@ public abstract class StructuredTableTest {
     });
   }
 
+  @Test
+  public void testCompositeIndexScan() throws Exception {
+    // Write rows with keys (0, 100L), (1, 99L), ..., (8, 92L), three rows for each value of the string column
+    List<Collection<Field<?>>> expected = new ArrayList<>();
+    List<String> values = Arrays.asList("abc", "def", "ghi");
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      for (int i = 0; i < 9; i++) {
+        List<Field<?>> fields = Arrays.asList(Fields.intField(KEY, i), Fields.longField(KEY2, 100L - i),
+                                              Fields.stringField(STRING_COL, values.get(i / 3)));
+        table.upsert(fields);
+        expected.add(fields);
+      }
+      // a row without a value for the string column is not part of the index
+      table.upsert(Arrays.asList(Fields.intField(KEY, 9), Fields.longField(KEY2, 91L), Fields.longField(LONG_COL, 9L)));
+    });
+
+    Range defRange = Range.singleton(Collections.singleton(Fields.stringField(STRING_COL, "def")));
+    // The table does not have a composite index yet
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      try {
+        table.scanIndex(defRange, Integer.MAX_VALUE).close();
+        Assert.fail("Expected InvalidFieldException for scanning a non-existent composite index");
+      } catch (InvalidFieldException e) {
+        // Expected
+      }
+    });
+
+    // Only composite indexes can be added to a table
+    try {
+      getStructuredTableAdmin().update(new StructuredTableSpecification.Builder(SIMPLE_SPEC)
+                                         .withIndexes(STRING_COL, LONG_COL).build());
+      Assert.fail("Expected IllegalArgumentException for changing the indexes of a table");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    // Add the index, which also adds the existing rows to the index
+    getStructuredTableAdmin().update(new StructuredTableSpecification.Builder(SIMPLE_SPEC)
+                                       .withCompositeIndex(STRING_COL, KEY2).build());
+    List<Field<?>> added = Arrays.asList(Fields.intField(KEY, 10), Fields.longField(KEY2, 50L),
+                                         Fields.stringField(STRING_COL, "def"));
+    getTransactionRunner().run(context -> context.getTable(SIMPLE_TABLE).upsert(added));
+
+    List<String> columns = Arrays.asList(KEY, KEY2, STRING_COL);
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      // the rows are ordered by the index columns
+      try (CloseableIterator<StructuredRow> iterator = table.scanIndex(defRange, Integer.MAX_VALUE)) {
+        Assert.assertEquals(Arrays.asList(added, expected.get(5), expected.get(4), expected.get(3)),
+                            convertRowsToFields(iterator, columns));
+      }
+      try (CloseableIterator<StructuredRow> iterator = table.scanIndex(defRange, 2)) {
+        Assert.assertEquals(Arrays.asList(added, expected.get(5)), convertRowsToFields(iterator, columns));
+      }
+
+      // range over both index columns, from (abc, 99L) exclusive to (def, 96L) inclusive
+      Range range = Range.create(Arrays.asList(Fields.stringField(STRING_COL, "abc"), Fields.longField(KEY2, 99L)),
+                                 Range.Bound.EXCLUSIVE,
+                                 Arrays.asList(Fields.stringField(STRING_COL, "def"), Fields.longField(KEY2, 96L)),
+                                 Range.Bound.INCLUSIVE);
+      try (CloseableIterator<StructuredRow> iterator = table.scanIndex(range, Integer.MAX_VALUE)) {
+        Assert.assertEquals(Arrays.asList(expected.get(0), added, expected.get(5), expected.get(4)),
+                            convertRowsToFields(iterator, columns));
+      }
+
+      // open ended range
+      range = Range.from(Collections.singleton(Fields.stringField(STRING_COL, "ghi")), Range.Bound.INCLUSIVE);
+      try (CloseableIterator<StructuredRow> iterator = table.scanIndex(range, Integer.MAX_VALUE)) {
+        Assert.assertEquals(Arrays.asList(expected.get(8), expected.get(7), expected.get(6)),
+                            convertRowsToFields(iterator, columns));
+      }
+
+      // fields that are not the leading columns of a composite index
+      try {
+        table.scanIndex(Range.singleton(Collections.singleton(Fields.longField(KEY2, 99L))), 1).close();
+        Assert.fail("Expected InvalidFieldException for scanning columns that are not a prefix of an index");
+      } catch (InvalidFieldException e) {
+        // Expected
+      }
+    });
+
+    // Deleted and updated rows are removed from the index
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.delete(Arrays.asList(Fields.intField(KEY, 4), Fields.longField(KEY2, 96L)));
+      table.upsert(Arrays.asList(Fields.intField(KEY, 5), Fields.longField(KEY2, 95L),
+                                 Fields.stringField(STRING_COL, "ghi")));
+    });
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      try (CloseableIterator<StructuredRow> iterator = table.scanIndex(defRange, Integer.MAX_VALUE)) {
+        Assert.assertEquals(Arrays.asList(added, expected.get(3)), convertRowsToFields(iterator, columns));
+      }
+    });
+  }
+
+  @Test
+  public void testAddField() throws Exception {
+    // Use a separate table, since adding a column changes the result type of the queries on the table
+    StructuredTableId tableId = new StructuredTableId("addFieldTable");
+    StructuredTableSpecification spec = new StructuredTableSpecification.Builder()
+      .withId(tableId)
+      .withFields(Fields.intType(KEY), Fields.stringType(STRING_COL))
+      .withPrimaryKeys(KEY)
+      .build();
+    getStructuredTableAdmin().create(spec);
+    try {
+      List<Field<?>> existing = Arrays.asList(Fields.intField(KEY, 0), Fields.stringField(STRING_COL, "abc"));
+      getTransactionRunner().run(context -> context.getTable(tableId).upsert(existing));
+
+      // Fields cannot be changed
+      try {
+        getStructuredTableAdmin().update(new StructuredTableSpecification.Builder(spec)
+                                           .withFields(Fields.intType(KEY), Fields.longType(STRING_COL)).build());
+        Assert.fail("Expected IllegalArgumentException for changing the type of a field");
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+
+      // Add a field, which has no value in the existing rows
+      getStructuredTableAdmin().update(new StructuredTableSpecification.Builder(spec)
+                                         .withFields(Fields.intType(KEY), Fields.stringType(STRING_COL),
+                                                     Fields.longType(LONG_COL)).build());
+      List<Field<?>> added = Arrays.asList(Fields.intField(KEY, 1), Fields.stringField(STRING_COL, "def"),
+                                           Fields.longField(LONG_COL, 1L));
+      getTransactionRunner().run(context -> context.getTable(tableId).upsert(added));
+      getTransactionRunner().run(context -> {
+        StructuredTable table = context.getTable(tableId);
+        StructuredRow row = table.read(existing.subList(0, 1)).orElseThrow(IllegalStateException::new);
+        Assert.assertEquals("abc", row.getString(STRING_COL));
+        Assert.assertNull(row.getLong(LONG_COL));
+        row = table.read(added.subList(0, 1)).orElseThrow(IllegalStateException::new);
+        Assert.assertEquals("def", row.getString(STRING_COL));
+        Assert.assertEquals(Long.valueOf(1L), row.getLong(LONG_COL));
+      });
+    } finally {
+      getStructuredTableAdmin().drop(tableId);
+    }
+  }
+
   private List<Collection<Field<?>>> writeSimpleStructuredRows(int max, String suffix) throws Exception {
     List<Collection<Field<?>>> expected = new ArrayList<>(max);
     // Write rows in reverse order to test sorting
@@ -507,6 +800,19 @@ public abstract class StructuredTableTest {
     return actual;
   }
 
+  private List<Collection<Field<?>>> multiReadSimpleStructuredRows(
+    Collection<? extends Collection<Field<?>>> keys) throws Exception {
+    List<String> fields = Arrays.asList(KEY, KEY2, STRING_COL, DOUBLE_COL, FLOAT_COL, BYTES_COL);
+    List<StructuredRow> rows = new ArrayList<>();
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      rows.addAll(table.multiRead(keys));
+    });
+    // rows are returned in no particular order
+    rows.sort(Comparator.comparing(row -> row.getInteger(KEY)));
+    return convertRowsToFields(rows.iterator(), fields);
+  }
+
   private List<Collection<Field<?>>> convertRowsToFields(Iterator<StructuredRow> iterator, List<String> columns) {
     List<Collection<Field<?>>> rows = new ArrayList<>();
     while (iterator.hasNext()) {
@@ -21,7 +21,6 @@ import ch.qos.logback.core.AppenderBase;
 import ch.qos.logback.core.LogbackException;
 import ch.qos.logback.core.spi.FilterReply;
 import ch.qos.logback.core.status.WarnStatus;
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import io.cdap.cdap.api.logging.AppenderContext;
@@ -29,6 +28,7 @@ import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.Syncable;
 import io.cdap.cdap.logging.clean.FileMetadataCleaner;
 import io.cdap.cdap.logging.clean.LogCleaner;
+import io.cdap.cdap.logging.clean.LogFileCompactor;
 import io.cdap.cdap.logging.meta.FileMetaDataWriter;
 import io.cdap.cdap.proto.id.NamespaceId;
 import org.apache.twill.common.Threads;
@@ -65,6 +65,10 @@ public class CDAPLogAppender extends AppenderBase<ILoggingEvent> implements Flus
   private int logCleanupIntervalMins;
   private int fileRetentionDurationDays;
   private int fileCleanupBatchSize;
+  private int fileCompactionIntervalMins;
+  private long fileCompactionSmallFileSizeBytes;
+  private long fileCompactionMaxBytesPerSecond;
+  private int fileCompactionBatchSize;
 
   public CDAPLogAppender() {
     setName(getClass().getName());
@@ -127,6 +131,34 @@ public class CDAPLogAppender extends AppenderBase<ILoggingEvent> implements Flus
     this.fileCleanupBatchSize = batchSize;
   }
 
+  /**
+   * Sets the log file compaction interval. Compaction is disabled if it is not positive.
+   */
+  public void setFileCompactionIntervalMins(int fileCompactionIntervalMins) {
+    this.fileCompactionIntervalMins = fileCompactionIntervalMins;
+  }
+
+  /**
+   * Sets the size below which a log file is merged with its adjacent small files by the compaction thread.
+   */
+  public void setFileCompactionSmallFileSizeBytes(long fileCompactionSmallFileSizeBytes) {
+    this.fileCompactionSmallFileSizeBytes = fileCompactionSmallFileSizeBytes;
+  }
+
+  /**
+   * Sets the maximum number of bytes per second read by the compaction thread.
+   */
+  public void setFileCompactionMaxBytesPerSecond(long fileCompactionMaxBytesPerSecond) {
+    this.fileCompactionMaxBytesPerSecond = fileCompactionMaxBytesPerSecond;
+  }
+
+  /**
+   * Sets the maximum number of log files merged in each compaction run
+   */
+  public void setFileCompactionBatchSize(int fileCompactionBatchSize) {
+    this.fileCompactionBatchSize = fileCompactionBatchSize;
+  }
+
 
   @Override
   public void start() {
@@ -139,6 +171,13 @@ public class CDAPLogAppender extends AppenderBase<ILoggingEvent> implements Flus
     Preconditions.checkState(fileRetentionDurationDays > 0, "Property fileRetentionDurationDays must be > 0");
     Preconditions.checkState(logCleanupIntervalMins > 0, "Property logCleanupIntervalMins must be > 0");
     Preconditions.checkState(fileCleanupBatchSize > 0, "Property fileCleanupBatchSize must be > 0");
+    if (fileCompactionIntervalMins > 0) {
+      Preconditions.checkState(fileCompactionSmallFileSizeBytes > 0,
+                               "Property fileCompactionSmallFileSizeBytes must be > 0");
+      Preconditions.checkState(fileCompactionMaxBytesPerSecond > 0,
+                               "Property fileCompactionMaxBytesPerSecond must be > 0");
+      Preconditions.checkState(fileCompactionBatchSize > 0, "Property fileCompactionBatchSize must be > 0");
+    }
 
     if (context instanceof AppenderContext) {
       AppenderContext context = (AppenderContext) this.context;
@@ -146,7 +185,8 @@ public class CDAPLogAppender extends AppenderBase<ILoggingEvent> implements Flus
                                           syncIntervalBytes,
                                           new FileMetaDataWriter(context.getTransactionRunner()),
                                           context.getLocationFactory());
-      if (context.getInstanceId() == 0) {
+      if (context.getInstanceId() == 0
+        && !Boolean.TRUE.equals(context.getObject(Constants.Logging.PIPELINE_FILE_CLEANUP_DISABLED))) {
         scheduledExecutorService =
           Executors.newSingleThreadScheduledExecutor(Threads.createDaemonThreadFactory("log-clean-up"));
         FileMetadataCleaner fileMetadataCleaner = new FileMetadataCleaner(context.getTransactionRunner());
@@ -154,6 +194,16 @@ public class CDAPLogAppender extends AppenderBase<ILoggingEvent> implements Flus
                                                TimeUnit.DAYS.toMillis(fileRetentionDurationDays),
                                                fileCleanupBatchSize);
         scheduledExecutorService.scheduleAtFixedRate(logCleaner, 10, logCleanupIntervalMins, TimeUnit.MINUTES);
+
+        if (fileCompactionIntervalMins > 0) {
+          // Only files that are at least twice the max lifetime old are compacted, as they must have been closed
+          LogFileCompactor logFileCompactor =
+            new LogFileCompactor(context.getTransactionRunner(), context.getLocationFactory(), filePermissions,
+                                 syncIntervalBytes, fileCompactionSmallFileSizeBytes, maxFileSizeInBytes,
+                                 2 * maxFileLifetimeMs, fileCompactionBatchSize, fileCompactionMaxBytesPerSecond);
+          scheduledExecutorService.scheduleWithFixedDelay(logFileCompactor, fileCompactionIntervalMins,
+                                                          fileCompactionIntervalMins, TimeUnit.MINUTES);
+        }
       }
     } else if (!Boolean.TRUE.equals(context.getObject(Constants.Logging.PIPELINE_VALIDATION))) {
       throw new IllegalStateException("Expected logger context instance of " + AppenderContext.class.getName() +
@@ -219,14 +269,15 @@ public class CDAPLogAppender extends AppenderBase<ILoggingEvent> implements Flus
       if (logFileManager != null) {
         logFileManager.close();
       }
-      scheduledExecutorService.shutdownNow();
+      if (scheduledExecutorService != null) {
+        scheduledExecutorService.shutdownNow();
+      }
     } finally {
       super.stop();
     }
   }
 
-  @VisibleForTesting
-  LogPathIdentifier getLoggingPath(Map<String, String> propertyMap) throws IllegalArgumentException {
+  static LogPathIdentifier getLoggingPath(Map<String, String> propertyMap) throws IllegalArgumentException {
     // from the property map, get namespace values
     // if the namespace is system : get component-id and return that as path
     // if the namespace is non-system : get "app" and "program-name" and return that as path
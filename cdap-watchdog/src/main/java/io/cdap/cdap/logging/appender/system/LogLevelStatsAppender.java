@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.appender.system;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AppenderBase;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import io.cdap.cdap.api.logging.AppenderContext;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.io.Syncable;
+import io.cdap.cdap.logging.meta.LogLevelStatsStore;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link Appender} that counts the logging events of each program run per log level and minute. The counts are
+ * aggregated in memory and added to the {@link LogLevelStatsStore} when the pipeline syncs, which happens before
+ * the pipeline checkpoint is persisted. Events replayed after a failure in between are counted again, hence the counts
+ * are at-least-once.
+ *
+ * Stats older than the log retention are periodically removed by the first instance of the log pipeline, unless
+ * file cleanup is disabled for the pipeline.
+ */
+public class LogLevelStatsAppender extends AppenderBase<ILoggingEvent> implements Flushable, Syncable {
+  private static final Logger LOG = LoggerFactory.getLogger(LogLevelStatsAppender.class);
+
+  private LogLevelStatsStore store;
+  private Map<LogLevelStatsStore.Key, Map<String, Long>> counts;
+  private ScheduledExecutorService scheduledExecutorService;
+  private int statsRetentionDurationDays;
+  private int statsCleanupIntervalMins;
+  private int statsCleanupBatchSize;
+
+  public LogLevelStatsAppender() {
+    setName(getClass().getName());
+  }
+
+  /**
+   * Sets the stats retention duration, after this duration the stats get cleaned up by the clean up thread.
+   */
+  public void setStatsRetentionDurationDays(int statsRetentionDurationDays) {
+    this.statsRetentionDurationDays = statsRetentionDurationDays;
+  }
+
+  /**
+   * Sets the stats cleanup interval
+   */
+  public void setStatsCleanupIntervalMins(int statsCleanupIntervalMins) {
+    this.statsCleanupIntervalMins = statsCleanupIntervalMins;
+  }
+
+  /**
+   * Sets the maximum number of rows scanned in each transaction of the stats cleanup
+   */
+  public void setStatsCleanupBatchSize(int statsCleanupBatchSize) {
+    this.statsCleanupBatchSize = statsCleanupBatchSize;
+  }
+
+  @Override
+  public void start() {
+    // These should all passed. The settings are from the cdap-log-pipeline.xml
+    Preconditions.checkState(statsRetentionDurationDays > 0, "Property statsRetentionDurationDays must be > 0");
+    Preconditions.checkState(statsCleanupIntervalMins > 0, "Property statsCleanupIntervalMins must be > 0");
+    Preconditions.checkState(statsCleanupBatchSize > 0, "Property statsCleanupBatchSize must be > 0");
+
+    if (context instanceof AppenderContext) {
+      AppenderContext context = (AppenderContext) this.context;
+      store = new LogLevelStatsStore(context.getTransactionRunner());
+      counts = new HashMap<>();
+      if (context.getInstanceId() == 0
+        && !Boolean.TRUE.equals(context.getObject(Constants.Logging.PIPELINE_FILE_CLEANUP_DISABLED))) {
+        scheduledExecutorService =
+          Executors.newSingleThreadScheduledExecutor(Threads.createDaemonThreadFactory("log-level-stats-clean-up"));
+        scheduledExecutorService.scheduleAtFixedRate(this::cleanup, 10, statsCleanupIntervalMins, TimeUnit.MINUTES);
+      }
+    } else if (!Boolean.TRUE.equals(context.getObject(Constants.Logging.PIPELINE_VALIDATION))) {
+      throw new IllegalStateException("Expected logger context instance of " + AppenderContext.class.getName() +
+                                        " but get " + context.getClass().getName());
+    }
+    super.start();
+  }
+
+  @Override
+  protected void append(ILoggingEvent eventObject) {
+    if (store == null) {
+      return;
+    }
+    Map<String, String> propertyMap = eventObject.getMDCPropertyMap();
+    String runId = propertyMap.get(Constants.Logging.TAG_RUN_ID);
+    String levelField = LogLevelStatsStore.getLevelField(eventObject.getLevel());
+    if (runId == null || levelField == null) {
+      return;
+    }
+
+    LogPathIdentifier identifier;
+    try {
+      identifier = CDAPLogAppender.getLoggingPath(propertyMap);
+    } catch (IllegalArgumentException e) {
+      // Not from a program, hence no run to count for
+      return;
+    }
+    long timeSecs = TimeUnit.MILLISECONDS.toSeconds(eventObject.getTimeStamp());
+    increment(new LogLevelStatsStore.Key(identifier, runId, timeSecs), levelField);
+
+    // Programs running inside a workflow log under the workflow run. Also count them under their own run.
+    String programRunId = propertyMap.get(Constants.Logging.TAG_WORKFLOW_PROGRAM_RUN_ID);
+    String program = propertyMap.get(Constants.Logging.TAG_WORKFLOW_MAP_REDUCE_ID);
+    if (program == null) {
+      program = propertyMap.get(Constants.Logging.TAG_WORKFLOW_SPARK_ID);
+    }
+    if (programRunId != null && program != null) {
+      LogPathIdentifier programIdentifier = new LogPathIdentifier(identifier.getNamespaceId(),
+                                                                  identifier.getPathId1(), program);
+      increment(new LogLevelStatsStore.Key(programIdentifier, programRunId, timeSecs), levelField);
+    }
+  }
+
+  private void increment(LogLevelStatsStore.Key key, String levelField) {
+    counts.computeIfAbsent(key, k -> new HashMap<>()).merge(levelField, 1L, Long::sum);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (store == null || counts.isEmpty()) {
+      return;
+    }
+    // Only clear the counts after they are persisted, so that they will be retried on the next sync
+    store.increment(counts);
+    LOG.trace("Persisted log level counts for {} minutes of program runs", counts.size());
+    counts = new HashMap<>();
+  }
+
+  /**
+   * Deletes the stats that have expired the retention.
+   */
+  @VisibleForTesting
+  void cleanup() {
+    long tillTimeSecs = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())
+      - TimeUnit.DAYS.toSeconds(statsRetentionDurationDays);
+    try {
+      int deleted = store.deleteStatsBefore(tillTimeSecs, statsCleanupBatchSize);
+      LOG.debug("Deleted {} expired log level stats entries", deleted);
+    } catch (Exception e) {
+      LOG.warn("Failed to delete expired log level stats. Will be retried in next run.", e);
+    }
+  }
+
+  @Override
+  public void sync() throws IOException {
+    flush();
+  }
+
+  @Override
+  public void stop() {
+    try {
+      flush();
+    } catch (IOException e) {
+      LOG.warn("Failed to persist log level counts on stop", e);
+    } finally {
+      if (scheduledExecutorService != null) {
+        scheduledExecutorService.shutdownNow();
+      }
+      super.stop();
+    }
+  }
+}
@@ -0,0 +1,500 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.clean;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.RateLimiter;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.common.io.Locations;
+import io.cdap.cdap.logging.serialize.LogSchema;
+import io.cdap.cdap.spi.data.StructuredRow;
+import io.cdap.cdap.spi.data.StructuredTable;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.Fields;
+import io.cdap.cdap.spi.data.table.field.Range;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.twill.filesystem.Location;
+import org.apache.twill.filesystem.LocationFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+/**
+ * Merges adjacent small log files of the same logging context into larger time-ordered files.
+ *
+ * The merged file is written first and then swapped with the source files in the file metadata table within a single
+ * transaction, hence an interrupted compaction leaves at most an unreferenced merged file behind. The source files
+ * are deleted on the next run, so that readers that have listed them before the swap can still finish reading them.
+ * They are recorded in the same transaction as the swap, under a reserved identifier in the file metadata table, so
+ * that they are still deleted if the process restarts before the next run.
+ */
+public class LogFileCompactor implements Runnable {
+  private static final Logger LOG = LoggerFactory.getLogger(LogFileCompactor.class);
+  // Identifier of the source files pending delete in the metadata table. It never matches a logging context, as
+  // namespace ids cannot contain a '.'. As files of different logging contexts can have the same event and creation
+  // times, the event time of a file pending delete is replaced by a hash of its path to keep the key unique.
+  @VisibleForTesting
+  static final String PENDING_DELETE_IDENTIFIER = ".compaction.pending.delete";
+
+  private final TransactionRunner transactionRunner;
+  private final LocationFactory locationFactory;
+  private final String filePermissions;
+  private final int syncIntervalBytes;
+  private final long smallFileSizeBytes;
+  private final long targetFileSizeBytes;
+  private final long minFileAgeMs;
+  private final int maxFilesPerRun;
+  private final RateLimiter rateLimiter;
+  // Sizes of the closed log files seen by the last run, as closed files never change
+  private Map<String, Long> fileSizes;
+
+  public LogFileCompactor(TransactionRunner transactionRunner, LocationFactory locationFactory,
+                          String filePermissions, int syncIntervalBytes, long smallFileSizeBytes,
+                          long targetFileSizeBytes, long minFileAgeMs, int maxFilesPerRun, long maxBytesPerSecond) {
+    this.transactionRunner = transactionRunner;
+    this.locationFactory = locationFactory;
+    this.filePermissions = filePermissions;
+    this.syncIntervalBytes = syncIntervalBytes;
+    this.smallFileSizeBytes = smallFileSizeBytes;
+    this.targetFileSizeBytes = targetFileSizeBytes;
+    this.minFileAgeMs = minFileAgeMs;
+    this.maxFilesPerRun = maxFilesPerRun;
+    this.rateLimiter = RateLimiter.create(maxBytesPerSecond);
+    this.fileSizes = new HashMap<>();
+  }
+
+  @Override
+  public void run() {
+    LOG.info("Starting log file compaction");
+    long startTime = System.currentTimeMillis();
+    deletePendingFiles();
+
+    long tillTime = startTime - minFileAgeMs;
+    int mergedCount = 0;
+    int compactedCount = 0;
+    Map<String, Long> seenSizes = new HashMap<>();
+    AtomicReference<Range> range = new AtomicReference<>(Range.all());
+    try {
+      while (range.get() != null && mergedCount < maxFilesPerRun && !Thread.currentThread().isInterrupted()) {
+        List<FileEntry> entries = new ArrayList<>();
+        TransactionRunners.run(transactionRunner, context -> {
+          StructuredTable table = context.getTable(StoreDefinition.LogFileMetaStore.LOG_FILE_META);
+          range.set(scanNextContext(table, range.get(), entries));
+        }, IOException.class);
+
+        for (List<FileEntry> group : getGroups(entries, tillTime, seenSizes)) {
+          if (mergedCount >= maxFilesPerRun || Thread.currentThread().isInterrupted()) {
+            break;
+          }
+          if (compact(group, seenSizes)) {
+            mergedCount += group.size();
+            compactedCount++;
+          }
+        }
+      }
+    } catch (IOException e) {
+      LOG.warn("Exception while scanning log file metadata for compaction", e);
+    }
+
+    // Only keep the sizes of files that still exist, unless the run stopped before seeing all the files
+    if (range.get() == null) {
+      fileSizes = seenSizes;
+    } else {
+      fileSizes.putAll(seenSizes);
+    }
+
+    LOG.info("Log file compaction completed, merged {} files into {} files. Log file compaction took {} ms",
+             mergedCount, compactedCount, System.currentTimeMillis() - startTime);
+  }
+
+  /**
+   * Scans all entries of the next logging context in the given range.
+   *
+   * @return the range after the logging context scanned, or {@code null} if there is no more logging context
+   */
+  @Nullable
+  @SuppressWarnings("ConstantConditions")
+  private Range scanNextContext(StructuredTable table, Range range, List<FileEntry> entries) throws IOException {
+    String identifier;
+    try (CloseableIterator<StructuredRow> iter = table.scan(range, 1)) {
+      if (!iter.hasNext()) {
+        return null;
+      }
+      identifier = iter.next().getString(StoreDefinition.LogFileMetaStore.LOGGING_CONTEXT_FIELD);
+    }
+
+    List<Field<?>> prefix = getPrefix(identifier);
+    if (!PENDING_DELETE_IDENTIFIER.equals(identifier)) {
+      scanEntries(table, identifier, entries);
+    }
+    return Range.from(prefix, Range.Bound.EXCLUSIVE);
+  }
+
+  /**
+   * Scans all entries of the given identifier.
+   */
+  @SuppressWarnings("ConstantConditions")
+  private void scanEntries(StructuredTable table, String identifier, List<FileEntry> entries) throws IOException {
+    try (CloseableIterator<StructuredRow> iter = table.scan(Range.singleton(getPrefix(identifier)),
+                                                            Integer.MAX_VALUE)) {
+      while (iter.hasNext()) {
+        StructuredRow row = iter.next();
+        entries.add(new FileEntry(identifier,
+                                  row.getLong(StoreDefinition.LogFileMetaStore.EVENT_TIME_FIELD),
+                                  row.getLong(StoreDefinition.LogFileMetaStore.CREATION_TIME_FIELD),
+                                  row.getString(StoreDefinition.LogFileMetaStore.FILE_FIELD)));
+      }
+    }
+  }
+
+  private List<Field<?>> getPrefix(String identifier) {
+    return ImmutableList.of(Fields.stringField(StoreDefinition.LogFileMetaStore.LOGGING_CONTEXT_FIELD, identifier));
+  }
+
+  /**
+   * Returns the groups of adjacent small files that can be merged. The entries are in the metadata table order,
+   * which is the order the files are read in. Files created after the given time are skipped, as they may still be
+   * written to.
+   */
+  private List<List<FileEntry>> getGroups(List<FileEntry> entries, long tillTime, Map<String, Long> seenSizes) {
+    List<List<FileEntry>> groups = new ArrayList<>();
+    List<FileEntry> group = new ArrayList<>();
+    long groupSize = 0;
+    for (FileEntry entry : entries) {
+      long size = entry.getCreationTime() <= tillTime ? getSize(entry, seenSizes) : -1L;
+      if (size < 0 || size >= smallFileSizeBytes || groupSize + size > targetFileSizeBytes) {
+        addGroup(groups, group);
+        group = new ArrayList<>();
+        groupSize = 0;
+        if (size < 0 || size >= smallFileSizeBytes) {
+          continue;
+        }
+      }
+      group.add(entry);
+      groupSize += size;
+    }
+    addGroup(groups, group);
+    return groups;
+  }
+
+  private void addGroup(List<List<FileEntry>> groups, List<FileEntry> group) {
+    if (group.size() > 1) {
+      groups.add(group);
+    }
+  }
+
+  /**
+   * Returns the size of the given closed file. The size is only read from the file system the first time the file is
+   * seen, to avoid a file system call for every file on every run.
+   */
+  private long getSize(FileEntry entry, Map<String, Long> seenSizes) {
+    Long size = fileSizes.get(entry.getPath());
+    if (size == null) {
+      try {
+        size = Locations.getLocationFromAbsolutePath(locationFactory, entry.getPath()).length();
+      } catch (IOException e) {
+        LOG.debug("Failed to get the size of log file {}", entry.getPath(), e);
+        return -1L;
+      }
+    }
+    seenSizes.put(entry.getPath(), size);
+    return size;
+  }
+
+  /**
+   * Merges the files in the given group into a new file and replaces the metadata of the group with the new file.
+   *
+   * @return {@code true} if the group was compacted
+   */
+  private boolean compact(List<FileEntry> group, Map<String, Long> sizes) {
+    FileEntry first = group.get(0);
+    FileEntry last = group.get(group.size() - 1);
+    Location firstLocation = Locations.getLocationFromAbsolutePath(locationFactory, first.getPath());
+    Location parent = Locations.getParent(firstLocation);
+    if (parent == null) {
+      return false;
+    }
+    Location location;
+    try {
+      location = parent.append(String.format("%d-%d.avro", first.getCreationTime(), last.getCreationTime()));
+      if (!(filePermissions.isEmpty() ? location.createNew() : location.createNew(filePermissions))) {
+        LOG.debug("Skipping compaction of log files of {} as {} already exists", first.getIdentifier(), location);
+        return false;
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to create compacted log file for {} in {}", first.getIdentifier(), parent, e);
+      return false;
+    }
+
+    try {
+      merge(group, location, sizes);
+      FileEntry merged = new FileEntry(first.getIdentifier(), first.getEventTime(), last.getCreationTime(),
+                                       location.toURI().getPath());
+      if (!replaceMetadata(group, merged)) {
+        LOG.debug("Log files of {} changed during compaction, discarding {}", first.getIdentifier(), location);
+        Locations.deleteQuietly(location);
+        return false;
+      }
+    } catch (Exception e) {
+      if (Thread.currentThread().isInterrupted() || e instanceof InterruptedException) {
+        LOG.debug("Log file compaction interrupted");
+        Thread.currentThread().interrupt();
+      } else {
+        LOG.warn("Failed to compact log files of {} into {}", first.getIdentifier(), location, e);
+      }
+      Locations.deleteQuietly(location);
+      return false;
+    }
+
+    for (FileEntry entry : group) {
+      sizes.remove(entry.getPath());
+    }
+    LOG.debug("Compacted {} log files of {} into {}", group.size(), first.getIdentifier(), location);
+    return true;
+  }
+
+  /**
+   * Merges the events of the given files into the given location, ordered by event timestamp.
+   */
+  private void merge(List<FileEntry> group, Location location,
+                     Map<String, Long> sizes) throws IOException, InterruptedException {
+    Schema schema = LogSchema.LoggingEvent.SCHEMA;
+    List<DataFileStream<GenericRecord>> readers = new ArrayList<>();
+    // Sort by the event timestamp, then by the file order for events with the same timestamp
+    PriorityQueue<MergeEntry> queue = new PriorityQueue<>(
+      group.size(), Comparator.comparingLong(MergeEntry::getTimestamp).thenComparingInt(MergeEntry::getIndex));
+
+    OutputStream outputStream = null;
+    DataFileWriter<GenericRecord> writer = null;
+    try {
+      for (int i = 0; i < group.size(); i++) {
+        Location source = Locations.getLocationFromAbsolutePath(locationFactory, group.get(i).getPath());
+        long size = sizes.getOrDefault(group.get(i).getPath(), 1L);
+        rateLimiter.acquire((int) Math.min(Integer.MAX_VALUE, Math.max(1L, size)));
+        DataFileStream<GenericRecord> reader = new DataFileStream<>(source.getInputStream(),
+                                                                    new GenericDatumReader<>(schema));
+        readers.add(reader);
+        if (reader.hasNext()) {
+          queue.add(new MergeEntry(i, reader.next()));
+        }
+      }
+
+      outputStream = filePermissions.isEmpty() ? location.getOutputStream() : location.getOutputStream(filePermissions);
+      writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema));
+      writer.setSyncInterval(syncIntervalBytes);
+      writer.create(schema, outputStream);
+
+      while (!queue.isEmpty()) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw new InterruptedException();
+        }
+        MergeEntry entry = queue.poll();
+        writer.append(entry.getRecord());
+        DataFileStream<GenericRecord> reader = readers.get(entry.getIndex());
+        if (reader.hasNext()) {
+          queue.add(new MergeEntry(entry.getIndex(), reader.next()));
+        }
+      }
+      writer.close();
+      writer = null;
+      outputStream = null;
+    } finally {
+      Closeables.closeQuietly(writer);
+      Closeables.closeQuietly(outputStream);
+      for (DataFileStream<GenericRecord> reader : readers) {
+        Closeables.closeQuietly(reader);
+      }
+    }
+  }
+
+  /**
+   * Replaces the metadata of the given files with the metadata of the merged file in a single transaction. The given
+   * files are recorded as pending delete in the same transaction.
+   *
+   * @return {@code false} if any of the given files no longer exists in the metadata table
+   */
+  private boolean replaceMetadata(List<FileEntry> group, FileEntry merged) throws IOException {
+    return TransactionRunners.run(transactionRunner, context -> {
+      StructuredTable table = context.getTable(StoreDefinition.LogFileMetaStore.LOG_FILE_META);
+      for (FileEntry entry : group) {
+        if (!table.read(entry.getKeyFields()).isPresent()) {
+          return false;
+        }
+      }
+      for (FileEntry entry : group) {
+        table.delete(entry.getKeyFields());
+        // the creation time is kept, as the retention cleaner deletes the file once it expires
+        FileEntry pendingDelete = new FileEntry(PENDING_DELETE_IDENTIFIER, getPathHash(entry.getPath()),
+                                                entry.getCreationTime(), entry.getPath());
+        table.upsert(pendingDelete.getFields());
+      }
+      table.upsert(merged.getFields());
+      return true;
+    }, IOException.class);
+  }
+
+  /**
+   * Deletes the source files of the compactions done by previous runs, including runs before a restart.
+   */
+  private void deletePendingFiles() {
+    List<FileEntry> pendingDeletes;
+    try {
+      pendingDeletes = getPendingDeletes();
+    } catch (IOException e) {
+      LOG.warn("Exception while reading log files pending delete", e);
+      return;
+    }
+
+    List<FileEntry> deleted = new ArrayList<>();
+    for (FileEntry entry : pendingDeletes) {
+      try {
+        Location location = Locations.getLocationFromAbsolutePath(locationFactory, entry.getPath());
+        if (location.delete() || !location.exists()) {
+          deleted.add(entry);
+        } else {
+          LOG.warn("File {} delete failed", entry.getPath());
+        }
+      } catch (IOException e) {
+        LOG.warn("Exception while deleting file {}", entry.getPath(), e);
+      }
+    }
+
+    try {
+      TransactionRunners.run(transactionRunner, context -> {
+        StructuredTable table = context.getTable(StoreDefinition.LogFileMetaStore.LOG_FILE_META);
+        for (FileEntry entry : deleted) {
+          table.delete(entry.getKeyFields());
+        }
+      }, IOException.class);
+    } catch (IOException e) {
+      // The files will be deleted again on the next run
+      LOG.warn("Exception while removing deleted log files from the files pending delete", e);
+    }
+  }
+
+  /**
+   * Returns a hash of the given file path that is used as the event time of the file when it is pending delete.
+   */
+  private static long getPathHash(String path) {
+    return Hashing.sha256().hashString(path, StandardCharsets.UTF_8).asLong();
+  }
+
+  @VisibleForTesting
+  List<FileEntry> getPendingDeletes() throws IOException {
+    return TransactionRunners.run(transactionRunner, context -> {
+      StructuredTable table = context.getTable(StoreDefinition.LogFileMetaStore.LOG_FILE_META);
+      List<FileEntry> entries = new ArrayList<>();
+      scanEntries(table, PENDING_DELETE_IDENTIFIER, entries);
+      return entries;
+    }, IOException.class);
+  }
+
+  /**
+   * An entry in the log file metadata table.
+   */
+  @VisibleForTesting
+  static final class FileEntry {
+    private final String identifier;
+    private final long eventTime;
+    private final long creationTime;
+    private final String path;
+
+    private FileEntry(String identifier, long eventTime, long creationTime, String path) {
+      this.identifier = identifier;
+      this.eventTime = eventTime;
+      this.creationTime = creationTime;
+      this.path = path;
+    }
+
+    String getIdentifier() {
+      return identifier;
+    }
+
+    long getEventTime() {
+      return eventTime;
+    }
+
+    long getCreationTime() {
+      return creationTime;
+    }
+
+    String getPath() {
+      return path;
+    }
+
+    List<Field<?>> getKeyFields() {
+      return ImmutableList.of(Fields.stringField(StoreDefinition.LogFileMetaStore.LOGGING_CONTEXT_FIELD, identifier),
+                              Fields.longField(StoreDefinition.LogFileMetaStore.EVENT_TIME_FIELD, eventTime),
+                              Fields.longField(StoreDefinition.LogFileMetaStore.CREATION_TIME_FIELD, creationTime));
+    }
+
+    List<Field<?>> getFields() {
+      List<Field<?>> fields = new ArrayList<>(getKeyFields());
+      fields.add(Fields.stringField(StoreDefinition.LogFileMetaStore.FILE_FIELD, path));
+      return fields;
+    }
+  }
+
+  /**
+   * The next event to merge from a source file.
+   */
+  private static final class MergeEntry {
+    private final int index;
+    private final GenericRecord record;
+    private final long timestamp;
+
+    private MergeEntry(int index, GenericRecord record) {
+      this.index = index;
+      this.record = record;
+      this.timestamp = (Long) record.get("timestamp");
+    }
+
+    int getIndex() {
+      return index;
+    }
+
+    GenericRecord getRecord() {
+      return record;
+    }
+
+    long getTimestamp() {
+      return timestamp;
+    }
+  }
+}
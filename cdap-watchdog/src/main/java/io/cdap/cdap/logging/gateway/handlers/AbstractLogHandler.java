@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.logging.gateway.handlers;
 
+import ch.qos.logback.classic.PatternLayout;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.logging.LoggingContext;
@@ -36,6 +37,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 
 /**
@@ -130,6 +133,41 @@ public abstract class AbstractLogHandler extends AbstractHttpHandler {
     }
   }
 
+  protected void doFollow(LogTailer logTailer, HttpResponder responder, LoggingContext loggingContext,
+                          long fromTimeSecsParam, boolean escape, String filterStr, @Nullable RunRecordMeta runRecord,
+                          BooleanSupplier runCompleted, String format, List<String> fieldsToSuppress) {
+    try {
+      Filter filter = FilterParser.parse(filterStr);
+      Function<LogEvent, Object> encoder = getLogEventEncoder(format, fieldsToSuppress, escape);
+
+      long fromMillis = fromTimeSecsParam < 0 ?
+        System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1) : TimeUnit.SECONDS.toMillis(fromTimeSecsParam);
+      ReadRange readRange = new ReadRange(fromMillis, Long.MAX_VALUE, LogOffset.INVALID_KAFKA_OFFSET);
+      readRange = adjustReadRange(readRange, runRecord, fromTimeSecsParam != -1);
+
+      // Only keep following if the run may still produce logs
+      boolean live = runRecord == null || !runRecord.getStatus().isEndState();
+      logTailer.follow(responder, loggingContext, readRange.getFromMillis(), filter, encoder, live, runCompleted);
+    } catch (SecurityException e) {
+      responder.sendStatus(HttpResponseStatus.UNAUTHORIZED);
+    } catch (IllegalArgumentException e) {
+      responder.sendString(HttpResponseStatus.BAD_REQUEST, e.getMessage());
+    }
+  }
+
+  private Function<LogEvent, Object> getLogEventEncoder(String format, List<String> suppress, boolean escape) {
+    LogFormatType formatType = getFormatType(format);
+    switch (formatType) {
+      case JSON:
+        LogDataOffsetCallback.validate(suppress);
+        return event -> LogDataOffsetCallback.encode(event, suppress);
+      default:
+        PatternLayout patternLayout = TextOffsetCallback.createPatternLayout(logPattern);
+        patternLayout.start();
+        return event -> TextOffsetCallback.encode(patternLayout, event, escape);
+    }
+  }
+
   private Callback getNextOrPrevLogsCallback(String format, HttpResponder responder,
                                              List<String> suppress, boolean escape) {
     LogFormatType formatType = getFormatType(format);
@@ -34,11 +34,18 @@ public class LogDataOffsetCallback extends AbstractJSONCallback {
   LogDataOffsetCallback(HttpResponder responder, List<String> fieldsToSuppress) {
     super(responder);
     this.fieldsToSuppress = fieldsToSuppress;
-    validate();
+    validate(fieldsToSuppress);
   }
 
   @Override
   public Object encodeSend(LogEvent logEvent) {
+    return encode(logEvent, fieldsToSuppress);
+  }
+
+  /**
+   * Encodes the given {@link LogEvent} as a JSON object containing the {@link LogData} and the log offset.
+   */
+  static JsonElement encode(LogEvent logEvent, List<String> fieldsToSuppress) {
     ILoggingEvent event = logEvent.getLoggingEvent();
     StackTraceElement[] stackTraceElements = event.getCallerData();
     String className = "";
@@ -56,10 +63,11 @@ public class LogDataOffsetCallback extends AbstractJSONCallback {
                                   className, simpleClassName, lineNumber, event.getFormattedMessage(),
                                   ThrowableProxyUtil.asString(event.getThrowableProxy()), event.getLoggerName(),
                                   event.getMDCPropertyMap(), isNativeMethod);
-    return modifyLogJsonElememnt(GSON.toJsonTree(new FormattedLogDataEvent(logData, logEvent.getOffset())));
+    return modifyLogJsonElememnt(GSON.toJsonTree(new FormattedLogDataEvent(logData, logEvent.getOffset())),
+                                 fieldsToSuppress);
   }
 
-  private Object modifyLogJsonElememnt(JsonElement jsonElement) {
+  private static JsonElement modifyLogJsonElememnt(JsonElement jsonElement, List<String> fieldsToSuppress) {
     JsonObject jsonLogData = (JsonObject) jsonElement;
     JsonObject logData = jsonLogData.getAsJsonObject("log");
 
@@ -72,7 +80,12 @@ public class LogDataOffsetCallback extends AbstractJSONCallback {
     return jsonLogData;
   }
 
-  private void validate() {
+  /**
+   * Validates the given fields to suppress are fields of {@link LogData}.
+   *
+   * @throws IllegalArgumentException if any of the fields is not supported
+   */
+  static void validate(List<String> fieldsToSuppress) {
     if (fieldsToSuppress.isEmpty()) {
       return;
     }
@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.logging.gateway.handlers;
 
+import com.google.gson.Gson;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.cdap.cdap.common.NotFoundException;
@@ -24,16 +25,26 @@ import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.id.Id;
 import io.cdap.cdap.common.logging.LoggingContext;
 import io.cdap.cdap.internal.app.store.RunRecordMeta;
+import io.cdap.cdap.logging.appender.system.LogPathIdentifier;
 import io.cdap.cdap.logging.context.LoggingContextHelper;
 import io.cdap.cdap.logging.gateway.handlers.store.ProgramStore;
+import io.cdap.cdap.logging.meta.LogLevelStatsStore;
 import io.cdap.cdap.logging.read.LogReader;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.http.HandlerContext;
 import io.cdap.http.HttpHandler;
 import io.cdap.http.HttpResponder;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -47,14 +58,27 @@ import javax.ws.rs.QueryParam;
 @Path(Constants.Gateway.API_VERSION_3)
 public class LogHandler extends AbstractLogHandler {
 
+  private static final Logger LOG = LoggerFactory.getLogger(LogHandler.class);
+  private static final Gson GSON = new Gson();
+
   private final ProgramStore programStore;
   private final LogReader logReader;
+  private final LogTailer logTailer;
+  private final LogLevelStatsStore logLevelStatsStore;
 
   @Inject
-  public LogHandler(LogReader logReader, CConfiguration cConf, ProgramStore programStore) {
+  public LogHandler(LogReader logReader, CConfiguration cConf, ProgramStore programStore,
+                    LogLevelStatsStore logLevelStatsStore, LogTailer logTailer) {
     super(cConf);
     this.logReader = logReader;
     this.programStore = programStore;
+    this.logLevelStatsStore = logLevelStatsStore;
+    this.logTailer = logTailer;
+  }
+
+  @Override
+  public void destroy(HandlerContext context) {
+    logTailer.close();
   }
 
   @GET
@@ -133,6 +157,75 @@ public class LogHandler extends AbstractLogHandler {
            escape, filterStr, runRecord, format, suppress);
   }
 
+  @GET
+  @Path("/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/logs/follow")
+  public void follow(HttpRequest request, HttpResponder responder, @PathParam("namespace-id") String namespaceId,
+                     @PathParam("app-id") String appId, @PathParam("program-type") String programType,
+                     @PathParam("program-id") String programId,
+                     @QueryParam("start") @DefaultValue("-1") long fromTimeSecsParam,
+                     @QueryParam("escape") @DefaultValue("true") boolean escape,
+                     @QueryParam("filter") @DefaultValue("") String filterStr,
+                     @QueryParam("format") @DefaultValue("text") String format,
+                     @QueryParam("suppress") List<String> suppress) {
+    LoggingContext loggingContext =
+      LoggingContextHelper.getLoggingContext(namespaceId, appId,
+                                             programId, ProgramType.valueOfCategoryName(programType));
+    doFollow(logTailer, responder, loggingContext, fromTimeSecsParam, escape, filterStr, null, () -> false,
+             format, suppress);
+  }
+
+  @GET
+  @Path("/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs/follow")
+  public void runIdFollow(HttpRequest request, HttpResponder responder, @PathParam("namespace-id") String namespaceId,
+                          @PathParam("app-id") String appId, @PathParam("program-type") String programType,
+                          @PathParam("program-id") String programId, @PathParam("run-id") String runId,
+                          @QueryParam("start") @DefaultValue("-1") long fromTimeSecsParam,
+                          @QueryParam("escape") @DefaultValue("true") boolean escape,
+                          @QueryParam("filter") @DefaultValue("") String filterStr,
+                          @QueryParam("format") @DefaultValue("text") String format,
+                          @QueryParam("suppress") List<String> suppress) throws NotFoundException {
+    ProgramType type = ProgramType.valueOfCategoryName(programType);
+    ProgramRunId programRunId = new ProgramRunId(namespaceId, appId, type, programId, runId);
+    RunRecordMeta runRecord = getRunRecordMeta(programRunId);
+    LoggingContext loggingContext = LoggingContextHelper.getLoggingContextWithRunId(programRunId,
+                                                                                    runRecord.getSystemArgs());
+
+    doFollow(logTailer, responder, loggingContext, fromTimeSecsParam, escape, filterStr, runRecord,
+             () -> isRunCompleted(programRunId), format, suppress);
+  }
+
+  @GET
+  @Path("/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs/stats")
+  public void runIdStats(HttpRequest request, HttpResponder responder, @PathParam("namespace-id") String namespaceId,
+                         @PathParam("app-id") String appId, @PathParam("program-type") String programType,
+                         @PathParam("program-id") String programId, @PathParam("run-id") String runId,
+                         @QueryParam("start") @DefaultValue("-1") long fromTimeSecsParam,
+                         @QueryParam("stop") @DefaultValue("-1") long toTimeSecsParam) throws NotFoundException {
+    ProgramType type = ProgramType.valueOfCategoryName(programType);
+    ProgramRunId programRunId = new ProgramRunId(namespaceId, appId, type, programId, runId);
+    RunRecordMeta runRecord = getRunRecordMeta(programRunId);
+
+    // Default to the lifetime of the run. The stop time is exclusive, hence include the minute the run stopped in.
+    long fromTimeSecs = fromTimeSecsParam < 0 ? runRecord.getStartTs() : fromTimeSecsParam;
+    long toTimeSecs = toTimeSecsParam >= 0 ? toTimeSecsParam
+      : runRecord.getStopTs() == null ? Long.MAX_VALUE : runRecord.getStopTs() + TimeUnit.MINUTES.toSeconds(1);
+    if (fromTimeSecs >= toTimeSecs) {
+      responder.sendString(HttpResponseStatus.BAD_REQUEST, "Invalid time range. " +
+        "'stop' should be greater than 'start'.");
+      return;
+    }
+
+    try {
+      SortedMap<Long, Map<String, Long>> stats = logLevelStatsStore.getStats(
+        new LogPathIdentifier(namespaceId, appId, programId), runId, fromTimeSecs, toTimeSecs);
+      responder.sendJson(HttpResponseStatus.OK, GSON.toJson(stats));
+    } catch (IOException e) {
+      LOG.warn("Failed to read log level stats for {}", programRunId, e);
+      responder.sendString(HttpResponseStatus.INTERNAL_SERVER_ERROR,
+                           "Failed to read log level stats for " + programRunId);
+    }
+  }
+
   @GET
   @Path("/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/logs/prev")
   public void prev(HttpRequest request, HttpResponder responder, @PathParam("namespace-id") String namespaceId,
@@ -201,6 +294,21 @@ public class LogHandler extends AbstractLogHandler {
            fromOffsetStr, escape, filterStr, null, format, suppress);
   }
 
+  @GET
+  @Path("/system/{component-id}/{service-id}/logs/follow")
+  public void sysFollow(HttpRequest request, HttpResponder responder, @PathParam("component-id") String componentId,
+                        @PathParam("service-id") String serviceId,
+                        @QueryParam("start") @DefaultValue("-1") long fromTimeSecsParam,
+                        @QueryParam("escape") @DefaultValue("true") boolean escape,
+                        @QueryParam("filter") @DefaultValue("") String filterStr,
+                        @QueryParam("format") @DefaultValue("text") String format,
+                        @QueryParam("suppress") List<String> suppress) {
+    LoggingContext loggingContext = LoggingContextHelper.getLoggingContext(Id.Namespace.SYSTEM.getId(), componentId,
+                                                                           serviceId);
+    doFollow(logTailer, responder, loggingContext, fromTimeSecsParam, escape, filterStr, null, () -> false,
+             format, suppress);
+  }
+
   @GET
   @Path("/system/{component-id}/{service-id}/logs/prev")
   public void sysPrev(HttpRequest request, HttpResponder responder, @PathParam("component-id") String componentId,
@@ -215,6 +323,11 @@ public class LogHandler extends AbstractLogHandler {
     doPrev(logReader, responder, loggingContext, maxEvents, fromOffsetStr, escape, filterStr, null, format, suppress);
   }
 
+  private boolean isRunCompleted(ProgramRunId programRunId) {
+    RunRecordMeta runRecord = programStore.getRun(programRunId);
+    return runRecord == null || runRecord.getStatus().isEndState();
+  }
+
   private RunRecordMeta getRunRecordMeta(ProgramRunId programRunId) throws NotFoundException {
     RunRecordMeta runRecord = programStore.getRun(programRunId);
     if (runRecord == null) {
@@ -0,0 +1,528 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.gateway.handlers;
+
+import com.google.common.io.Closeables;
+import com.google.gson.Gson;
+import com.google.inject.Inject;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.logging.LoggingContext;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.read.Callback;
+import io.cdap.cdap.logging.read.LogEvent;
+import io.cdap.cdap.logging.read.LogOffset;
+import io.cdap.cdap.logging.read.LogReader;
+import io.cdap.cdap.logging.read.ReadRange;
+import io.cdap.http.ChunkResponder;
+import io.cdap.http.HttpResponder;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Serves live log tails as server-sent events. Followers of the same logging context share a single
+ * {@link Subscription}, which reads new log events from the {@link LogReader} once per poll interval, starting
+ * from the offset of the last event it read, and pushes them to all of its followers. Each follower first receives
+ * the history of the logging context, and then switches to the events of the shared subscription. Filters are
+ * applied for each follower on the server side.
+ *
+ * A single instance is shared by all the log handlers of a process, so that all followers are served by the same
+ * scheduled thread pool.
+ */
+public final class LogTailer implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LogTailer.class);
+  private static final Gson GSON = new Gson();
+
+  private final LogReader logReader;
+  private final long pollIntervalMillis;
+  private final long heartbeatIntervalMillis;
+  private final int maxEventsPerRead;
+  private final ScheduledExecutorService executor;
+  // Guarded by this
+  private final Map<Map<String, String>, Subscription> subscriptions;
+  private boolean closed;
+
+  @Inject
+  public LogTailer(CConfiguration cConf, LogReader logReader) {
+    this.logReader = logReader;
+    this.pollIntervalMillis = cConf.getLong(Constants.Logging.LOG_FOLLOW_POLL_INTERVAL_MS);
+    this.heartbeatIntervalMillis = cConf.getLong(Constants.Logging.LOG_FOLLOW_HEARTBEAT_INTERVAL_MS);
+    this.maxEventsPerRead = cConf.getInt(Constants.Logging.LOG_FOLLOW_MAX_EVENTS_PER_READ);
+    this.executor = Executors.newScheduledThreadPool(cConf.getInt(Constants.Logging.LOG_FOLLOW_THREADS),
+                                                     Threads.createDaemonThreadFactory("log-follow-%d"));
+    this.subscriptions = new HashMap<>();
+  }
+
+  /**
+   * Starts following the logs of the given logging context. Log events starting from {@code fromMillis} are sent
+   * first, followed by new log events as they arrive, until the client disconnects, the followed run is completed
+   * or this tailer is closed.
+   *
+   * @param responder responder to send the events to
+   * @param loggingContext logging context to follow
+   * @param fromMillis timestamp in milliseconds to start sending log events from
+   * @param filter filter to apply to the log events sent to the client
+   * @param encoder function to encode a log event into an object that will be sent as JSON
+   * @param live {@code true} to keep sending new log events; {@code false} to only send the existing log events,
+   *             which is used when the logs are known to be complete, e.g. for a completed program run
+   * @param runCompleted returns whether the followed program run is completed. It is checked once per heartbeat
+   *                     interval, and the follow ends once the run is completed and its remaining logs are sent
+   */
+  public void follow(HttpResponder responder, LoggingContext loggingContext, long fromMillis,
+                     Filter filter, Function<LogEvent, Object> encoder, boolean live, BooleanSupplier runCompleted) {
+    HttpHeaders headers = new DefaultHttpHeaders()
+      .set(HttpHeaderNames.CONTENT_TYPE, "text/event-stream; charset=utf-8")
+      .set(HttpHeaderNames.CACHE_CONTROL, "no-cache");
+
+    Follower follower;
+    ReadPosition historyEnd;
+    synchronized (this) {
+      if (closed) {
+        responder.sendString(HttpResponseStatus.SERVICE_UNAVAILABLE, "Log follow is not available");
+        return;
+      }
+      follower = new Follower(responder.sendChunkStart(HttpResponseStatus.OK, headers), filter, encoder,
+                              runCompleted);
+      if (!live) {
+        executor.execute(() -> {
+          follower.sendHistory(loggingContext, fromMillis,
+                               new ReadPosition(new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, Long.MAX_VALUE)));
+          follower.close();
+        });
+        return;
+      }
+      Subscription subscription = subscriptions.computeIfAbsent(loggingContext.getSystemTagsAsString(), key -> {
+        Subscription newSubscription = new Subscription(key, loggingContext);
+        executor.execute(newSubscription);
+        return newSubscription;
+      });
+      // Events after the current subscription position will be pushed by the subscription.
+      historyEnd = subscription.addFollower(follower);
+    }
+    executor.execute(() -> follower.sendHistory(loggingContext, fromMillis, historyEnd));
+  }
+
+  @Override
+  public void close() {
+    List<Subscription> toClose;
+    synchronized (this) {
+      closed = true;
+      toClose = new ArrayList<>(subscriptions.values());
+      subscriptions.clear();
+    }
+    for (Subscription subscription : toClose) {
+      subscription.close();
+    }
+    executor.shutdownNow();
+  }
+
+  /**
+   * Removes the given subscription if it has no more followers.
+   *
+   * @return {@code true} if the subscription is removed
+   */
+  private synchronized boolean removeIfIdle(Subscription subscription) {
+    if (!subscription.followers.isEmpty()) {
+      return false;
+    }
+    subscriptions.remove(subscription.key, subscription);
+    return true;
+  }
+
+  /**
+   * A subscription to new log events of a logging context, shared by all followers of that logging context.
+   */
+  private final class Subscription implements Runnable {
+    private final Map<String, String> key;
+    private final LoggingContext loggingContext;
+    private final List<Follower> followers;
+    // Only updated by the subscription while holding the lock of this subscription
+    private final ReadPosition position;
+
+    Subscription(Map<String, String> key, LoggingContext loggingContext) {
+      this.key = key;
+      this.loggingContext = loggingContext;
+      this.followers = new CopyOnWriteArrayList<>();
+      this.position = new ReadPosition(new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, System.currentTimeMillis()));
+    }
+
+    /**
+     * Adds a follower to this subscription. Must be called while holding the lock of the {@link LogTailer}.
+     *
+     * @return the position after which events will be pushed to the follower by this subscription
+     */
+    ReadPosition addFollower(Follower follower) {
+      synchronized (this) {
+        followers.add(follower);
+        return position.copy();
+      }
+    }
+
+    @Override
+    public void run() {
+      if (removeIfIdle(this)) {
+        return;
+      }
+
+      boolean caughtUp = true;
+      try {
+        CollectingCallback callback = new CollectingCallback();
+        int maxEvents = maxEventsPerRead + position.getEventsToSkip();
+        logReader.getLogNext(loggingContext, position.getReadRange(), maxEvents, Filter.EMPTY_FILTER, callback);
+        List<LogEvent> events = position.after(callback.getEvents());
+        caughtUp = callback.getCount() < maxEvents || events.isEmpty();
+
+        // Check for completed runs before publishing, so that the remaining events are sent before a follower ends
+        long now = System.currentTimeMillis();
+        for (Follower follower : followers) {
+          follower.checkRunCompleted(now);
+        }
+
+        // Update the position and publish while holding the lock, so that a follower being added concurrently either
+        // get the events from the history or from this subscription, but never both.
+        synchronized (this) {
+          for (LogEvent event : events) {
+            position.advance(event.getOffset());
+          }
+          for (Follower follower : followers) {
+            if (!follower.publish(events, now, caughtUp)) {
+              followers.remove(follower);
+            }
+          }
+        }
+      } catch (Exception e) {
+        LOG.debug("Exception while reading logs for logging context {}", loggingContext, e);
+      }
+
+      try {
+        // If a full batch was read, there are likely more events available, hence read again immediately.
+        executor.schedule(this, caughtUp ? pollIntervalMillis : 0, TimeUnit.MILLISECONDS);
+      } catch (Exception e) {
+        // Happens when the executor is shutdown
+        LOG.trace("Failed to schedule next read for logging context {}", loggingContext, e);
+      }
+    }
+
+    void close() {
+      for (Follower follower : followers) {
+        follower.close();
+      }
+      followers.clear();
+    }
+  }
+
+  /**
+   * A client following a logging context. Events pushed by the subscription are buffered until the history
+   * has been sent. The history contains the events up to and including the position of the subscription when the
+   * follower was added, and the subscription only pushes the events after that position.
+   */
+  private final class Follower {
+    private final ChunkResponder chunkResponder;
+    private final Filter filter;
+    private final Function<LogEvent, Object> encoder;
+    private final BooleanSupplier runCompleted;
+    // Guarded by this
+    private List<LogEvent> pendingEvents;
+    private long lastSendMillis;
+    private boolean closed;
+    // Only accessed by the subscription
+    private long lastRunCheckMillis;
+    private long runCompletedMillis;
+
+    Follower(ChunkResponder chunkResponder, Filter filter, Function<LogEvent, Object> encoder,
+             BooleanSupplier runCompleted) {
+      this.chunkResponder = chunkResponder;
+      this.filter = filter;
+      this.encoder = encoder;
+      this.runCompleted = runCompleted;
+      this.pendingEvents = new ArrayList<>();
+      this.lastSendMillis = System.currentTimeMillis();
+      this.lastRunCheckMillis = lastSendMillis;
+      this.runCompletedMillis = -1L;
+    }
+
+    /**
+     * Sends the log events from the given time until the given position, then sends any events pushed by
+     * the subscription in the meantime.
+     */
+    void sendHistory(LoggingContext loggingContext, long fromMillis, ReadPosition end) {
+      ReadPosition position = new ReadPosition(new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, fromMillis));
+      try {
+        boolean done = false;
+        while (!done) {
+          // The events are read without the filter of this follower, because positions count the events
+          // in the same millisecond, which must be the same events as the ones counted by the subscription.
+          CollectingCallback callback = new CollectingCallback();
+          int maxEvents = maxEventsPerRead + position.getEventsToSkip();
+          logReader.getLogNext(loggingContext, position.getReadRange(), maxEvents, Filter.EMPTY_FILTER, callback);
+          List<LogEvent> read = position.after(callback.getEvents());
+          done = callback.getCount() < maxEvents || read.isEmpty();
+          List<LogEvent> events = new ArrayList<>();
+          for (LogEvent event : read) {
+            if (!end.covers(event.getOffset(), position.getIndexAtTime(event.getOffset()))) {
+              done = true;
+              break;
+            }
+            events.add(event);
+            position.advance(event.getOffset());
+          }
+          synchronized (this) {
+            send(events);
+          }
+        }
+
+        synchronized (this) {
+          List<LogEvent> pending = pendingEvents;
+          pendingEvents = null;
+          send(pending);
+        }
+      } catch (Exception e) {
+        LOG.debug("Failed to send logs to follower of logging context {}", loggingContext, e);
+        close();
+      }
+    }
+
+    /**
+     * Checks if the followed run is completed, at most once per heartbeat interval.
+     */
+    void checkRunCompleted(long now) {
+      if (runCompletedMillis >= 0 || now - lastRunCheckMillis < heartbeatIntervalMillis) {
+        return;
+      }
+      lastRunCheckMillis = now;
+      try {
+        if (runCompleted.getAsBoolean()) {
+          runCompletedMillis = now;
+        }
+      } catch (Exception e) {
+        LOG.debug("Failed to check if the followed run is completed", e);
+      }
+    }
+
+    /**
+     * Publishes events read by the subscription to this follower.
+     *
+     * @param caughtUp {@code true} if the subscription has read all the available events
+     * @return {@code false} if this follower is closed and should be removed from the subscription
+     */
+    synchronized boolean publish(List<LogEvent> events, long now, boolean caughtUp) {
+      if (closed) {
+        return false;
+      }
+      if (pendingEvents != null) {
+        pendingEvents.addAll(events);
+        return true;
+      }
+      try {
+        send(events);
+        // Events of a completed run can still arrive until they are processed by the log pipeline, hence
+        // wait for one heartbeat interval after the run completed before ending the follow.
+        if (caughtUp && runCompletedMillis >= 0 && now - runCompletedMillis >= heartbeatIntervalMillis) {
+          close();
+          return false;
+        }
+        if (now - lastSendMillis >= heartbeatIntervalMillis) {
+          // Send a comment line as heartbeat, which also detects disconnected clients
+          write(":\n\n");
+        }
+        return true;
+      } catch (IOException e) {
+        LOG.trace("Failed to send logs to follower", e);
+        close();
+        return false;
+      }
+    }
+
+    synchronized void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      pendingEvents = null;
+      Closeables.closeQuietly(chunkResponder);
+    }
+
+    private void send(List<LogEvent> events) throws IOException {
+      if (closed) {
+        throw new IOException("Follower is already closed");
+      }
+      StringBuilder builder = new StringBuilder();
+      for (LogEvent event : events) {
+        if (!filter.match(event.getLoggingEvent())) {
+          continue;
+        }
+        builder.append("id: ").append(FormattedLogOffset.formatLogOffset(event.getOffset())).append('\n')
+          .append("data: ").append(GSON.toJson(encoder.apply(event))).append("\n\n");
+      }
+      if (builder.length() > 0) {
+        write(builder.toString());
+      }
+    }
+
+    private void write(String content) throws IOException {
+      chunkResponder.sendChunk(Unpooled.wrappedBuffer(content.getBytes(StandardCharsets.UTF_8)));
+      lastSendMillis = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * The position of a reader in the log events of a logging context, which covers all the events up to and
+   * including the last event read. Events read from Kafka are ordered by their Kafka offset. Events read from
+   * files only have a timestamp, and several of them can have the same timestamp. Hence the position also counts
+   * the events read in the millisecond of the last event, and the next read starts again from that millisecond
+   * and skips the events that were already read.
+   */
+  private static final class ReadPosition {
+    private LogOffset offset;
+    private int eventsAtTime;
+
+    /**
+     * Creates a position that covers all the events before the given offset.
+     */
+    ReadPosition(LogOffset offset) {
+      this(offset, 0);
+    }
+
+    private ReadPosition(LogOffset offset, int eventsAtTime) {
+      this.offset = offset;
+      this.eventsAtTime = eventsAtTime;
+    }
+
+    ReadPosition copy() {
+      return new ReadPosition(offset, eventsAtTime);
+    }
+
+    /**
+     * Returns the range to read the events after this position from.
+     */
+    ReadRange getReadRange() {
+      if (hasKafkaOffset(offset)) {
+        return ReadRange.createFromRange(offset);
+      }
+      // The range starts after the given time, so start one millisecond earlier to read all events of that time
+      return new ReadRange(offset.getTime() - 1, Long.MAX_VALUE, LogOffset.INVALID_KAFKA_OFFSET);
+    }
+
+    /**
+     * Returns the number of events that are read again from the {@link #getReadRange() read range} and skipped.
+     */
+    int getEventsToSkip() {
+      return hasKafkaOffset(offset) ? 0 : eventsAtTime;
+    }
+
+    /**
+     * Returns the events read from the {@link #getReadRange() read range} that are after this position.
+     */
+    List<LogEvent> after(List<LogEvent> events) {
+      List<LogEvent> result = new ArrayList<>(events.size());
+      int indexAtTime = 0;
+      for (LogEvent event : events) {
+        LogOffset eventOffset = event.getOffset();
+        if (!covers(eventOffset, eventOffset.getTime() == offset.getTime() ? indexAtTime++ : 0)) {
+          result.add(event);
+        }
+      }
+      return result;
+    }
+
+    /**
+     * Returns the index that the given event, if it is the next event after this position, has among the events
+     * in the same millisecond.
+     */
+    int getIndexAtTime(LogOffset eventOffset) {
+      return eventOffset.getTime() == offset.getTime() ? eventsAtTime : 0;
+    }
+
+    /**
+     * Returns whether this position covers an event.
+     *
+     * @param eventOffset the offset of the event
+     * @param indexAtTime the index of the event among the events in the same millisecond
+     */
+    boolean covers(LogOffset eventOffset, int indexAtTime) {
+      if (hasKafkaOffset(offset) && hasKafkaOffset(eventOffset)) {
+        return eventOffset.getKafkaOffset() <= offset.getKafkaOffset();
+      }
+      return eventOffset.getTime() < offset.getTime()
+        || (eventOffset.getTime() == offset.getTime() && indexAtTime < eventsAtTime);
+    }
+
+    /**
+     * Advances this position to the given event, which must be the next event after this position.
+     */
+    void advance(LogOffset eventOffset) {
+      eventsAtTime = eventOffset.getTime() == offset.getTime() ? eventsAtTime + 1 : 1;
+      offset = eventOffset;
+    }
+
+    private static boolean hasKafkaOffset(LogOffset offset) {
+      return offset.getKafkaOffset() >= 0;
+    }
+  }
+
+  /**
+   * A {@link Callback} that collects all log events.
+   */
+  private static final class CollectingCallback implements Callback {
+    private final List<LogEvent> events = new ArrayList<>();
+
+    @Override
+    public void init() {
+      // no-op
+    }
+
+    @Override
+    public void handle(LogEvent event) {
+      events.add(event);
+    }
+
+    @Override
+    public int getCount() {
+      return events.size();
+    }
+
+    @Override
+    public void close() {
+      // no-op
+    }
+
+    List<LogEvent> getEvents() {
+      return events;
+    }
+  }
+}
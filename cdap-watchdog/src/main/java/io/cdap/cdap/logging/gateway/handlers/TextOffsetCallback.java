@@ -34,14 +34,21 @@ public class TextOffsetCallback extends AbstractJSONCallback {
   public TextOffsetCallback(HttpResponder responder, String logPattern, boolean escape) {
     super(responder);
     this.escape = escape;
+    this.patternLayout = createPatternLayout(logPattern);
+  }
 
+  /**
+   * Creates a {@link PatternLayout} with the given pattern. The returned layout is not started.
+   */
+  static PatternLayout createPatternLayout(String logPattern) {
     ch.qos.logback.classic.Logger rootLogger =
       (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
     LoggerContext loggerContext = rootLogger.getLoggerContext();
 
-    this.patternLayout = new PatternLayout();
-    this.patternLayout.setContext(loggerContext);
-    this.patternLayout.setPattern(logPattern);
+    PatternLayout patternLayout = new PatternLayout();
+    patternLayout.setContext(loggerContext);
+    patternLayout.setPattern(logPattern);
+    return patternLayout;
   }
 
   @Override
@@ -58,6 +65,13 @@ public class TextOffsetCallback extends AbstractJSONCallback {
 
   @Override
   protected Object encodeSend(LogEvent event) {
+    return encode(patternLayout, event, escape);
+  }
+
+  /**
+   * Encodes the given {@link LogEvent} as a {@link FormattedTextLogEvent} using the given started layout.
+   */
+  static FormattedTextLogEvent encode(PatternLayout patternLayout, LogEvent event, boolean escape) {
     String log = patternLayout.doLayout(event.getLoggingEvent());
     log = escape ? StringEscapeUtils.escapeHtml(log) : log;
     return new FormattedTextLogEvent(log, event.getOffset());
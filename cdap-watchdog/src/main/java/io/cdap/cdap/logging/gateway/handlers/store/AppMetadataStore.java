@@ -19,6 +19,7 @@ package io.cdap.cdap.logging.gateway.handlers.store;
 import com.google.gson.Gson;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.internal.app.store.RunRecordMeta;
+import io.cdap.cdap.internal.app.store.RunRecordMetaCodec;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.id.ApplicationId;
 import io.cdap.cdap.proto.id.ProgramId;
@@ -82,15 +83,17 @@ public class AppMetadataStore {
     return deserializeRunRecordMeta(row.get());
   }
 
-  private static RunRecordMeta deserializeRunRecordMeta(StructuredRow row) {
+  private static RunRecordMeta deserializeRunRecordMeta(StructuredRow row) throws IOException {
+    ProgramId programId = getProgramIdFromRunRecordsPrimaryKeys(new ArrayList<>(row.getPrimaryKeys()));
+    Integer format = row.getInteger(StoreDefinition.AppMetadataStore.RUN_RECORD_FORMAT);
+    if (format != null) {
+      return RunRecordMetaCodec.decode(format, programId.run(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD)),
+                                       row.getBytes(StoreDefinition.AppMetadataStore.RUN_RECORD_BINARY_DATA));
+    }
+    // run records written before the binary format was introduced are stored as JSON
     RunRecordMeta existing =
       GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA), RunRecordMeta.class);
-    RunRecordMeta newMeta =
-      RunRecordMeta.builder(existing)
-        .setProgramRunId(
-          getProgramIdFromRunRecordsPrimaryKeys(new ArrayList(row.getPrimaryKeys())).run(existing.getPid()))
-        .build();
-    return newMeta;
+    return RunRecordMeta.builder(existing).setProgramRunId(programId.run(existing.getPid())).build();
   }
 
   private static ProgramId getProgramIdFromRunRecordsPrimaryKeys(List<Field<?>> primaryKeys) {
@@ -23,6 +23,7 @@ import com.google.inject.name.Names;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.gateway.handlers.CommonHandlers;
 import io.cdap.cdap.logging.gateway.handlers.LogHandler;
+import io.cdap.cdap.logging.gateway.handlers.LogTailer;
 import io.cdap.cdap.logging.service.LogQueryService;
 import io.cdap.http.HttpHandler;
 
@@ -38,6 +39,8 @@ public class LogQueryServerModule extends PrivateModule {
     handlerBinder.addBinding().to(LogHandler.class);
     CommonHandlers.add(handlerBinder);
 
+    // all the followers of the process are served by the same log tailer
+    bind(LogTailer.class).in(Scopes.SINGLETON);
     bind(LogQueryService.class).in(Scopes.SINGLETON);
     expose(LogQueryService.class);
   }
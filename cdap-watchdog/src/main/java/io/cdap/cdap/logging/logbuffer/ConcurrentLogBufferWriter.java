@@ -68,9 +68,24 @@ public class ConcurrentLogBufferWriter implements Closeable {
 
   public ConcurrentLogBufferWriter(CConfiguration cConf,
                                    List<LogBufferProcessorPipeline> pipelines, Runnable cleaner) throws IOException {
+    this(cConf.get(Constants.LogBuffer.LOG_BUFFER_BASE_DIR), cConf, pipelines, cleaner);
+  }
+
+  /**
+   * Creates a concurrent writer which writes log buffer files under the given directory.
+   *
+   * @param logBufferDir directory to write log buffer files to
+   * @param cConf configuration to read log buffer writer configs from
+   * @param pipelines pipelines to send written log events to
+   * @param cleaner cleaner to run upon log buffer file rotation
+   */
+  public ConcurrentLogBufferWriter(String logBufferDir, CConfiguration cConf,
+                                   List<LogBufferProcessorPipeline> pipelines, Runnable cleaner) throws IOException {
     this.pendingRequestQueue = new PendingRequestQueue();
-    this.logBufferWriter = new LogBufferWriter(cConf.get(Constants.LogBuffer.LOG_BUFFER_BASE_DIR),
+    this.logBufferWriter = new LogBufferWriter(logBufferDir,
                                                cConf.getLong(Constants.LogBuffer.LOG_BUFFER_MAX_FILE_SIZE_BYTES),
+                                               cConf.getBoolean(Constants.LogBuffer.LOG_BUFFER_MEMORY_MAPPED, false),
+                                               cConf.getLong(Constants.LogBuffer.LOG_BUFFER_SYNC_INTERVAL_MS, -1L),
                                                cleaner);
     this.pipelines = pipelines;
     this.writerFlag = new AtomicBoolean();
@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.logging.logbuffer;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.AbstractIdleService;
@@ -38,6 +39,7 @@ import io.cdap.cdap.logging.framework.LogPipelineSpecification;
 import io.cdap.cdap.logging.logbuffer.cleaner.LogBufferCleaner;
 import io.cdap.cdap.logging.logbuffer.handler.LogBufferHandler;
 import io.cdap.cdap.logging.logbuffer.recover.LogBufferRecoveryService;
+import io.cdap.cdap.logging.meta.Checkpoint;
 import io.cdap.cdap.logging.meta.CheckpointManager;
 import io.cdap.cdap.logging.meta.CheckpointManagerFactory;
 import io.cdap.cdap.logging.pipeline.LogProcessorPipelineContext;
@@ -47,8 +49,14 @@ import io.cdap.http.NettyHttpService;
 import org.apache.twill.common.Cancellable;
 import org.apache.twill.discovery.Discoverable;
 import org.apache.twill.discovery.DiscoveryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
@@ -61,19 +69,31 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * starting log buffer cleaner service to clean up logs that have been persisted by log buffer pipelines
  * recovering logs from log buffer
  * starting netty-http service to expose endpoint to process logs.
+ *
+ * The log buffer is split into shards based on the publish partition of the logs. Each shard has its own buffer
+ * files, writer, recovery service, cleaner and set of log pipelines, so that a program producing a large amount of
+ * logs does not delay processing of logs from programs in other shards.
+ *
+ * Buffer files written before sharding are directly under the base directory. On startup, they are moved to the
+ * directory of the first shard, together with their checkpoints, so that they are recovered by the first shard.
  */
 public class LogBufferService extends AbstractIdleService {
+  private static final Logger LOG = LoggerFactory.getLogger(LogBufferService.class);
+  // Shard checkpoints are stored under a different prefix than the checkpoints of the unsharded log buffer, so that
+  // offsets of the unsharded buffer files are never used for the files of a shard
+  private static final String SHARD_CHECKPOINT_SUFFIX = ".shard";
+  private static final String FILE_SUFFIX = ".buf";
+
   private final DiscoveryService discoveryService;
   private final CConfiguration cConf;
   private final Provider<AppenderContext> contextProvider;
   private final CheckpointManagerFactory checkpointManagerFactory;
   private final List<Service> pipelines = new ArrayList<>();
-  private final List<CheckpointManager<LogBufferFileOffset>> checkpointManagers = new ArrayList<>();
+  private final List<LogBufferRecoveryService> recoveryServices = new ArrayList<>();
+  private final List<ConcurrentLogBufferWriter> concurrentWriters = new ArrayList<>();
 
   private Cancellable cancellable;
   private NettyHttpService httpService;
-  private ConcurrentLogBufferWriter concurrentWriter;
-  private LogBufferRecoveryService recoveryService;
 
   @Inject
   public LogBufferService(CConfiguration cConf, DiscoveryService discoveryService,
@@ -87,23 +107,51 @@ public class LogBufferService extends AbstractIdleService {
 
   @Override
   protected void startUp() throws Exception {
-    // load log pipelines
-    List<LogBufferProcessorPipeline> bufferPipelines = loadLogPipelines();
+    int numShards = cConf.getInt(Constants.LogBuffer.LOG_BUFFER_NUM_SHARDS);
+    Preconditions.checkArgument(numShards > 0, "Config %s must be greater than 0",
+                                Constants.LogBuffer.LOG_BUFFER_NUM_SHARDS);
+    String baseDir = cConf.get(Constants.LogBuffer.LOG_BUFFER_BASE_DIR);
+
+    // load log pipelines for all the shards
+    List<List<LogBufferProcessorPipeline>> shardPipelines = new ArrayList<>();
+    List<List<CheckpointManager<LogBufferFileOffset>>> shardCheckpointManagers = new ArrayList<>();
+    List<CheckpointManager<LogBufferFileOffset>> legacyCheckpointManagers = new ArrayList<>();
+    for (int shardId = 0; shardId < numShards; shardId++) {
+      List<CheckpointManager<LogBufferFileOffset>> checkpointManagers = new ArrayList<>();
+      shardPipelines.add(loadLogPipelines(shardId, numShards, checkpointManagers,
+                                          shardId == 0 ? legacyCheckpointManagers : new ArrayList<>()));
+      shardCheckpointManagers.add(checkpointManagers);
+    }
+
+    // move the buffer files of the unsharded log buffer to the first shard before any shard starts, so that they are
+    // recovered before being cleaned up
+    migrateLegacyFiles(new File(baseDir), new File(getShardDir(baseDir, 0)),
+                       legacyCheckpointManagers, shardCheckpointManagers.get(0));
+
     // start all the log pipelines
     validateAllFutures(Iterables.transform(pipelines, Service::start));
 
     // recovery service and http handler will send log events to log pipelines. In order to avoid deleting file while
     // reading them in recovery service, we will pass in an atomic boolean will be set to true by recovery service
     // when it is done recovering data. So while recovery service is running, cleanup task will be a no-op
-    AtomicBoolean startCleanup = new AtomicBoolean(false);
-    // start log recovery service to recover all the pending logs.
-    recoveryService = new LogBufferRecoveryService(cConf, bufferPipelines, checkpointManagers, startCleanup);
-    recoveryService.startAndWait();
+    List<AtomicBoolean> startCleanups = new ArrayList<>();
+    for (int shardId = 0; shardId < numShards; shardId++) {
+      AtomicBoolean startCleanup = new AtomicBoolean(false);
+      startCleanups.add(startCleanup);
+      recoveryServices.add(new LogBufferRecoveryService(cConf, shardPipelines.get(shardId),
+                                                        shardCheckpointManagers.get(shardId),
+                                                        getShardDir(baseDir, shardId), shardId, startCleanup));
+    }
+    // start log recovery services to recover all the pending logs. Shards are recovered concurrently.
+    validateAllFutures(Iterables.transform(recoveryServices, Service::start));
 
-    // create concurrent writer
-    concurrentWriter = new ConcurrentLogBufferWriter(cConf, bufferPipelines,
-                                                     new LogBufferCleaner(cConf, checkpointManagers,
-                                                                          startCleanup));
+    // create concurrent writer for each shard
+    for (int shardId = 0; shardId < numShards; shardId++) {
+      String shardDir = getShardDir(baseDir, shardId);
+      LogBufferCleaner cleaner = new LogBufferCleaner(shardCheckpointManagers.get(shardId), shardDir, shardId,
+                                                      startCleanups.get(shardId));
+      concurrentWriters.add(new ConcurrentLogBufferWriter(shardDir, cConf, shardPipelines.get(shardId), cleaner));
+    }
 
     // create and start http service
     httpService = createHttpService();
@@ -146,12 +194,25 @@ public class LogBufferService extends AbstractIdleService {
   }
 
   /**
-   * Load log buffer pipelines.
+   * Load log buffer pipelines for the given shard.
    */
   @SuppressWarnings("unchecked")
-  private List<LogBufferProcessorPipeline> loadLogPipelines() {
-    Map<String, LogPipelineSpecification<AppenderContext>> specs = new LogPipelineLoader(cConf).load(contextProvider);
-    int pipelineCount = specs.size();
+  private List<LogBufferProcessorPipeline> loadLogPipelines(int shardId, int numShards,
+                                                            List<CheckpointManager<LogBufferFileOffset>> managers,
+                                                            List<CheckpointManager<LogBufferFileOffset>>
+                                                              legacyManagers) {
+    // Each shard needs its own logger contexts since appenders are not thread safe. Only the first shard runs the
+    // periodic log file clean up, as the clean up is not specific to any shard.
+    Provider<AppenderContext> shardContextProvider = () -> {
+      AppenderContext context = contextProvider.get();
+      if (shardId > 0) {
+        context.putObject(Constants.Logging.PIPELINE_FILE_CLEANUP_DISABLED, Boolean.TRUE);
+      }
+      return context;
+    };
+    Map<String, LogPipelineSpecification<AppenderContext>> specs =
+      new LogPipelineLoader(cConf).load(shardContextProvider);
+    int pipelineCount = specs.size() * numShards;
     List<LogBufferProcessorPipeline> bufferPipelines = new ArrayList<>();
     // Create one LogBufferProcessorPipeline per spec
     for (LogPipelineSpecification<AppenderContext> pipelineSpec : specs.values()) {
@@ -163,21 +224,68 @@ public class LogBufferService extends AbstractIdleService {
                                     cConf.getLong(Constants.Logging.PIPELINE_CHECKPOINT_INTERVAL_MS),
                                     cConf.getLong(Constants.LogBuffer.LOG_BUFFER_PIPELINE_BATCH_SIZE, 1000));
 
-      CheckpointManager checkpointManager = checkpointManagerFactory.create(pipelineSpec.getCheckpointPrefix(),
-                                                                            CheckpointManagerFactory.Type.LOG_BUFFER);
+      // checkpoints of each shard are stored under the shard id as the partition
+      CheckpointManager checkpointManager =
+        checkpointManagerFactory.create(pipelineSpec.getCheckpointPrefix() + SHARD_CHECKPOINT_SUFFIX,
+                                        CheckpointManagerFactory.Type.LOG_BUFFER);
       LogBufferProcessorPipeline pipeline = new LogBufferProcessorPipeline(
         new LogProcessorPipelineContext(cConf, context.getName(), context,
-                                        context.getMetricsContext(), context.getInstanceId()), config,
-        checkpointManager, 0);
+                                        context.getMetricsContext(), shardId), config,
+        checkpointManager, shardId);
       RetryStrategy retryStrategy = RetryStrategies.fromConfiguration(cConf, "system.log.process.");
       pipelines.add(new RetryOnStartFailureService(() -> pipeline, retryStrategy));
       bufferPipelines.add(pipeline);
-      checkpointManagers.add(checkpointManager);
+      managers.add(checkpointManager);
+      legacyManagers.add(checkpointManagerFactory.create(pipelineSpec.getCheckpointPrefix(),
+                                                         CheckpointManagerFactory.Type.LOG_BUFFER));
     }
 
     return bufferPipelines;
   }
 
+  /**
+   * Moves the buffer files of the unsharded log buffer from the base directory to the directory of the first shard.
+   * Checkpoints of the unsharded log buffer are copied to the first shard before the files are moved, so that
+   * the files are recovered from the right offset and are not cleaned up before they are processed. Since no new
+   * file is written to the base directory, this is a no-op once all the files are moved.
+   *
+   * @param baseDir base directory of the log buffer
+   * @param shardDir directory of the first shard
+   * @param legacyManagers checkpoint managers of the unsharded log buffer, one per pipeline
+   * @param shardManagers checkpoint managers of the first shard, in the same pipeline order as legacyManagers
+   */
+  @VisibleForTesting
+  static void migrateLegacyFiles(File baseDir, File shardDir,
+                                 List<CheckpointManager<LogBufferFileOffset>> legacyManagers,
+                                 List<CheckpointManager<LogBufferFileOffset>> shardManagers) throws IOException {
+    File[] legacyFiles = baseDir.listFiles(file -> file.isFile() && file.getName().endsWith(FILE_SUFFIX));
+    if (legacyFiles == null || legacyFiles.length == 0) {
+      return;
+    }
+
+    LOG.info("Moving {} log buffer files from {} to {}", legacyFiles.length, baseDir, shardDir);
+    // the unsharded log buffer stored its checkpoints under partition 0, which is also the first shard id
+    for (int i = 0; i < legacyManagers.size(); i++) {
+      Checkpoint<LogBufferFileOffset> checkpoint = legacyManagers.get(i).getCheckpoint(0);
+      shardManagers.get(i).saveCheckpoints(Collections.singletonMap(0, checkpoint));
+    }
+
+    if (!shardDir.isDirectory() && !shardDir.mkdirs()) {
+      throw new IOException("Failed to create log buffer directory " + shardDir);
+    }
+    for (File file : legacyFiles) {
+      // fails if the file already exists in the shard directory, which means it was written by the shard
+      Files.move(file.toPath(), new File(shardDir, file.getName()).toPath());
+    }
+  }
+
+  /**
+   * Returns the directory for log buffer files of the given shard.
+   */
+  private String getShardDir(String baseDir, int shardId) {
+    return new File(baseDir, Integer.toString(shardId)).getAbsolutePath();
+  }
+
   /**
    * Determines the buffer size for one pipeline.
    */
@@ -197,7 +305,7 @@ public class LogBufferService extends AbstractIdleService {
 
   private NettyHttpService createHttpService() {
     return new CommonNettyHttpServiceBuilder(cConf, Constants.Service.LOG_BUFFER_SERVICE)
-      .setHttpHandlers(new LogBufferHandler(concurrentWriter))
+      .setHttpHandlers(new LogBufferHandler(concurrentWriters))
       .setExceptionHandler(new HttpExceptionHandler())
       .setHost(cConf.get(Constants.LogBuffer.LOG_BUFFER_SERVER_BIND_ADDRESS))
       .setPort(cConf.getInt(Constants.LogBuffer.LOG_BUFFER_SERVER_BIND_PORT))
@@ -208,9 +316,7 @@ public class LogBufferService extends AbstractIdleService {
     if (httpService != null) {
       httpService.stop();
     }
-    if (recoveryService != null) {
-      recoveryService.stopAndWait();
-    }
+    validateAllFutures(Iterables.transform(recoveryServices, Service::stop));
     // Stops all pipeline
     validateAllFutures(Iterables.transform(pipelines, Service::stop));
   }
@@ -18,21 +18,22 @@ package io.cdap.cdap.logging.logbuffer;
 
 import com.google.common.io.Closeables;
 import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.io.Syncable;
 import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
 import org.apache.twill.common.Threads;
-import org.apache.twill.filesystem.LocalLocationFactory;
-import org.apache.twill.filesystem.Location;
-import org.apache.twill.filesystem.LocationFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -41,41 +42,70 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.zip.CRC32;
 
 /**
  * Appends logs to log buffer file. The file is rotated when it reaches max size. The log buffer file name is
  * monotonically increasing number. When a new file is created, the file name becomes (max_file_id + 1).buf. The
  * file format is as below
  *
- * <length> <log_event>
- * length = Avro encoded int32 for size in bytes for the log event
+ * <length> <checksum> <log_event>
+ * length = int32 for the negated size in bytes of the log event
+ * checksum = int32 for the CRC32 checksum of the log event bytes
  * log_event = Avro encoded log bytes
+ *
+ * Files written by earlier versions contain events as {@code <length> <log_event>}, with a positive length and no
+ * checksum. The negated length tells the two apart, so that files of both formats can be recovered.
+ *
+ * If memory mapping is enabled, each file is pre-allocated to the max file size and written through a memory mapped
+ * buffer. The unused tail of a pre-allocated file is zero filled, hence a zero length marks the end of the events.
+ * An event that was not completely written before a crash fails the checksum, which also marks the end of the events.
  */
-public class LogBufferWriter implements Flushable, Closeable {
+public class LogBufferWriter implements Flushable, Syncable, Closeable {
   private static final Logger LOG = LoggerFactory.getLogger(LogBufferWriter.class);
   private static final String FILE_SUFFIX = ".buf";
   private final LoggingEventSerializer logEventSerializer;
-  private final LocationFactory locationFactory;
+  private final File baseDir;
   private final long maxFileSizeInBytes;
+  private final boolean memoryMapped;
+  private final long syncIntervalMs;
   private final Runnable cleaner;
   private final ExecutorService executorService;
   private Future<?> cleanerFuture;
 
-  // output stream to write to
-  private OutputStream currOutputStream;
+  // output of the current open file
+  private SegmentOutput currOutput;
   // offset in current open file
   private long currOffset;
   // cache to store monotonically increasing id for file id
   private long currFileId;
   private long writtenBytes;
+  private long lastSyncTime;
 
   public LogBufferWriter(String logBufferBaseDir, long maxFileSize, Runnable cleaner) throws IOException {
-    File baseDir = new File(logBufferBaseDir);
+    this(logBufferBaseDir, maxFileSize, false, -1L, cleaner);
+  }
+
+  /**
+   * Creates a log buffer writer.
+   *
+   * @param logBufferBaseDir directory to write log buffer files to
+   * @param maxFileSize max size of a log buffer file after which the file is rotated
+   * @param memoryMapped whether to write the log buffer files through memory mapped buffers
+   * @param syncIntervalMs minimum time between syncs of the written events to disk. Events are synced after every
+   *                       write if it is zero, and are never explicitly synced if it is negative.
+   * @param cleaner cleaner to run upon log buffer file rotation
+   * @throws IOException if failed to create the log buffer file
+   */
+  public LogBufferWriter(String logBufferBaseDir, long maxFileSize, boolean memoryMapped,
+                         long syncIntervalMs, Runnable cleaner) throws IOException {
+    this.baseDir = new File(logBufferBaseDir);
     // make sure base dir already exists, if not create it.
     Files.createDirectories(baseDir.toPath());
-    this.locationFactory = new LocalLocationFactory(baseDir);
     // max file size after which rotation should happen.
     this.maxFileSizeInBytes = maxFileSize;
+    this.memoryMapped = memoryMapped;
+    this.syncIntervalMs = syncIntervalMs;
     this.cleaner = cleaner;
     // Mark cleaner future as completed when its initialized
     this.cleanerFuture =  CompletableFuture.completedFuture(0);
@@ -84,7 +114,8 @@ public class LogBufferWriter implements Flushable, Closeable {
 
     // scan file names under base dir and get next monotonically increasing file id
     this.currFileId = getNextFileId(baseDir);
-    this.currOutputStream = new BufferedOutputStream(locationFactory.create(getFileName(currFileId)).getOutputStream());
+    this.currOutput = createOutput(currFileId);
+    this.lastSyncTime = System.currentTimeMillis();
   }
 
   /**
@@ -101,7 +132,16 @@ public class LogBufferWriter implements Flushable, Closeable {
       LogBufferFileOffset offset = write(event);
       offsets.add(new LogBufferEvent(logEventSerializer.fromBytes(ByteBuffer.wrap(event)), event.length, offset));
     }
-    currOutputStream.flush();
+    currOutput.flush();
+
+    // All events written by concurrent requests are batched into one write call, hence they are synced together.
+    if (syncIntervalMs >= 0) {
+      long now = System.currentTimeMillis();
+      if (now - lastSyncTime >= syncIntervalMs) {
+        currOutput.sync();
+        lastSyncTime = now;
+      }
+    }
     return offsets;
   }
 
@@ -117,11 +157,13 @@ public class LogBufferWriter implements Flushable, Closeable {
     long startFileId = currFileId;
     long startOffset = currOffset;
 
-    // write size of the log event
-    currOutputStream.write(Bytes.toBytes(eventBytes.length));
-    currOffset = currOffset + Bytes.SIZEOF_INT;
+    // write negated size and checksum of the log event
+    CRC32 checksum = new CRC32();
+    checksum.update(eventBytes);
+    currOutput.write(Bytes.add(Bytes.toBytes(-eventBytes.length), Bytes.toBytes((int) checksum.getValue())));
+    currOffset = currOffset + 2 * Bytes.SIZEOF_INT;
     // write actual log event
-    currOutputStream.write(eventBytes);
+    currOutput.write(eventBytes);
     currOffset = currOffset + eventBytes.length;
 
     // update number of bytes written so far
@@ -129,7 +171,7 @@ public class LogBufferWriter implements Flushable, Closeable {
 
     // If number of written bytes exceed the max file size, then rotate the file
     if (writtenBytes >= maxFileSizeInBytes) {
-      currOutputStream = new BufferedOutputStream(rotateFile(currOutputStream).getOutputStream());
+      currOutput = rotateFile(currOutput);
     }
 
     // the file id and file pos in offset is where current event is written.
@@ -138,18 +180,24 @@ public class LogBufferWriter implements Flushable, Closeable {
 
   @Override
   public void flush() throws IOException {
-    currOutputStream.flush();
+    currOutput.flush();
+  }
+
+  @Override
+  public void sync() throws IOException {
+    currOutput.sync();
+    lastSyncTime = System.currentTimeMillis();
   }
 
   @Override
   public void close() throws IOException {
     try {
-      currOutputStream.flush();
+      currOutput.flush();
     } catch (IOException e) {
       LOG.warn("Error while flushing log buffer output stream.", e);
     }
 
-    Closeables.closeQuietly(currOutputStream);
+    Closeables.closeQuietly(currOutput);
     executorService.shutdown();
   }
 
@@ -176,25 +224,146 @@ public class LogBufferWriter implements Flushable, Closeable {
   /**
    * Rotates the log buffer file.
    */
-  private Location rotateFile(OutputStream currOutputStream) throws IOException {
-    currOutputStream.flush();
-    // close current location output stream
-    Closeables.closeQuietly(currOutputStream);
+  private SegmentOutput rotateFile(SegmentOutput currOutput) throws IOException {
+    currOutput.flush();
+    // sync the rotated file if syncing is enabled, as it won't be synced by subsequent writes
+    if (syncIntervalMs >= 0) {
+      currOutput.sync();
+    }
+    // close current output
+    Closeables.closeQuietly(currOutput);
 
     writtenBytes = 0;
     currOffset = 0;
     // update current file id to next monotonically increasing file id
     currFileId = currFileId + 1;
-    Location rotatedLocation = locationFactory.create(getFileName(currFileId));
+    SegmentOutput rotatedOutput = createOutput(currFileId);
     // executes log buffer cleaner runnable. Only submit cleaner thread if future is complete. This is because if the
     // rotation is happening faster than clean up, there can be multiple clean up tasks in executorService.
     if (cleanerFuture.isDone()) {
       cleanerFuture = executorService.submit(cleaner);
     }
-    return rotatedLocation;
+    return rotatedOutput;
+  }
+
+  private SegmentOutput createOutput(long fileId) throws IOException {
+    File file = new File(baseDir, getFileName(fileId));
+    if (memoryMapped) {
+      return new MappedSegmentOutput(file, maxFileSizeInBytes);
+    }
+    return new StreamSegmentOutput(file);
   }
 
   private String getFileName(long fileId) {
     return fileId + FILE_SUFFIX;
   }
+
+  /**
+   * Output for writing to a log buffer file.
+   */
+  private interface SegmentOutput extends Flushable, Syncable, Closeable {
+
+    /**
+     * Writes the given bytes to this output.
+     */
+    void write(byte[] bytes) throws IOException;
+  }
+
+  /**
+   * A {@link SegmentOutput} that writes to the file through a buffered stream.
+   */
+  private static final class StreamSegmentOutput implements SegmentOutput {
+    private final FileOutputStream fileOutputStream;
+    private final BufferedOutputStream outputStream;
+
+    StreamSegmentOutput(File file) throws IOException {
+      this.fileOutputStream = new FileOutputStream(file);
+      this.outputStream = new BufferedOutputStream(fileOutputStream);
+    }
+
+    @Override
+    public void write(byte[] bytes) throws IOException {
+      outputStream.write(bytes);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      outputStream.flush();
+    }
+
+    @Override
+    public void sync() throws IOException {
+      outputStream.flush();
+      fileOutputStream.getChannel().force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+      outputStream.close();
+    }
+  }
+
+  /**
+   * A {@link SegmentOutput} that writes to a pre-allocated file through a memory mapped buffer. Writes are copied to
+   * the mapped memory without system calls. As the file is only rotated after it has reached the max size, the last
+   * event may go beyond the pre-allocated size, in which case the file is extended and mapped again. On close, the
+   * file is truncated to the number of bytes written.
+   */
+  private static final class MappedSegmentOutput implements SegmentOutput {
+    // Minimum number of bytes to extend the file by when the pre-allocated size is exceeded
+    private static final int MIN_EXTEND_SIZE = 64 * 1024;
+
+    private final RandomAccessFile file;
+    private MappedByteBuffer buffer;
+
+    MappedSegmentOutput(File file, long capacity) throws IOException {
+      this.file = new RandomAccessFile(file, "rw");
+      try {
+        this.buffer = map(0, capacity);
+      } catch (IOException e) {
+        Closeables.closeQuietly(this.file);
+        throw e;
+      }
+    }
+
+    @Override
+    public void write(byte[] bytes) throws IOException {
+      if (!file.getChannel().isOpen()) {
+        throw new IOException("Log buffer file is already closed");
+      }
+      if (buffer.remaining() < bytes.length) {
+        int position = buffer.position();
+        buffer = map(position, (long) position + Math.max(bytes.length, MIN_EXTEND_SIZE));
+      }
+      buffer.put(bytes);
+    }
+
+    @Override
+    public void flush() {
+      // Writes to the mapped buffer are visible to readers of the file without flushing
+    }
+
+    @Override
+    public void sync() {
+      buffer.force();
+    }
+
+    private MappedByteBuffer map(int position, long capacity) throws IOException {
+      MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                                                      Math.min(capacity, Integer.MAX_VALUE));
+      buffer.position(position);
+      return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        // Drop the unused pre-allocated space so that closed files are the same as the ones written by stream.
+        // The mapping stays valid until the buffer is garbage collected, but nothing is written to it afterward.
+        file.getChannel().truncate(buffer.position());
+      } finally {
+        file.close();
+      }
+    }
+  }
 }
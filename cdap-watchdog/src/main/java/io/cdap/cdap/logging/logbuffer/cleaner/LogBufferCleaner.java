@@ -17,8 +17,6 @@
 package io.cdap.cdap.logging.logbuffer.cleaner;
 
 import com.google.common.annotations.VisibleForTesting;
-import io.cdap.cdap.common.conf.CConfiguration;
-import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.logging.logbuffer.LogBufferFileOffset;
 import io.cdap.cdap.logging.meta.CheckpointManager;
 import org.slf4j.Logger;
@@ -36,19 +34,29 @@ public class LogBufferCleaner implements Runnable {
   private static final Logger LOG = LoggerFactory.getLogger(LogBufferCleaner.class);
   private final List<CheckpointManager<LogBufferFileOffset>> checkpointManagers;
   private final File baseLogDir;
+  private final int shardId;
   private final AtomicBoolean shouldCleanup;
 
-  public LogBufferCleaner(CConfiguration cConf, List<CheckpointManager<LogBufferFileOffset>> checkpointManagers,
-                          AtomicBoolean shouldCleanup) {
-    this(checkpointManagers, cConf.get(Constants.LogBuffer.LOG_BUFFER_BASE_DIR), shouldCleanup);
+  /**
+   * Creates a cleaner for one log buffer shard.
+   *
+   * @param checkpointManagers checkpoint managers of the shard pipelines
+   * @param baseLogDir directory containing the log buffer files of the shard
+   * @param shardId id of the shard, which is also the partition the shard checkpoints are stored under
+   * @param shouldCleanup flag indicating whether cleanup can run
+   */
+  public LogBufferCleaner(List<CheckpointManager<LogBufferFileOffset>> checkpointManagers, String baseLogDir,
+                          int shardId, AtomicBoolean shouldCleanup) {
+    this.checkpointManagers = checkpointManagers;
+    this.baseLogDir = new File(baseLogDir);
+    this.shardId = shardId;
+    this.shouldCleanup = shouldCleanup;
   }
 
   @VisibleForTesting
   LogBufferCleaner(List<CheckpointManager<LogBufferFileOffset>> checkpointManagers, String baseLogDir,
                    AtomicBoolean shouldCleanup) {
-    this.checkpointManagers = checkpointManagers;
-    this.baseLogDir = new File(baseLogDir);
-    this.shouldCleanup = shouldCleanup;
+    this(checkpointManagers, baseLogDir, 0, shouldCleanup);
   }
 
   @Override
@@ -99,10 +107,10 @@ public class LogBufferCleaner implements Runnable {
   private long getLargestFileIdToDelete(List<CheckpointManager<LogBufferFileOffset>> checkpointManagers)
     throws IOException {
     // there will be atleast one log pipeline
-    LogBufferFileOffset minOffset = checkpointManagers.get(0).getCheckpoint(0).getOffset();
+    LogBufferFileOffset minOffset = checkpointManagers.get(0).getCheckpoint(shardId).getOffset();
 
     for (int i = 1; i < checkpointManagers.size(); i++) {
-      LogBufferFileOffset offset = checkpointManagers.get(i).getCheckpoint(0).getOffset();
+      LogBufferFileOffset offset = checkpointManagers.get(i).getCheckpoint(shardId).getOffset();
       // keep track of minimum offset of all the pipeline
       minOffset = minOffset.compareTo(offset) > 0 ? offset : minOffset;
     }
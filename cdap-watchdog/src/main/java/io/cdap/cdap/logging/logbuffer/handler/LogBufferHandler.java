@@ -34,6 +34,7 @@ import org.apache.avro.io.DecoderFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import javax.ws.rs.POST;
@@ -41,14 +42,24 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 
 /**
- * A netty http handler to receive logs from clients.
+ * A netty http handler to receive logs from clients. Logs are routed to a log buffer shard based on the partition
+ * they are published to, so that logs of the same logging context always go to the same shard.
  */
 @Path("/v1/logs")
 public class LogBufferHandler extends AbstractHttpHandler {
-  private final ConcurrentLogBufferWriter writer;
+  private final List<ConcurrentLogBufferWriter> writers;
 
   public LogBufferHandler(ConcurrentLogBufferWriter writer) {
-    this.writer = writer;
+    this(Collections.singletonList(writer));
+  }
+
+  /**
+   * Creates a handler with one writer per log buffer shard.
+   *
+   * @param writers writers of all the log buffer shards, indexed by shard id
+   */
+  public LogBufferHandler(List<ConcurrentLogBufferWriter> writers) {
+    this.writers = writers;
   }
 
   @POST
@@ -56,7 +67,7 @@ public class LogBufferHandler extends AbstractHttpHandler {
   public void publish(FullHttpRequest request, HttpResponder responder,
                       @PathParam("partition-id") int partitionId) throws Exception {
     LogBufferRequest bufferRequest = createLogBufferRequest(request, partitionId);
-    writer.process(bufferRequest);
+    writers.get(Math.abs(partitionId % writers.size())).process(bufferRequest);
     responder.sendStatus(HttpResponseStatus.OK);
   }
 
@@ -76,10 +87,12 @@ public class LogBufferHandler extends AbstractHttpHandler {
 
   @Override
   public void destroy(HandlerContext context) {
-    try {
-      writer.close();
-    } catch (IOException e) {
-      // close quietly
+    for (ConcurrentLogBufferWriter writer : writers) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        // close quietly
+      }
     }
   }
 }
@@ -22,16 +22,17 @@ import io.cdap.cdap.logging.logbuffer.LogBufferEvent;
 import io.cdap.cdap.logging.logbuffer.LogBufferFileOffset;
 import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
 
-import java.io.BufferedInputStream;
 import java.io.Closeable;
-import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.List;
+import java.util.zip.CRC32;
 
 /**
  * Reader to read log buffer files.
@@ -121,14 +122,20 @@ public class LogBufferReader implements Closeable {
 
 
   /**
-   * Log buffer event reader to read log events from a log buffer file.
+   * Log buffer event reader to read log events from a log buffer file. The file is memory mapped in windows, so that
+   * events are decoded directly from the mapped buffer without a system call per read, and files of any size can be
+   * read.
    */
   private static final class LogBufferEventReader implements Closeable {
-    private static final int BUFFER_SIZE = 32 * 1024; // 32k buffer
-    private final DataInputStream inputStream;
+    // Size of the file window mapped at a time. A larger window is mapped for an event that does not fit in it.
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
     private final LoggingEventSerializer serializer;
     private long fileId;
-    private long pos;
+    private MappedByteBuffer buffer;
+    // Position in the file of the start of the mapped buffer
+    private long bufferPos;
 
     LogBufferEventReader(String baseDir, long fileId) throws IOException {
       this(baseDir, fileId, 0);
@@ -136,39 +143,86 @@ public class LogBufferReader implements Closeable {
 
     LogBufferEventReader(String baseDir, long fileId, long pos) throws IOException {
       this.fileId = fileId;
-      this.pos = pos;
-      FileInputStream fis = new FileInputStream(new File(baseDir, fileId + FILE_SUFFIX));
-      // seek to the position if the position is not zero
-      if (pos != 0) {
-        fis.getChannel().position(pos);
+      this.channel = new RandomAccessFile(new File(baseDir, fileId + FILE_SUFFIX), "r").getChannel();
+      try {
+        // seek to the position if the position is not zero
+        map(Math.min(pos, channel.size()), 0);
+      } catch (IOException e) {
+        Closeables.closeQuietly(channel);
+        throw e;
       }
-      this.inputStream = new DataInputStream(new BufferedInputStream(fis, BUFFER_SIZE));
       this.serializer = new LoggingEventSerializer();
     }
 
     /**
-     * Reads next event from log buffer file pointed by this reader.
+     * Reads next event from log buffer file pointed by this reader. Events are read until the first event that is
+     * not completely written, which is detected by a length going beyond the end of file, a zero length in the
+     * unused tail of a pre-allocated file or a checksum mismatch. The position is not moved past such an event.
      *
      * @return log buffer event
+     * @throws EOFException if there is no more event in the log buffer file
      * @throws IOException error while reading log buffer file
      */
     LogBufferEvent read() throws IOException {
-      int length = inputStream.readInt();
-      byte[] eventBytes = new byte[length];
-      inputStream.read(eventBytes);
-      LogBufferEvent event = new LogBufferEvent(serializer.fromBytes(ByteBuffer.wrap(eventBytes)),
-                                                eventBytes.length, new LogBufferFileOffset(fileId, pos));
-      // update curr position to point to next event
-      pos = pos + Bytes.SIZEOF_INT + length;
-      return event;
+      if (!ensureAvailable(Bytes.SIZEOF_INT)) {
+        throw new EOFException();
+      }
+      long pos = bufferPos + buffer.position();
+      int length = buffer.getInt(buffer.position());
+      // A negative length is followed by a checksum, a positive length is an event written by an earlier version
+      boolean hasChecksum = length < 0;
+      int eventLength = Math.abs(length);
+      int headerLength = hasChecksum ? 2 * Bytes.SIZEOF_INT : Bytes.SIZEOF_INT;
+      if (eventLength <= 0 || !ensureAvailable(headerLength + eventLength)) {
+        throw new EOFException();
+      }
+
+      buffer.getInt();
+      int checksum = hasChecksum ? buffer.getInt() : 0;
+      byte[] eventBytes = new byte[eventLength];
+      buffer.get(eventBytes);
+      if (hasChecksum) {
+        CRC32 crc = new CRC32();
+        crc.update(eventBytes);
+        if ((int) crc.getValue() != checksum) {
+          buffer.position(buffer.position() - headerLength - eventLength);
+          throw new EOFException();
+        }
+      }
+      return new LogBufferEvent(serializer.fromBytes(ByteBuffer.wrap(eventBytes)),
+                                eventBytes.length, new LogBufferFileOffset(fileId, pos));
     }
 
     /**
      * Closes this reader.
      */
-    public void close() {
-      // close input stream wrapped by this reader
-      Closeables.closeQuietly(inputStream);
+    public void close() throws IOException {
+      // the mapped buffer is released when it is garbage collected
+      channel.close();
+    }
+
+    /**
+     * Makes sure the given number of bytes from the current position are mapped, by mapping a new window starting
+     * at the current position if needed.
+     *
+     * @return {@code false} if the file does not have that many bytes after the current position
+     */
+    private boolean ensureAvailable(int size) throws IOException {
+      if (buffer.remaining() >= size) {
+        return true;
+      }
+      long pos = bufferPos + buffer.position();
+      if (channel.size() - pos < size) {
+        return false;
+      }
+      map(pos, size);
+      return true;
+    }
+
+    private void map(long pos, int minSize) throws IOException {
+      long size = Math.min(channel.size() - pos, Math.max(minSize, WINDOW_SIZE));
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, size);
+      bufferPos = pos;
     }
   }
 }
@@ -53,6 +53,7 @@ public class LogBufferRecoveryService extends AbstractExecutionThreadService {
   private final List<LogBufferProcessorPipeline> pipelines;
   private final List<CheckpointManager<LogBufferFileOffset>> checkpointManagers;
   private final String baseLogDir;
+  private final int shardId;
   private final boolean baseDirExists;
   private final int batchSize;
   private final CountDownLatch stopLatch;
@@ -61,10 +62,20 @@ public class LogBufferRecoveryService extends AbstractExecutionThreadService {
   private LogBufferReader reader;
   private volatile boolean stopped;
 
+  /**
+   * Creates a recovery service for one log buffer shard.
+   *
+   * @param cConf configuration to read recovery batch size from
+   * @param pipelines log buffer pipelines of the shard
+   * @param checkpointManagers checkpoint managers of the shard pipelines
+   * @param baseLogDir directory containing the log buffer files of the shard
+   * @param shardId id of the shard, which is also the partition the shard checkpoints are stored under
+   * @param startCleanup flag to set once recovery is completed
+   */
   public LogBufferRecoveryService(CConfiguration cConf, List<LogBufferProcessorPipeline> pipelines,
                                   List<CheckpointManager<LogBufferFileOffset>> checkpointManagers,
-                                  AtomicBoolean startCleanup) {
-    this(pipelines, checkpointManagers, cConf.get(Constants.LogBuffer.LOG_BUFFER_BASE_DIR),
+                                  String baseLogDir, int shardId, AtomicBoolean startCleanup) {
+    this(pipelines, checkpointManagers, baseLogDir, shardId,
          cConf.getInt(Constants.LogBuffer.LOG_BUFFER_RECOVERY_BATCH_SIZE), startCleanup);
   }
 
@@ -72,9 +83,16 @@ public class LogBufferRecoveryService extends AbstractExecutionThreadService {
   LogBufferRecoveryService(List<LogBufferProcessorPipeline> pipelines,
                            List<CheckpointManager<LogBufferFileOffset>> checkpointManager,
                            String baseLogDir, int batchSize, AtomicBoolean startCleanup) {
+    this(pipelines, checkpointManager, baseLogDir, 0, batchSize, startCleanup);
+  }
+
+  private LogBufferRecoveryService(List<LogBufferProcessorPipeline> pipelines,
+                                   List<CheckpointManager<LogBufferFileOffset>> checkpointManager,
+                                   String baseLogDir, int shardId, int batchSize, AtomicBoolean startCleanup) {
     this.pipelines = pipelines;
     this.checkpointManagers = checkpointManager;
     this.baseLogDir = baseLogDir;
+    this.shardId = shardId;
     this.baseDirExists = dirExists(baseLogDir);
     this.batchSize = batchSize;
     this.stopLatch = new CountDownLatch(1);
@@ -128,16 +146,16 @@ public class LogBufferRecoveryService extends AbstractExecutionThreadService {
 
   @Override
   protected String getServiceName() {
-    return SERVICE_NAME;
+    return SERVICE_NAME + "." + shardId;
   }
 
   private LogBufferFileOffset getSmallestOffset(List<CheckpointManager<LogBufferFileOffset>> checkpointManagers)
     throws IOException {
     // there will be atleast one log pipeline
-    LogBufferFileOffset minOffset = checkpointManagers.get(0).getCheckpoint(0).getOffset();
+    LogBufferFileOffset minOffset = checkpointManagers.get(0).getCheckpoint(shardId).getOffset();
 
     for (int i = 1; i < checkpointManagers.size(); i++) {
-      LogBufferFileOffset offset = checkpointManagers.get(i).getCheckpoint(0).getOffset();
+      LogBufferFileOffset offset = checkpointManagers.get(i).getCheckpoint(shardId).getOffset();
       // keep track of minimum offset
       minOffset = minOffset.compareTo(offset) > 0 ? offset : minOffset;
     }
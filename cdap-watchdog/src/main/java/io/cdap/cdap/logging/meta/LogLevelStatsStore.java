@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.meta;
+
+import ch.qos.logback.classic.Level;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.logging.appender.system.LogPathIdentifier;
+import io.cdap.cdap.spi.data.StructuredRow;
+import io.cdap.cdap.spi.data.StructuredTable;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.Fields;
+import io.cdap.cdap.spi.data.table.field.Range;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+/**
+ * Store for the number of log events per log level of program runs, aggregated per minute.
+ *
+ * The counts are added with {@link StructuredTable#increment}, which is not idempotent. Log events that are
+ * replayed by the log pipeline after a failure between persisting the counts and persisting the pipeline checkpoint
+ * are counted again, hence the counts are at-least-once and may over count in that case. Stats older than the log
+ * retention are removed with {@link #deleteStatsBefore(long, int)}.
+ */
+public class LogLevelStatsStore {
+
+  // The log levels tracked, mapped to the table fields storing their counts
+  private static final Map<Level, String> LEVEL_FIELDS = ImmutableMap.of(
+    Level.TRACE, StoreDefinition.LogLevelStatsStore.TRACE_FIELD,
+    Level.DEBUG, StoreDefinition.LogLevelStatsStore.DEBUG_FIELD,
+    Level.INFO, StoreDefinition.LogLevelStatsStore.INFO_FIELD,
+    Level.WARN, StoreDefinition.LogLevelStatsStore.WARN_FIELD,
+    Level.ERROR, StoreDefinition.LogLevelStatsStore.ERROR_FIELD);
+
+  private final TransactionRunner transactionRunner;
+
+  @Inject
+  public LogLevelStatsStore(TransactionRunner transactionRunner) {
+    this.transactionRunner = transactionRunner;
+  }
+
+  /**
+   * Returns the field storing the count of the given level, or {@code null} if the level is not tracked.
+   */
+  @Nullable
+  public static String getLevelField(Level level) {
+    return LEVEL_FIELDS.get(level);
+  }
+
+  /**
+   * Adds the given counts to the stored counts in a single transaction.
+   *
+   * @param counts the counts to add, keyed by the minute they belong to
+   * @throws IOException if failed to update the counts
+   */
+  public void increment(Map<Key, Map<String, Long>> counts) throws IOException {
+    TransactionRunners.run(transactionRunner, context -> {
+      StructuredTable table = context.getTable(StoreDefinition.LogLevelStatsStore.LOG_LEVEL_STATS);
+      for (Map.Entry<Key, Map<String, Long>> entry : counts.entrySet()) {
+        List<Field<?>> keys = entry.getKey().getKeyFields();
+        for (Map.Entry<String, Long> levelCount : entry.getValue().entrySet()) {
+          table.increment(keys, levelCount.getKey(), levelCount.getValue());
+        }
+      }
+    }, IOException.class);
+  }
+
+  /**
+   * Returns the number of log events per log level for each minute of a program run.
+   *
+   * @param identifier the logging context identifier of the program
+   * @param runId the program run id
+   * @param startTimeSecs start of the time range in seconds, inclusive
+   * @param endTimeSecs end of the time range in seconds, exclusive
+   * @return a sorted map from the start of each minute in seconds to the counts of each log level in that minute
+   */
+  public SortedMap<Long, Map<String, Long>> getStats(LogPathIdentifier identifier, String runId,
+                                                     long startTimeSecs, long endTimeSecs) throws IOException {
+    Range range = Range.create(new Key(identifier, runId, startTimeSecs).getKeyFields(), Range.Bound.INCLUSIVE,
+                               new Key(identifier, runId, endTimeSecs).getKeyFields(), Range.Bound.EXCLUSIVE);
+    return TransactionRunners.run(transactionRunner, context -> {
+      StructuredTable table = context.getTable(StoreDefinition.LogLevelStatsStore.LOG_LEVEL_STATS);
+      SortedMap<Long, Map<String, Long>> stats = new TreeMap<>();
+      try (CloseableIterator<StructuredRow> iterator = table.scan(range, Integer.MAX_VALUE)) {
+        while (iterator.hasNext()) {
+          StructuredRow row = iterator.next();
+          Map<String, Long> counts = new LinkedHashMap<>();
+          for (Map.Entry<Level, String> entry : LEVEL_FIELDS.entrySet()) {
+            Long count = row.getLong(entry.getValue());
+            if (count != null && count > 0) {
+              counts.put(entry.getKey().toString(), count);
+            }
+          }
+          //noinspection ConstantConditions
+          stats.put(row.getLong(StoreDefinition.LogLevelStatsStore.TIME_FIELD), counts);
+        }
+      }
+      return stats;
+    }, IOException.class);
+  }
+
+  /**
+   * Deletes the stats of all minutes that start before the given time. Rows are scanned in batches, each in its own
+   * transaction, so that the cleanup does not exceed the transaction timeout.
+   *
+   * @param timeSecs the time in seconds before which the stats are deleted
+   * @param batchSize the maximum number of rows scanned in each transaction
+   * @return the number of rows deleted
+   * @throws IOException if failed to delete the stats
+   */
+  public int deleteStatsBefore(long timeSecs, int batchSize) throws IOException {
+    AtomicReference<Range> range = new AtomicReference<>(Range.all());
+    int deleted = 0;
+    while (range.get() != null) {
+      deleted += TransactionRunners.run(transactionRunner, context -> {
+        StructuredTable table = context.getTable(StoreDefinition.LogLevelStatsStore.LOG_LEVEL_STATS);
+        return deleteStatsBefore(table, timeSecs, batchSize, range);
+      }, IOException.class);
+    }
+    return deleted;
+  }
+
+  /**
+   * Deletes the expired rows in one batch of the given range, and sets the range to the remaining rows to scan,
+   * or {@code null} if there are no more rows.
+   */
+  private int deleteStatsBefore(StructuredTable table, long timeSecs, int batchSize,
+                                AtomicReference<Range> range) throws IOException {
+    List<List<Field<?>>> toDelete = new ArrayList<>();
+    Range nextRange = null;
+    int scanned = 0;
+    try (CloseableIterator<StructuredRow> iterator = table.scan(range.get(), batchSize)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        scanned++;
+        String identifier = row.getString(StoreDefinition.LogLevelStatsStore.LOGGING_CONTEXT_FIELD);
+        String runId = row.getString(StoreDefinition.LogLevelStatsStore.RUN_FIELD);
+        long minuteSecs = row.getLong(StoreDefinition.LogLevelStatsStore.TIME_FIELD);
+        List<Field<?>> runKeys = ImmutableList.of(
+          Fields.stringField(StoreDefinition.LogLevelStatsStore.LOGGING_CONTEXT_FIELD, identifier),
+          Fields.stringField(StoreDefinition.LogLevelStatsStore.RUN_FIELD, runId));
+        if (minuteSecs < timeSecs) {
+          toDelete.add(ImmutableList.<Field<?>>builder()
+                         .addAll(runKeys)
+                         .add(Fields.longField(StoreDefinition.LogLevelStatsStore.TIME_FIELD, minuteSecs))
+                         .build());
+          nextRange = Range.from(toDelete.get(toDelete.size() - 1), Range.Bound.EXCLUSIVE);
+        } else {
+          // Rows of a run are sorted by time, hence the remaining rows of this run are not expired
+          nextRange = Range.from(runKeys, Range.Bound.EXCLUSIVE);
+          break;
+        }
+      }
+    }
+    for (List<Field<?>> keys : toDelete) {
+      table.delete(keys);
+    }
+    range.set(scanned == 0 ? null : nextRange);
+    return toDelete.size();
+  }
+
+  /**
+   * Key of a row in the store, which identifies a minute of a program run.
+   */
+  public static final class Key {
+    private final String identifier;
+    private final String runId;
+    private final long minuteSecs;
+
+    /**
+     * Creates a key for the minute containing the given time.
+     */
+    public Key(LogPathIdentifier identifier, String runId, long timeSecs) {
+      this.identifier = identifier.getRowkey();
+      this.runId = runId;
+      this.minuteSecs = timeSecs - timeSecs % TimeUnit.MINUTES.toSeconds(1);
+    }
+
+    private List<Field<?>> getKeyFields() {
+      return ImmutableList.of(Fields.stringField(StoreDefinition.LogLevelStatsStore.LOGGING_CONTEXT_FIELD, identifier),
+                              Fields.stringField(StoreDefinition.LogLevelStatsStore.RUN_FIELD, runId),
+                              Fields.longField(StoreDefinition.LogLevelStatsStore.TIME_FIELD, minuteSecs));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key that = (Key) o;
+      return minuteSecs == that.minuteSecs
+        && Objects.equals(identifier, that.identifier)
+        && Objects.equals(runId, that.runId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(identifier, runId, minuteSecs);
+    }
+  }
+}
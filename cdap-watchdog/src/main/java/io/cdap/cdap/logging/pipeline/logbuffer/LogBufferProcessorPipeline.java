@@ -44,7 +44,8 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Log processing pipeline to process log events from log buffer. Log events are pushed to this pipeline for further
- * processing.
+ * processing. Each pipeline instance processes the events of a single log buffer shard, identified by the instance id,
+ * and checkpoints are saved under that instance id.
  */
 public class LogBufferProcessorPipeline extends AbstractExecutionThreadService {
   private static final Logger LOG = LoggerFactory.getLogger(LogBufferProcessorPipeline.class);
@@ -88,7 +89,7 @@ public class LogBufferProcessorPipeline extends AbstractExecutionThreadService {
     LOG.debug("Starting log processor pipeline for {} with configurations {}", name, config);
     Checkpoint<LogBufferFileOffset> checkpoint = checkpointManager.getCheckpoint(instanceId);
 
-    checkpoints.put(0, new MutableLogBufferCheckpoint(checkpoint.getOffset().getFileId(),
+    checkpoints.put(instanceId, new MutableLogBufferCheckpoint(checkpoint.getOffset().getFileId(),
                                                       checkpoint.getOffset().getFilePos(),
                                                       checkpoint.getMaxEventTime()));
     context.start();
@@ -138,7 +139,7 @@ public class LogBufferProcessorPipeline extends AbstractExecutionThreadService {
 
   @Override
   protected String getServiceName() {
-    return "LogPipeline-" + name;
+    return "LogPipeline-" + name + "-" + instanceId;
   }
 
   /**
@@ -146,7 +147,7 @@ public class LogBufferProcessorPipeline extends AbstractExecutionThreadService {
    */
   private boolean processEvents(BlockingQueue<LogBufferEvent> incomingEventQueue) {
     ProcessedEventMetadata<LogBufferFileOffset> metadata
-      = eventQueueProcessor.process(0, new LogFileOffsetTransformIterator(incomingEventQueue));
+      = eventQueueProcessor.process(instanceId, new LogFileOffsetTransformIterator(incomingEventQueue));
 
     // none of the events were processed.
     if (metadata.getTotalEventsProcessed() <= 0) {
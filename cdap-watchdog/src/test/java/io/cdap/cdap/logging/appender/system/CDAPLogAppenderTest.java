@@ -162,7 +162,7 @@ public class CDAPLogAppenderTest {
     context.stop();
 
     try {
-      List<LogLocation> files = fileMetaDataReader.listFiles(cdapLogAppender.getLoggingPath(properties),
+      List<LogLocation> files = fileMetaDataReader.listFiles(CDAPLogAppender.getLoggingPath(properties),
                                                              0, Long.MAX_VALUE);
       Assert.assertEquals(1, files.size());
       LogLocation logLocation = files.get(0);
@@ -239,7 +239,7 @@ public class CDAPLogAppenderTest {
     context.stop();
 
     try {
-      List<LogLocation> files = fileMetaDataReader.listFiles(cdapLogAppender.getLoggingPath(properties),
+      List<LogLocation> files = fileMetaDataReader.listFiles(CDAPLogAppender.getLoggingPath(properties),
                                                              0, Long.MAX_VALUE);
       Assert.assertEquals(2, files.size());
       assertLogEventDetails(event1, files.get(0));
@@ -309,7 +309,7 @@ public class CDAPLogAppenderTest {
     context.stop();
 
     try {
-      List<LogLocation> files = fileMetaDataReader.listFiles(cdapLogAppender.getLoggingPath(properties),
+      List<LogLocation> files = fileMetaDataReader.listFiles(CDAPLogAppender.getLoggingPath(properties),
                                                              0, Long.MAX_VALUE);
       Assert.assertEquals(2, files.size());
       assertLogEventDetails(event1, files.get(0));
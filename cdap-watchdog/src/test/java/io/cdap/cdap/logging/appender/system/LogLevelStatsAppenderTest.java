@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.appender.system;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.api.logging.AppenderContext;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.guice.NonCustomLocationUnitTestModule;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.namespace.NamespaceQueryAdmin;
+import io.cdap.cdap.common.namespace.SimpleNamespaceQueryAdmin;
+import io.cdap.cdap.data.runtime.DataSetsModules;
+import io.cdap.cdap.data.runtime.StorageModule;
+import io.cdap.cdap.data.runtime.SystemDatasetRuntimeModule;
+import io.cdap.cdap.logging.context.WorkflowLoggingContext;
+import io.cdap.cdap.logging.context.WorkflowProgramLoggingContext;
+import io.cdap.cdap.logging.framework.LocalAppenderContext;
+import io.cdap.cdap.logging.guice.LocalLogAppenderModule;
+import io.cdap.cdap.logging.meta.LogLevelStatsStore;
+import io.cdap.cdap.proto.ProgramType;
+import io.cdap.cdap.security.auth.context.AuthenticationContextModules;
+import io.cdap.cdap.security.authorization.AuthorizationEnforcementModule;
+import io.cdap.cdap.security.authorization.AuthorizationTestModule;
+import io.cdap.cdap.security.impersonation.DefaultOwnerAdmin;
+import io.cdap.cdap.security.impersonation.OwnerAdmin;
+import io.cdap.cdap.security.impersonation.UGIProvider;
+import io.cdap.cdap.security.impersonation.UnsupportedUGIProvider;
+import io.cdap.cdap.spi.data.StructuredTableAdmin;
+import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.store.StoreDefinition;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.tephra.TransactionManager;
+import org.apache.tephra.runtime.TransactionModules;
+import org.apache.twill.filesystem.LocationFactory;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link LogLevelStatsAppender}.
+ */
+public class LogLevelStatsAppenderTest {
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static Injector injector;
+  private static TransactionManager txManager;
+
+  @BeforeClass
+  public static void setUpContext() throws Exception {
+    Configuration hConf = HBaseConfiguration.create();
+    final CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, TMP_FOLDER.newFolder().getAbsolutePath());
+    injector = Guice.createInjector(
+      new ConfigModule(cConf, hConf),
+      new NonCustomLocationUnitTestModule(),
+      new TransactionModules().getInMemoryModules(),
+      new LocalLogAppenderModule(),
+      new DataSetsModules().getInMemoryModules(),
+      new SystemDatasetRuntimeModule().getInMemoryModules(),
+      new AuthorizationTestModule(),
+      new AuthorizationEnforcementModule().getInMemoryModules(),
+      new AuthenticationContextModules().getNoOpModule(),
+      new StorageModule(),
+      new AbstractModule() {
+        @Override
+        protected void configure() {
+          bind(MetricsCollectionService.class).to(NoOpMetricsCollectionService.class);
+          bind(UGIProvider.class).to(UnsupportedUGIProvider.class);
+          bind(OwnerAdmin.class).to(DefaultOwnerAdmin.class);
+          bind(NamespaceQueryAdmin.class).to(SimpleNamespaceQueryAdmin.class);
+        }
+      }
+    );
+
+    txManager = injector.getInstance(TransactionManager.class);
+    txManager.startAndWait();
+
+    StructuredTableRegistry structuredTableRegistry = injector.getInstance(StructuredTableRegistry.class);
+    structuredTableRegistry.initialize();
+    StoreDefinition.LogLevelStatsStore.createTables(injector.getInstance(StructuredTableAdmin.class), false);
+  }
+
+  @AfterClass
+  public static void cleanUp() {
+    txManager.stopAndWait();
+  }
+
+  @Test
+  public void testLogLevelStats() throws Exception {
+    AppenderContext context = new LocalAppenderContext(injector.getInstance(TransactionRunner.class),
+                                                       injector.getInstance(LocationFactory.class),
+                                                       new NoOpMetricsCollectionService());
+    context.start();
+    LogLevelStatsAppender appender = createAppender(context);
+
+    String runId = RunIds.generate().getId();
+    String programRunId = RunIds.generate().getId();
+    Map<String, String> workflowTags =
+      new WorkflowLoggingContext("default", "testApp", "testWorkflow", runId).getSystemTagsAsString();
+    Map<String, String> programTags =
+      new WorkflowProgramLoggingContext("default", "testApp", "testWorkflow", runId, ProgramType.MAPREDUCE,
+                                        "testMR", programRunId).getSystemTagsAsString();
+
+    long minute = TimeUnit.MINUTES.toMillis(1);
+    long baseTime = TimeUnit.DAYS.toMillis(1);
+    appender.doAppend(createEvent(Level.INFO, baseTime, workflowTags));
+    appender.doAppend(createEvent(Level.INFO, baseTime + 1000, workflowTags));
+    appender.doAppend(createEvent(Level.WARN, baseTime + 2000, programTags));
+    appender.doAppend(createEvent(Level.ERROR, baseTime + minute, programTags));
+    // Counts are only persisted on sync
+    appender.sync();
+    appender.doAppend(createEvent(Level.ERROR, baseTime + minute + 1000, programTags));
+    appender.stop();
+    context.stop();
+
+    LogLevelStatsStore store = new LogLevelStatsStore(injector.getInstance(TransactionRunner.class));
+    long baseSecs = TimeUnit.MILLISECONDS.toSeconds(baseTime);
+    long minuteSecs = TimeUnit.MILLISECONDS.toSeconds(minute);
+
+    // The workflow run includes the logs of the programs it runs
+    SortedMap<Long, Map<String, Long>> stats =
+      store.getStats(new LogPathIdentifier("default", "testApp", "testWorkflow"), runId, 0, Long.MAX_VALUE);
+    Map<Long, Map<String, Long>> expected = ImmutableMap.of(
+      baseSecs, ImmutableMap.of("INFO", 2L, "WARN", 1L),
+      baseSecs + minuteSecs, ImmutableMap.of("ERROR", 2L));
+    Assert.assertEquals(expected, stats);
+
+    stats = store.getStats(new LogPathIdentifier("default", "testApp", "testMR"), programRunId, 0, Long.MAX_VALUE);
+    expected = ImmutableMap.of(
+      baseSecs, ImmutableMap.of("WARN", 1L),
+      baseSecs + minuteSecs, ImmutableMap.of("ERROR", 2L));
+    Assert.assertEquals(expected, stats);
+
+    // Query for the second minute only
+    stats = store.getStats(new LogPathIdentifier("default", "testApp", "testMR"), programRunId,
+                           baseSecs + minuteSecs, Long.MAX_VALUE);
+    Assert.assertEquals(ImmutableMap.of(baseSecs + minuteSecs, ImmutableMap.of("ERROR", 2L)), stats);
+  }
+
+  @Test
+  public void testCleanup() throws Exception {
+    AppenderContext context = new LocalAppenderContext(injector.getInstance(TransactionRunner.class),
+                                                       injector.getInstance(LocationFactory.class),
+                                                       new NoOpMetricsCollectionService());
+    context.start();
+    LogLevelStatsAppender appender = createAppender(context);
+
+    String runId = RunIds.generate().getId();
+    Map<String, String> tags =
+      new WorkflowLoggingContext("default", "cleanupApp", "testWorkflow", runId).getSystemTagsAsString();
+    long now = System.currentTimeMillis();
+    long expiredTime = now - TimeUnit.DAYS.toMillis(2);
+    appender.doAppend(createEvent(Level.INFO, expiredTime, tags));
+    appender.doAppend(createEvent(Level.INFO, expiredTime + TimeUnit.MINUTES.toMillis(1), tags));
+    appender.doAppend(createEvent(Level.WARN, now, tags));
+    appender.sync();
+
+    // The stats older than the one day retention are deleted
+    appender.cleanup();
+    appender.stop();
+    context.stop();
+
+    LogLevelStatsStore store = new LogLevelStatsStore(injector.getInstance(TransactionRunner.class));
+    SortedMap<Long, Map<String, Long>> stats =
+      store.getStats(new LogPathIdentifier("default", "cleanupApp", "testWorkflow"), runId, 0, Long.MAX_VALUE);
+    long nowSecs = TimeUnit.MILLISECONDS.toSeconds(now);
+    Assert.assertEquals(ImmutableMap.of(nowSecs - nowSecs % 60, ImmutableMap.of("WARN", 1L)), stats);
+  }
+
+  private LogLevelStatsAppender createAppender(AppenderContext context) {
+    LogLevelStatsAppender appender = new LogLevelStatsAppender();
+    appender.setStatsRetentionDurationDays(1);
+    appender.setStatsCleanupIntervalMins(60);
+    // Use a small batch size to cover cleanup over multiple transactions
+    appender.setStatsCleanupBatchSize(1);
+    appender.setContext(context);
+    appender.start();
+    return appender;
+  }
+
+  private LoggingEvent createEvent(Level level, long timestamp, Map<String, String> tags) {
+    LoggingEvent event = new LoggingEvent("io.cdap.Test",
+                                          (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME),
+                                          level, "test message", null, null);
+    event.setTimeStamp(timestamp);
+    event.setMDCPropertyMap(tags);
+    return event;
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2019-2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.clean;
+
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.guice.NonCustomLocationUnitTestModule;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.namespace.NamespaceQueryAdmin;
+import io.cdap.cdap.common.namespace.SimpleNamespaceQueryAdmin;
+import io.cdap.cdap.data.runtime.DataSetsModules;
+import io.cdap.cdap.data.runtime.StorageModule;
+import io.cdap.cdap.data.runtime.SystemDatasetRuntimeModule;
+import io.cdap.cdap.logging.LoggingConfiguration;
+import io.cdap.cdap.logging.appender.system.CDAPLogAppender;
+import io.cdap.cdap.logging.appender.system.LogPathIdentifier;
+import io.cdap.cdap.logging.guice.LocalLogAppenderModule;
+import io.cdap.cdap.logging.meta.FileMetaDataReader;
+import io.cdap.cdap.logging.meta.FileMetaDataWriter;
+import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import io.cdap.cdap.logging.write.LogLocation;
+import io.cdap.cdap.security.auth.context.AuthenticationContextModules;
+import io.cdap.cdap.security.authorization.AuthorizationEnforcementModule;
+import io.cdap.cdap.security.authorization.AuthorizationTestModule;
+import io.cdap.cdap.security.impersonation.DefaultOwnerAdmin;
+import io.cdap.cdap.security.impersonation.OwnerAdmin;
+import io.cdap.cdap.security.impersonation.UGIProvider;
+import io.cdap.cdap.security.impersonation.UnsupportedUGIProvider;
+import io.cdap.cdap.spi.data.StructuredTableAdmin;
+import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.store.StoreDefinition;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.tephra.TransactionManager;
+import org.apache.tephra.runtime.TransactionModules;
+import org.apache.twill.filesystem.Location;
+import org.apache.twill.filesystem.LocationFactory;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link LogFileCompactor}.
+ */
+public class LogFileCompactorTest {
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static Injector injector;
+  private static TransactionManager txManager;
+
+  @BeforeClass
+  public static void setUpContext() throws Exception {
+    Configuration hConf = HBaseConfiguration.create();
+    final CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, TMP_FOLDER.newFolder().getAbsolutePath());
+    String logBaseDir = cConf.get(LoggingConfiguration.LOG_BASE_DIR) + "/" + CDAPLogAppender.class.getSimpleName();
+    cConf.set(LoggingConfiguration.LOG_BASE_DIR, logBaseDir);
+
+    injector = Guice.createInjector(
+      new ConfigModule(cConf, hConf),
+      new NonCustomLocationUnitTestModule(),
+      new TransactionModules().getInMemoryModules(),
+      new LocalLogAppenderModule(),
+      new DataSetsModules().getInMemoryModules(),
+      new SystemDatasetRuntimeModule().getInMemoryModules(),
+      new AuthorizationTestModule(),
+      new AuthorizationEnforcementModule().getInMemoryModules(),
+      new AuthenticationContextModules().getNoOpModule(),
+      new StorageModule(),
+      new AbstractModule() {
+        @Override
+        protected void configure() {
+          bind(MetricsCollectionService.class).to(NoOpMetricsCollectionService.class);
+          bind(UGIProvider.class).to(UnsupportedUGIProvider.class);
+          bind(OwnerAdmin.class).to(DefaultOwnerAdmin.class);
+          bind(NamespaceQueryAdmin.class).to(SimpleNamespaceQueryAdmin.class);
+        }
+      }
+    );
+
+    txManager = injector.getInstance(TransactionManager.class);
+    txManager.startAndWait();
+    StructuredTableRegistry structuredTableRegistry = injector.getInstance(StructuredTableRegistry.class);
+    structuredTableRegistry.initialize();
+    StoreDefinition.LogFileMetaStore.createTables(injector.getInstance(StructuredTableAdmin.class), false);
+  }
+
+  @AfterClass
+  public static void cleanUp() {
+    txManager.stopAndWait();
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    TransactionRunner transactionRunner = injector.getInstance(TransactionRunner.class);
+    LocationFactory locationFactory = injector.getInstance(LocationFactory.class);
+    FileMetaDataWriter fileMetaDataWriter = new FileMetaDataWriter(transactionRunner);
+    FileMetaDataReader fileMetaDataReader = injector.getInstance(FileMetaDataReader.class);
+    LogPathIdentifier logPathIdentifier = new LogPathIdentifier("testNs", "testApp", "testCompaction");
+    Location dirLocation = locationFactory.create("logs").append("testCompaction");
+    dirLocation.mkdirs();
+
+    // create 4 small files with two events each, the events of the second file overlap with the first one
+    long startTime = System.currentTimeMillis() - 10000;
+    for (int i = 0; i < 4; i++) {
+      Location location = dirLocation.append(i + ".avro");
+      long eventTime = startTime + i * 10 - (i == 1 ? 5 : 0);
+      writeFile(location, eventTime, eventTime + 10);
+      fileMetaDataWriter.writeMetaData(logPathIdentifier, eventTime, startTime + i, location);
+    }
+    // a recently created file is not compacted
+    Location recentLocation = dirLocation.append("recent.avro");
+    writeFile(recentLocation, startTime + 100);
+    fileMetaDataWriter.writeMetaData(logPathIdentifier, startTime + 100, System.currentTimeMillis(), recentLocation);
+    Assert.assertEquals(5, fileMetaDataReader.listFiles(logPathIdentifier, 0, Long.MAX_VALUE).size());
+
+    LogFileCompactor compactor = new LogFileCompactor(transactionRunner, locationFactory, "", 1024, 1024 * 1024,
+                                                      100 * 1024 * 1024, 5000, 100, 1024 * 1024);
+    compactor.run();
+
+    List<LogLocation> files = fileMetaDataReader.listFiles(logPathIdentifier, 0, Long.MAX_VALUE);
+    Assert.assertEquals(2, files.size());
+    Assert.assertEquals(startTime, files.get(0).getEventTimeMs());
+    Assert.assertEquals(recentLocation, files.get(1).getLocation());
+
+    // events in the merged file should be ordered by time
+    List<Long> timestamps = readTimestamps(files.get(0).getLocation());
+    Assert.assertEquals(8, timestamps.size());
+    List<Long> sorted = new ArrayList<>(timestamps);
+    sorted.sort(Long::compare);
+    Assert.assertEquals(sorted, timestamps);
+
+    // source files are deleted on the next run, even if it is done after a restart
+    Assert.assertEquals(4, compactor.getPendingDeletes().size());
+    for (int i = 0; i < 4; i++) {
+      Assert.assertTrue(dirLocation.append(i + ".avro").exists());
+    }
+    compactor = new LogFileCompactor(transactionRunner, locationFactory, "", 1024, 1024 * 1024,
+                                     100 * 1024 * 1024, 5000, 100, 1024 * 1024);
+    compactor.run();
+    Assert.assertTrue(compactor.getPendingDeletes().isEmpty());
+    for (int i = 0; i < 4; i++) {
+      Assert.assertFalse(dirLocation.append(i + ".avro").exists());
+    }
+    Assert.assertEquals(2, fileMetaDataReader.listFiles(logPathIdentifier, 0, Long.MAX_VALUE).size());
+  }
+
+  @Test
+  public void testPendingDeletesOfContextsWithSameTimes() throws Exception {
+    TransactionRunner transactionRunner = injector.getInstance(TransactionRunner.class);
+    LocationFactory locationFactory = injector.getInstance(LocationFactory.class);
+    FileMetaDataWriter fileMetaDataWriter = new FileMetaDataWriter(transactionRunner);
+    FileMetaDataReader fileMetaDataReader = injector.getInstance(FileMetaDataReader.class);
+
+    // two logging contexts with files that have the same event and creation times
+    long startTime = System.currentTimeMillis() - 10000;
+    List<LogPathIdentifier> identifiers = new ArrayList<>();
+    List<Location> sourceLocations = new ArrayList<>();
+    for (String program : new String[] {"first", "second"}) {
+      LogPathIdentifier logPathIdentifier = new LogPathIdentifier("testNs", "testSameTimes", program);
+      identifiers.add(logPathIdentifier);
+      Location dirLocation = locationFactory.create("logs").append("testSameTimes").append(program);
+      dirLocation.mkdirs();
+      for (int i = 0; i < 2; i++) {
+        Location location = dirLocation.append(i + ".avro");
+        long eventTime = startTime + i * 10;
+        writeFile(location, eventTime);
+        fileMetaDataWriter.writeMetaData(logPathIdentifier, eventTime, startTime + i, location);
+        sourceLocations.add(location);
+      }
+    }
+
+    LogFileCompactor compactor = new LogFileCompactor(transactionRunner, locationFactory, "", 1024, 1024 * 1024,
+                                                      100 * 1024 * 1024, 5000, 100, 1024 * 1024);
+    compactor.run();
+    for (LogPathIdentifier logPathIdentifier : identifiers) {
+      Assert.assertEquals(1, fileMetaDataReader.listFiles(logPathIdentifier, 0, Long.MAX_VALUE).size());
+    }
+
+    // the source files of both contexts are pending delete, and are all deleted on the next run
+    Assert.assertEquals(4, compactor.getPendingDeletes().size());
+    compactor.run();
+    Assert.assertTrue(compactor.getPendingDeletes().isEmpty());
+    for (Location location : sourceLocations) {
+      Assert.assertFalse(location.exists());
+    }
+  }
+
+  private void writeFile(Location location, long... timestamps) throws Exception {
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    Schema schema = serializer.getAvroSchema();
+    try (OutputStream os = location.getOutputStream();
+         DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema))) {
+      writer.create(schema, os);
+      for (long timestamp : timestamps) {
+        LoggingEvent event = new LoggingEvent();
+        event.setMessage("Event at " + timestamp);
+        event.setTimeStamp(timestamp);
+        writer.append(serializer.toGenericRecord(event));
+      }
+    }
+  }
+
+  private List<Long> readTimestamps(Location location) throws Exception {
+    List<Long> timestamps = new ArrayList<>();
+    try (InputStream is = location.getInputStream();
+         DataFileStream<GenericRecord> reader = new DataFileStream<>(is, new GenericDatumReader<GenericRecord>())) {
+      for (GenericRecord record : reader) {
+        timestamps.add((Long) record.get("timestamp"));
+      }
+    }
+    return timestamps;
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.gateway.handlers;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.google.gson.Gson;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.logging.LoggingContext;
+import io.cdap.cdap.common.utils.Tasks;
+import io.cdap.cdap.logging.context.GenericLoggingContext;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.read.Callback;
+import io.cdap.cdap.logging.read.LogEvent;
+import io.cdap.cdap.logging.read.LogOffset;
+import io.cdap.cdap.logging.read.LogReader;
+import io.cdap.cdap.logging.read.ReadRange;
+import io.cdap.http.ChunkResponder;
+import io.cdap.http.internal.InternalHttpResponder;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link LogTailer}.
+ */
+public class LogTailerTest {
+
+  private static final Gson GSON = new Gson();
+
+  @Test
+  public void testFollowEventsInSameMillisecond() throws Exception {
+    testFollowEventsInSameMillisecond(false);
+  }
+
+  @Test
+  public void testFollowKafkaEventsInSameMillisecond() throws Exception {
+    testFollowEventsInSameMillisecond(true);
+  }
+
+  private void testFollowEventsInSameMillisecond(boolean kafkaOffsets) throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setLong(Constants.Logging.LOG_FOLLOW_POLL_INTERVAL_MS, 10L);
+    cConf.setLong(Constants.Logging.LOG_FOLLOW_HEARTBEAT_INTERVAL_MS, TimeUnit.MINUTES.toMillis(1));
+    // Read less events than there are in a millisecond, so that reads end in the middle of a millisecond
+    cConf.setInt(Constants.Logging.LOG_FOLLOW_MAX_EVENTS_PER_READ, 2);
+    cConf.setInt(Constants.Logging.LOG_FOLLOW_THREADS, 2);
+
+    TestLogReader logReader = new TestLogReader(kafkaOffsets);
+    LoggingContext loggingContext = new GenericLoggingContext("ns", "app", "entity");
+    // Log events after the start of the follow are read by the subscription
+    long time = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      expected.add(logReader.append(time, "event" + i));
+    }
+
+    try (LogTailer logTailer = new LogTailer(cConf, logReader)) {
+      TestHttpResponder first = new TestHttpResponder();
+      logTailer.follow(first, loggingContext, 0L, Filter.EMPTY_FILTER,
+                       event -> event.getLoggingEvent().getFormattedMessage(), true, () -> false);
+      Tasks.waitFor(expected, first::getMessages, 10, TimeUnit.SECONDS, 10, TimeUnit.MILLISECONDS);
+
+      // The second follower gets the events of the same millisecond from the history, and the events
+      // added to that millisecond afterwards from the subscription
+      TestHttpResponder second = new TestHttpResponder();
+      logTailer.follow(second, loggingContext, 0L, Filter.EMPTY_FILTER,
+                       event -> event.getLoggingEvent().getFormattedMessage(), true, () -> false);
+      for (int i = 5; i < 8; i++) {
+        expected.add(logReader.append(time, "event" + i));
+      }
+      expected.add(logReader.append(time + 1, "event8"));
+
+      Tasks.waitFor(expected, first::getMessages, 10, TimeUnit.SECONDS, 10, TimeUnit.MILLISECONDS);
+      Tasks.waitFor(expected, second::getMessages, 10, TimeUnit.SECONDS, 10, TimeUnit.MILLISECONDS);
+
+      // No event must be sent twice
+      TimeUnit.MILLISECONDS.sleep(100);
+      Assert.assertEquals(expected, first.getMessages());
+      Assert.assertEquals(expected, second.getMessages());
+    }
+  }
+
+  /**
+   * A {@link LogReader} that reads log events from memory. It reads after the Kafka offset of the read range
+   * if the log events have Kafka offsets, otherwise after the start time of the read range, like the file log reader.
+   */
+  private static final class TestLogReader implements LogReader {
+
+    private final boolean kafkaOffsets;
+    private final List<LogEvent> events;
+
+    TestLogReader(boolean kafkaOffsets) {
+      this.kafkaOffsets = kafkaOffsets;
+      this.events = new CopyOnWriteArrayList<>();
+    }
+
+    String append(long time, String message) {
+      LoggingEvent loggingEvent = new LoggingEvent();
+      loggingEvent.setLevel(Level.INFO);
+      loggingEvent.setLoggerName(LogTailerTest.class.getName());
+      loggingEvent.setMessage(message);
+      loggingEvent.setTimeStamp(time);
+      long kafkaOffset = kafkaOffsets ? events.size() : LogOffset.INVALID_KAFKA_OFFSET;
+      events.add(new LogEvent(loggingEvent, new LogOffset(kafkaOffset, time)));
+      return message;
+    }
+
+    @Override
+    public void getLogNext(LoggingContext loggingContext, ReadRange readRange, int maxEvents, Filter filter,
+                           Callback callback) {
+      callback.init();
+      for (LogEvent event : events) {
+        if (callback.getCount() >= maxEvents) {
+          break;
+        }
+        boolean after = kafkaOffsets && readRange.getKafkaOffset() >= 0
+          ? event.getOffset().getKafkaOffset() > readRange.getKafkaOffset()
+          : event.getOffset().getTime() > readRange.getFromMillis();
+        if (after && filter.match(event.getLoggingEvent())) {
+          callback.handle(event);
+        }
+      }
+      callback.close();
+    }
+
+    @Override
+    public void getLogPrev(LoggingContext loggingContext, ReadRange readRange, int maxEvents, Filter filter,
+                           Callback callback) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CloseableIterator<LogEvent> getLog(LoggingContext loggingContext, long fromTimeMs, long toTimeMs,
+                                              Filter filter) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * A responder that collects the messages of the server-sent events it receives.
+   */
+  private static final class TestHttpResponder extends InternalHttpResponder {
+
+    private final StringBuffer content = new StringBuffer();
+
+    @Override
+    public ChunkResponder sendChunkStart(HttpResponseStatus status, HttpHeaders headers) {
+      return new ChunkResponder() {
+        @Override
+        public void sendChunk(ByteBuffer chunk) {
+          content.append(StandardCharsets.UTF_8.decode(chunk));
+        }
+
+        @Override
+        public void sendChunk(ByteBuf chunk) {
+          content.append(chunk.toString(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+          // no-op
+        }
+      };
+    }
+
+    List<String> getMessages() {
+      List<String> messages = new ArrayList<>();
+      for (String line : content.toString().split("\n")) {
+        if (line.startsWith("data: ")) {
+          messages.add(GSON.fromJson(line.substring("data: ".length()), String.class));
+        }
+      }
+      return messages;
+    }
+  }
+}
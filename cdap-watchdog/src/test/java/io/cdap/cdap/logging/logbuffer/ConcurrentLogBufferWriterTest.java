@@ -185,7 +185,9 @@ public class ConcurrentLogBufferWriterTest {
   }
 
   private ILoggingEvent getEvent(DataInputStream dis, int actualLen) throws IOException {
-    Assert.assertEquals(actualLen, dis.readInt());
+    Assert.assertEquals(-actualLen, dis.readInt());
+    // skip the checksum
+    dis.readInt();
     byte[] eventBytes = new byte[actualLen];
     dis.read(eventBytes, 0, actualLen);
     return serializer.fromBytes(ByteBuffer.wrap(eventBytes));
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.logbuffer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.logging.meta.Checkpoint;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+/**
+ * Tests for {@link LogBufferService}.
+ */
+public class LogBufferServiceTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testMigrateLegacyFiles() throws Exception {
+    File baseDir = TMP_FOLDER.newFolder();
+    File shardDir = new File(baseDir, "0");
+
+    // buffer files and checkpoint written by the unsharded log buffer
+    for (int i = 55; i < 58; i++) {
+      Assert.assertTrue(new File(baseDir, i + ".buf").createNewFile());
+    }
+    MockCheckpointManager legacyManager = new MockCheckpointManager();
+    legacyManager.saveCheckpoints(ImmutableMap.of(0, new Checkpoint<>(new LogBufferFileOffset(56, 10), 1L)));
+    MockCheckpointManager shardManager = new MockCheckpointManager();
+
+    LogBufferService.migrateLegacyFiles(baseDir, shardDir, ImmutableList.of(legacyManager),
+                                        ImmutableList.of(shardManager));
+
+    // files are moved to the first shard with their ids, together with the checkpoint
+    for (int i = 55; i < 58; i++) {
+      Assert.assertFalse(new File(baseDir, i + ".buf").exists());
+      Assert.assertTrue(new File(shardDir, i + ".buf").exists());
+    }
+    Assert.assertEquals(new LogBufferFileOffset(56, 10), shardManager.getCheckpoint(0).getOffset());
+
+    // once migrated, the shard checkpoint is not overwritten by the legacy checkpoint anymore
+    shardManager.saveCheckpoints(ImmutableMap.of(0, new Checkpoint<>(new LogBufferFileOffset(57, 20), 2L)));
+    LogBufferService.migrateLegacyFiles(baseDir, shardDir, ImmutableList.of(legacyManager),
+                                        ImmutableList.of(shardManager));
+    Assert.assertEquals(new LogBufferFileOffset(57, 20), shardManager.getCheckpoint(0).getOffset());
+    Assert.assertTrue(new File(shardDir, "57.buf").exists());
+  }
+}
@@ -31,10 +31,13 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.DataInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.Iterator;
+import java.util.zip.CRC32;
 
 /**
  * Tests for {@link LogBufferWriter}.
@@ -62,7 +65,7 @@ public class LogBufferWriterTest {
       Assert.assertEquals(String.valueOf(i++), bufferEvent.getLogEvent().getMessage());
       // There will not be any rotation.
       Assert.assertEquals(bufferEvent.getOffset().getFilePos(), startPos);
-      startPos = startPos + Bytes.SIZEOF_INT + serializer.toBytes(bufferEvent.getLogEvent()).length;
+      startPos = startPos + 2 * Bytes.SIZEOF_INT + serializer.toBytes(bufferEvent.getLogEvent()).length;
     }
 
     // verify if the events were serialized and written correctly
@@ -93,6 +96,34 @@ public class LogBufferWriterTest {
     }
   }
 
+  @Test
+  public void testMemoryMappedWriter() throws Exception {
+    String streamPath = TMP_FOLDER.newFolder().getAbsolutePath();
+    String mappedPath = TMP_FOLDER.newFolder().getAbsolutePath();
+    ImmutableList<byte[]> events = getLoggingEvents();
+
+    LogBufferWriter streamWriter = new LogBufferWriter(streamPath, 250, () -> { });
+    Iterator<LogBufferEvent> streamEvents = streamWriter.write(events.iterator()).iterator();
+    streamWriter.close();
+
+    // Memory mapped writer should rotate at the same events and produce the same files as the stream writer
+    LogBufferWriter mappedWriter = new LogBufferWriter(mappedPath, 250, true, 0, () -> { });
+    Iterator<LogBufferEvent> mappedEvents = mappedWriter.write(events.iterator()).iterator();
+    mappedWriter.close();
+
+    while (streamEvents.hasNext()) {
+      Assert.assertEquals(streamEvents.next().getOffset(), mappedEvents.next().getOffset());
+    }
+    Assert.assertFalse(mappedEvents.hasNext());
+
+    File[] streamFiles = new File(streamPath).listFiles();
+    Assert.assertNotNull(streamFiles);
+    for (File streamFile : streamFiles) {
+      Assert.assertArrayEquals(Files.readAllBytes(streamFile.toPath()),
+                               Files.readAllBytes(new File(mappedPath, streamFile.getName()).toPath()));
+    }
+  }
+
   @Test (expected = IOException.class)
   public void testWritesOnClosedWriter() throws IOException {
     LogBufferWriter writer = new LogBufferWriter(TMP_FOLDER.newFolder().getAbsolutePath(), 100000, () -> { });
@@ -128,9 +159,13 @@ public class LogBufferWriterTest {
   }
 
   private ILoggingEvent getEvent(DataInputStream dis, int actualLen) throws IOException {
-    Assert.assertEquals(actualLen, dis.readInt());
+    Assert.assertEquals(-actualLen, dis.readInt());
+    int checksum = dis.readInt();
     byte[] eventBytes = new byte[actualLen];
     dis.read(eventBytes, 0, actualLen);
+    CRC32 crc = new CRC32();
+    crc.update(eventBytes);
+    Assert.assertEquals((int) crc.getValue(), checksum);
     return serializer.fromBytes(ByteBuffer.wrap(eventBytes));
   }
 }
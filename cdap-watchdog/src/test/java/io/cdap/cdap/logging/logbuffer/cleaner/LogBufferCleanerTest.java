@@ -30,6 +30,7 @@ import io.cdap.cdap.logging.logbuffer.LogBufferWriter;
 import io.cdap.cdap.logging.logbuffer.MockCheckpointManager;
 import io.cdap.cdap.logging.meta.Checkpoint;
 import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import org.junit.Assert;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -91,6 +92,27 @@ public class LogBufferCleanerTest {
 
   }
 
+  @Test
+  public void testShardCheckpoint() throws Exception {
+    String absolutePath = TMP_FOLDER.newFolder().getAbsolutePath();
+
+    MockCheckpointManager checkpointManager = new MockCheckpointManager();
+    // only shard 1 has persisted logs, checkpoint of shard 0 must not be used
+    checkpointManager.saveCheckpoints(ImmutableMap.of(1, new TestCheckpoint(2L, 0L, 1L)));
+
+    // write directly to log buffer, keep file size 10 bytes so that every event goes into its own file
+    LogBufferWriter writer = new LogBufferWriter(absolutePath, 10, () -> { });
+    writer.write(getLoggingEvents().subList(0, 3).iterator());
+    writer.close();
+
+    new LogBufferCleaner(ImmutableList.of(checkpointManager), absolutePath, 1, new AtomicBoolean(true)).run();
+
+    // should delete file 0 and 1 but not file 2
+    Assert.assertFalse(new File(absolutePath, "0.buf").exists());
+    Assert.assertFalse(new File(absolutePath, "1.buf").exists());
+    Assert.assertTrue(new File(absolutePath, "2.buf").exists());
+  }
+
   private ImmutableList<byte[]> getLoggingEvents() {
     WorkerLoggingContext loggingContext =
       new WorkerLoggingContext("default", "app1", "worker1", "run1", "instance1");
@@ -20,6 +20,8 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggingEvent;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.common.logging.LoggingContext;
 import io.cdap.cdap.logging.appender.LogMessage;
 import io.cdap.cdap.logging.context.WorkerLoggingContext;
@@ -32,10 +34,14 @@ import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.zip.CRC32;
 
 /**
  * Tests for {@link LogBufferReader}.
@@ -64,7 +70,7 @@ public class LogBufferReaderTest {
 
     // this should skip first and second event, this is because log buffer offsets are offset for event that is
     // already stored. so in this case, skip first event and skip second event as second event is the last stored event
-    reader = new LogBufferReader(absolutePath, 2, 3, 0, 145);
+    reader = new LogBufferReader(absolutePath, 2, 3, 0, 149);
     iterator = writtenEvents.iterator();
     iterator.next();
     iterator.next();
@@ -72,6 +78,81 @@ public class LogBufferReaderTest {
     reader.close();
   }
 
+  @Test
+  public void testMemoryMappedLogReader() throws Exception {
+    String absolutePath = TMP_FOLDER.newFolder().getAbsolutePath();
+
+    LogBufferWriter writer = new LogBufferWriter(absolutePath, 250, true, -1, () -> { });
+    ImmutableList<byte[]> events = getLoggingEvents();
+    Iterable<LogBufferEvent> writtenEvents = writer.write(events.iterator());
+    writer.sync();
+
+    // reads while the last file is still pre-allocated, which is the case when recovering after a crash
+    List<LogBufferEvent> logBufferEvents = new LinkedList<>();
+    try (LogBufferReader reader = new LogBufferReader(absolutePath, 2, 3, -1, -1)) {
+      verifyEvents(logBufferEvents, reader, writtenEvents.iterator());
+    }
+    writer.close();
+  }
+
+  @Test
+  public void testPartiallyWrittenEvent() throws Exception {
+    String absolutePath = TMP_FOLDER.newFolder().getAbsolutePath();
+
+    LogBufferWriter writer = new LogBufferWriter(absolutePath, 100000, () -> { });
+    ImmutableList<byte[]> events = getLoggingEvents();
+    List<LogBufferEvent> writtenEvents = Lists.newArrayList(writer.write(events.subList(0, 2).iterator()));
+    writer.close();
+
+    // an event with a valid length followed by zeros, as left in a pre-allocated file by a crash, followed by an
+    // event that is completely written
+    File file = new File(absolutePath, "0.buf");
+    try (DataOutputStream os = new DataOutputStream(new FileOutputStream(file, true))) {
+      os.writeInt(-events.get(2).length);
+      CRC32 crc = new CRC32();
+      crc.update(events.get(2));
+      os.writeInt((int) crc.getValue());
+      os.write(new byte[events.get(2).length]);
+      os.writeInt(-events.get(3).length);
+      crc = new CRC32();
+      crc.update(events.get(3));
+      os.writeInt((int) crc.getValue());
+      os.write(events.get(3));
+    }
+
+    // reading stops at the partially written event
+    List<LogBufferEvent> logBufferEvents = new LinkedList<>();
+    try (LogBufferReader reader = new LogBufferReader(absolutePath, 10, 0, -1, -1)) {
+      verifyEvents(logBufferEvents, reader, writtenEvents.iterator());
+    }
+  }
+
+  @Test
+  public void testEventsWithoutChecksum() throws Exception {
+    String absolutePath = TMP_FOLDER.newFolder().getAbsolutePath();
+
+    // events written by earlier versions only have the length before the event
+    ImmutableList<byte[]> events = getLoggingEvents();
+    try (DataOutputStream os = new DataOutputStream(new FileOutputStream(new File(absolutePath, "0.buf")))) {
+      for (byte[] event : events) {
+        os.writeInt(event.length);
+        os.write(event);
+      }
+    }
+
+    List<LogBufferEvent> logBufferEvents = new LinkedList<>();
+    try (LogBufferReader reader = new LogBufferReader(absolutePath, 10, 0, -1, -1)) {
+      Assert.assertEquals(events.size(), reader.readEvents(logBufferEvents));
+    }
+    long pos = 0;
+    for (int i = 0; i < events.size(); i++) {
+      LogBufferEvent event = logBufferEvents.get(i);
+      Assert.assertEquals(String.valueOf(i), event.getLogEvent().getMessage());
+      Assert.assertEquals(pos, event.getOffset().getFilePos());
+      pos += Bytes.SIZEOF_INT + events.get(i).length;
+    }
+  }
+
   private void verifyEvents(List<LogBufferEvent> logBufferEvents, LogBufferReader reader,
                             Iterator<LogBufferEvent> iterator) throws IOException {
     while (reader.readEvents(logBufferEvents) > 0) {